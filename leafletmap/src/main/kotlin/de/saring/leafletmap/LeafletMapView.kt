@@ -5,7 +5,9 @@ import javafx.scene.web.WebEngine
 import javafx.scene.web.WebView
 
 import java.net.URL
+import javafx.application.Platform
 import javafx.concurrent.Worker
+import netscape.javascript.JSObject
 import java.util.concurrent.CompletableFuture
 
 
@@ -24,6 +26,15 @@ open class LeafletMapView : StackPane() {
 
     private var varNameSuffix: Int = 1
 
+    /**
+     * Generation of the displayed tracks, it's incremented when the tracks are removed. The queued chunks of removed
+     * tracks are not appended anymore.
+     */
+    private var trackGeneration: Int = 0
+
+    /** The bridge for the map click events, a reference is needed, the WebEngine holds only a weak reference. */
+    private var mapClickBridge: MapClickBridge? = null
+
     /**
      * Creates the LeafletMapView component, it does not show any map yet.
      */
@@ -41,6 +52,7 @@ open class LeafletMapView : StackPane() {
      */
     fun displayMap(mapConfig: MapConfig): CompletableFuture<Worker.State> {
         val finalMapLoadState = CompletableFuture<Worker.State>()
+        trackGeneration++
 
         webEngine.loadWorker.stateProperty().addListener { _, _, newValue ->
 
@@ -80,7 +92,9 @@ open class LeafletMapView : StackPane() {
                 |});
                 |
                 |var attribution = myMap.attributionControl;
-                |attribution.setPrefix('Leaflet');""".trimMargin())
+                |attribution.setPrefix('Leaflet');
+                |
+                |myMap.on('zoomend', displayTrackLevels);""".trimMargin())
 
         // execute script for layer control definition if there are multiple layers
         if (mapConfig.layers.size > 1) {
@@ -168,37 +182,100 @@ open class LeafletMapView : StackPane() {
 
     /**
      * Draws a track path along the specified positions in the color red and zooms the map to fit the track perfectly.
+     * All positions are displayed on all zoom levels, see [addTrack] with a [TrackPyramid] for large tracks.
+     *
+     * @param positions list of track positions (must not be modified afterwards)
+     * @return variable name of the created track
+     */
+    fun addTrack(positions: List<LatLong>): String =
+            addTrack(TrackPyramid(positions, intArrayOf(0)))
+
+    /**
+     * Draws a track path along the positions of the specified track pyramid in the color red and zooms the map to fit
+     * the track perfectly. The map displays the track level matching the current zoom level.
+     *
+     * The positions are transferred to the map in encoded chunks, starting with the most simplified level. The first
+     * chunk is displayed immediately, the following chunks are appended later on the JavaFX application thread.
+     * So large tracks are displayed progressively without blocking the UI, a level is displayed when it's complete.
      *
-     * @param positions list of track positions
+     * @param trackPyramid the track pyramid containing the positions of all levels
      * @return variable name of the created track
      */
-    fun addTrack(positions: List<LatLong>): String {
+    fun addTrack(trackPyramid: TrackPyramid): String {
         val varName = "track${varNameSuffix++}"
 
-        val jsPositions = positions
-                .map { "    [${it.latitude}, ${it.longitude}]" }
-                .joinToString(", \n")
+        execScript("var $varName = L.polyline([], {color: 'red', weight: 2}).addTo(myMap);")
 
-        execScript("""
-            |var latLngs = [
-            |$jsPositions
-            |];
+        val allPositions = trackPyramid.levels.last().positions
+        if (allPositions.isNotEmpty()) {
+            fitBounds(allPositions)
+            appendTrackChunks(varName, trackPyramid, trackGeneration, 0, 0)
+        }
+        return varName
+    }
 
-            |var $varName = L.polyline(latLngs, {color: 'red', weight: 2}).addTo(myMap);
-            |myMap.fitBounds($varName.getBounds());""".trimMargin())
-        return varName;
+    private fun fitBounds(positions: List<LatLong>) {
+        val minLatitude = positions.minOf { it.latitude }
+        val maxLatitude = positions.maxOf { it.latitude }
+        val minLongitude = positions.minOf { it.longitude }
+        val maxLongitude = positions.maxOf { it.longitude }
+        execScript("myMap.fitBounds([[$minLatitude, $minLongitude], [$maxLatitude, $maxLongitude]]);")
+    }
+
+    private fun appendTrackChunks(
+            trackName: String, trackPyramid: TrackPyramid, generation: Int, levelIndex: Int, fromIndex: Int) {
+
+        // the track has been removed while the chunk was queued
+        if (generation != trackGeneration) {
+            return
+        }
+
+        val level = trackPyramid.levels[levelIndex]
+        val toIndex = minOf(fromIndex + TRACK_CHUNK_SIZE, level.positions.size)
+        val encodedPositions = PolylineEncoder.encode(level.positions.subList(fromIndex, toIndex))
+        val levelComplete = toIndex == level.positions.size
+
+        // pass the encoded positions as function parameter, so no huge script needs to be parsed
+        val window = execScript("window") as JSObject
+        window.call("appendTrackPositions", trackName, levelIndex, level.minZoom, encodedPositions, levelComplete)
+
+        if (!levelComplete) {
+            Platform.runLater { appendTrackChunks(trackName, trackPyramid, generation, levelIndex, toIndex) }
+        } else if (levelIndex < trackPyramid.levels.size - 1) {
+            Platform.runLater { appendTrackChunks(trackName, trackPyramid, generation, levelIndex + 1, 0) }
+        }
     }
 
     /**
-     * Remove all current markers and tracks from the displayed map.
+     * Sets the listener which will be called with the geographical position when the user clicks into the map, it
+     * replaces the previous listener. The map must be displayed before.
+     *
+     * @param listener the listener for the clicked position
+     */
+    fun setMapClickListener(listener: (LatLong) -> Unit) {
+        val clickHandlerRegistered = mapClickBridge != null
+        val bridge = MapClickBridge(listener)
+        mapClickBridge = bridge
+
+        (execScript("window") as JSObject).setMember("mapClickBridge", bridge)
+        if (!clickHandlerRegistered) {
+            execScript("myMap.on('click', function(e) { mapClickBridge.onMapClick(e.latlng.lat, e.latlng.lng); });")
+        }
+    }
+
+    /**
+     * Remove all current markers and tracks from the displayed map. The not yet transferred chunks of the tracks are
+     * discarded.
      */
     fun clearMarkersAndTracks() {
+        trackGeneration++
         execScript("""
             |for (i in myMap._layers) {
             |   if (myMap._layers[i] instanceof L.Marker || myMap._layers[i] instanceof L.Path) {
             |       myMap.removeLayer(myMap._layers[i]);
             |   }
-            |}""".trimMargin())
+            |}
+            |trackLevels = {};""".trimMargin())
     }
 
     /**
@@ -207,4 +284,24 @@ open class LeafletMapView : StackPane() {
      * @param script JavaScript code
      */
     protected fun execScript(script: String) = webEngine.executeScript(script)
+
+    /**
+     * Bridge object for forwarding the map click events from JavaScript. It needs to be public, the methods are
+     * called by the WebEngine via reflection.
+     */
+    class MapClickBridge internal constructor(private val listener: (LatLong) -> Unit) {
+
+        /**
+         * Called by the JavaScript map click handler.
+         *
+         * @param latitude latitude of the clicked position
+         * @param longitude longitude of the clicked position
+         */
+        fun onMapClick(latitude: Double, longitude: Double) = listener(LatLong(latitude, longitude))
+    }
+
+    private companion object {
+        /** Number of track positions to be transferred to the map at once. */
+        const val TRACK_CHUNK_SIZE = 5000
+    }
 }
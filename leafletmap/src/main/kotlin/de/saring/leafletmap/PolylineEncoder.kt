@@ -0,0 +1,48 @@
+package de.saring.leafletmap
+
+import kotlin.math.roundToLong
+
+/**
+ * Encoder of geo positions into the compact Encoded Polyline Algorithm Format (used by Google Maps and OSRM). The
+ * positions are encoded as deltas with a precision of 6 decimal places, each position needs only a few ASCII chars.
+ * The decoder is the JavaScript function decodePolyline() in leafletmap.html.
+ * Format description: https://developers.google.com/maps/documentation/utilities/polylinealgorithm
+ *
+ * @author Stefan Saring
+ */
+internal object PolylineEncoder {
+
+    private const val PRECISION_FACTOR = 1e6
+
+    /**
+     * Encodes the specified positions.
+     *
+     * @param positions list of positions to encode
+     * @return the encoded polyline string
+     */
+    fun encode(positions: List<LatLong>): String {
+        val sb = StringBuilder(positions.size * 10)
+        var previousLatitude = 0L
+        var previousLongitude = 0L
+
+        for (position in positions) {
+            val latitude = (position.latitude * PRECISION_FACTOR).roundToLong()
+            val longitude = (position.longitude * PRECISION_FACTOR).roundToLong()
+            encodeValue(sb, latitude - previousLatitude)
+            encodeValue(sb, longitude - previousLongitude)
+            previousLatitude = latitude
+            previousLongitude = longitude
+        }
+        return sb.toString()
+    }
+
+    private fun encodeValue(sb: StringBuilder, value: Long) {
+        // zigzag encoding of the sign, then 5-bit chunks starting with the least significant
+        var remaining = if (value < 0) (value shl 1).inv() else value shl 1
+        while (remaining >= 0x20) {
+            sb.append(((0x20 or (remaining and 0x1f).toInt()) + 63).toChar())
+            remaining = remaining shr 5
+        }
+        sb.append((remaining.toInt() + 63).toChar())
+    }
+}
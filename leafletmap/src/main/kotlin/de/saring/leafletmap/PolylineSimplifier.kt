@@ -0,0 +1,90 @@
+package de.saring.leafletmap
+
+import kotlin.math.PI
+import kotlin.math.cos
+import kotlin.math.sqrt
+
+/**
+ * Simplifier of polylines (e.g. tracks) by using the Douglas-Peucker algorithm. All positions which are closer to the
+ * simplified polyline than the tolerance are removed, the first and last position are always kept. The distances are
+ * computed in meters by an equirectangular projection, that's precise enough for the small tolerances of tracks.
+ *
+ * @author Stefan Saring
+ */
+internal object PolylineSimplifier {
+
+    private const val METERS_PER_DEGREE = 6378137.0 * PI / 180.0
+
+    /**
+     * Returns the simplified polyline of the specified positions.
+     *
+     * @param positions positions of the polyline
+     * @param tolerance max. distance of the removed positions to the simplified polyline (in meters)
+     * @return list of the kept positions
+     */
+    fun simplify(positions: List<LatLong>, tolerance: Double): List<LatLong> {
+        if (positions.size <= 2) {
+            return positions
+        }
+
+        // project all positions to meters relative to the first position
+        val longitudeScale = cos(positions[0].latitude * PI / 180.0)
+        val x = DoubleArray(positions.size) {
+            (positions[it].longitude - positions[0].longitude) * METERS_PER_DEGREE * longitudeScale
+        }
+        val y = DoubleArray(positions.size) { (positions[it].latitude - positions[0].latitude) * METERS_PER_DEGREE }
+
+        val kept = BooleanArray(positions.size)
+        kept[0] = true
+        kept[positions.size - 1] = true
+
+        // iterative implementation, a recursion could overflow the stack for large tracks
+        val rangeStack = ArrayDeque<Int>()
+        rangeStack.addLast(0)
+        rangeStack.addLast(positions.size - 1)
+
+        while (rangeStack.isNotEmpty()) {
+            val last = rangeStack.removeLast()
+            val first = rangeStack.removeLast()
+
+            var maxDistance = -1.0
+            var maxIndex = -1
+            for (index in first + 1 until last) {
+                val distance = getSegmentDistance(x, y, index, first, last)
+                if (distance > maxDistance) {
+                    maxDistance = distance
+                    maxIndex = index
+                }
+            }
+
+            if (maxIndex >= 0 && maxDistance > tolerance) {
+                kept[maxIndex] = true
+                rangeStack.addLast(first)
+                rangeStack.addLast(maxIndex)
+                rangeStack.addLast(maxIndex)
+                rangeStack.addLast(last)
+            }
+        }
+
+        return positions.filterIndexed { index, _ -> kept[index] }
+    }
+
+    /**
+     * Returns the distance of the point to the segment between the points of the first and last index.
+     */
+    private fun getSegmentDistance(x: DoubleArray, y: DoubleArray, index: Int, first: Int, last: Int): Double {
+        val segmentX = x[last] - x[first]
+        val segmentY = y[last] - y[first]
+        val segmentLengthSquared = segmentX * segmentX + segmentY * segmentY
+
+        // position of the nearest segment point (0 = first, 1 = last)
+        val t = if (segmentLengthSquared > 0)
+            (((x[index] - x[first]) * segmentX + (y[index] - y[first]) * segmentY) / segmentLengthSquared)
+                    .coerceIn(0.0, 1.0)
+        else 0.0
+
+        val deltaX = x[index] - (x[first] + t * segmentX)
+        val deltaY = y[index] - (y[first] + t * segmentY)
+        return sqrt(deltaX * deltaX + deltaY * deltaY)
+    }
+}
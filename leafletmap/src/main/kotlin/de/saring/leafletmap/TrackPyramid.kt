@@ -0,0 +1,58 @@
+package de.saring.leafletmap
+
+import kotlin.math.PI
+import kotlin.math.cos
+import kotlin.math.pow
+
+/**
+ * Multi-resolution representation of a track for displaying large tracks smoothly in the map. It contains
+ * simplified versions of the track for ranges of zoom levels, the simplification tolerance of each level is about
+ * one pixel at the highest zoom level of its range. The level of the highest zoom range contains all positions.
+ * The map displays the level matching its current zoom level.
+ *
+ * @param positions all positions of the track
+ * @param levelMinZooms the minimum zoom levels (ascending) of all track levels, the first must be 0
+ *
+ * @author Stefan Saring
+ */
+class TrackPyramid(
+        positions: List<LatLong>,
+        levelMinZooms: IntArray = DEFAULT_LEVEL_MIN_ZOOMS) {
+
+    /** The levels of this track, ordered by the minimum zoom level. */
+    val levels: List<Level>
+
+    init {
+        require(levelMinZooms.isNotEmpty() && levelMinZooms[0] == 0) { "The first level must start at zoom 0!" }
+
+        val averageLatitude = if (positions.isEmpty()) 0.0 else positions.sumOf { it.latitude } / positions.size
+        val metersPerPixelAtZoom0 = EQUATOR_METERS_PER_PIXEL * cos(averageLatitude * PI / 180.0)
+
+        // each level is simplified from the next detailed level, so only the first simplification uses all positions
+        val levelPositions = arrayOfNulls<List<LatLong>>(levelMinZooms.size)
+        levelPositions[levelMinZooms.size - 1] = positions
+        for (index in levelMinZooms.size - 2 downTo 0) {
+            val maxZoom = levelMinZooms[index + 1] - 1
+            val tolerance = metersPerPixelAtZoom0 / 2.0.pow(maxZoom)
+            levelPositions[index] = PolylineSimplifier.simplify(levelPositions[index + 1]!!, tolerance)
+        }
+
+        levels = levelMinZooms.mapIndexed { index, minZoom -> Level(minZoom, levelPositions[index]!!) }
+    }
+
+    /**
+     * Level of the track pyramid.
+     *
+     * @property minZoom the minimum zoom level for displaying this level
+     * @property positions the (simplified) positions of this level
+     */
+    class Level(val minZoom: Int, val positions: List<LatLong>)
+
+    companion object {
+        /** The default minimum zoom levels of the track levels. */
+        val DEFAULT_LEVEL_MIN_ZOOMS = intArrayOf(0, 8, 10, 12, 14, 16)
+
+        /** Size of a map pixel at the equator at zoom level 0 (in meters). */
+        private const val EQUATOR_METERS_PER_PIXEL = 156543.03
+    }
+}
@@ -0,0 +1,103 @@
+package de.saring.leafletmap
+
+import org.junit.jupiter.api.Assertions.assertEquals
+
+import org.junit.jupiter.api.Test
+
+/**
+ * This class contains all unit tests for the [PolylineEncoder] class.
+ *
+ * @author Stefan Saring
+ */
+class PolylineEncoderTest {
+
+    /** The positions of the reference example of the Google Encoded Polyline Algorithm Format documentation. */
+    private val googleExamplePositions = listOf(
+            LatLong(38.5, -120.2),
+            LatLong(40.7, -120.95),
+            LatLong(43.252, -126.453))
+
+    /**
+     * Tests the encoding of the Google reference example, the encoder uses a precision of 6 decimal places
+     * (instead of 5 in the Google documentation).
+     */
+    @Test
+    fun testEncodeGoogleExample() {
+        assertEquals("_izlhA~rlgdF_{geC~ywl@_kwzCn`{nI", PolylineEncoder.encode(googleExamplePositions))
+    }
+
+    /**
+     * Tests that the test decoder decodes the Google reference string (precision 5), so it can be used for
+     * verifying the encoder.
+     */
+    @Test
+    fun testDecodeGoogleExample() {
+        assertPositionsEquals(googleExamplePositions, decode("_p~iF~ps|U_ulLnnqC_mqNvxq`@", 1e5), 1e-5)
+    }
+
+    /**
+     * Tests that encoded positions are decoded to the original positions (with a precision of 6 decimal places).
+     */
+    @Test
+    fun testEncodeRoundTrip() {
+        val positions = listOf(
+                LatLong(51.0543, 13.7373),
+                LatLong(51.054412, 13.737586),
+                LatLong(51.054412, 13.737586),
+                LatLong(-33.868820, 151.209296),
+                LatLong(0.0, 0.0),
+                LatLong(-89.999999, -179.999999),
+                LatLong(89.999999, 179.999999))
+
+        assertPositionsEquals(positions, decode(PolylineEncoder.encode(positions), 1e6), 0.5e-6)
+    }
+
+    /**
+     * Tests the encoding of an empty and of a single position list.
+     */
+    @Test
+    fun testEncodeEmptyAndSinglePosition() {
+        assertEquals("", PolylineEncoder.encode(emptyList()))
+
+        val singlePosition = listOf(LatLong(51.0543, 13.7373))
+        assertPositionsEquals(singlePosition, decode(PolylineEncoder.encode(singlePosition), 1e6), 0.5e-6)
+    }
+
+    private fun assertPositionsEquals(expected: List<LatLong>, actual: List<LatLong>, delta: Double) {
+        assertEquals(expected.size, actual.size)
+        expected.zip(actual).forEach { (expectedPosition, actualPosition) ->
+            assertEquals(expectedPosition.latitude, actualPosition.latitude, delta)
+            assertEquals(expectedPosition.longitude, actualPosition.longitude, delta)
+        }
+    }
+
+    /**
+     * Decodes the encoded polyline string with the specified precision factor, it's the same algorithm as the
+     * JavaScript decoder in leafletmap.html.
+     */
+    private fun decode(encoded: String, factor: Double): List<LatLong> {
+        val positions = mutableListOf<LatLong>()
+        var index = 0
+        var latitude = 0L
+        var longitude = 0L
+
+        while (index < encoded.length) {
+            val deltas = LongArray(2)
+            for (i in 0..1) {
+                var shift = 0
+                var result = 0L
+                var b: Int
+                do {
+                    b = encoded[index++].code - 63
+                    result = result or ((b and 0x1f).toLong() shl shift)
+                    shift += 5
+                } while (b >= 0x20)
+                deltas[i] = if ((result and 1L) != 0L) (result shr 1).inv() else result shr 1
+            }
+            latitude += deltas[0]
+            longitude += deltas[1]
+            positions.add(LatLong(latitude / factor, longitude / factor))
+        }
+        return positions
+    }
+}
@@ -0,0 +1,68 @@
+package de.saring.leafletmap
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+
+import org.junit.jupiter.api.Test
+
+/**
+ * This class contains all unit tests for the [PolylineSimplifier] class.
+ *
+ * @author Stefan Saring
+ */
+class PolylineSimplifierTest {
+
+    /**
+     * Tests the simplification of an empty track and of tracks with one and two positions, they must be returned
+     * unchanged.
+     */
+    @Test
+    fun testSimplifyEmptyAndShortTracks() {
+        assertTrue(PolylineSimplifier.simplify(emptyList(), 10.0).isEmpty())
+
+        val singlePosition = listOf(LatLong(51.0, 13.0))
+        assertEquals(singlePosition, PolylineSimplifier.simplify(singlePosition, 10.0))
+
+        val twoPositions = listOf(LatLong(51.0, 13.0), LatLong(51.0, 13.0))
+        assertEquals(twoPositions, PolylineSimplifier.simplify(twoPositions, 10.0))
+    }
+
+    /**
+     * Tests the simplification of a straight track, only the first and last position must be kept.
+     */
+    @Test
+    fun testSimplifyStraightTrack() {
+        val positions = (0..10).map { LatLong(0.0, it * 0.001) }
+
+        assertEquals(listOf(positions.first(), positions.last()), PolylineSimplifier.simplify(positions, 0.1))
+    }
+
+    /**
+     * Tests that a position is only removed when its distance to the simplified track is not larger than the
+     * tolerance. The middle position is about 11.1 meters away from the straight line at the equator.
+     */
+    @Test
+    fun testSimplifyTolerance() {
+        val positions = listOf(LatLong(0.0, 0.0), LatLong(0.0001, 0.001), LatLong(0.0, 0.002))
+
+        assertEquals(positions, PolylineSimplifier.simplify(positions, 10.0))
+        assertEquals(listOf(positions[0], positions[2]), PolylineSimplifier.simplify(positions, 12.0))
+    }
+
+    /**
+     * Tests that the first and last position are always kept, even when all positions are within the tolerance.
+     * The kept positions must have the original order.
+     */
+    @Test
+    fun testSimplifyPreservesEndpoints() {
+        val positions = (0..100).map { LatLong(51.0 + it * 0.00001, 13.0 + (it % 2) * 0.00001) }
+
+        val simplified = PolylineSimplifier.simplify(positions, 1000.0)
+        assertEquals(listOf(positions.first(), positions.last()), simplified)
+
+        val detailed = PolylineSimplifier.simplify(positions, 0.1)
+        assertEquals(positions.first(), detailed.first())
+        assertEquals(positions.last(), detailed.last())
+        assertEquals(detailed.sortedBy { positions.indexOf(it) }, detailed)
+    }
+}
@@ -0,0 +1,72 @@
+package de.saring.leafletmap
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Assertions.assertTrue
+
+import org.junit.jupiter.api.Test
+
+/**
+ * This class contains all unit tests for the [TrackPyramid] class.
+ *
+ * @author Stefan Saring
+ */
+class TrackPyramidTest {
+
+    /**
+     * Tests the creation for an empty track, all levels must be empty.
+     */
+    @Test
+    fun testEmptyTrack() {
+        val pyramid = TrackPyramid(emptyList())
+
+        assertEquals(TrackPyramid.DEFAULT_LEVEL_MIN_ZOOMS.toList(), pyramid.levels.map { it.minZoom })
+        assertTrue(pyramid.levels.all { it.positions.isEmpty() })
+    }
+
+    /**
+     * Tests the creation for a track with a single position, all levels must contain this position.
+     */
+    @Test
+    fun testSinglePositionTrack() {
+        val positions = listOf(LatLong(51.0543, 13.7373))
+        val pyramid = TrackPyramid(positions)
+
+        assertEquals(TrackPyramid.DEFAULT_LEVEL_MIN_ZOOMS.size, pyramid.levels.size)
+        assertTrue(pyramid.levels.all { it.positions == positions })
+    }
+
+    /**
+     * Tests the creation for a zigzag track: the last level must contain all positions, the less detailed levels
+     * must not contain more positions than the next detailed level and all levels must keep the endpoints.
+     */
+    @Test
+    fun testLevels() {
+        val positions = (0..1000).map { LatLong(51.0 + it * 0.0001, 13.0 + (it % 10) * 0.00002 * it) }
+        val pyramid = TrackPyramid(positions)
+
+        assertSame(positions, pyramid.levels.last().positions)
+        assertTrue(pyramid.levels.first().positions.size < positions.size)
+
+        pyramid.levels.zipWithNext().forEach { (level, nextLevel) ->
+            assertTrue(level.positions.size <= nextLevel.positions.size)
+        }
+        pyramid.levels.forEach {
+            assertEquals(positions.first(), it.positions.first())
+            assertEquals(positions.last(), it.positions.last())
+        }
+    }
+
+    /**
+     * Tests the creation with custom level zoom ranges, the first level must start at zoom 0.
+     */
+    @Test
+    fun testLevelMinZooms() {
+        val positions = listOf(LatLong(51.0, 13.0), LatLong(51.1, 13.1))
+
+        assertEquals(listOf(0, 12), TrackPyramid(positions, intArrayOf(0, 12)).levels.map { it.minZoom })
+        assertThrows(IllegalArgumentException::class.java) { TrackPyramid(positions, intArrayOf(8, 12)) }
+        assertThrows(IllegalArgumentException::class.java) { TrackPyramid(positions, intArrayOf()) }
+    }
+}
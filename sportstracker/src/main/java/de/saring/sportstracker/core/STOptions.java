@@ -27,6 +27,10 @@ public class STOptions implements EVOptions, Serializable {
         Distance, AvgSpeed, Duration
     }
 
+    public enum DatabaseProfile {
+        Standard, Performance
+    }
+
     /** This is the initial view of the GUI (at startup). */
     private View initialView;
 
@@ -85,6 +89,12 @@ public class STOptions implements EVOptions, Serializable {
      */
     private String previousExerciseDirectory;
 
+    /**
+     * The performance profile of the database. The Standard profile is more robust, the Performance profile must not
+     * be used for databases on network drives.
+     */
+    private DatabaseProfile databaseProfile;
+
     /**
      * Creates an instance of STOptions filled with default values.
      */
@@ -104,6 +114,7 @@ public class STOptions implements EVOptions, Serializable {
         this.listViewShowEquipment = false;
         this.listViewShowComment = false;
         this.previousExerciseDirectory = null;
+        this.databaseProfile = DatabaseProfile.Standard;
     }
 
     public View getInitialView() {
@@ -229,5 +240,12 @@ public class STOptions implements EVOptions, Serializable {
     public void setPreviousExerciseDirectory(String previousExerciseDirectory) {
         this.previousExerciseDirectory = previousExerciseDirectory;
     }
-}
 
+    public DatabaseProfile getDatabaseProfile() {
+        return databaseProfile;
+    }
+
+    public void setDatabaseProfile(DatabaseProfile databaseProfile) {
+        this.databaseProfile = databaseProfile;
+    }
+}
@@ -4,6 +4,7 @@ import de.saring.sportstracker.data.Exercise.IntensityType;
 
 import java.time.LocalDate;
 import java.time.temporal.TemporalAdjusters;
+import java.util.Objects;
 
 /**
  * This class defines the criteria for filtering the entry list (e.g. for creation of statistics).
@@ -207,6 +208,57 @@ public final class EntryFilter {
         }
     }
 
+    /**
+     * Returns a copy of this filter with the same criteria. It can be used as an unmodifiable snapshot of the criteria,
+     * e.g. for caching filter results.
+     *
+     * @return the filter copy
+     */
+    public EntryFilter copy() {
+        EntryFilter copy = new EntryFilter();
+        copy.dateStart = this.dateStart;
+        copy.dateEnd = this.dateEnd;
+        copy.entryType = this.entryType;
+        copy.sportType = this.sportType;
+        copy.sportSubType = this.sportSubType;
+        copy.intensity = this.intensity;
+        copy.equipment = this.equipment;
+        copy.commentSubString = this.commentSubString;
+        copy.regularExpressionMode = this.regularExpressionMode;
+        return copy;
+    }
+
+    /**
+     * Compares the specified object with this filter. The filters are equal when all filter criteria are equal.
+     *
+     * @param o the object to compare with
+     * @return true when all filter criteria are equal
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EntryFilter other)) {
+            return false;
+        }
+        return Objects.equals(dateStart, other.dateStart)
+                && Objects.equals(dateEnd, other.dateEnd)
+                && entryType == other.entryType
+                && Objects.equals(sportType, other.sportType)
+                && Objects.equals(sportSubType, other.sportSubType)
+                && intensity == other.intensity
+                && Objects.equals(equipment, other.equipment)
+                && Objects.equals(commentSubString, other.commentSubString)
+                && regularExpressionMode == other.regularExpressionMode;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(dateStart, dateEnd, entryType, sportType, sportSubType, intensity, equipment,
+                commentSubString, regularExpressionMode);
+    }
+
     @Override
     public String toString() {
 
@@ -62,18 +62,29 @@ public class EntryList<T extends Entry> extends IdDateObjectList<T> {
             return false;
         }
 
-        // do we need to search in comments ?
-        if (!StringUtils.isNullOrEmpty(filter.getCommentSubString())) {
-            if (!filterEntryByComment(entry, filter)) {
-                return false;
-            }
+        // check the comment criteria (if present)
+        if (!isCommentMatching(entry, filter)) {
+            return false;
         }
 
         // all filter criteria are fulfilled
         return true;
     }
 
-    private boolean filterEntryByComment(Entry entry, EntryFilter filter) {
+    /**
+     * Checks whether the comment of the specified entry matches the comment criteria of the filter. The filtering by
+     * a comment substring is only case sensitive in regular expression mode.
+     *
+     * @param entry entry to check
+     * @param filter entry filter
+     * @return true if the filter matches or when the filter contains no comment criteria
+     * @throws PatternSyntaxException thrown on parsing problems of the regular expression for comment searching
+     */
+    public static boolean isCommentMatching(Entry entry, EntryFilter filter) throws PatternSyntaxException {
+
+        if (StringUtils.isNullOrEmpty(filter.getCommentSubString())) {
+            return true;
+        }
 
         // ignore this entry when no comment present
         if (StringUtils.isNullOrEmpty(entry.getComment())) {
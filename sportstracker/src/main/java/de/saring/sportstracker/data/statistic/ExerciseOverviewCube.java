@@ -0,0 +1,250 @@
+package de.saring.sportstracker.data.statistic;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import de.saring.sportstracker.data.Exercise;
+import de.saring.util.data.IdObject;
+
+/**
+ * This class contains the pre-aggregated values of exercises for the overview diagrams. The exercise values are summed
+ * up in buckets per sport type, sport subtype, equipment and time period. There are buckets for each day, month and
+ * year, so the sums for any date range can be calculated by adding just a few buckets (e.g. the full years and months
+ * of the date range and the remaining days).
+ * <br/>
+ * The cube can be updated incrementally when exercises were added, changed or removed. It stores the added values
+ * of each exercise, so changed exercise objects don't need to be known before their change.
+ *
+ * @author Stefan Saring
+ */
+public final class ExerciseOverviewCube {
+
+    /**
+     * Enumeration of all the summed up values of the buckets.
+     */
+    public enum Value {
+        COUNT, DISTANCE, DURATION, ASCENT, DESCENT, CALORIES
+    }
+
+    private static final int VALUE_COUNT = Value.values().length;
+
+    /**
+     * Filter for the sport type, sport subtype and equipment of the buckets, which needs to be summed up.
+     */
+    @FunctionalInterface
+    public interface DimensionFilter {
+
+        /**
+         * Checks whether the exercises with the specified IDs needs to be summed up.
+         *
+         * @param sportTypeId ID of the sport type (can be null)
+         * @param sportSubTypeId ID of the sport subtype (can be null)
+         * @param equipmentId ID of the equipment (null when no equipment is assigned)
+         * @return true when the bucket values needs to be summed up
+         */
+        boolean matches(Long sportTypeId, Long sportSubTypeId, Long equipmentId);
+    }
+
+    /** Buckets of the days, the key is the epoch day. */
+    private final Map<Long, List<Bucket>> dayBuckets = new HashMap<>();
+
+    /** Buckets of the months, the key is the month count since year 0. */
+    private final Map<Long, List<Bucket>> monthBuckets = new HashMap<>();
+
+    /** Buckets of the years, the key is the year. */
+    private final Map<Long, List<Bucket>> yearBuckets = new HashMap<>();
+
+    /** The values added for each exercise, the key is the exercise ID. */
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+
+    /**
+     * Creates an empty cube.
+     */
+    public ExerciseOverviewCube() {
+    }
+
+    /**
+     * Creates the cube for all the specified exercises.
+     *
+     * @param exercises the exercises to add
+     */
+    public ExerciseOverviewCube(final Iterable<Exercise> exercises) {
+        exercises.forEach(this::set);
+    }
+
+    /**
+     * Adds the values of the specified exercise to the cube. When values were added for an exercise with the same ID
+     * before, then they will be replaced.
+     *
+     * @param exercise the exercise to add
+     */
+    public void set(final Exercise exercise) {
+        removeByID(exercise.getId());
+
+        final double[] values = new double[VALUE_COUNT];
+        values[Value.COUNT.ordinal()] = 1;
+        values[Value.DISTANCE.ordinal()] = exercise.getDistance();
+        values[Value.DURATION.ordinal()] = exercise.getDuration();
+        values[Value.ASCENT.ordinal()] = exercise.getAscent() == null ? 0 : exercise.getAscent();
+        values[Value.DESCENT.ordinal()] = exercise.getDescent() == null ? 0 : exercise.getDescent();
+        values[Value.CALORIES.ordinal()] = exercise.getCalories() == null ? 0 : exercise.getCalories();
+
+        final Long sportTypeId = getId(exercise.getSportType());
+        final Long sportSubTypeId = getId(exercise.getSportSubType());
+        final Long equipmentId = getId(exercise.getEquipment());
+        final LocalDate date = exercise.getDateTime().toLocalDate();
+
+        final Bucket[] buckets = {
+                getOrCreateBucket(dayBuckets, date.toEpochDay(), sportTypeId, sportSubTypeId, equipmentId),
+                getOrCreateBucket(monthBuckets, getMonthKey(date), sportTypeId, sportSubTypeId, equipmentId),
+                getOrCreateBucket(yearBuckets, date.getYear(), sportTypeId, sportSubTypeId, equipmentId)};
+
+        for (Bucket bucket : buckets) {
+            bucket.add(values, 1);
+        }
+        contributions.put(exercise.getId(), new Contribution(date, buckets, values));
+    }
+
+    /**
+     * Removes the values of the exercise with the specified ID from the cube.
+     *
+     * @param exerciseId ID of the exercise
+     */
+    public void removeByID(final long exerciseId) {
+        final Contribution contribution = contributions.remove(exerciseId);
+        if (contribution == null) {
+            return;
+        }
+
+        final LocalDate date = contribution.date;
+        final long[] periodKeys = {date.toEpochDay(), getMonthKey(date), date.getYear()};
+        final List<Map<Long, List<Bucket>>> periodBuckets = List.of(dayBuckets, monthBuckets, yearBuckets);
+
+        for (int i = 0; i < periodKeys.length; i++) {
+            final Bucket bucket = contribution.buckets[i];
+            bucket.add(contribution.values, -1);
+
+            // remove empty buckets, so no rounding errors remain
+            if (bucket.sums[Value.COUNT.ordinal()] <= 0) {
+                final List<Bucket> buckets = periodBuckets.get(i).get(periodKeys[i]);
+                buckets.remove(bucket);
+                if (buckets.isEmpty()) {
+                    periodBuckets.get(i).remove(periodKeys[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the sums of all values of the exercises in the specified date range and for the specified
+     * sport type, subtype and equipment. The array index of the sums is the ordinal of {@link Value}.
+     *
+     * @param dateStart start date of the range (inclusive)
+     * @param dateEnd end date of the range (inclusive)
+     * @param filter filter of the buckets to be summed up
+     * @return array with the sums of all values
+     */
+    public double[] getSums(final LocalDate dateStart, final LocalDate dateEnd, final DimensionFilter filter) {
+        final double[] sums = new double[VALUE_COUNT];
+        final LocalDate dateEndExclusive = dateEnd.plusDays(1);
+
+        LocalDate date = dateStart;
+        while (date.isBefore(dateEndExclusive)) {
+            final LocalDate nextYear = date.plusYears(1);
+            final LocalDate nextMonth = date.plusMonths(1);
+
+            if (date.getDayOfYear() == 1 && !nextYear.isAfter(dateEndExclusive)) {
+                addBucketSums(sums, yearBuckets.get((long) date.getYear()), filter);
+                date = nextYear;
+            } else if (date.getDayOfMonth() == 1 && !nextMonth.isAfter(dateEndExclusive)) {
+                addBucketSums(sums, monthBuckets.get(getMonthKey(date)), filter);
+                date = nextMonth;
+            } else {
+                addBucketSums(sums, dayBuckets.get(date.toEpochDay()), filter);
+                date = date.plusDays(1);
+            }
+        }
+        return sums;
+    }
+
+    private static void addBucketSums(final double[] sums, final List<Bucket> buckets, final DimensionFilter filter) {
+        if (buckets != null) {
+            for (Bucket bucket : buckets) {
+                if (filter.matches(bucket.sportTypeId, bucket.sportSubTypeId, bucket.equipmentId)) {
+                    for (int i = 0; i < VALUE_COUNT; i++) {
+                        sums[i] += bucket.sums[i];
+                    }
+                }
+            }
+        }
+    }
+
+    private static Bucket getOrCreateBucket(final Map<Long, List<Bucket>> periodBuckets, final long periodKey,
+            final Long sportTypeId, final Long sportSubTypeId, final Long equipmentId) {
+
+        // there are only a few buckets per period, so a linear search is fast enough
+        final List<Bucket> buckets = periodBuckets.computeIfAbsent(periodKey, key -> new ArrayList<>(2));
+        for (Bucket bucket : buckets) {
+            if (Objects.equals(bucket.sportTypeId, sportTypeId)
+                    && Objects.equals(bucket.sportSubTypeId, sportSubTypeId)
+                    && Objects.equals(bucket.equipmentId, equipmentId)) {
+                return bucket;
+            }
+        }
+
+        final Bucket bucket = new Bucket(sportTypeId, sportSubTypeId, equipmentId);
+        buckets.add(bucket);
+        return bucket;
+    }
+
+    private static long getMonthKey(final LocalDate date) {
+        return date.getYear() * 12L + date.getMonthValue() - 1;
+    }
+
+    private static Long getId(final IdObject idObject) {
+        return idObject == null ? null : idObject.getId();
+    }
+
+    /**
+     * The summed up values of all exercises of a time period with the same sport type, subtype and equipment.
+     */
+    private static final class Bucket {
+
+        private final Long sportTypeId;
+        private final Long sportSubTypeId;
+        private final Long equipmentId;
+        private final double[] sums = new double[VALUE_COUNT];
+
+        private Bucket(final Long sportTypeId, final Long sportSubTypeId, final Long equipmentId) {
+            this.sportTypeId = sportTypeId;
+            this.sportSubTypeId = sportSubTypeId;
+            this.equipmentId = equipmentId;
+        }
+
+        private void add(final double[] values, final int sign) {
+            for (int i = 0; i < VALUE_COUNT; i++) {
+                sums[i] += sign * values[i];
+            }
+        }
+    }
+
+    /**
+     * The values of an exercise and the buckets (day, month and year) to which they were added.
+     */
+    private static final class Contribution {
+
+        private final LocalDate date;
+        private final Bucket[] buckets;
+        private final double[] values;
+
+        private Contribution(final LocalDate date, final Bucket[] buckets, final double[] values) {
+            this.date = date;
+            this.buckets = buckets;
+            this.values = values;
+        }
+    }
+}
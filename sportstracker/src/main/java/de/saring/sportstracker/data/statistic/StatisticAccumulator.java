@@ -0,0 +1,214 @@
+package de.saring.sportstracker.data.statistic;
+
+import java.util.stream.Collector;
+
+import de.saring.sportstracker.data.Exercise;
+
+/**
+ * This class accumulates the values of exercises for the statistic calculation. All statistic values (sum, minimum,
+ * maximum and average) are updated for each added exercise, so the exercises need to be processed only once.
+ * <br/>
+ * Accumulators can be merged, so they can be used for a parallel reduction of an exercise stream (see
+ * {@link #collector()}) or for combining the statistics of different groups of exercises (e.g. per month or per
+ * sport type).
+ *
+ * @author Stefan Saring
+ */
+public final class StatisticAccumulator {
+
+    private int exerciseCount = 0;
+
+    private double totalDistance = 0;
+    private double minDistance = Double.POSITIVE_INFINITY;
+    private double maxDistance = Double.NEGATIVE_INFINITY;
+
+    private double totalAvgSpeed = 0;
+    private double minAvgSpeed = Double.POSITIVE_INFINITY;
+    private double maxAvgSpeed = Double.NEGATIVE_INFINITY;
+
+    private long totalDuration = 0;
+    private int minDuration = Integer.MAX_VALUE;
+    private int maxDuration = Integer.MIN_VALUE;
+
+    // the values of the optional properties need to be counted separately
+
+    private final OptionalIntValues ascent = new OptionalIntValues();
+    private final OptionalIntValues descent = new OptionalIntValues();
+    private final OptionalIntValues avgHeartRate = new OptionalIntValues();
+    private final OptionalIntValues calories = new OptionalIntValues();
+
+    /**
+     * Adds the values of the specified exercise to this accumulator.
+     *
+     * @param exercise the exercise to add
+     */
+    public void add(final Exercise exercise) {
+        exerciseCount++;
+
+        final double distance = exercise.getDistance();
+        totalDistance += distance;
+        minDistance = Math.min(minDistance, distance);
+        maxDistance = Math.max(maxDistance, distance);
+
+        final double avgSpeed = exercise.getAvgSpeed();
+        totalAvgSpeed += avgSpeed;
+        minAvgSpeed = Math.min(minAvgSpeed, avgSpeed);
+        maxAvgSpeed = Math.max(maxAvgSpeed, avgSpeed);
+
+        final int duration = exercise.getDuration();
+        totalDuration += duration;
+        minDuration = Math.min(minDuration, duration);
+        maxDuration = Math.max(maxDuration, duration);
+
+        ascent.add(exercise.getAscent());
+        descent.add(exercise.getDescent());
+        avgHeartRate.add(exercise.getAvgHeartRate());
+        calories.add(exercise.getCalories());
+    }
+
+    /**
+     * Merges the values of the specified accumulator into this accumulator.
+     *
+     * @param other the accumulator to merge
+     * @return this accumulator
+     */
+    public StatisticAccumulator merge(final StatisticAccumulator other) {
+        exerciseCount += other.exerciseCount;
+
+        totalDistance += other.totalDistance;
+        minDistance = Math.min(minDistance, other.minDistance);
+        maxDistance = Math.max(maxDistance, other.maxDistance);
+
+        totalAvgSpeed += other.totalAvgSpeed;
+        minAvgSpeed = Math.min(minAvgSpeed, other.minAvgSpeed);
+        maxAvgSpeed = Math.max(maxAvgSpeed, other.maxAvgSpeed);
+
+        totalDuration += other.totalDuration;
+        minDuration = Math.min(minDuration, other.minDuration);
+        maxDuration = Math.max(maxDuration, other.maxDuration);
+
+        ascent.merge(other.ascent);
+        descent.merge(other.descent);
+        avgHeartRate.merge(other.avgHeartRate);
+        calories.merge(other.calories);
+        return this;
+    }
+
+    /**
+     * Returns a collector which accumulates the exercises of a (parallel) stream.
+     *
+     * @return the collector
+     */
+    public static Collector<Exercise, ?, StatisticAccumulator> collector() {
+        return Collector.of(StatisticAccumulator::new, StatisticAccumulator::add, StatisticAccumulator::merge,
+                Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    int getExerciseCount() {
+        return exerciseCount;
+    }
+
+    double getTotalDistance() {
+        return totalDistance;
+    }
+
+    double getMinDistance() {
+        return exerciseCount == 0 ? 0 : minDistance;
+    }
+
+    double getMaxDistance() {
+        return exerciseCount == 0 ? 0 : maxDistance;
+    }
+
+    double getAvgDistance() {
+        return exerciseCount == 0 ? 0 : totalDistance / exerciseCount;
+    }
+
+    double getMinAvgSpeed() {
+        return exerciseCount == 0 ? 0 : minAvgSpeed;
+    }
+
+    double getMaxAvgSpeed() {
+        return exerciseCount == 0 ? 0 : maxAvgSpeed;
+    }
+
+    double getAvgSpeed() {
+        return exerciseCount == 0 ? 0 : totalAvgSpeed / exerciseCount;
+    }
+
+    long getTotalDuration() {
+        return totalDuration;
+    }
+
+    int getMinDuration() {
+        return exerciseCount == 0 ? 0 : minDuration;
+    }
+
+    int getMaxDuration() {
+        return exerciseCount == 0 ? 0 : maxDuration;
+    }
+
+    double getAvgDuration() {
+        return exerciseCount == 0 ? 0 : (double) totalDuration / exerciseCount;
+    }
+
+    OptionalIntValues getAscent() {
+        return ascent;
+    }
+
+    OptionalIntValues getDescent() {
+        return descent;
+    }
+
+    OptionalIntValues getAvgHeartRate() {
+        return avgHeartRate;
+    }
+
+    OptionalIntValues getCalories() {
+        return calories;
+    }
+
+    /**
+     * Accumulator for the values of an optional exercise property, exercises without a value are ignored.
+     */
+    static final class OptionalIntValues {
+
+        private int count = 0;
+        private long total = 0;
+        private int min = Integer.MAX_VALUE;
+        private int max = Integer.MIN_VALUE;
+
+        private void add(final Integer value) {
+            if (value != null) {
+                final int intValue = value;
+                count++;
+                total += intValue;
+                min = Math.min(min, intValue);
+                max = Math.max(max, intValue);
+            }
+        }
+
+        private void merge(final OptionalIntValues other) {
+            count += other.count;
+            total += other.total;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+
+        long getTotal() {
+            return total;
+        }
+
+        int getMin() {
+            return count == 0 ? 0 : min;
+        }
+
+        int getMax() {
+            return count == 0 ? 0 : max;
+        }
+
+        double getAverage() {
+            return count == 0 ? 0 : (double) total / count;
+        }
+    }
+}
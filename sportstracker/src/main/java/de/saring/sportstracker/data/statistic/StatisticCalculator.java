@@ -155,158 +155,64 @@ public class StatisticCalculator {
      * @param exercises list of Exercise objects for statistic calculation
      */
     public StatisticCalculator(IdObjectList<Exercise> exercises) {
+        this(accumulate(exercises));
+    }
+
+    /**
+     * Creates a new StatisticCalculator instance for the exercise values of
+     * the specified accumulator, e.g. for a merged accumulator of multiple
+     * exercise groups. The results can be retrieved from the class properties.
+     *
+     * @param accumulator the accumulated exercise values
+     */
+    public StatisticCalculator(StatisticAccumulator accumulator) {
 
-        exerciseCount = exercises.size();
+        exerciseCount = accumulator.getExerciseCount();
         if (exerciseCount == 0) {
             return;
         }
 
-        // compute distance statistics
-        totalDistance = exercises.stream()
-                .mapToDouble(it -> it.getDistance())
-                .sum();
-
-        minDistance = (float) exercises.stream()
-                .mapToDouble(it -> it.getDistance())
-                .min()
-                .orElse(0);
-
-        maxDistance = (float) exercises.stream()
-                .mapToDouble(it -> it.getDistance())
-                .max()
-                .orElse(0);
-
-        avgDistance = (float) exercises.stream()
-                .mapToDouble(it -> it.getDistance())
-                .average()
-                .orElse(0);
-
-        // compute AVG speed statistics
-        minAvgSpeed = (float) exercises.stream()
-                .mapToDouble(it -> it.getAvgSpeed())
-                .min()
-                .orElse(0);
-
-        maxAvgSpeed = (float) exercises.stream()
-                .mapToDouble(it -> it.getAvgSpeed())
-                .max()
-                .orElse(0);
-
-        avgSpeed = (float) exercises.stream()
-                .mapToDouble(it -> it.getAvgSpeed())
-                .average()
-                .orElse(0);
-
-        // compute duration statistics
-        totalDuration = exercises.stream()
-                .mapToInt(it -> it.getDuration())
-                .sum();
-
-        minDuration = exercises.stream()
-                .mapToInt(it -> it.getDuration())
-                .min()
-                .orElse(0);
-
-        maxDuration = exercises.stream()
-                .mapToInt(it -> it.getDuration())
-                .max()
-                .orElse(0);
-
-        avgDuration = (int) exercises.stream()
-                .mapToInt(it -> it.getDuration())
-                .average()
-                .orElse(0);
-
-        // compute ascent statistics (optional values)
-        totalAscent = exercises.stream()
-                .filter(it -> it.getAscent() != null)
-                .mapToInt(it -> it.getAscent())
-                .sum();
-
-        minAscent = exercises.stream()
-                .filter(it -> it.getAscent() != null)
-                .mapToInt(it -> it.getAscent())
-                .min()
-                .orElse(0);
-
-        maxAscent = exercises.stream()
-                .filter(it -> it.getAscent() != null)
-                .mapToInt(it -> it.getAscent())
-                .max()
-                .orElse(0);
-
-        avgAscent = (int) exercises.stream()
-                .filter(it -> it.getAscent() != null)
-                .mapToInt(it -> it.getAscent())
-                .average()
-                .orElse(0);
-
-        // compute descent statistics (optional values)
-        totalDescent = exercises.stream()
-                .filter(it -> it.getDescent() != null)
-                .mapToInt(it -> it.getDescent())
-                .sum();
-
-        minDescent = exercises.stream()
-                .filter(it -> it.getDescent() != null)
-                .mapToInt(it -> it.getDescent())
-                .min()
-                .orElse(0);
-
-        maxDescent = exercises.stream()
-                .filter(it -> it.getDescent() != null)
-                .mapToInt(it -> it.getDescent())
-                .max()
-                .orElse(0);
-
-        avgDescent = (int) exercises.stream()
-                .filter(it -> it.getDescent() != null)
-                .mapToInt(it -> it.getDescent())
-                .average()
-                .orElse(0);
-
-        // compute AVG heartrate statistics (optional values)
-        minAvgHeartRate = exercises.stream()
-                .filter(it -> it.getAvgHeartRate() != null)
-                .mapToInt(it -> it.getAvgHeartRate())
-                .min()
-                .orElse(0);
-
-        maxAvgHeartRate = exercises.stream()
-                .filter(it -> it.getAvgHeartRate() != null)
-                .mapToInt(it -> it.getAvgHeartRate())
-                .max()
-                .orElse(0);
-
-        avgHeartRate = (int) exercises.stream()
-                .filter(it -> it.getAvgHeartRate() != null)
-                .mapToInt(it -> it.getAvgHeartRate())
-                .average()
-                .orElse(0);
-
-        // compute calories statistics (optional values)
-        totalCalories = exercises.stream()
-                .filter(it -> it.getCalories() != null)
-                .mapToInt(it -> it.getCalories())
-                .sum();
-
-        minCalories = exercises.stream()
-                .filter(it -> it.getCalories() != null)
-                .mapToInt(it -> it.getCalories())
-                .min()
-                .orElse(0);
-
-        maxCalories = exercises.stream()
-                .filter(it -> it.getCalories() != null)
-                .mapToInt(it -> it.getCalories())
-                .max()
-                .orElse(0);
-
-        avgCalories = (int) exercises.stream()
-                .filter(it -> it.getCalories() != null)
-                .mapToInt(it -> it.getCalories())
-                .average()
-                .orElse(0);
+        totalDistance = accumulator.getTotalDistance();
+        minDistance = (float) accumulator.getMinDistance();
+        maxDistance = (float) accumulator.getMaxDistance();
+        avgDistance = (float) accumulator.getAvgDistance();
+
+        minAvgSpeed = (float) accumulator.getMinAvgSpeed();
+        maxAvgSpeed = (float) accumulator.getMaxAvgSpeed();
+        avgSpeed = (float) accumulator.getAvgSpeed();
+
+        totalDuration = (int) accumulator.getTotalDuration();
+        minDuration = accumulator.getMinDuration();
+        maxDuration = accumulator.getMaxDuration();
+        avgDuration = (int) accumulator.getAvgDuration();
+
+        totalAscent = (int) accumulator.getAscent().getTotal();
+        minAscent = accumulator.getAscent().getMin();
+        maxAscent = accumulator.getAscent().getMax();
+        avgAscent = (int) accumulator.getAscent().getAverage();
+
+        totalDescent = (int) accumulator.getDescent().getTotal();
+        minDescent = accumulator.getDescent().getMin();
+        maxDescent = accumulator.getDescent().getMax();
+        avgDescent = (int) accumulator.getDescent().getAverage();
+
+        minAvgHeartRate = accumulator.getAvgHeartRate().getMin();
+        maxAvgHeartRate = accumulator.getAvgHeartRate().getMax();
+        avgHeartRate = (int) accumulator.getAvgHeartRate().getAverage();
+
+        totalCalories = (int) accumulator.getCalories().getTotal();
+        minCalories = accumulator.getCalories().getMin();
+        maxCalories = accumulator.getCalories().getMax();
+        avgCalories = (int) accumulator.getCalories().getAverage();
+    }
+
+    /**
+     * Accumulates the values of all specified exercises in a single pass.
+     */
+    private static StatisticAccumulator accumulate(IdObjectList<Exercise> exercises) {
+        final StatisticAccumulator accumulator = new StatisticAccumulator();
+        exercises.forEach(accumulator::add);
+        return accumulator;
     }
 
     public int getAvgAscent() {
@@ -0,0 +1,303 @@
+package de.saring.sportstracker.gui;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Checks the existence of the exercise files attached to the exercises. The files are often stored on network drives,
+ * so the checks are executed concurrently on virtual threads. The number of concurrent file system accesses is
+ * limited, so the file server is not flooded with requests.
+ * <p>
+ * The modification time and size of all found files are stored in a cache file, together with the modification time
+ * of their directories. When a directory was not modified since the previous check, then its cached files still
+ * exist (adding, removing or renaming a file modifies the directory) and they don't need to be accessed again. So
+ * for unchanged exercise files only their directories need to be checked.
+ *
+ * @author Stefan Saring
+ */
+final class ExerciseFileChecker {
+    private static final Logger LOGGER = Logger.getLogger(ExerciseFileChecker.class.getName());
+
+    /** Maximum number of concurrent file system accesses. */
+    static final int MAX_CONCURRENT_CHECKS = 16;
+
+    /**
+     * Directory modification times which are not older than this interval (in msec) at check time are not cached.
+     * Some file systems store the modification time in seconds only, so a later change in the same second would
+     * not be detected.
+     */
+    static final long MODIFICATION_TIME_GRANULARITY = 2000;
+
+    private static final String CACHE_HEADER = "# SportsTracker exercise file cache v1";
+    private static final String PREFIX_DIRECTORY = "D";
+    private static final String PREFIX_FILE = "F";
+
+    /** Path of the cache file. */
+    private final Path cacheFile;
+
+    /** Limits the number of concurrent file system accesses. */
+    private final Semaphore accessPermits = new Semaphore(MAX_CONCURRENT_CHECKS);
+
+    /**
+     * Creates the checker for the specified cache file.
+     *
+     * @param cacheFile path of the cache file (will be created when missing)
+     */
+    ExerciseFileChecker(final Path cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * Checks the existence of all specified exercise files and updates the cache afterwards. This method blocks until
+     * all files were checked, so it must not be called on the UI thread.
+     *
+     * @param exerciseFiles the paths of the exercise files to check
+     * @param missingFileListener is called for each missing file, as soon as it is detected (on a checking thread)
+     * @return the set of all missing files
+     */
+    Set<String> findMissingFiles(final Collection<String> exerciseFiles, final Consumer<String> missingFileListener) {
+
+        final long checkTime = System.currentTimeMillis();
+        final FileCache previousCache = readCache();
+
+        // resolve the directories of all distinct files (invalid paths can't exist)
+        final Set<String> missingFiles = ConcurrentHashMap.newKeySet();
+        final Map<String, Path> filePaths = new LinkedHashMap<>();
+        for (String exerciseFile : new LinkedHashSet<>(exerciseFiles)) {
+            final Path filePath = toAbsolutePath(exerciseFile);
+            if (filePath == null || filePath.getParent() == null) {
+                reportMissingFile(exerciseFile, missingFiles, missingFileListener);
+            } else {
+                filePaths.put(exerciseFile, filePath);
+            }
+        }
+
+        final Map<Path, DirectoryState> directoryStates = new ConcurrentHashMap<>();
+        final Map<String, CachedFile> foundFiles = new ConcurrentHashMap<>();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+
+            // 1. read the modification times of all directories, before the files are checked
+            // (so a file removed after its check will always modify the cached directory time)
+            final Map<Path, Long> directoryTimes = new ConcurrentHashMap<>();
+            filePaths.values().stream()
+                    .map(Path::getParent)
+                    .distinct()
+                    .map(directory -> executor.submit(() -> directoryStates.put(directory,
+                            readDirectoryState(directory, directoryTimes))))
+                    .toList()
+                    .forEach(this::awaitTask);
+
+            // 2. check all files, the cached files in unmodified directories don't need to be accessed
+            final List<Future<?>> fileTasks = new ArrayList<>();
+            filePaths.forEach((exerciseFile, filePath) -> {
+                final Path directory = filePath.getParent();
+                final DirectoryState directoryState = directoryStates.get(directory);
+                final CachedFile cachedFile = previousCache.files().get(filePath.toString());
+
+                if (directoryState == DirectoryState.MISSING) {
+                    reportMissingFile(exerciseFile, missingFiles, missingFileListener);
+                } else if (cachedFile != null && directoryState == DirectoryState.EXISTING && directoryTimes
+                        .get(directory).equals(previousCache.directories().get(directory.toString()))) {
+                    foundFiles.put(filePath.toString(), cachedFile);
+                } else {
+                    fileTasks.add(executor.submit(() -> {
+                        final CachedFile foundFile = readFileAttributes(filePath);
+                        if (foundFile == null) {
+                            reportMissingFile(exerciseFile, missingFiles, missingFileListener);
+                        } else {
+                            foundFiles.put(filePath.toString(), foundFile);
+                        }
+                    }));
+                }
+            });
+            fileTasks.forEach(this::awaitTask);
+
+            // create the new cache for all found files in directories with a reliable modification time
+            final Map<String, Long> cachedDirectories = new HashMap<>();
+            directoryTimes.forEach((directory, modificationTime) -> {
+                if (checkTime - modificationTime > MODIFICATION_TIME_GRANULARITY) {
+                    cachedDirectories.put(directory.toString(), modificationTime);
+                }
+            });
+
+            final Map<String, CachedFile> cachedFiles = new HashMap<>();
+            foundFiles.forEach((file, cachedFile) -> {
+                final Path parent = Path.of(file).getParent();
+                if (cachedDirectories.containsKey(parent.toString())) {
+                    cachedFiles.put(file, cachedFile);
+                }
+            });
+
+            final FileCache newCache = new FileCache(cachedDirectories, cachedFiles);
+            if (!newCache.equals(previousCache)) {
+                writeCache(newCache);
+            }
+        }
+
+        LOGGER.info("Checked " + filePaths.size() + " exercise files in " + (System.currentTimeMillis() - checkTime)
+                + " msec, " + missingFiles.size() + " files are missing");
+        return missingFiles;
+    }
+
+    private static Path toAbsolutePath(final String exerciseFile) {
+        try {
+            return Path.of(exerciseFile).toAbsolutePath();
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    private static void reportMissingFile(final String exerciseFile, final Set<String> missingFiles,
+            final Consumer<String> missingFileListener) {
+        missingFiles.add(exerciseFile);
+        missingFileListener.accept(exerciseFile);
+    }
+
+    private void awaitTask(final Future<?> task) {
+        try {
+            task.get();
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to check the exercise files!", e);
+        }
+    }
+
+    /**
+     * Reads the state of the specified directory, the modification time of existing directories is stored in the
+     * passed map.
+     */
+    private DirectoryState readDirectoryState(final Path directory, final Map<Path, Long> directoryTimes) {
+        accessPermits.acquireUninterruptibly();
+        try {
+            directoryTimes.put(directory, Files.getLastModifiedTime(directory).toMillis());
+            return DirectoryState.EXISTING;
+        } catch (NoSuchFileException e) {
+            return DirectoryState.MISSING;
+        } catch (IOException e) {
+            // the files of this directory need to be checked separately
+            LOGGER.log(Level.FINE, "Failed to read the directory '" + directory + "'!", e);
+            return DirectoryState.UNKNOWN;
+        } finally {
+            accessPermits.release();
+        }
+    }
+
+    /**
+     * Reads the attributes of the specified file, returns null when the file does not exist.
+     */
+    private CachedFile readFileAttributes(final Path file) {
+        accessPermits.acquireUninterruptibly();
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return new CachedFile(attributes.lastModifiedTime().toMillis(), attributes.size());
+        } catch (IOException e) {
+            return null;
+        } finally {
+            accessPermits.release();
+        }
+    }
+
+    /**
+     * Reads the cache file, an empty cache is returned when the file is missing or not valid.
+     */
+    private FileCache readCache() {
+        final Map<String, Long> directories = new HashMap<>();
+        final Map<String, CachedFile> files = new HashMap<>();
+
+        if (Files.exists(cacheFile)) {
+            try {
+                final List<String> lines = Files.readAllLines(cacheFile, StandardCharsets.UTF_8);
+                if (!lines.isEmpty() && CACHE_HEADER.equals(lines.get(0))) {
+                    for (String line : lines.subList(1, lines.size())) {
+                        // the path is the last part, so it can contain the separator character
+                        final String[] parts = line.split("\t", line.startsWith(PREFIX_FILE) ? 4 : 3);
+                        if (parts.length == 3 && PREFIX_DIRECTORY.equals(parts[0])) {
+                            directories.put(parts[2], Long.parseLong(parts[1]));
+                        } else if (parts.length == 4 && PREFIX_FILE.equals(parts[0])) {
+                            files.put(parts[3], new CachedFile(Long.parseLong(parts[1]), Long.parseLong(parts[2])));
+                        }
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to read the exercise file cache '" + cacheFile + "'!", e);
+                directories.clear();
+                files.clear();
+            }
+        }
+        return new FileCache(directories, files);
+    }
+
+    /**
+     * Writes the cache to a temporary file, which replaces the cache file afterwards. So the cache file is always
+     * complete, also when the application gets terminated while writing.
+     */
+    private void writeCache(final FileCache cache) {
+        final List<String> lines = new ArrayList<>();
+        lines.add(CACHE_HEADER);
+        cache.directories().forEach((directory, modificationTime) -> {
+            if (isStorablePath(directory)) {
+                lines.add(PREFIX_DIRECTORY + "\t" + modificationTime + "\t" + directory);
+            }
+        });
+        cache.files().forEach((file, cachedFile) -> {
+            if (isStorablePath(file)) {
+                lines.add(PREFIX_FILE + "\t" + cachedFile.lastModified() + "\t" + cachedFile.size() + "\t" + file);
+            }
+        });
+
+        try {
+            final Path tempFile = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+            Files.write(tempFile, lines, StandardCharsets.UTF_8);
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to write the exercise file cache '" + cacheFile + "'!", e);
+        }
+    }
+
+    private static boolean isStorablePath(final String path) {
+        return path.indexOf('\n') < 0 && path.indexOf('\r') < 0;
+    }
+
+    private enum DirectoryState {
+        EXISTING, MISSING, UNKNOWN
+    }
+
+    /**
+     * Cached attributes of an existing exercise file.
+     *
+     * @param lastModified modification time in msec
+     * @param size size in bytes
+     */
+    record CachedFile(long lastModified, long size) {
+    }
+
+    /**
+     * Content of the cache file.
+     *
+     * @param directories modification times of the directories, the key is the directory path
+     * @param files attributes of the existing files, the key is the file path
+     */
+    private record FileCache(Map<String, Long> directories, Map<String, CachedFile> files) {
+    }
+}
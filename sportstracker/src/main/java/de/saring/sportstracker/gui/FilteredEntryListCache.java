@@ -0,0 +1,73 @@
+package de.saring.sportstracker.gui;
+
+import java.util.function.BiFunction;
+
+import de.saring.sportstracker.data.Entry;
+import de.saring.sportstracker.data.EntryFilter;
+import de.saring.sportstracker.data.EntryList;
+
+/**
+ * Cache for the filtered entries of an EntryList. The filter result will be reused as long as the filter criteria
+ * and the content of the filtered list are not changed, so repeated queries (e.g. by all cells of the calendar view)
+ * don't need to filter the complete list again.
+ *
+ * @param <T> the type of the cached entries
+ * @author Stefan Saring
+ */
+final class FilteredEntryListCache<T extends Entry> {
+
+    /** The function which filters the list, it's called when there is no valid cached result. */
+    private final BiFunction<EntryList<T>, EntryFilter, EntryList<T>> listFilter;
+
+    /** The filtered list of the cached result. */
+    private EntryList<T> sourceList;
+
+    /** Modification count of the filtered list when the result was cached. */
+    private long sourceModificationCount;
+
+    /** Snapshot of the filter criteria of the cached result. */
+    private EntryFilter filter;
+
+    /** The cached filter result, null when there is no valid result. */
+    private EntryList<T> filteredList;
+
+    /**
+     * Creates the cache for the filter results of the specified filter function.
+     *
+     * @param listFilter the function which returns the entries of the passed list matching the passed filter
+     */
+    FilteredEntryListCache(final BiFunction<EntryList<T>, EntryFilter, EntryList<T>> listFilter) {
+        this.listFilter = listFilter;
+    }
+
+    /**
+     * Returns the entries of the specified list which are matching the specified filter. The cached result will be
+     * returned when the list and the filter criteria were not modified since the previous call.
+     *
+     * @param list the list to filter
+     * @param filter the filter criteria
+     * @return the filtered list
+     */
+    EntryList<T> getEntriesForFilter(final EntryList<T> list, final EntryFilter filter) {
+        if (filteredList == null
+                || sourceList != list
+                || sourceModificationCount != list.getModificationCount()
+                || !this.filter.equals(filter)) {
+
+            filteredList = listFilter.apply(list, filter);
+            sourceList = list;
+            sourceModificationCount = list.getModificationCount();
+            this.filter = filter.copy();
+        }
+        return filteredList;
+    }
+
+    /**
+     * Removes the cached filter result.
+     */
+    void invalidate() {
+        filteredList = null;
+        sourceList = null;
+        filter = null;
+    }
+}
@@ -1,10 +1,12 @@
 package de.saring.sportstracker.gui;
 
+import java.nio.file.Paths;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import de.saring.exerciseviewer.core.EVOptions;
 import de.saring.exerciseviewer.gui.EVContext;
+import de.saring.exerciseviewer.parser.ExerciseParserFactory;
 import de.saring.sportstracker.core.STException;
 import de.saring.sportstracker.gui.update.STUpdateChecker;
 import de.saring.util.gui.javafx.WindowBoundsPersistence;
@@ -24,6 +26,9 @@ public class STApplication extends Application {
 
     private static final Logger LOGGER = Logger.getLogger(STApplication.class.getName());
 
+    /** Name of the persistent exercise cache directory in the data directory. */
+    private static final String DIRECTORY_EXERCISE_CACHE = "exercise-cache";
+
     private STDocument document;
     private STContext context;
     private STController controller;
@@ -31,8 +36,12 @@ public class STApplication extends Application {
 
     private Stage primaryStage;
 
+    /** Start time of the main window setup in msec. */
+    private long windowStartTime;
+
     @Override
     public void init() throws Exception {
+        final long startTime = System.currentTimeMillis();
 
         // setup EasyDI for dependency injection
         var easyDI = new EasyDI();
@@ -47,6 +56,10 @@ public class STApplication extends Application {
         document.evaluateCommandLineParameters(getParameters().getRaw());
         document.loadOptions();
 
+        // the parsed exercise files are cached persistently in the data directory
+        ExerciseParserFactory.INSTANCE.setPersistentCacheDirectory(
+                Paths.get(document.getDataDirectory(), DIRECTORY_EXERCISE_CACHE));
+
         var options = document.getOptions();
         easyDI.bindInstance(EVOptions.class, options);
 
@@ -56,11 +69,14 @@ public class STApplication extends Application {
 
         controller = easyDI.getInstance(STController.class);
         updateChecker = easyDI.getInstance(STUpdateChecker.class);
+
+        StartupTrace.logPhase("initialization", startTime);
     }
 
     @Override
     public void start(final Stage primaryStage) throws Exception {
         this.primaryStage = primaryStage;
+        windowStartTime = System.currentTimeMillis();
         WindowBoundsPersistence.addWindowBoundsPersistence(primaryStage, "SportsTracker");
 
         // initialize and start the main application window
@@ -94,6 +110,7 @@ public class STApplication extends Application {
      * @param event window event
      */
     private void onShown(final WindowEvent event) {
+        StartupTrace.logPhase("main window display", windowStartTime);
 
         // create application directory
         try {
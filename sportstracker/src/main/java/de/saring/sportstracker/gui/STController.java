@@ -130,7 +130,8 @@ public interface STController extends EntryViewEventHandler {
     boolean checkForExistingExercises();
 
     /**
-     * Updates the complete view to show the current application data.
+     * Updates the complete view to show the current application data. Only the displayed entry view gets updated
+     * immediately, the hidden entry views will be updated when they get displayed next time.
      */
     void updateView();
 }
@@ -6,14 +6,19 @@ import java.text.MessageFormat;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import de.saring.sportstracker.core.STException;
 import de.saring.sportstracker.data.EntryFilter;
 import de.saring.sportstracker.storage.db.AbstractRepository;
+import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.concurrent.Task;
@@ -34,6 +39,7 @@ import javafx.stage.Stage;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 
+import de.saring.exerciseviewer.parser.ExerciseParserFactory;
 import de.saring.sportstracker.core.STOptions;
 import de.saring.sportstracker.data.Exercise;
 import de.saring.sportstracker.data.Note;
@@ -70,6 +76,9 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
 
     private static final String URL_PROJECT_WEBSITE = "https://www.saring.de/sportstracker";
 
+    /** Number of prefetched exercise files before and after the selected exercise. */
+    private static final int PREFETCH_NEIGHBOUR_COUNT = 2;
+
     private final STContext context;
     private final STDocument document;
 
@@ -83,6 +92,13 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
     /** The controller of the currently displayed view. */
     private EntryViewController currentViewController;
 
+    /** The views whose content has been set up already, each view gets set up when it's displayed first. */
+    private final Set<EntryViewController.ViewType> initializedViews =
+            EnumSet.noneOf(EntryViewController.ViewType.class);
+
+    /** The hidden views which need to be updated before next display, the data has been changed since. */
+    private final Set<EntryViewController.ViewType> dirtyViews = EnumSet.noneOf(EntryViewController.ViewType.class);
+
     // list of all menu items
     @FXML
     private MenuItem miSave;
@@ -200,6 +216,7 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
 
     @Override
     public void initApplicationWindow() throws IOException {
+        final long startTime = System.currentTimeMillis();
         final Stage primaryStage = this.context.getPrimaryStage();
 
         final Parent root = FxmlLoader.load(STController.class.getResource("/fxml/SportsTracker.fxml"), //
@@ -222,15 +239,9 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
         setupActionBindings();
         setupMacSpecificUI();
 
-        // setup all views
-        calendarViewController.initAndSetupViewContent(this);
-        exerciseListViewController.initAndSetupViewContent(this);
-        noteListViewController.initAndSetupViewContent(this);
-        weightListViewController.initAndSetupViewContent(this);
-
         statusBarController.setStatusBar(laStatusBar);
 
-        // set initial view
+        // set initial view (the other views will be set up when they are displayed first)
         if (document.getOptions().getInitialView() == STOptions.View.Calendar) {
             switchToView(EntryViewController.ViewType.CALENDAR);
         } else {
@@ -242,6 +253,8 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
             event.consume();
             saveChangesAndExitApplication();
         });
+
+        StartupTrace.logPhase("main window setup", startTime);
     }
 
     @Override
@@ -372,9 +385,7 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
             if (result.isPresent() && result.get() == ButtonType.OK) {
                 // finally remove the entries
                 try {
-                    for (long id : selectedEntryIDs) {
-                        repository.delete(id);
-                    }
+                    repository.deleteAll(selectedEntryIDs);
                     document.updateApplicationData(null);
                 } catch (STException e) {
                     LOGGER.log(Level.SEVERE, "Failed to delete the selected entries!", e);
@@ -577,18 +588,66 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
 
     @Override
     public void updateView() {
-        // update format utils in context (setting may have changed)
-        final STOptions options = document.getOptions();
-        context.setFormatUtils(new FormatUtils(options.getUnitSystem()));
+        // the hidden views will be updated when they get displayed next time
+        dirtyViews.addAll(initializedViews);
+        dirtyViews.remove(currentViewController.getViewType());
 
-        currentViewController.updateView();
-        updateActionsAndStatusBar();
+        updateCurrentView();
     }
 
     @Override
     public void updateActionsAndStatusBar() {
         updateActionStatus();
         statusBarController.updateStatusBar(currentViewController.getSelectedExerciseIDs());
+        prefetchExerciseFiles();
+    }
+
+    /**
+     * Prefetches the attached files of the selected exercise and of its neighbour exercises (in the order displayed
+     * in the current view) in background, so they can be displayed in ExerciseViewer or imported without parsing delay.
+     */
+    private void prefetchExerciseFiles() {
+        final long[] selectedExerciseIDs = currentViewController.getSelectedExerciseIDs();
+        if (selectedExerciseIDs == null || selectedExerciseIDs.length != 1) {
+            return;
+        }
+
+        final List<Exercise> exercises = currentViewController.getDisplayedExercises();
+        final int selectedIndex = indexOfExercise(exercises, selectedExerciseIDs[0]);
+        if (selectedIndex < 0) {
+            return;
+        }
+
+        // the files of the exercises closest to the selected exercise will be prefetched first
+        final List<String> hrmFiles = new ArrayList<>();
+        for (int distance = 0; distance <= PREFETCH_NEIGHBOUR_COUNT; distance++) {
+            addHrmFileOfExercise(exercises, selectedIndex - distance, hrmFiles);
+            if (distance > 0) {
+                addHrmFileOfExercise(exercises, selectedIndex + distance, hrmFiles);
+            }
+        }
+
+        if (!hrmFiles.isEmpty()) {
+            ExerciseParserFactory.INSTANCE.prefetchExercises(hrmFiles);
+        }
+    }
+
+    private int indexOfExercise(final List<Exercise> exercises, final long exerciseId) {
+        for (int i = 0; i < exercises.size(); i++) {
+            if (exercises.get(i).getId() == exerciseId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void addHrmFileOfExercise(final List<Exercise> exercises, final int index, final List<String> hrmFiles) {
+        if (index >= 0 && index < exercises.size()) {
+            final String hrmFile = StringUtils.getTrimmedTextOrNull(exercises.get(index).getHrmFile());
+            if (hrmFile != null) {
+                hrmFiles.add(hrmFile);
+            }
+        }
     }
 
     /**
@@ -761,16 +820,29 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
      * object in the current view, if specified.
      */
     private void registerListenerForDataChanges() {
-        document.registerChangeListener(changedObject -> {
+        document.registerChangeListener(changeEvent -> {
             updateView();
-            if (changedObject != null) {
-                currentViewController.selectEntry(changedObject);
+            if (changeEvent.getChangedObject() != null) {
+                currentViewController.selectEntry(changeEvent.getChangedObject());
             }
         });
     }
 
     /**
-     * Switches the view to the specified exercise view type.
+     * Updates the content of the currently displayed view only.
+     */
+    private void updateCurrentView() {
+        // update format utils in context (setting may have changed)
+        final STOptions options = document.getOptions();
+        context.setFormatUtils(new FormatUtils(options.getUnitSystem()));
+
+        currentViewController.updateView();
+        updateActionsAndStatusBar();
+    }
+
+    /**
+     * Switches the view to the specified exercise view type. The view content gets set up when the view is
+     * displayed first, it gets only updated when the data has been changed since the previous display.
      *
      * @param viewType the exercise view type to display
      */
@@ -785,9 +857,20 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
             default -> throw new IllegalArgumentException("Invalid ViewType " + viewType + "!");
         };
 
-        // update and display the new view
+        if (initializedViews.add(viewType)) {
+            final long startTime = System.currentTimeMillis();
+            currentViewController.initAndSetupViewContent(this);
+            dirtyViews.add(viewType);
+            LOGGER.fine("Set up view " + viewType + " in " + (System.currentTimeMillis() - startTime) + " msec");
+        }
+
+        // update (only when needed) and display the new view
         currentViewController.removeSelection();
-        updateView();
+        if (dirtyViews.remove(viewType)) {
+            updateCurrentView();
+        } else {
+            updateActionsAndStatusBar();
+        }
         spViews.getChildren().setAll(currentViewController.getRootNode());
 
         // trigger a garbage collection after view change to avoid allocation of additional heap space
@@ -896,19 +979,31 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
         dialogProvider.prWeightDialogController.get().show(context.getPrimaryStage(), copiedWeight);
     }
 
+    /**
+     * Checks the existence of all attached exercise files in background. A warning dialog is displayed for the
+     * first exercise with a missing file, the subsequently detected exercises are added to the displayed dialog.
+     */
+    private void checkExerciseFiles() {
+        final var missingFilesDialog = new MissingExerciseFilesDialog();
+        document.checkExerciseFiles(exercise -> Platform.runLater(() -> missingFilesDialog.addExercise(exercise)))
+                .exceptionally(e -> {
+                    LOGGER.log(Level.WARNING, "Failed to check the attached exercise files!", e);
+                    return null;
+                });
+    }
+
     /**
      * This class executes the loading action inside a background task without blocking the UI thread.
-     * It also checks the existence of all attached exercise files.
+     * The existence of all attached exercise files is checked afterwards, when the UI is not blocked anymore.
      */
     private class LoadTask extends Task<Void> {
 
-        private List<Exercise> corruptExercises;
-
         @Override
         protected Void call() throws Exception {
             LOGGER.info("Loading application data...");
+            final long startTime = System.currentTimeMillis();
             document.readApplicationData();
-            corruptExercises = document.checkExerciseFiles();
+            StartupTrace.logPhase("data loading", startTime);
             return null;
         }
 
@@ -917,11 +1012,14 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
             super.succeeded();
             context.blockMainWindow(false);
 
+            final long startTime = System.currentTimeMillis();
             updateView();
+            StartupTrace.logPhase("view update", startTime);
+
             // listener must be registered after loading data, because new lists are created
             registerListenerForDataChanges();
 
-            displayCorruptExercises();
+            checkExerciseFiles();
             addInitialSportTypesIfMissing();
         }
 
@@ -935,26 +1033,59 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
                     "common.error", "st.main.error.open_load_data");
             exitApplication();
         }
+    }
+
+    /**
+     * Warning dialog for the exercises with missing exercise files. The non-blocking dialog gets displayed when the
+     * first exercise is added, the displayed list gets updated for each further exercise. All methods must be called
+     * on the UI thread.
+     */
+    private class MissingExerciseFilesDialog {
 
-        private void displayCorruptExercises() {
-            if (corruptExercises != null && !corruptExercises.isEmpty()) {
+        /** Maximum number of listed exercises, the list would be too long otherwise. */
+        private static final int MAX_LISTED_EXERCISES = 16;
 
-                final StringBuilder sb = new StringBuilder();
-                final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM);
+        private final List<Exercise> exercises = new ArrayList<>();
+        private Alert alert;
 
-                for (int i = 0; i < corruptExercises.size(); i++) {
-                    if (i > 15) {
-                        sb.append("...\n");
-                        break;
-                    }
+        /**
+         * Adds the specified exercise to the dialog, the dialog will be shown when it is not displayed yet.
+         *
+         * @param exercise the exercise with missing file
+         */
+        void addExercise(final Exercise exercise) {
+            exercises.add(exercise);
+
+            if (alert == null) {
+                alert = new Alert(Alert.AlertType.WARNING);
+                alert.initOwner(context.getPrimaryStage());
+                alert.setTitle(context.getResources().getString("common.warning"));
+                alert.setHeaderText(null);
+                alert.setContentText(createMessage());
+                alert.show();
+            } else {
+                alert.setContentText(createMessage());
+            }
+        }
+
+        private String createMessage() {
+            // the exercises are detected in random order
+            exercises.sort(Comparator.comparing(Exercise::getDateTime));
 
-                    sb.append(corruptExercises.get(i).getDateTime().format(dateTimeFormatter));
-                    sb.append("\n");
+            final StringBuilder sb = new StringBuilder();
+            final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM);
+
+            for (int i = 0; i < exercises.size(); i++) {
+                if (i >= MAX_LISTED_EXERCISES) {
+                    sb.append("...\n");
+                    break;
                 }
 
-                context.showMessageDialog(context.getPrimaryStage(), Alert.AlertType.WARNING, //
-                        "common.warning", "st.main.error.missing_exercise_files", sb.toString());
+                sb.append(exercises.get(i).getDateTime().format(dateTimeFormatter));
+                sb.append("\n");
             }
+
+            return context.getResources().getString("st.main.error.missing_exercise_files", sb.toString());
         }
     }
 
@@ -1,6 +1,8 @@
 package de.saring.sportstracker.gui;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import de.saring.sportstracker.core.ApplicationDataChangeListener;
 import de.saring.sportstracker.core.STException;
@@ -14,6 +16,7 @@ import de.saring.sportstracker.data.NoteList;
 import de.saring.sportstracker.data.SportTypeList;
 import de.saring.sportstracker.data.Weight;
 import de.saring.sportstracker.data.WeightList;
+import de.saring.sportstracker.data.statistic.ExerciseOverviewCube;
 import de.saring.sportstracker.storage.db.DbStorage;
 import de.saring.util.data.IdObject;
 import de.saring.util.unitcalc.SpeedMode;
@@ -84,7 +87,9 @@ public interface STDocument {
     /**
      * This method returns the list of exercises for display in the GUI.
      * If the filter is enabled, the returned list will contain just the
-     * filtered exercises, otherwise it will contain all.
+     * filtered exercises, otherwise it will contain all. The filtered list
+     * is cached until the exercises or the filter criteria are changed, it
+     * must not be modified.
      *
      * @return list of Exercise objects
      */
@@ -93,7 +98,9 @@ public interface STDocument {
     /**
      * This method returns the list of notes for display in the GUI.
      * If the filter is enabled, the returned list will contain just the
-     * filtered notes, otherwise it will contain all.
+     * filtered notes, otherwise it will contain all. The filtered list
+     * is cached until the notes or the filter criteria are changed, it
+     * must not be modified.
      *
      * @return list of Note objects
      */
@@ -102,12 +109,23 @@ public interface STDocument {
     /**
      * This method returns the list of weights for display in the GUI.
      * If the filter is enabled, the returned list will contain just the
-     * filtered weights, otherwise it will contain all.
+     * filtered weights, otherwise it will contain all. The filtered list
+     * is cached until the weights or the filter criteria are changed, it
+     * must not be modified.
      *
      * @return list of Weight objects
      */
     EntryList<Weight> getFilterableWeightList();
 
+    /**
+     * Returns the pre-aggregated values of all exercises for the overview
+     * diagrams. The cube will be updated incrementally on application data
+     * changes.
+     *
+     * @return the cube of all exercises
+     */
+    ExerciseOverviewCube getExerciseOverviewCube();
+
     /**
      * This method reads all application data (notes, weights, exercises, sport types) from the database storage.
      *
@@ -125,22 +143,29 @@ public interface STDocument {
     void storeApplicationData() throws STException;
 
     /**
-     * Reloads all application data (notes, weights, exercises, sport types) from the storage. Needs to be called
-     * whenever some application data has been modified by one of the storage repositories.
-     * After reload all registered {@link ApplicationDataChangeListener} will be notified.
+     * Updates the application data (notes, weights, exercises, sport types) by the changes recorded by the storage
+     * repositories. Only the created, updated and deleted entries will be applied to the lists, all data is only
+     * reloaded from storage when the changes can't be applied incrementally. Needs to be called whenever some
+     * application data has been modified by one of the storage repositories.
+     * Afterwards all registered {@link ApplicationDataChangeListener} will be notified.
      *
      * @param changedObject the added / changed object (or null when removed or all objects changed)
-     * @throws STException thrown on read problems
+     * @throws STException thrown on reload problems
      */
     void updateApplicationData(IdObject changedObject) throws STException;
 
     /**
      * Checks all exercises for the existence of the attached exercise files
-     * (if there is one).
+     * (if there is one). The check is executed in background, the exercises
+     * are reported to the listener as soon as their missing file is detected.
+     * The exercise list can be modified while checking, the exercises of
+     * the list at call time will be checked.
      *
-     * @return List of Exercise objects, where the specified file is missing
+     * @param missingFileListener is called for each Exercise where the specified
+     * file is missing (it's called on a background thread)
+     * @return the future List of Exercise objects, where the specified file is missing
      */
-    List<Exercise> checkExerciseFiles();
+    CompletableFuture<List<Exercise>> checkExerciseFiles(Consumer<Exercise> missingFileListener);
 
     /**
      * Register the specified listener for notification on all application data changes.
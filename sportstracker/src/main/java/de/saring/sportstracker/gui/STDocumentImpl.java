@@ -4,12 +4,22 @@ import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.LongStream;
 
+import de.saring.sportstracker.core.ApplicationDataChangeEvent;
 import de.saring.sportstracker.core.ApplicationDataChangeListener;
+import de.saring.sportstracker.core.EntityChanges;
+import de.saring.sportstracker.storage.db.DbPerformanceProfile;
 import de.saring.sportstracker.storage.db.DbStorage;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
@@ -17,6 +27,7 @@ import jakarta.inject.Singleton;
 import de.saring.sportstracker.core.STException;
 import de.saring.sportstracker.core.STExceptionID;
 import de.saring.sportstracker.core.STOptions;
+import de.saring.sportstracker.data.Entry;
 import de.saring.sportstracker.data.EntryFilter;
 import de.saring.sportstracker.data.EntryList;
 import de.saring.sportstracker.data.Exercise;
@@ -26,6 +37,7 @@ import de.saring.sportstracker.data.NoteList;
 import de.saring.sportstracker.data.SportTypeList;
 import de.saring.sportstracker.data.Weight;
 import de.saring.sportstracker.data.WeightList;
+import de.saring.sportstracker.data.statistic.ExerciseOverviewCube;
 import de.saring.util.XmlBeanStorage;
 import de.saring.util.data.IdObject;
 import de.saring.util.unitcalc.SpeedMode;
@@ -42,6 +54,7 @@ public class STDocumentImpl implements STDocument {
 
     private static final String FILENAME_OPTIONS = "st-options.xml";
     private static final String FILENAME_ST_DATABASE = "sportstracker.sqlite";
+    private static final String FILENAME_EXERCISE_FILE_CACHE = "exercise-files.cache";
 
     private final STContext context;
 
@@ -95,6 +108,22 @@ public class STDocumentImpl implements STDocument {
      */
     private EntryFilter currentFilter;
 
+    /**
+     * Caches of the filtered entry lists, so the lists don't need to be filtered on each access.
+     */
+    private final FilteredEntryListCache<Exercise> filteredExerciseCache =
+            new FilteredEntryListCache<>(this::filterExercises);
+    private final FilteredEntryListCache<Note> filteredNoteCache = new FilteredEntryListCache<>(this::filterNotes);
+    private final FilteredEntryListCache<Weight> filteredWeightCache =
+            new FilteredEntryListCache<>(this::filterWeights);
+
+    /**
+     * The pre-aggregated exercise values for the overview diagrams (created lazily) and the modification count
+     * of the exercise list for these values.
+     */
+    private ExerciseOverviewCube exerciseOverviewCube;
+    private long exerciseOverviewCubeModificationCount;
+
     /**
      * Standard c'tor.
      *
@@ -243,7 +272,7 @@ public class STDocumentImpl implements STDocument {
 
         if ((filterEnabled) && (currentFilter != null)) {
             // use current filter to get list
-            return exerciseList.getEntriesForFilter(currentFilter);
+            return filteredExerciseCache.getEntriesForFilter(exerciseList, currentFilter);
         } else {
             // no filter: return list of all exercises
             return exerciseList;
@@ -255,7 +284,7 @@ public class STDocumentImpl implements STDocument {
 
         if ((filterEnabled) && (currentFilter != null)) {
             // use current filter to get list
-            return noteList.getEntriesForFilter(currentFilter);
+            return filteredNoteCache.getEntriesForFilter(noteList, currentFilter);
         } else {
             // no filter: return list of all notes
             return noteList;
@@ -267,13 +296,79 @@ public class STDocumentImpl implements STDocument {
 
         if ((filterEnabled) && (currentFilter != null)) {
             // use current filter to get list
-            return weightList.getEntriesForFilter(currentFilter);
+            return filteredWeightCache.getEntriesForFilter(weightList, currentFilter);
         } else {
             // no filter: return list of all weights
             return weightList;
         }
     }
 
+    private EntryList<Exercise> filterExercises(final EntryList<Exercise> list, final EntryFilter filter) {
+        return filterInStorage(list, filter, EntryFilter.EntryType.EXERCISE, () -> dbStorage.getExerciseRepository()
+                .readForFilter(filter, sportTypeList.stream().toList()));
+    }
+
+    private EntryList<Note> filterNotes(final EntryList<Note> list, final EntryFilter filter) {
+        return filterInStorage(list, filter, EntryFilter.EntryType.NOTE, () -> dbStorage.getNoteRepository()
+                .readForFilter(filter, sportTypeList.stream().toList()));
+    }
+
+    private EntryList<Weight> filterWeights(final EntryList<Weight> list, final EntryFilter filter) {
+        return filterInStorage(list, filter, EntryFilter.EntryType.WEIGHT, () -> dbStorage.getWeightRepository()
+                .readForFilter(filter));
+    }
+
+    /**
+     * Returns the entries of the specified list which are matching the filter. The matching entries are queried from
+     * the database, so its indexes can be used instead of checking all entries. The list contains the same entries as
+     * the database, the returned list contains the list instances of the matching entries. When the query fails, the
+     * list gets filtered in memory.
+     *
+     * @param list the list to filter
+     * @param filter the filter criteria
+     * @param entryType the entry type of the list
+     * @param storageQuery the query of the matching entries in the database
+     * @return the filtered list
+     */
+    private <T extends Entry> EntryList<T> filterInStorage(final EntryList<T> list, final EntryFilter filter,
+            final EntryFilter.EntryType entryType, final StorageQuery<T> storageQuery) {
+
+        // lists are not filtered by filters of other entry types
+        if (list.size() == 0 || filter.getEntryType() != entryType) {
+            return list.getEntriesForFilter(filter);
+        }
+
+        try {
+            // the filtered list needs to contain the entries in the order of the list
+            final List<T> matchingEntries = storageQuery.read().stream()
+                    .map(entry -> list.getByID(entry.getId()))
+                    .filter(Objects::nonNull)
+                    .sorted(Comparator.comparingInt(list::indexOf))
+                    .toList();
+
+            final EntryList<T> filteredList = new EntryList<>();
+            filteredList.clearAndAddAll(matchingEntries);
+            return filteredList;
+        } catch (STException e) {
+            LOGGER.log(Level.WARNING, "Failed to query the entries for the filter, filtering in memory...", e);
+            return list.getEntriesForFilter(filter);
+        }
+    }
+
+    @Override
+    public ExerciseOverviewCube getExerciseOverviewCube() {
+        if (!isExerciseOverviewCubeUpToDate()) {
+            exerciseOverviewCube = new ExerciseOverviewCube(exerciseList);
+            exerciseOverviewCubeModificationCount = exerciseList.getModificationCount();
+        }
+        return exerciseOverviewCube;
+    }
+
+    private boolean isExerciseOverviewCubeUpToDate() {
+        return exerciseOverviewCube != null
+                && exerciseOverviewCubeModificationCount == exerciseList.getModificationCount();
+    }
+
     @Override
     public void readApplicationData() throws STException {
         LOGGER.info("Reading application data");
@@ -284,7 +379,8 @@ public class STDocumentImpl implements STDocument {
         weightList = new WeightList();
 
         var msStart = System.currentTimeMillis();
-        dbStorage.openDatabase(dataDirectory + "/" + FILENAME_ST_DATABASE);
+        dbStorage.openDatabase(dataDirectory + "/" + FILENAME_ST_DATABASE,
+                DbPerformanceProfile.of(options.getDatabaseProfile()));
         var msOpened = System.currentTimeMillis();
         LOGGER.info("Opened SQLite database in " + (msOpened - msStart) + " msec");
 
@@ -320,17 +416,60 @@ public class STDocumentImpl implements STDocument {
     public void updateApplicationData(IdObject changedObject) throws STException {
         LOGGER.info("Updating application data");
         dirtyData = true;
-        readListsFromStorage();
+
+        final ApplicationDataChangeEvent changeEvent = dbStorage.takeRecordedChanges(changedObject);
+        if (changeEvent.isFullReloadRequired()) {
+            readListsFromStorage();
+        } else {
+            // apply only the changed entries, the sport types are not changed
+            final EntityChanges<Exercise> exerciseChanges = changeEvent.getExerciseChanges();
+            final boolean updateExerciseOverviewCube = isExerciseOverviewCubeUpToDate();
+            exerciseChanges.applyTo(exerciseList);
+            if (updateExerciseOverviewCube) {
+                exerciseChanges.getDeletedIds().forEach(exerciseOverviewCube::removeByID);
+                exerciseChanges.getCreated().forEach(exerciseOverviewCube::set);
+                exerciseChanges.getUpdated().forEach(exerciseOverviewCube::set);
+                exerciseOverviewCubeModificationCount = exerciseList.getModificationCount();
+            }
+            changeEvent.getNoteChanges().applyTo(noteList);
+            changeEvent.getWeightChanges().applyTo(weightList);
+        }
+
+        // entries might have been modified in place, so the filter results must be created again
+        invalidateFilteredLists();
 
         // notify all listeners of application data changes
-        changeListeners.forEach(listener -> listener.applicationDataChanged(changedObject));
+        changeListeners.forEach(listener -> listener.applicationDataChanged(changeEvent));
+    }
+
+    private void invalidateFilteredLists() {
+        filteredExerciseCache.invalidate();
+        filteredNoteCache.invalidate();
+        filteredWeightCache.invalidate();
     }
 
     @Override
-    public List<Exercise> checkExerciseFiles() {
-        return exerciseList.stream()
-                .filter(exercise -> exercise.getHrmFile() != null && !new File(exercise.getHrmFile()).exists())
-                .toList();
+    public CompletableFuture<List<Exercise>> checkExerciseFiles(final Consumer<Exercise> missingFileListener) {
+
+        // collect the attached files in the calling thread, the exercises can be modified while checking
+        final Map<String, List<Exercise>> exercisesByFile = new LinkedHashMap<>();
+        exerciseList.stream()
+                .filter(exercise -> exercise.getHrmFile() != null)
+                .forEach(exercise -> exercisesByFile
+                        .computeIfAbsent(exercise.getHrmFile(), file -> new ArrayList<>())
+                        .add(exercise));
+
+        final var fileChecker = new ExerciseFileChecker(Paths.get(dataDirectory, FILENAME_EXERCISE_FILE_CACHE));
+
+        return CompletableFuture.supplyAsync(() -> {
+            final Set<String> missingFiles = fileChecker.findMissingFiles(exercisesByFile.keySet(),
+                    missingFile -> exercisesByFile.get(missingFile).forEach(missingFileListener));
+
+            return exercisesByFile.entrySet().stream()
+                    .filter(fileExercises -> missingFiles.contains(fileExercises.getKey()))
+                    .flatMap(fileExercises -> fileExercises.getValue().stream())
+                    .toList();
+        }, task -> Thread.ofVirtual().name("exercise-file-check").start(task));
     }
 
     @Override
@@ -353,4 +492,15 @@ public class STDocumentImpl implements STDocument {
 
         return speedModes.size() == 1 ? speedModes.get(0) : getOptions().getPreferredSpeedMode();
     }
+
+    /**
+     * Query of the entries matching a filter in the database.
+     *
+     * @param <T> the entry type
+     */
+    @FunctionalInterface
+    private interface StorageQuery<T extends Entry> {
+
+        List<T> read() throws STException;
+    }
 }
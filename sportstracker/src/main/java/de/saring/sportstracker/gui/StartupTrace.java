@@ -0,0 +1,35 @@
+package de.saring.sportstracker.gui;
+
+import java.time.Instant;
+import java.util.logging.Logger;
+
+/**
+ * Trace of the application startup, it logs the duration of each startup phase and the time since the start of the
+ * application process. This helps to analyze the time until the application is ready for use (e.g. for large
+ * databases).
+ *
+ * @author Stefan Saring
+ */
+final class StartupTrace {
+    private static final Logger LOGGER = Logger.getLogger(StartupTrace.class.getName());
+
+    /** Start time of the application process in msec, the current time is used when it's not available. */
+    private static final long PROCESS_START_TIME = ProcessHandle.current().info().startInstant()
+            .map(Instant::toEpochMilli)
+            .orElseGet(System::currentTimeMillis);
+
+    private StartupTrace() {
+    }
+
+    /**
+     * Logs the duration of the specified completed startup phase.
+     *
+     * @param phase name of the startup phase
+     * @param phaseStartTime start time of the phase in msec (see {@link System#currentTimeMillis()})
+     */
+    static void logPhase(final String phase, final long phaseStartTime) {
+        final long currentTime = System.currentTimeMillis();
+        LOGGER.info("Startup phase '" + phase + "' took " + (currentTime - phaseStartTime) + " msec ("
+                + (currentTime - PROCESS_START_TIME) + " msec since application start)");
+    }
+}
@@ -18,7 +18,6 @@ import org.controlsfx.validation.ValidationResult;
 import org.controlsfx.validation.Validator;
 
 import de.saring.exerciseviewer.data.EVExercise;
-import de.saring.exerciseviewer.parser.ExerciseParser;
 import de.saring.exerciseviewer.parser.ExerciseParserFactory;
 import de.saring.sportstracker.data.Equipment;
 import de.saring.sportstracker.data.Exercise;
@@ -488,8 +487,7 @@ public class ExerciseDialogController extends AbstractDialogController {
         // parse exercise file
         EVExercise evExercise = null;
         try {
-            ExerciseParser parser = ExerciseParserFactory.INSTANCE.getParser(hrmFile);
-            evExercise = parser.parseExercise(hrmFile);
+            evExercise = ExerciseParserFactory.INSTANCE.parseExercise(hrmFile);
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Failed to parse exercise file!", e);
             context.showMessageDialog(getWindow(tfHrmFile), Alert.AlertType.ERROR, "common.error",
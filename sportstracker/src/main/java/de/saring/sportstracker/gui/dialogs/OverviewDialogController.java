@@ -8,6 +8,7 @@ import java.time.temporal.WeekFields;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
 
 import jakarta.inject.Inject;
 
@@ -34,12 +35,11 @@ import org.jfree.data.xy.XYDataset;
 
 import de.saring.sportstracker.core.STOptions;
 import de.saring.sportstracker.data.EntryFilter;
-import de.saring.sportstracker.data.EntryList;
 import de.saring.sportstracker.data.Equipment;
-import de.saring.sportstracker.data.Exercise;
 import de.saring.sportstracker.data.SportSubType;
 import de.saring.sportstracker.data.SportType;
 import de.saring.sportstracker.data.Weight;
+import de.saring.sportstracker.data.statistic.ExerciseOverviewCube;
 import de.saring.sportstracker.gui.STContext;
 import de.saring.sportstracker.gui.STDocument;
 import de.saring.util.AppResources;
@@ -76,6 +76,9 @@ public class OverviewDialogController extends AbstractDialogController {
     /** The viewer for the chart. */
     private ChartViewer chartViewer;
 
+    /** The pre-aggregated exercise values for all diagrams, will be initialized lazily. */
+    private ExerciseOverviewCube exerciseCube;
+
     @FXML
     private ChoiceBox<TimeRangeType> cbTimeRange;
     @FXML
@@ -425,33 +428,24 @@ public class OverviewDialogController extends AbstractDialogController {
             // create time period for current time step
             RegularTimePeriod timePeriod = createTimePeriodForTimeStep(timeType, year, timeStep);
 
-            // create the EntryFilter for the time range of the current time step
+            // get the sums of all exercises in the time range of the current time step
+            // (add value 0 and skip to next time step when no exercises found)
             EntryFilter filter = createExerciseFilterForTimeStep(timeType, year, timeStep);
-            filter.setSportType(sportType);
-            mergeExerciseFilterIfEnabled(filter);
+            double[] sums = getExerciseCube().getSums(filter.getDateStart(), filter.getDateEnd(),
+                    (sportTypeId, sportSubTypeId, equipmentId) ->
+                            sportType == null || Objects.equals(sportType.getId(), sportTypeId));
 
-            // get exercises for defined filter
-            // (add value 0 and skip to next time step when no exercises found)
-            EntryList<Exercise> lExercises = document.getExerciseList().getEntriesForFilter(filter);
-            if (lExercises.size() == 0) {
+            int exerciseCount = (int) sums[ExerciseOverviewCube.Value.COUNT.ordinal()];
+            if (exerciseCount == 0) {
                 dataset.add(timePeriod, 0, seriesName);
                 continue;
             }
 
-            // create sums of all exercises
-            double sumDistance = 0d;
-            double sumDuration = 0d;
-            double sumAscent = 0d;
-            double sumDescent = 0d;
-            double sumCalories = 0d;
-
-            for (Exercise tempExercise : lExercises) {
-                sumDistance += tempExercise.getDistance();
-                sumDuration += tempExercise.getDuration();
-                sumAscent += tempExercise.getAscent() == null ? 0 : tempExercise.getAscent();
-                sumDescent += tempExercise.getDescent() == null ? 0: tempExercise.getDescent();
-                sumCalories += tempExercise.getCalories() == null ? 0 : tempExercise.getCalories();
-            }
+            double sumDistance = sums[ExerciseOverviewCube.Value.DISTANCE.ordinal()];
+            double sumDuration = sums[ExerciseOverviewCube.Value.DURATION.ordinal()];
+            double sumAscent = sums[ExerciseOverviewCube.Value.ASCENT.ordinal()];
+            double sumDescent = sums[ExerciseOverviewCube.Value.DESCENT.ordinal()];
+            double sumCalories = sums[ExerciseOverviewCube.Value.CALORIES.ordinal()];
 
             // set value of time step depending on value type
             // (convert to english unit mode when enabled)
@@ -491,7 +485,7 @@ public class OverviewDialogController extends AbstractDialogController {
 
                 case EXERCISES:
                     // set number of exercises
-                    dataset.add(timePeriod, lExercises.size(), seriesName);
+                    dataset.add(timePeriod, exerciseCount, seriesName);
                     break;
 
                 case AVG_SPEED:
@@ -565,24 +559,13 @@ public class OverviewDialogController extends AbstractDialogController {
             // create time period for current time step
             RegularTimePeriod timePeriod = createTimePeriodForTimeStep(timeType, year, timeStep);
 
-            // create the EntryFilter for the time range of the current time step
+            // create distance sum of all exercises with this sport subtype in the time range of the current time step
             EntryFilter filter = createExerciseFilterForTimeStep(timeType, year, timeStep);
-            filter.setSportType(sportType);
-            filter.setSportSubType(sportSubType);
-            mergeExerciseFilterIfEnabled(filter);
-
-            // get exercises for defined filter
-            EntryList<Exercise> lExercises = document.getExerciseList().getEntriesForFilter(filter);
-
-            // create distance sum of all found exercises
-            double sumDistance = 0d;
-            for (Exercise tempExercise : lExercises) {
-                // sum only exercises with same sport subtype (otherwise conflicts with the merged filter set in the
-                // view)
-                if (sportSubType.equals(tempExercise.getSportSubType())) {
-                    sumDistance += tempExercise.getDistance();
-                }
-            }
+            double sumDistance = getExerciseCube().getSums(filter.getDateStart(), filter.getDateEnd(),
+                    (sportTypeId, sportSubTypeId, equipmentId) ->
+                            Objects.equals(sportType.getId(), sportTypeId)
+                                    && Objects.equals(sportSubType.getId(), sportSubTypeId))
+                    [ExerciseOverviewCube.Value.DISTANCE.ordinal()];
 
             // convert to english unit mode when enabled
             if (document.getOptions().getUnitSystem() != UnitSystem.METRIC) {
@@ -642,24 +625,15 @@ public class OverviewDialogController extends AbstractDialogController {
             // create time period for current time step
             RegularTimePeriod timePeriod = createTimePeriodForTimeStep(timeType, year, timeStep);
 
-            // create the EntryFilter for the time range of the current time step
+            // create distance sum of all exercises with this equipment in the time range of the current time step
+            // (when displaying series for no equipment assigned then skip exercises with assigned equipment)
+            Long seriesEquipmentId = equipment != null ? equipment.getId() : null;
             EntryFilter filter = createExerciseFilterForTimeStep(timeType, year, timeStep);
-            filter.setSportType(sportType);
-            filter.setEquipment(equipment);
-            mergeExerciseFilterIfEnabled(filter);
-
-            // get exercises for defined filter
-            EntryList<Exercise> lExercises = document.getExerciseList().getEntriesForFilter(filter);
-
-            // create distance sum of all found exercises
-            double sumDistance = 0d;
-            for (Exercise tempExercise : lExercises) {
-                // when displaying series for no equipment assigned then skip exercises with assigned equipment
-                if (equipment == null && tempExercise.getEquipment() != null) {
-                    continue;
-                }
-                sumDistance += tempExercise.getDistance();
-            }
+            double sumDistance = getExerciseCube().getSums(filter.getDateStart(), filter.getDateEnd(),
+                    (sportTypeId, sportSubTypeId, equipmentId) ->
+                            Objects.equals(sportType.getId(), sportTypeId)
+                                    && Objects.equals(seriesEquipmentId, equipmentId))
+                    [ExerciseOverviewCube.Value.DISTANCE.ordinal()];
 
             // convert to english unit mode when enabled
             if (document.getOptions().getUnitSystem() != UnitSystem.METRIC) {
@@ -877,61 +851,18 @@ public class OverviewDialogController extends AbstractDialogController {
     }
 
     /**
-     * Merges the specified filter for time series creation with the existing filter
-     * in the SportsTracker view (if it is enabled).
+     * Returns the pre-aggregated values of the exercises to be displayed. When the exercise filter is enabled
+     * in the SportsTracker view, then only the values of the filtered exercises are contained.
      *
-     * @param filter the filter used for time series creation
+     * @return the cube of the exercise values
      */
-    private void mergeExerciseFilterIfEnabled(EntryFilter filter) {
-        // when the exercise filter is enabled in the GUI then we need to
-        // merge these filter criterias into the created diagram filter
-        if (isExerciseFilterEnabled()) {
-            EntryFilter currentFilter = document.getCurrentFilter();
-
-            // merge filter date
-            if (currentFilter.getDateStart().isAfter(filter.getDateStart())) {
-                filter.setDateStart(currentFilter.getDateStart());
-            }
-            if (currentFilter.getDateEnd().isBefore(filter.getDateEnd())) {
-                filter.setDateEnd(currentFilter.getDateEnd());
-            }
-
-            // merge sport type and subtype filter
-            if (currentFilter.getSportType() != null) {
-
-                if (filter.getSportType() != null && !currentFilter.getSportType().equals(filter.getSportType())) {
-                    // filters have different sport types => add a not existing sport type, so nothing will be found
-                    filter.setSportType(new SportType(Long.MIN_VALUE));
-                } else {
-                    filter.setSportType(currentFilter.getSportType());
-
-                    if (currentFilter.getSportSubType() != null) {
-                        filter.setSportSubType(currentFilter.getSportSubType());
-                    }
-                }
-            }
-
-            // merge intensity filter
-            if (currentFilter.getIntensity() != null) {
-                filter.setIntensity(currentFilter.getIntensity());
-            }
-
-            // merge equipment filter
-            if (currentFilter.getEquipment() != null) {
-                if (filter.getEquipment() != null && !currentFilter.getEquipment().equals(filter.getEquipment())) {
-                    // filters have different equipments => add a not existing equipment, so nothing will be found
-                    filter.setEquipment(new Equipment(Long.MIN_VALUE));
-                } else {
-                    filter.setEquipment(currentFilter.getEquipment());
-                }
-            }
-
-            // merge comment filter
-            if (currentFilter.getCommentSubString() != null) {
-                filter.setCommentSubString(currentFilter.getCommentSubString());
-                filter.setRegularExpressionMode(currentFilter.isRegularExpressionMode());
-            }
+    private ExerciseOverviewCube getExerciseCube() {
+        if (exerciseCube == null) {
+            exerciseCube = isExerciseFilterEnabled()
+                    ? new ExerciseOverviewCube(document.getFilterableExerciseList())
+                    : document.getExerciseOverviewCube();
         }
+        return exerciseCube;
     }
 
     /**
@@ -39,6 +39,8 @@ public class PreferencesDialogController extends AbstractDialogController {
     private ChoiceBox<STOptions.AutoCalculation> cbAutomaticCalculation;
     @FXML
     private CheckBox cbSaveOnExit;
+    @FXML
+    private CheckBox cbDatabasePerformance;
 
     // tab pane "Units"
     @FXML
@@ -117,6 +119,7 @@ public class PreferencesDialogController extends AbstractDialogController {
         BindingUtils.bindToggleGroupToProperty(tgInitialView, preferencesViewModel.initialView);
         cbAutomaticCalculation.valueProperty().bindBidirectional(preferencesViewModel.defaultAutoCalculation);
         cbSaveOnExit.selectedProperty().bindBidirectional(preferencesViewModel.saveOnExit);
+        cbDatabasePerformance.selectedProperty().bindBidirectional(preferencesViewModel.databasePerformanceProfile);
 
         BindingUtils.bindToggleGroupToProperty(tgUnitSystem, preferencesViewModel.unitSystem);
         BindingUtils.bindToggleGroupToProperty(tgSpeedMode, preferencesViewModel.preferredSpeedMode);
@@ -31,6 +31,7 @@ public class PreferencesViewModel {
     public final ObjectProperty<STOptions.View> initialView;
     public final ObjectProperty<STOptions.AutoCalculation> defaultAutoCalculation;
     public final BooleanProperty saveOnExit;
+    public final BooleanProperty databasePerformanceProfile;
 
     public final ObjectProperty<UnitSystem> unitSystem;
     public final ObjectProperty<SpeedMode> preferredSpeedMode;
@@ -56,6 +57,8 @@ public class PreferencesViewModel {
         this.initialView = new SimpleObjectProperty<>(options.getInitialView());
         this.defaultAutoCalculation = new SimpleObjectProperty<>(options.getDefaultAutoCalcuation());
         this.saveOnExit = new SimpleBooleanProperty(options.isSaveOnExit());
+        this.databasePerformanceProfile = new SimpleBooleanProperty(
+                options.getDatabaseProfile() == STOptions.DatabaseProfile.Performance);
 
         this.unitSystem = new SimpleObjectProperty<>(options.getUnitSystem());
         this.preferredSpeedMode = new SimpleObjectProperty<>(options.getPreferredSpeedMode());
@@ -82,6 +85,8 @@ public class PreferencesViewModel {
         options.setInitialView(initialView.get());
         options.setDefaultAutoCalcuation(defaultAutoCalculation.get());
         options.setSaveOnExit(saveOnExit.get());
+        options.setDatabaseProfile(databasePerformanceProfile.get()
+                ? STOptions.DatabaseProfile.Performance : STOptions.DatabaseProfile.Standard);
 
         options.setUnitSystem(unitSystem.get());
         options.setPreferredSpeedMode(preferredSpeedMode.get());
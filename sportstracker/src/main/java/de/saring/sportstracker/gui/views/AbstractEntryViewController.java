@@ -1,9 +1,11 @@
 package de.saring.sportstracker.gui.views;
 
 import java.io.IOException;
+import java.util.List;
 
 import javafx.scene.Parent;
 
+import de.saring.sportstracker.data.Exercise;
 import de.saring.sportstracker.gui.STContext;
 import de.saring.sportstracker.gui.STDocument;
 import de.saring.util.gui.javafx.FxmlLoader;
@@ -67,6 +69,11 @@ public abstract class AbstractEntryViewController implements EntryViewController
         return EMPTY_ID_ARRAY;
     }
 
+    @Override
+    public List<Exercise> getDisplayedExercises() {
+        return List.of();
+    }
+
     @Override
     public int getSelectedNoteCount() {
         return 0;
@@ -1,7 +1,10 @@
 package de.saring.sportstracker.gui.views;
 
+import java.util.List;
+
 import javafx.scene.Parent;
 
+import de.saring.sportstracker.data.Exercise;
 import de.saring.util.data.IdObject;
 
 /**
@@ -61,6 +64,14 @@ public interface EntryViewController {
      */
     long[] getSelectedExerciseIDs();
 
+    /**
+     * This methods returns the exercises displayed in this view, in the displayed order (e.g. the sort order
+     * of the table).
+     *
+     * @return list of the displayed exercises (can be empty)
+     */
+    List<Exercise> getDisplayedExercises();
+
     /**
      * This methods returns the number of selected notes.
      *
@@ -29,6 +29,7 @@ import javafx.scene.control.SeparatorMenuItem;
 import javafx.scene.layout.StackPane;
 
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * Controller class of the Calendar View, which displays all (or a filtered list) exercises, notes and
@@ -93,6 +94,12 @@ public class CalendarViewController extends AbstractEntryViewController {
         return getSelectedEntryIdsOfClass(Exercise.class);
     }
 
+    @Override
+    public List<Exercise> getDisplayedExercises() {
+        // the calendar displays the exercises in date order
+        return getDocument().getFilterableExerciseList().stream().toList();
+    }
+
     @Override
     public int getSelectedNoteCount() {
         return getSelectedNoteIDs().length;
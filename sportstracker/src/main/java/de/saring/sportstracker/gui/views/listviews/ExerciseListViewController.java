@@ -96,6 +96,11 @@ public class ExerciseListViewController extends AbstractListViewController<Exerc
         return getSelectedEntryIDs();
     }
 
+    @Override
+    public List<Exercise> getDisplayedExercises() {
+        return getTableView().getItems();
+    }
+
     @Override
     public void selectEntry(final IdObject entry) {
         if (entry != null && entry instanceof Exercise exercise) {
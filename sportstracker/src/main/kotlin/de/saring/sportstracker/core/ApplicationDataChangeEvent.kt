@@ -0,0 +1,37 @@
+package de.saring.sportstracker.core
+
+import de.saring.sportstracker.data.Exercise
+import de.saring.sportstracker.data.Note
+import de.saring.sportstracker.data.SportType
+import de.saring.sportstracker.data.Weight
+import de.saring.util.data.IdObject
+
+/**
+ * Event which describes a change of the SportsTracker application data. It contains the changes for each entity type,
+ * so the listeners can decide what needs to be updated.
+ *
+ * @property sportTypeChanges the changes of the SportTypes
+ * @property exerciseChanges the changes of the Exercises
+ * @property noteChanges the changes of the Notes
+ * @property weightChanges the changes of the Weights
+ * @property changedObject the added / changed object which was edited by the user (or null when objects were removed
+ *           or multiple objects were changed)
+ *
+ * @author Stefan Saring
+ */
+class ApplicationDataChangeEvent(
+    val sportTypeChanges: EntityChanges<SportType>,
+    val exerciseChanges: EntityChanges<Exercise>,
+    val noteChanges: EntityChanges<Note>,
+    val weightChanges: EntityChanges<Weight>,
+    val changedObject: IdObject?
+) {
+
+    /**
+     * Returns true when all application data needs to be reloaded from storage, because the changes of at least one
+     * entity type can't be applied incrementally.
+     */
+    fun isFullReloadRequired(): Boolean =
+        sportTypeChanges.fullReloadRequired || exerciseChanges.fullReloadRequired ||
+                noteChanges.fullReloadRequired || weightChanges.fullReloadRequired
+}
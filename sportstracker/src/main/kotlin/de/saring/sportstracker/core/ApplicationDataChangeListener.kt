@@ -1,7 +1,5 @@
 package de.saring.sportstracker.core
 
-import de.saring.util.data.IdObject
-
 /**
  * Listener interface for observing changes of the SportsTracker application data.
  *
@@ -11,9 +9,9 @@ interface ApplicationDataChangeListener {
 
     /**
      * This method will be called anytime when some application data (Exercises, Notes, etc) was modified. The passed
-     * changedObject is the added or updated IdObject.
+     * event contains all created, updated and deleted entries and the object which was edited by the user.
      *
-     * @param changedObject the added / changed object (or null when object was removed or all objects were changed)
+     * @param event the event with all changes of the application data
      */
-    fun applicationDataChanged(changedObject: IdObject?)
+    fun applicationDataChanged(event: ApplicationDataChangeEvent)
 }
@@ -0,0 +1,40 @@
+package de.saring.sportstracker.core
+
+import de.saring.util.data.IdObject
+import de.saring.util.data.IdObjectList
+
+/**
+ * Immutable set of changes for all entries of one entity type (e.g. Exercises), which were created, updated or
+ * deleted in the storage.
+ *
+ * @property created list of all created entries
+ * @property updated list of all updated entries
+ * @property deletedIds list of the IDs of all deleted entries
+ * @property fullReloadRequired flag is true when the changes can't be described by the entry lists (e.g. when other
+ *           entities were modified implicitly), then all application data needs to be reloaded from storage
+ *
+ * @author Stefan Saring
+ */
+class EntityChanges<T : IdObject>(
+    val created: List<T> = emptyList(),
+    val updated: List<T> = emptyList(),
+    val deletedIds: List<Long> = emptyList(),
+    val fullReloadRequired: Boolean = false
+) {
+
+    /**
+     * Returns true when there are no changes at all.
+     */
+    fun isEmpty(): Boolean = created.isEmpty() && updated.isEmpty() && deletedIds.isEmpty() && !fullReloadRequired
+
+    /**
+     * Applies all the created, updated and deleted entries to the specified list.
+     *
+     * @param list the list to be updated
+     */
+    fun applyTo(list: IdObjectList<T>) {
+        deletedIds.forEach { list.removeByID(it) }
+        created.forEach { list.set(it) }
+        updated.forEach { list.set(it) }
+    }
+}
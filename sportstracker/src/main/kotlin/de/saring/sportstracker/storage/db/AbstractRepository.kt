@@ -12,11 +12,15 @@ import java.util.logging.Logger
  * Abstract base class for all IdObject based entity repositories.
  *
  * @property connection database connection
+ * @property statementCache cache of the prepared statements of the connection
+ * @property changeRecorder recorder for all created, updated and deleted entries
  *
  * @author Stefan Saring
  */
 abstract class AbstractRepository<T : IdObject>(
-    protected val connection: Connection
+    protected val connection: Connection,
+    protected val statementCache: StatementCache,
+    protected val changeRecorder: RepositoryChangeRecorder<T>
 ) {
 
     @Throws(STException::class)
@@ -25,8 +29,7 @@ abstract class AbstractRepository<T : IdObject>(
         val entries = mutableListOf<T>()
 
         try {
-            connection.prepareStatement("SELECT * FROM $tableName").use { statement ->
-                val rs: ResultSet = statement.executeQuery()
+            statementCache.prepare("SELECT * FROM $tableName").executeQuery().use { rs ->
                 while (rs.next()) {
                     entries.add(readFromResultSet(rs))
                 }
@@ -42,9 +45,9 @@ abstract class AbstractRepository<T : IdObject>(
         logger.info("Reading $entityName with ID '$entryId'")
 
         try {
-            connection.prepareStatement("SELECT * FROM $tableName WHERE ID = ?").use { statement ->
-                statement.setLong(1, entryId)
-                val rs: ResultSet = statement.executeQuery()
+            val statement = statementCache.prepare("SELECT * FROM $tableName WHERE ID = ?")
+            statement.setLong(1, entryId)
+            statement.executeQuery().use { rs ->
                 rs.next()
                 return readFromResultSet(rs)
             }
@@ -53,39 +56,127 @@ abstract class AbstractRepository<T : IdObject>(
         }
     }
 
+    /**
+     * Reads all entries which are matching the SQL WHERE clause of the specified entry filter query. The entries are
+     * sorted by ID, that's the same order as provided by readAll().
+     *
+     * @param query the entry filter query
+     * @param entryReader reader for the entry of the current result set row
+     * @return the list of matching entries
+     */
+    @Throws(STException::class)
+    internal fun readForQuery(query: EntryFilterQuery, entryReader: (ResultSet) -> T): List<T> {
+        logger.info("Reading $entityName entries for filter")
+        val entries = mutableListOf<T>()
+
+        try {
+            // the SQL text only depends on the used filter criteria, so there are just a few statements to cache
+            val statement = statementCache.prepare("SELECT * FROM $tableName WHERE ${query.whereClause} ORDER BY ID")
+            query.setParameters(statement)
+            statement.executeQuery().use { rs ->
+                while (rs.next()) {
+                    entries.add(entryReader(rs))
+                }
+            }
+        } catch (e: SQLException) {
+            throw STException(STExceptionID.DBSTORAGE_READ_ALL, "Failed to read $entityName entries for filter!", e)
+        }
+        return entries
+    }
+
     @Throws(STException::class)
     fun create(entry: T): T {
         logger.info("Creating new $entityName")
 
         try {
-            return executeCreate(entry)
+            val createdEntry = executeCreate(entry)
+            changeRecorder.recordCreated(getCompleteCreatedEntry(entry, createdEntry))
+            return createdEntry
         } catch (e: SQLException) {
             throw STException(STExceptionID.DBSTORAGE_CREATE_ENTRY, "Failed to create new $entityName!", e)
         }
     }
 
+    /**
+     * Creates all the specified entries. The database statement is reused for all entries, the entries are either
+     * created completely or not at all.
+     *
+     * @param entries the entries to create (without IDs)
+     * @return the created entries read from the database, in the order of the passed entries
+     */
+    @Throws(STException::class)
+    fun createAll(entries: List<T>): List<T> {
+        logger.info("Creating ${entries.size} new $entityName entries")
+
+        try {
+            val createdEntries = executeInSavepoint { executeCreateAll(entries) }
+            entries.forEachIndexed { index, entry ->
+                changeRecorder.recordCreated(getCompleteCreatedEntry(entry, createdEntries[index]))
+            }
+            return createdEntries
+        } catch (e: SQLException) {
+            throw STException(STExceptionID.DBSTORAGE_CREATE_ENTRY, "Failed to create new $entityName entries!", e)
+        }
+    }
+
     @Throws(STException::class)
     fun update(entry: T) {
         logger.info("Updating $entityName with ID '${entry.id}'")
 
         try {
             executeUpdate(entry)
+            changeRecorder.recordUpdated(entry)
         } catch (e: SQLException) {
             throw STException(STExceptionID.DBSTORAGE_UPDATE_ENTRY, "Failed to update $entityName with ID '${entry.id}'!", e)
         }
     }
 
+    /**
+     * Updates all the specified entries in one batch, the entries are either updated completely or not at all.
+     *
+     * @param entries the entries to update
+     */
+    @Throws(STException::class)
+    fun updateAll(entries: List<T>) {
+        logger.info("Updating ${entries.size} $entityName entries")
+
+        try {
+            executeInSavepoint { executeUpdateAll(entries) }
+            entries.forEach { changeRecorder.recordUpdated(it) }
+        } catch (e: SQLException) {
+            throw STException(STExceptionID.DBSTORAGE_UPDATE_ENTRY, "Failed to update $entityName entries!", e)
+        }
+    }
+
     @Throws(STException::class)
     fun delete(entryId: Long) {
         logger.info("Deleting $entityName with ID '$entryId'")
 
         try {
             executeDelete(entryId)
+            changeRecorder.recordDeleted(entryId)
         } catch (e: SQLException) {
             throw STException(STExceptionID.DBSTORAGE_DELETE_ENTRY, "Failed to delete $entityName with ID '$entryId'!", e)
         }
     }
 
+    /**
+     * Deletes all entries with the specified IDs, the entries are either deleted completely or not at all.
+     *
+     * @param entryIds the IDs of the entries to delete
+     */
+    @Throws(STException::class)
+    fun deleteAll(entryIds: LongArray) {
+        logger.info("Deleting ${entryIds.size} $entityName entries")
+
+        try {
+            executeInSavepoint { executeDeleteAll(entryIds) }
+            entryIds.forEach { changeRecorder.recordDeleted(it) }
+        } catch (e: SQLException) {
+            throw STException(STExceptionID.DBSTORAGE_DELETE_ENTRY, "Failed to delete $entityName entries!", e)
+        }
+    }
+
     protected abstract val entityName: String
     protected abstract val tableName: String
 
@@ -93,13 +184,84 @@ abstract class AbstractRepository<T : IdObject>(
 
     protected abstract fun readFromResultSet(rs: ResultSet): T
 
-    protected abstract fun executeCreate(entry: T): T
-    protected abstract fun executeUpdate(entry: T)
+    protected open fun executeCreate(entry: T): T = executeCreateAll(listOf(entry))[0]
 
-    protected open fun executeDelete(entryId: Long) {
-        connection.prepareStatement("DELETE FROM $tableName WHERE ID = ?").use { statement ->
-            statement.setLong(1, entryId)
-            statement.executeUpdate()
+    protected open fun executeUpdate(entry: T) = executeUpdateAll(listOf(entry))
+
+    protected open fun executeDelete(entryId: Long) = executeDeleteAll(longArrayOf(entryId))
+
+    /**
+     * Returns the complete created entry for recording the change. The entry read from the database after creation
+     * does not contain any references to other entities, so subclasses need to provide them when needed.
+     *
+     * @param entry the entry passed for creation (without ID)
+     * @param createdEntry the entry read from the database after creation
+     * @return the complete created entry
+     */
+    protected open fun getCompleteCreatedEntry(entry: T, createdEntry: T): T = createdEntry
+
+    protected abstract fun executeCreateAll(entries: List<T>): List<T>
+
+    protected abstract fun executeUpdateAll(entries: List<T>)
+
+    protected open fun executeDeleteAll(entryIds: LongArray) {
+        forEachIdChunk(entryIds) { chunk, parameters ->
+            connection.prepareStatement("DELETE FROM $tableName WHERE ID IN ($parameters)").use { statement ->
+                chunk.forEachIndexed { index, entryId -> statement.setLong(index + 1, entryId) }
+                statement.executeUpdate()
+            }
+        }
+    }
+
+    /**
+     * Reads all entries with the specified IDs, the order of the returned entries is undefined.
+     *
+     * @param entryIds the IDs of the entries to read
+     * @return the read entries
+     */
+    protected fun readByIds(entryIds: LongArray): List<T> {
+        val entries = ArrayList<T>(entryIds.size)
+        forEachIdChunk(entryIds) { chunk, parameters ->
+            connection.prepareStatement("SELECT * FROM $tableName WHERE ID IN ($parameters)").use { statement ->
+                chunk.forEachIndexed { index, entryId -> statement.setLong(index + 1, entryId) }
+                statement.executeQuery().use { rs ->
+                    while (rs.next()) {
+                        entries.add(readFromResultSet(rs))
+                    }
+                }
+            }
+        }
+        return entries
+    }
+
+    /**
+     * Splits the IDs into chunks, so the number of parameters per statement stays below the SQLite limit.
+     * The SQL text depends on the chunk size, so these statements must not be put into the statement cache,
+     * they would evict the frequently used statements.
+     */
+    private fun forEachIdChunk(entryIds: LongArray, action: (chunk: List<Long>, parameters: String) -> Unit) {
+        entryIds.asList().chunked(ID_CHUNK_SIZE).forEach { chunk ->
+            action(chunk, chunk.joinToString(", ") { "?" })
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Executes the specified action inside a savepoint, all its changes are rolled back on failures.
+     */
+    private fun <R> executeInSavepoint(action: () -> R): R {
+        val savepoint = connection.setSavepoint()
+        try {
+            val result = action()
+            connection.releaseSavepoint(savepoint)
+            return result
+        } catch (e: Exception) {
+            connection.rollback(savepoint)
+            throw e
+        }
+    }
+
+    companion object {
+        /** Maximum number of IDs passed as parameters of a single statement. */
+        private const val ID_CHUNK_SIZE = 500
+    }
+}
@@ -0,0 +1,67 @@
+package de.saring.sportstracker.storage.db
+
+import de.saring.util.data.IdObject
+import java.sql.Connection
+import java.sql.PreparedStatement
+
+/**
+ * Abstract base class for all repositories whose entities are stored in the columns of a single table. The entries
+ * are created and updated by generic statements built from the column names.
+ *
+ * @property connection database connection
+ * @property statementCache cache of the prepared statements of the connection
+ * @property changeRecorder recorder for all created, updated and deleted entries
+ *
+ * @author Stefan Saring
+ */
+abstract class ColumnMappedRepository<T : IdObject>(
+    connection: Connection,
+    statementCache: StatementCache,
+    changeRecorder: RepositoryChangeRecorder<T>
+) : AbstractRepository<T>(connection, statementCache, changeRecorder) {
+
+    /**
+     * The names of the table columns (without ID) which are written on create and update, the values are set
+     * by [setColumnValues].
+     */
+    protected abstract val columnNames: List<String>
+
+    /**
+     * Sets the values of all columns listed in [columnNames] as parameters 1 to n of the specified statement.
+     *
+     * @param statement the INSERT or UPDATE statement
+     * @param entry the entry to write
+     */
+    protected abstract fun setColumnValues(statement: PreparedStatement, entry: T)
+
+    override fun executeCreateAll(entries: List<T>): List<T> {
+        val columns = columnNames.joinToString(", ")
+        val parameters = columnNames.joinToString(", ") { "?" }
+        val createdIds = LongArray(entries.size)
+
+        // SQLite can't return the generated IDs of a batch, so the statement is executed for each entry
+        val statement = statementCache.prepare("INSERT INTO $tableName ($columns) VALUES ($parameters) RETURNING ID")
+        entries.forEachIndexed { index, entry ->
+            setColumnValues(statement, entry)
+            statement.executeQuery().use { rs ->
+                rs.next()
+                createdIds[index] = rs.getLong(1)
+            }
+        }
+
+        val createdEntries = readByIds(createdIds).associateBy { it.id }
+        return createdIds.map { createdEntries.getValue(it) }
+    }
+
+    override fun executeUpdateAll(entries: List<T>) {
+        val assignments = columnNames.joinToString(", ") { "$it = ?" }
+
+        val statement = statementCache.prepare("UPDATE $tableName SET $assignments WHERE ID = ?")
+        entries.forEach { entry ->
+            setColumnValues(statement, entry)
+            statement.setLong(columnNames.size + 1, entry.id!!)
+            statement.addBatch()
+        }
+        statement.executeBatch()
+    }
+}
@@ -0,0 +1,52 @@
+package de.saring.sportstracker.storage.db
+
+import de.saring.sportstracker.core.STOptions
+
+/**
+ * Performance profiles of the SQLite database. A profile defines the pragmas which are applied when the database
+ * gets opened and whether the database gets optimized when it's closed.
+ *
+ * @property pragmas the pragmas to apply when opening the database
+ * @property optimizeOnClose flag for optimizing the database on close (updates the query planner statistics)
+ *
+ * @author Stefan Saring
+ */
+enum class DbPerformanceProfile(val pragmas: List<String>, val optimizeOnClose: Boolean) {
+
+    /**
+     * The SQLite defaults: rollback journal and full synchronization on each commit. This is the most robust
+     * profile, e.g. for databases on network drives.
+     */
+    STANDARD(listOf(
+        "journal_mode = DELETE",
+        "synchronous = FULL"
+    ), false),
+
+    /**
+     * Write-ahead log with normal synchronization, which makes commits much faster. The database stays consistent
+     * after crashes, but the last commits can be lost on power failures. Furthermore a larger page cache (64 MB),
+     * memory mapped I/O (up to 256 MB) and in-memory temporary storage are used.
+     */
+    PERFORMANCE(listOf(
+        "journal_mode = WAL",
+        "synchronous = NORMAL",
+        "cache_size = -65536",
+        "mmap_size = 268435456",
+        "temp_store = MEMORY"
+    ), true);
+
+    companion object {
+
+        /**
+         * Returns the performance profile for the database profile of the application options.
+         *
+         * @param databaseProfile the database profile of the options
+         * @return the performance profile
+         */
+        @JvmStatic
+        fun of(databaseProfile: STOptions.DatabaseProfile): DbPerformanceProfile = when (databaseProfile) {
+            STOptions.DatabaseProfile.Standard -> STANDARD
+            STOptions.DatabaseProfile.Performance -> PERFORMANCE
+        }
+    }
+}
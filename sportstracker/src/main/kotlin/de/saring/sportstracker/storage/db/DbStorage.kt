@@ -1,11 +1,17 @@
 package de.saring.sportstracker.storage.db
 
+import de.saring.sportstracker.core.ApplicationDataChangeEvent
 import de.saring.sportstracker.core.STException
 import de.saring.sportstracker.core.STExceptionID
+import de.saring.sportstracker.data.Exercise
 import de.saring.sportstracker.data.ExerciseList
+import de.saring.sportstracker.data.Note
 import de.saring.sportstracker.data.NoteList
+import de.saring.sportstracker.data.SportType
 import de.saring.sportstracker.data.SportTypeList
+import de.saring.sportstracker.data.Weight
 import de.saring.sportstracker.data.WeightList
+import de.saring.util.data.IdObject
 import java.sql.Connection
 import java.sql.DriverManager
 import java.sql.SQLException
@@ -25,11 +31,31 @@ class DbStorage {
     lateinit var exerciseRepository: ExerciseRepository private set
     lateinit var sportTypeRepository: SportTypeRepository private set
 
+    /** Cache of the prepared statements used by all repositories. */
+    lateinit var statementCache: StatementCache private set
+
     private lateinit var connection: Connection
 
+    /** The performance profile of the opened database. */
+    var performanceProfile = DbPerformanceProfile.STANDARD
+        private set
+
+    private val noteChangeRecorder = RepositoryChangeRecorder<Note>()
+    private val weightChangeRecorder = RepositoryChangeRecorder<Weight>()
+    private val exerciseChangeRecorder = RepositoryChangeRecorder<Exercise>()
+    private val sportTypeChangeRecorder = RepositoryChangeRecorder<SportType>()
+
+    /**
+     * Opens the specified database, it gets created when it doesn't exist yet.
+     *
+     * @param dbFilename filename of the database or [IN_MEMORY_FILENAME]
+     * @param performanceProfile the performance profile to apply
+     */
+    @JvmOverloads
     @Throws(STException::class)
-    fun openDatabase(dbFilename: String) {
+    fun openDatabase(dbFilename: String, performanceProfile: DbPerformanceProfile = DbPerformanceProfile.STANDARD) {
         val jdbcUrl = "jdbc:sqlite:$dbFilename"
+        this.performanceProfile = performanceProfile
         openDatabaseConnection(jdbcUrl)
 
         // create initial database schema if new database was created
@@ -41,16 +67,24 @@ class DbStorage {
         // check schema version of new or existing database and execute updates when needed
         validateSchemaVersion()
 
-        noteRepository = NoteRepository(connection)
-        weightRepository = WeightRepository(connection)
-        exerciseRepository = ExerciseRepository(connection)
-        sportTypeRepository = SportTypeRepository(connection)
+        clearRecordedChanges()
+        statementCache = StatementCache(connection)
+        noteRepository = NoteRepository(connection, statementCache, noteChangeRecorder)
+        weightRepository = WeightRepository(connection, statementCache, weightChangeRecorder)
+        exerciseRepository = ExerciseRepository(connection, statementCache, exerciseChangeRecorder)
+        sportTypeRepository = SportTypeRepository(connection, statementCache, sportTypeChangeRecorder)
     }
 
     fun closeDatabase() {
         LOGGER.info("Closing database")
 
-        // connection might be null on application exit when opening the database has failed
+        // statement cache and connection might not exist on application exit when opening the database has failed
+        if (::statementCache.isInitialized) {
+            statementCache.close()
+        }
+        if (::connection.isInitialized && performanceProfile.optimizeOnClose) {
+            optimizeDatabase()
+        }
         connection.let {
             try {
                 it.close()
@@ -71,6 +105,30 @@ class DbStorage {
         }
     }
 
+    /**
+     * Returns all changes done by the repositories since the last call of this method. The recorded changes are
+     * cleared afterwards.
+     *
+     * @param changedObject the added / changed object which was edited by the user (or null)
+     * @return the event containing all changes
+     */
+    fun takeRecordedChanges(changedObject: IdObject?): ApplicationDataChangeEvent {
+        return ApplicationDataChangeEvent(
+            sportTypeChangeRecorder.takeChanges(),
+            exerciseChangeRecorder.takeChanges(),
+            noteChangeRecorder.takeChanges(),
+            weightChangeRecorder.takeChanges(),
+            changedObject
+        )
+    }
+
+    private fun clearRecordedChanges() {
+        sportTypeChangeRecorder.clear()
+        exerciseChangeRecorder.clear()
+        noteChangeRecorder.clear()
+        weightChangeRecorder.clear()
+    }
+
     @Throws(STException::class)
     fun getSchemaVersion(): Int {
         try {
@@ -90,6 +148,8 @@ class DbStorage {
         try {
             // new database file will be created if it doesn't exist yet
             connection = DriverManager.getConnection(jdbcUrl)
+            // the journal mode can't be changed inside a transaction, so the profile must be applied before
+            applyPerformanceProfile()
             // AutoCommit is default for SQLite, use own TX management instead
             connection.autoCommit = false
             // enable foreign key support (disabled by default)
@@ -101,6 +161,44 @@ class DbStorage {
         }
     }
 
+    /**
+     * Applies the pragmas of the performance profile. Failures are not critical, the database can be used anyway.
+     */
+    private fun applyPerformanceProfile() {
+        LOGGER.info("Applying database performance profile $performanceProfile")
+
+        connection.createStatement().use { statement ->
+            performanceProfile.pragmas.forEach { pragma ->
+                try {
+                    statement.execute("PRAGMA $pragma")
+                } catch (e: SQLException) {
+                    LOGGER.log(Level.WARNING, "Failed to apply database setting 'PRAGMA $pragma'!", e)
+                }
+            }
+        }
+    }
+
+    /**
+     * Optimizes the database before closing, SQLite runs ANALYZE for all tables whose query planner statistics are
+     * missing or outdated. The uncommitted changes are rolled back before (like on closing), because the
+     * optimization needs to be committed.
+     */
+    private fun optimizeDatabase() {
+        LOGGER.info("Optimizing database")
+
+        try {
+            connection.rollback()
+            connection.autoCommit = true
+            connection.createStatement().use { statement ->
+                // limits the number of analyzed rows per index, so optimizing is fast also for large databases
+                statement.execute("PRAGMA analysis_limit = $ANALYSIS_LIMIT")
+                statement.execute("PRAGMA optimize")
+            }
+        } catch (e: SQLException) {
+            LOGGER.log(Level.WARNING, "Failed to optimize the database!", e)
+        }
+    }
+
     private fun isNewDatabase(): Boolean {
         try {
             // check by existence of database table 'META'
@@ -159,12 +257,15 @@ class DbStorage {
 
     companion object {
         /** Current database schema version of this application version. */
-        const val SCHEMA_VERSION = 2
+        const val SCHEMA_VERSION = 3
         /** Filename for opening the database in in-memory mode, useful for unit testing. */
         const val IN_MEMORY_FILENAME = ":memory:"
 
         private val LOGGER = Logger.getLogger(NoteRepository::class.java.name)
 
         private const val SCHEMA_FILE_PREFIX = "/sql/st-schema-"
+
+        /** Maximum number of analyzed rows per index when optimizing the database. */
+        private const val ANALYSIS_LIMIT = 1000
     }
-}
\ No newline at end of file
+}
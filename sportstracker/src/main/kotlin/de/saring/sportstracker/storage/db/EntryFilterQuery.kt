@@ -0,0 +1,103 @@
+package de.saring.sportstracker.storage.db
+
+import de.saring.sportstracker.data.Entry
+import de.saring.sportstracker.data.EntryFilter
+import de.saring.sportstracker.data.EntryList
+import de.saring.util.StringUtils
+import java.sql.PreparedStatement
+
+/**
+ * Converts the criteria of an EntryFilter to a parameterized SQL WHERE clause. The repositories only enable the
+ * criteria which are supported by the columns of their tables, all other criteria of the filter are ignored.
+ *
+ * The comment words are searched via LIKE, this is case-insensitive for ASCII characters only. And regular
+ * expressions can't be evaluated by SQLite. So the returned rows might contain more entries than the filter in
+ * these cases, the repositories need to apply the comment filter to the returned entries too, see
+ * [filterByComment]. The entry type of the filter is ignored, the filter gets applied to the entries of the
+ * querying repository.
+ *
+ * @property filter the entry filter criteria
+ * @param withSportType true when the table supports filtering by the sport type
+ * @param withSportSubType true when the table supports filtering by the sport subtype
+ * @param withIntensity true when the table supports filtering by the intensity
+ * @param withEquipment true when the table supports filtering by the equipment
+ *
+ * @author Stefan Saring
+ */
+internal class EntryFilterQuery(
+    private val filter: EntryFilter,
+    withSportType: Boolean = false,
+    withSportSubType: Boolean = false,
+    withIntensity: Boolean = false,
+    withEquipment: Boolean = false
+) {
+
+    private val conditions = mutableListOf<String>()
+    private val parameters = mutableListOf<Any>()
+
+    init {
+        // date time values are stored as text, so the date range can be compared as text too
+        addCondition("DATE_TIME >= ?", RepositoryUtil.dateTimeToString(filter.dateStart.atStartOfDay()))
+        addCondition("DATE_TIME < ?", RepositoryUtil.dateTimeToString(filter.dateEnd.plusDays(1).atStartOfDay()))
+
+        if (withSportType && filter.sportType != null) {
+            addCondition("SPORT_TYPE_ID = ?", filter.sportType.id!!)
+        }
+        if (withSportSubType && filter.sportSubType != null) {
+            addCondition("SPORT_SUBTYPE_ID = ?", filter.sportSubType.id!!)
+        }
+        if (withIntensity && filter.intensity != null) {
+            addCondition("INTENSITY = ?", filter.intensity.name)
+        }
+        if (withEquipment && filter.equipment != null) {
+            addCondition("EQUIPMENT_ID = ?", filter.equipment.id!!)
+        }
+
+        if (!StringUtils.isNullOrEmpty(filter.commentSubString)) {
+            // entries without comment can't match the comment filter
+            conditions.add("COMMENT IS NOT NULL")
+            if (!filter.isRegularExpressionMode) {
+                // each word of the filter needs to be contained in the comment, the order does not matter
+                // (words with non-ASCII characters are skipped, LIKE can't compare them case-insensitive)
+                filter.commentSubString.trim().split(Regex("\\s+"))
+                    .filter { word -> word.all { it.code < 128 } }
+                    .forEach { addCondition("COMMENT LIKE ? ESCAPE '\\'", "%${escapeLikePattern(it)}%") }
+            }
+        }
+    }
+
+    /**
+     * The SQL WHERE clause (without the WHERE keyword) for the filter criteria.
+     */
+    val whereClause: String
+        get() = conditions.joinToString(" AND ")
+
+    /**
+     * Sets the parameter values of the WHERE clause in the specified statement.
+     *
+     * @param statement the prepared statement of a query using the WHERE clause
+     * @param firstIndex the parameter index of the first WHERE clause parameter
+     */
+    fun setParameters(statement: PreparedStatement, firstIndex: Int = 1) {
+        parameters.forEachIndexed { index, value -> statement.setObject(firstIndex + index, value) }
+    }
+
+    /**
+     * Filters the queried entries by the comment criteria of the filter, this is needed for the criteria which
+     * can't be evaluated by SQLite. The order of the entries is not changed.
+     *
+     * @param entries the entries returned by the query
+     * @return the entries matching all filter criteria
+     */
+    fun <T : Entry> filterByComment(entries: List<T>): List<T> =
+        if (StringUtils.isNullOrEmpty(filter.commentSubString)) entries
+        else entries.filter { EntryList.isCommentMatching(it, filter) }
+
+    private fun addCondition(condition: String, parameter: Any) {
+        conditions.add(condition)
+        parameters.add(parameter)
+    }
+
+    private fun escapeLikePattern(text: String): String =
+        text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_")
+}
@@ -2,6 +2,7 @@ package de.saring.sportstracker.storage.db
 
 import de.saring.sportstracker.core.STException
 import de.saring.sportstracker.core.STExceptionID
+import de.saring.sportstracker.data.EntryFilter
 import de.saring.sportstracker.data.Exercise
 import de.saring.sportstracker.data.SportType
 import de.saring.sportstracker.storage.db.RepositoryUtil.getEquipmentById
@@ -12,9 +13,9 @@ import de.saring.sportstracker.storage.db.RepositoryUtil.getSportTypeById
 import de.saring.util.Date310Utils.dateToLocalDateTime
 import java.lang.UnsupportedOperationException
 import java.sql.Connection
+import java.sql.PreparedStatement
 import java.sql.ResultSet
 import java.sql.SQLException
-import java.sql.Statement
 import java.sql.Types
 import java.util.logging.Logger
 
@@ -22,12 +23,16 @@ import java.util.logging.Logger
  * Database repository for the Exercise data.
  *
  * @property connection database connection
+ * @property statementCache cache of the prepared statements of the connection
+ * @property changeRecorder recorder for all created, updated and deleted entries
  *
  * @author Stefan Saring
  */
 class ExerciseRepository(
-    connection: Connection
-) : AbstractRepository<Exercise>(connection) {
+    connection: Connection,
+    statementCache: StatementCache,
+    changeRecorder: RepositoryChangeRecorder<Exercise>
+) : ColumnMappedRepository<Exercise>(connection, statementCache, changeRecorder) {
 
     @Throws(STException::class)
     fun readAll(sportTypes: List<SportType>): List<Exercise> {
@@ -35,18 +40,9 @@ class ExerciseRepository(
         val exercises = ArrayList<Exercise>()
 
         try {
-            connection.prepareStatement("SELECT * FROM EXERCISE").use { statement ->
-                val rs = statement.executeQuery()
+            statementCache.prepare("SELECT * FROM EXERCISE").executeQuery().use { rs ->
                 while (rs.next()) {
-                    val exercise = readFromResultSet(rs)
-
-                    val sportType = getSportTypeById(sportTypes, rs.getLong("SPORT_TYPE_ID"))
-                    exercise.sportType = sportType
-                    exercise.sportSubType = getSportSubTypeById(sportType, rs.getLong("SPORT_SUBTYPE_ID"))
-
-                    val equipmentID = getLongOrNull(rs, "EQUIPMENT_ID")
-                    exercise.equipment = if (equipmentID == null) null else getEquipmentById(sportType, equipmentID)
-                    exercises.add(exercise)
+                    exercises.add(readWithReferences(rs, sportTypes))
                 }
             }
         } catch (e: SQLException) {
@@ -55,6 +51,23 @@ class ExerciseRepository(
         return exercises
     }
 
+    /**
+     * Reads all exercises which are matching the specified filter criteria (date range, sport type, sport subtype,
+     * intensity, equipment and comment). The filtering is done by the database, the entry type of the filter is
+     * ignored.
+     *
+     * @param filter the entry filter criteria
+     * @param sportTypes list of all sport types
+     * @return the list of matching exercises, sorted by ID
+     */
+    @Throws(STException::class)
+    fun readForFilter(filter: EntryFilter, sportTypes: List<SportType>): List<Exercise> {
+        val query = EntryFilterQuery(filter,
+            withSportType = true, withSportSubType = true, withIntensity = true, withEquipment = true)
+        val exercises = readForQuery(query) { rs -> readWithReferences(rs, sportTypes) }
+        return query.filterByComment(exercises)
+    }
+
     override fun readAll(): List<Exercise> {
         throw UnsupportedOperationException("Use readAll(List<SportType>) for reading all Exercises!")
     }
@@ -63,6 +76,9 @@ class ExerciseRepository(
 
     override val tableName = "EXERCISE"
 
+    override val columnNames = listOf("DATE_TIME", "SPORT_TYPE_ID", "SPORT_SUBTYPE_ID", "INTENSITY", "DURATION",
+        "DISTANCE", "AVG_SPEED", "AVG_HEARTRATE", "ASCENT", "DESCENT", "CALORIES", "HRM_FILE", "EQUIPMENT_ID", "COMMENT")
+
     override val logger: Logger = Logger.getLogger(ExerciseRepository::class.java.name)
 
     override fun readFromResultSet(rs: ResultSet): Exercise {
@@ -81,56 +97,37 @@ class ExerciseRepository(
         return exercise
     }
 
-    override fun executeCreate(entry: Exercise): Exercise {
-        connection.prepareStatement("INSERT INTO EXERCISE " +
-                "(DATE_TIME, SPORT_TYPE_ID, SPORT_SUBTYPE_ID, INTENSITY, DURATION, DISTANCE, AVG_SPEED, " +
-                "AVG_HEARTRATE, ASCENT, DESCENT, CALORIES, HRM_FILE, EQUIPMENT_ID, COMMENT) VALUES " +
-                "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) RETURNING ID",
-            Statement.RETURN_GENERATED_KEYS
-        ).use { statement ->
-            statement.setString(1, RepositoryUtil.dateTimeToString(entry.dateTime))
-            statement.setLong(2, entry.sportType.id!!)
-            statement.setLong(3, entry.sportSubType.id!!)
-            statement.setString(4, entry.intensity.name)
-            statement.setInt(5, entry.duration)
-            statement.setDouble(6, entry.distance)
-            statement.setDouble(7, entry.avgSpeed)
-            statement.setObject(8, entry.avgHeartRate, Types.INTEGER)
-            statement.setObject(9, entry.ascent, Types.INTEGER)
-            statement.setObject(10, entry.descent, Types.INTEGER)
-            statement.setObject(11, entry.calories, Types.INTEGER)
-            statement.setString(12, entry.hrmFile)
-            statement.setObject(13, entry.equipment?.id, Types.INTEGER);
-            statement.setString(14, entry.comment)
-            statement.execute()
-
-            val exerciseId = statement.resultSet.getLong(1)
-            return readById(exerciseId)
-        }
+    private fun readWithReferences(rs: ResultSet, sportTypes: List<SportType>): Exercise {
+        val exercise = readFromResultSet(rs)
+
+        val sportType = getSportTypeById(sportTypes, rs.getLong("SPORT_TYPE_ID"))
+        exercise.sportType = sportType
+        exercise.sportSubType = getSportSubTypeById(sportType, rs.getLong("SPORT_SUBTYPE_ID"))
+
+        val equipmentID = getLongOrNull(rs, "EQUIPMENT_ID")
+        exercise.equipment = if (equipmentID == null) null else getEquipmentById(sportType, equipmentID)
+        return exercise
     }
 
-    override fun executeUpdate(entry: Exercise) {
-        connection.prepareStatement("UPDATE EXERCISE SET " +
-                "DATE_TIME = ?, SPORT_TYPE_ID = ?, SPORT_SUBTYPE_ID = ?, INTENSITY = ?, DURATION = ?, " +
-                "DISTANCE = ?, AVG_SPEED = ?, AVG_HEARTRATE = ?, ASCENT = ?, DESCENT = ?, " +
-                "CALORIES = ?, HRM_FILE = ?, EQUIPMENT_ID = ?, COMMENT = ? WHERE ID = ?"
-        ).use { statement ->
-            statement.setString(1, RepositoryUtil.dateTimeToString(entry.dateTime))
-            statement.setLong(2, entry.sportType.id!!)
-            statement.setLong(3, entry.sportSubType.id!!)
-            statement.setString(4, entry.intensity.name)
-            statement.setInt(5, entry.duration)
-            statement.setDouble(6, entry.distance)
-            statement.setDouble(7, entry.avgSpeed)
-            statement.setObject(8, entry.avgHeartRate, Types.INTEGER)
-            statement.setObject(9, entry.ascent, Types.INTEGER)
-            statement.setObject(10, entry.descent, Types.INTEGER)
-            statement.setObject(11, entry.calories, Types.INTEGER)
-            statement.setString(12, entry.hrmFile)
-            statement.setObject(13, entry.equipment?.id, Types.INTEGER);
-            statement.setString(14, entry.comment)
-            statement.setLong(15, entry.id!!)
-            statement.executeUpdate()
-        }
+    override fun getCompleteCreatedEntry(entry: Exercise, createdEntry: Exercise): Exercise {
+        // the read Exercise contains no entity references, so use a clone of the passed Exercise with the new ID
+        return entry.clone(createdEntry.id)
+    }
+
+    override fun setColumnValues(statement: PreparedStatement, entry: Exercise) {
+        statement.setString(1, RepositoryUtil.dateTimeToString(entry.dateTime))
+        statement.setLong(2, entry.sportType.id!!)
+        statement.setLong(3, entry.sportSubType.id!!)
+        statement.setString(4, entry.intensity.name)
+        statement.setInt(5, entry.duration)
+        statement.setDouble(6, entry.distance)
+        statement.setDouble(7, entry.avgSpeed)
+        statement.setObject(8, entry.avgHeartRate, Types.INTEGER)
+        statement.setObject(9, entry.ascent, Types.INTEGER)
+        statement.setObject(10, entry.descent, Types.INTEGER)
+        statement.setObject(11, entry.calories, Types.INTEGER)
+        statement.setString(12, entry.hrmFile)
+        statement.setObject(13, entry.equipment?.id, Types.INTEGER)
+        statement.setString(14, entry.comment)
     }
 }
\ No newline at end of file
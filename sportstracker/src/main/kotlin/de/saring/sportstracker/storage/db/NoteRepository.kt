@@ -2,6 +2,7 @@ package de.saring.sportstracker.storage.db
 
 import de.saring.sportstracker.core.STException
 import de.saring.sportstracker.core.STExceptionID
+import de.saring.sportstracker.data.EntryFilter
 import de.saring.sportstracker.data.Note
 import de.saring.sportstracker.data.SportType
 import de.saring.sportstracker.storage.db.RepositoryUtil.dateTimeToString
@@ -10,9 +11,9 @@ import de.saring.sportstracker.storage.db.RepositoryUtil.getLongOrNull
 import de.saring.sportstracker.storage.db.RepositoryUtil.getSportTypeById
 import de.saring.util.Date310Utils.dateToLocalDateTime
 import java.sql.Connection
+import java.sql.PreparedStatement
 import java.sql.ResultSet
 import java.sql.SQLException
-import java.sql.Statement
 import java.sql.Types
 import java.util.logging.Logger
 
@@ -20,16 +21,22 @@ import java.util.logging.Logger
  * Database repository for the Note data.
  *
  * @property connection database connection
+ * @property statementCache cache of the prepared statements of the connection
+ * @property changeRecorder recorder for all created, updated and deleted entries
  *
  * @author Stefan Saring
  */
 class NoteRepository(
-    connection: Connection
-) : AbstractRepository<Note>(connection) {
+    connection: Connection,
+    statementCache: StatementCache,
+    changeRecorder: RepositoryChangeRecorder<Note>
+) : ColumnMappedRepository<Note>(connection, statementCache, changeRecorder) {
     override val entityName = "Note"
 
     override val tableName = "NOTE"
 
+    override val columnNames = listOf("DATE_TIME", "SPORT_TYPE_ID", "EQUIPMENT_ID", "COMMENT")
+
     override val logger: Logger = Logger.getLogger(NoteRepository::class.java.name)
 
     @Throws(STException::class)
@@ -38,20 +45,9 @@ class NoteRepository(
         val notes = ArrayList<Note>()
 
         try {
-            connection.prepareStatement("SELECT * FROM NOTE").use { statement ->
-                val rs = statement.executeQuery()
+            statementCache.prepare("SELECT * FROM NOTE").executeQuery().use { rs ->
                 while (rs.next()) {
-                    val note = readFromResultSet(rs)
-
-                    val sportTypeId = getLongOrNull(rs, "SPORT_TYPE_ID")
-                    if (sportTypeId != null) {
-                        val sportType = getSportTypeById(sportTypes, sportTypeId)
-                        note.sportType = sportType
-
-                        val equipmentID = getLongOrNull(rs, "EQUIPMENT_ID")
-                        note.equipment = if (equipmentID == null) null else getEquipmentById(sportType, equipmentID)
-                    }
-                    notes.add(note)
+                    notes.add(readWithReferences(rs, sportTypes))
                 }
             }
         } catch (e: SQLException) {
@@ -60,6 +56,21 @@ class NoteRepository(
         return notes
     }
 
+    /**
+     * Reads all notes which are matching the specified filter criteria (date range, sport type, equipment and
+     * comment). The filtering is done by the database, the entry type of the filter is ignored.
+     *
+     * @param filter the entry filter criteria
+     * @param sportTypes list of all sport types
+     * @return the list of matching notes, sorted by ID
+     */
+    @Throws(STException::class)
+    fun readForFilter(filter: EntryFilter, sportTypes: List<SportType>): List<Note> {
+        val query = EntryFilterQuery(filter, withSportType = true, withEquipment = true)
+        val notes = readForQuery(query) { rs -> readWithReferences(rs, sportTypes) }
+        return query.filterByComment(notes)
+    }
+
     override fun readAll(): List<Note> {
         throw UnsupportedOperationException("Use readAll(List<SportType>) for reading all Notes!")
     }
@@ -71,30 +82,29 @@ class NoteRepository(
         return note
     }
 
-    override fun executeCreate(entry: Note): Note {
-        connection.prepareStatement("INSERT INTO NOTE (DATE_TIME, SPORT_TYPE_ID, EQUIPMENT_ID, COMMENT) VALUES (?, ?, ?, ?) RETURNING ID",
-            Statement.RETURN_GENERATED_KEYS
-        ).use { statement ->
-            statement.setString(1, RepositoryUtil.dateTimeToString(entry.dateTime))
-            statement.setObject(2, entry.sportType?.id, Types.INTEGER);
-            statement.setObject(3, entry.equipment?.id, Types.INTEGER);
-            statement.setString(4, entry.comment)
-            statement.execute()
+    private fun readWithReferences(rs: ResultSet, sportTypes: List<SportType>): Note {
+        val note = readFromResultSet(rs)
 
-            val noteId = statement.resultSet.getLong(1)
-            return readById(noteId)
+        val sportTypeId = getLongOrNull(rs, "SPORT_TYPE_ID")
+        if (sportTypeId != null) {
+            val sportType = getSportTypeById(sportTypes, sportTypeId)
+            note.sportType = sportType
+
+            val equipmentID = getLongOrNull(rs, "EQUIPMENT_ID")
+            note.equipment = if (equipmentID == null) null else getEquipmentById(sportType, equipmentID)
         }
+        return note
     }
 
-    override fun executeUpdate(entry: Note) {
-        connection.prepareStatement("UPDATE NOTE SET DATE_TIME = ?, SPORT_TYPE_ID = ?, EQUIPMENT_ID = ?, COMMENT = ? WHERE ID = ?"
-        ).use { statement ->
-            statement.setString(1, dateTimeToString(entry.dateTime))
-            statement.setObject(2, entry.sportType?.id, Types.INTEGER);
-            statement.setObject(3, entry.equipment?.id, Types.INTEGER);
-            statement.setString(4, entry.comment)
-            statement.setLong(5, entry.id!!)
-            statement.executeUpdate()
-        }
+    override fun getCompleteCreatedEntry(entry: Note, createdEntry: Note): Note {
+        // the read Note contains no entity references, so use a clone of the passed Note with the new ID
+        return entry.clone(createdEntry.id)
+    }
+
+    override fun setColumnValues(statement: PreparedStatement, entry: Note) {
+        statement.setString(1, dateTimeToString(entry.dateTime))
+        statement.setObject(2, entry.sportType?.id, Types.INTEGER)
+        statement.setObject(3, entry.equipment?.id, Types.INTEGER)
+        statement.setString(4, entry.comment)
     }
 }
\ No newline at end of file
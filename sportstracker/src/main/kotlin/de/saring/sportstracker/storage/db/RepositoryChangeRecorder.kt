@@ -0,0 +1,65 @@
+package de.saring.sportstracker.storage.db
+
+import de.saring.sportstracker.core.EntityChanges
+import de.saring.util.data.IdObject
+
+/**
+ * Records all entries of one entity type which were created, updated or deleted by a repository. The recorded changes
+ * can be taken for applying them to the in-memory application data, the recorder is empty afterwards.
+ *
+ * @author Stefan Saring
+ */
+class RepositoryChangeRecorder<T : IdObject> {
+
+    private val created = LinkedHashMap<Long, T>()
+    private val updated = LinkedHashMap<Long, T>()
+    private val deletedIds = LinkedHashSet<Long>()
+    private var fullReloadRequired = false
+
+    fun recordCreated(entry: T) {
+        created[entry.id!!] = entry
+    }
+
+    fun recordUpdated(entry: T) {
+        val entryId = entry.id!!
+        // an entry created and updated before taking the changes is still a created entry
+        if (created.containsKey(entryId)) {
+            created[entryId] = entry
+        } else {
+            updated[entryId] = entry
+        }
+    }
+
+    fun recordDeleted(entryId: Long) {
+        updated.remove(entryId)
+        if (created.remove(entryId) == null) {
+            deletedIds.add(entryId)
+        }
+    }
+
+    /**
+     * Records a change which can't be described by single entries, e.g. when other entities were modified implicitly.
+     */
+    fun recordFullReload() {
+        fullReloadRequired = true
+    }
+
+    /**
+     * Returns all recorded changes and clears this recorder.
+     *
+     * @return the recorded changes
+     */
+    fun takeChanges(): EntityChanges<T> {
+        val changes = EntityChanges(
+            created.values.toList(), updated.values.toList(), deletedIds.toList(), fullReloadRequired)
+        clear()
+        return changes
+    }
+
+    fun clear() {
+        created.clear()
+        updated.clear()
+        deletedIds.clear()
+        fullReloadRequired = false
+    }
+}
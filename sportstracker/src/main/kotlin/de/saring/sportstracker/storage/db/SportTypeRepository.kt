@@ -18,12 +18,16 @@ import java.util.logging.Logger
  * Database repository for the SportType and related data.
  *
  * @property connection database connection
+ * @property statementCache cache of the prepared statements of the connection
+ * @property changeRecorder recorder for all created, updated and deleted entries
  *
  * @author Stefan Saring
  */
 class SportTypeRepository(
-    connection: Connection
-) : AbstractRepository<SportType>(connection) {
+    connection: Connection,
+    statementCache: StatementCache,
+    changeRecorder: RepositoryChangeRecorder<SportType>
+) : AbstractRepository<SportType>(connection, statementCache, changeRecorder) {
 
     @Throws(STException::class)
     override fun readAll(): List<SportType> {
@@ -52,8 +56,7 @@ class SportTypeRepository(
 
     private fun readAllSportSubTypes(sportTypes: List<SportType>) {
         try {
-            connection.prepareStatement("SELECT * FROM SPORT_SUBTYPE").use { statement ->
-                val rs = statement.executeQuery()
+            statementCache.prepare("SELECT * FROM SPORT_SUBTYPE").executeQuery().use { rs ->
                 while (rs.next()) {
                     val sportType = getSportTypeById(sportTypes, rs.getLong("SPORT_TYPE_ID"))
                     val sportSubType = SportSubType(rs.getLong("ID"))
@@ -69,8 +72,7 @@ class SportTypeRepository(
 
     private fun readAllEquipments(sportTypes: List<SportType>) {
         try {
-            connection.prepareStatement("SELECT * FROM EQUIPMENT").use { statement ->
-                val rs = statement.executeQuery()
+            statementCache.prepare("SELECT * FROM EQUIPMENT").executeQuery().use { rs ->
                 while (rs.next()) {
                     val sportType = getSportTypeById(sportTypes, rs.getLong("SPORT_TYPE_ID"))
                     val equipment = Equipment(rs.getLong("ID"))
@@ -85,24 +87,22 @@ class SportTypeRepository(
     }
 
     override fun executeCreate(entry: SportType): SportType {
+        // the IDs of the created subtypes and equipments are unknown here, all data needs to be reloaded
+        changeRecorder.recordFullReload()
         var sportType: SportType
 
-        connection.prepareStatement(
+        val statement = statementCache.prepare(
             "INSERT INTO SPORT_TYPE " +
-                    "(NAME, RECORD_DISTANCE, SPEED_MODE, COLOR, ICON, FIT_ID) VALUES (?, ?, ?, ?, ?, ?) RETURNING ID",
-            Statement.RETURN_GENERATED_KEYS
-        ).use { statement ->
-            statement.setString(1, entry.getName())
-            statement.setBoolean(2, entry.isRecordDistance)
-            statement.setString(3, entry.speedMode.name)
-            statement.setString(4, if (entry.color == null) null else ColorUtils.toRGBCode(entry.color))
-            statement.setString(5, entry.icon)
-            statement.setObject(6, entry.fitId, Types.INTEGER);
-            statement.execute()
-
-            val sportTypeId = statement.resultSet.getLong(1)
-            sportType = readById(sportTypeId)
-        }
+                    "(NAME, RECORD_DISTANCE, SPEED_MODE, COLOR, ICON, FIT_ID) VALUES (?, ?, ?, ?, ?, ?) RETURNING ID")
+        statement.setString(1, entry.getName())
+        statement.setBoolean(2, entry.isRecordDistance)
+        statement.setString(3, entry.speedMode.name)
+        statement.setString(4, if (entry.color == null) null else ColorUtils.toRGBCode(entry.color))
+        statement.setString(5, entry.icon)
+        statement.setObject(6, entry.fitId, Types.INTEGER);
+
+        val sportTypeId = statement.executeQuery().use { rs -> rs.getLong(1) }
+        sportType = readById(sportTypeId)
 
         // persist also all new sport subtypes and equipments
         entry.sportSubTypeList.forEach { createSportSubType(it, sportType) }
@@ -111,49 +111,60 @@ class SportTypeRepository(
     }
 
     override fun executeUpdate(entry: SportType) {
-        connection.prepareStatement("UPDATE SPORT_TYPE SET " +
-                "NAME = ?, RECORD_DISTANCE = ?, SPEED_MODE = ?, COLOR = ?, ICON = ?, FIT_ID = ? WHERE ID = ?"
-            ).use { statement ->
-            statement.setString(1, entry.getName())
-            statement.setBoolean(2, entry.isRecordDistance)
-            statement.setString(3, entry.speedMode.name)
-            statement.setString(4, if (entry.color == null) null else ColorUtils.toRGBCode(entry.color))
-            statement.setString(5, entry.icon)
-            statement.setObject(6, entry.fitId, Types.INTEGER);
-            statement.setLong(7, entry.id!!);
-            statement.executeUpdate()
-        }
+        // the update can also delete or modify Exercises using the SportType, all data needs to be reloaded
+        changeRecorder.recordFullReload()
+
+        val statement = statementCache.prepare("UPDATE SPORT_TYPE SET " +
+                "NAME = ?, RECORD_DISTANCE = ?, SPEED_MODE = ?, COLOR = ?, ICON = ?, FIT_ID = ? WHERE ID = ?")
+        statement.setString(1, entry.getName())
+        statement.setBoolean(2, entry.isRecordDistance)
+        statement.setString(3, entry.speedMode.name)
+        statement.setString(4, if (entry.color == null) null else ColorUtils.toRGBCode(entry.color))
+        statement.setString(5, entry.icon)
+        statement.setObject(6, entry.fitId, Types.INTEGER);
+        statement.setLong(7, entry.id!!);
+        statement.executeUpdate()
 
         persistSportSubTypesOfExistingSportType(entry)
         persistEquipmentsOfExistingSportType(entry)
     }
 
     override fun executeDelete(entryId: Long) {
+        // Exercises using the SportType are deleted too, all data needs to be reloaded
+        changeRecorder.recordFullReload()
+
         // SportType might be used in some Exercises, these need to be deleted before (confirmed by the user)
-        connection.prepareStatement("DELETE FROM EXERCISE WHERE SPORT_TYPE_ID = ?").use { statement ->
+        statementCache.prepare("DELETE FROM EXERCISE WHERE SPORT_TYPE_ID = ?").let { statement ->
             statement.setLong(1, entryId)
             statement.executeUpdate()
         }
 
         // delete all equipments of this sport type
-        connection.prepareStatement("DELETE FROM EQUIPMENT WHERE SPORT_TYPE_ID = ?").use { statement ->
+        statementCache.prepare("DELETE FROM EQUIPMENT WHERE SPORT_TYPE_ID = ?").let { statement ->
             statement.setLong(1, entryId)
             statement.executeUpdate()
         }
         // delete all sport subtypes of this sport type
-        connection.prepareStatement("DELETE FROM SPORT_SUBTYPE WHERE SPORT_TYPE_ID = ?").use { statement ->
+        statementCache.prepare("DELETE FROM SPORT_SUBTYPE WHERE SPORT_TYPE_ID = ?").let { statement ->
             statement.setLong(1, entryId)
             statement.executeUpdate()
         }
 
-        super.executeDelete(entryId);
+        super.executeDeleteAll(longArrayOf(entryId))
     }
 
+    // sport types are persisted together with their subtypes and equipments, so they can't be written in batches
+
+    override fun executeCreateAll(entries: List<SportType>): List<SportType> = entries.map { executeCreate(it) }
+
+    override fun executeUpdateAll(entries: List<SportType>) = entries.forEach { executeUpdate(it) }
+
+    override fun executeDeleteAll(entryIds: LongArray) = entryIds.forEach { executeDelete(it) }
+
     private fun createSportSubType(sportSubType: SportSubType, sportType: SportType) {
-        connection.prepareStatement(
-            "INSERT INTO SPORT_SUBTYPE (SPORT_TYPE_ID, NAME, FIT_ID) VALUES (?, ?, ?)",
-            Statement.RETURN_GENERATED_KEYS
-        ).use { statement ->
+        statementCache.prepare(
+            "INSERT INTO SPORT_SUBTYPE (SPORT_TYPE_ID, NAME, FIT_ID) VALUES (?, ?, ?)"
+        ).let { statement ->
             statement.setLong(1, sportType.id!!)
             statement.setString(2, sportSubType.getName())
             statement.setObject(3, sportSubType.fitId, Types.INTEGER);
@@ -162,10 +173,10 @@ class SportTypeRepository(
     }
 
     private fun updateSportSubType(sportSubType: SportSubType) {
-        connection.prepareStatement(
+        statementCache.prepare(
             "UPDATE SPORT_SUBTYPE SET " +
                     "NAME = ?, FIT_ID = ? WHERE ID = ?"
-        ).use { statement ->
+        ).let { statement ->
             statement.setString(1, sportSubType.getName())
             statement.setObject(2, sportSubType.fitId, Types.INTEGER);
             statement.setLong(3, sportSubType.id!!);
@@ -174,10 +185,9 @@ class SportTypeRepository(
     }
 
     private fun createEquipment(equipment: Equipment, sportType: SportType) {
-        connection.prepareStatement(
-            "INSERT INTO EQUIPMENT (SPORT_TYPE_ID, NAME, NOT_IN_USE) VALUES (?, ?, ?)",
-            Statement.RETURN_GENERATED_KEYS
-        ).use { statement ->
+        statementCache.prepare(
+            "INSERT INTO EQUIPMENT (SPORT_TYPE_ID, NAME, NOT_IN_USE) VALUES (?, ?, ?)"
+        ).let { statement ->
             statement.setLong(1, sportType.id!!)
             statement.setString(2, equipment.getName())
             statement.setBoolean(3, equipment.isNotInUse);
@@ -186,10 +196,10 @@ class SportTypeRepository(
     }
 
     private fun updateEquipment(equipment: Equipment) {
-        connection.prepareStatement(
+        statementCache.prepare(
             "UPDATE EQUIPMENT SET " +
                     "NAME = ?, NOT_IN_USE = ? WHERE ID = ?"
-        ).use { statement ->
+        ).let { statement ->
             statement.setString(1, equipment.getName())
             statement.setBoolean(2, equipment.isNotInUse);
             statement.setLong(3, equipment.id!!);
@@ -0,0 +1,90 @@
+package de.saring.sportstracker.storage.db
+
+import java.sql.Connection
+import java.sql.PreparedStatement
+import java.sql.SQLException
+import java.util.logging.Level
+import java.util.logging.Logger
+
+/**
+ * Cache of the prepared statements of a database connection, the key is the SQL text. So SQLite needs to parse and
+ * plan the statements of the repositories only once, they are reused for all further executions.
+ *
+ * The borrowed statements must not be closed by the caller, they get closed when they are removed from the cache or
+ * when the cache is closed. The result sets of the statements need to be closed by the caller after reading. The
+ * number of cached statements is limited, the least recently used statement is closed when the limit is exceeded.
+ *
+ * @property connection database connection
+ * @property maxSize maximum number of cached statements
+ *
+ * @author Stefan Saring
+ */
+class StatementCache(
+    private val connection: Connection,
+    private val maxSize: Int = DEFAULT_MAX_SIZE
+) {
+
+    /** Number of statements which were provided from the cache. */
+    var hitCount = 0L
+        private set
+
+    /** Number of statements which needed to be prepared. */
+    var missCount = 0L
+        private set
+
+    private val statements = object : LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, PreparedStatement>): Boolean {
+            if (size > maxSize) {
+                closeStatement(eldest.value)
+                return true
+            }
+            return false
+        }
+    }
+
+    /**
+     * Returns the cached prepared statement for the specified SQL text or prepares a new one. The parameters and
+     * batches of previous executions are cleared.
+     *
+     * @param sql the SQL text of the statement
+     * @return the prepared statement
+     */
+    @Throws(SQLException::class)
+    fun prepare(sql: String): PreparedStatement {
+        val cachedStatement = statements[sql]
+        if (cachedStatement != null) {
+            hitCount++
+            cachedStatement.clearParameters()
+            cachedStatement.clearBatch()
+            return cachedStatement
+        }
+
+        missCount++
+        val statement = connection.prepareStatement(sql)
+        statements[sql] = statement
+        return statement
+    }
+
+    /**
+     * Closes all cached statements, the cache is empty afterwards.
+     */
+    fun close() {
+        LOGGER.info("Closing ${statements.size} cached statements (hits: $hitCount, misses: $missCount)")
+        statements.values.forEach { closeStatement(it) }
+        statements.clear()
+    }
+
+    private fun closeStatement(statement: PreparedStatement) {
+        try {
+            statement.close()
+        } catch (e: SQLException) {
+            LOGGER.log(Level.WARNING, "Failed to close cached statement!", e)
+        }
+    }
+
+    companion object {
+        private const val DEFAULT_MAX_SIZE = 64
+
+        private val LOGGER = Logger.getLogger(StatementCache::class.java.name)
+    }
+}
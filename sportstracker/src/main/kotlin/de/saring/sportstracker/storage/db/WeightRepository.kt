@@ -1,29 +1,51 @@
 package de.saring.sportstracker.storage.db
 
+import de.saring.sportstracker.core.STException
+import de.saring.sportstracker.data.EntryFilter
 import de.saring.sportstracker.data.Weight
 import de.saring.util.Date310Utils.dateToLocalDateTime
 import java.sql.Connection
+import java.sql.PreparedStatement
 import java.sql.ResultSet
-import java.sql.Statement
 import java.util.logging.Logger
 
 /**
  * Database repository for the Weight data.
  *
  * @property connection database connection
+ * @property statementCache cache of the prepared statements of the connection
+ * @property changeRecorder recorder for all created, updated and deleted entries
  *
  * @author Stefan Saring
  */
 class WeightRepository(
-    connection: Connection
-) : AbstractRepository<Weight>(connection) {
+    connection: Connection,
+    statementCache: StatementCache,
+    changeRecorder: RepositoryChangeRecorder<Weight>
+) : ColumnMappedRepository<Weight>(connection, statementCache, changeRecorder) {
 
     override val entityName = "Weight"
 
     override val tableName = "WEIGHT"
 
+    override val columnNames = listOf("DATE_TIME", "VALUE", "COMMENT")
+
     override val logger: Logger = Logger.getLogger(WeightRepository::class.java.name)
 
+    /**
+     * Reads all weights which are matching the specified filter criteria (date range and comment). The filtering is
+     * done by the database, the entry type of the filter is ignored.
+     *
+     * @param filter the entry filter criteria
+     * @return the list of matching weights, sorted by ID
+     */
+    @Throws(STException::class)
+    fun readForFilter(filter: EntryFilter): List<Weight> {
+        val query = EntryFilterQuery(filter)
+        val weights = readForQuery(query) { rs -> readFromResultSet(rs) }
+        return query.filterByComment(weights)
+    }
+
     override fun readFromResultSet(rs: ResultSet): Weight {
         val weight = Weight(rs.getLong("ID"))
         weight.dateTime = dateToLocalDateTime(rs.getDate("DATE_TIME"))
@@ -32,28 +54,9 @@ class WeightRepository(
         return weight
     }
 
-    override fun executeCreate(entry: Weight): Weight {
-        connection.prepareStatement("INSERT INTO WEIGHT (DATE_TIME, VALUE, COMMENT) VALUES (?, ?, ?) RETURNING ID",
-            Statement.RETURN_GENERATED_KEYS
-        ).use { statement ->
-            statement.setString(1, RepositoryUtil.dateTimeToString(entry.dateTime))
-            statement.setDouble(2, entry.value)
-            statement.setString(3, entry.comment)
-            statement.execute()
-
-            val weightID = statement.resultSet.getLong(1)
-            return readById(weightID)
-        }
-    }
-
-    override fun executeUpdate(entry: Weight) {
-        connection.prepareStatement("UPDATE WEIGHT SET DATE_TIME = ?, VALUE = ?, COMMENT = ? WHERE ID = ?"
-        ).use { statement ->
-            statement.setString(1, RepositoryUtil.dateTimeToString(entry.dateTime))
-            statement.setDouble(2, entry.value)
-            statement.setString(3, entry.comment)
-            statement.setLong(4, entry.id!!)
-            statement.executeUpdate()
-        }
+    override fun setColumnValues(statement: PreparedStatement, entry: Weight) {
+        statement.setString(1, RepositoryUtil.dateTimeToString(entry.dateTime))
+        statement.setDouble(2, entry.value)
+        statement.setString(3, entry.comment)
     }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+-- SQLite schema update for the SportsTracker database.
+-- Schema version 3 changes:
+-- - Added indexes for the filter criteria of exercises, notes and weights (date time, sport type, sport subtype
+--   and equipment). The intensity is not indexed, there are just a few distinct values.
+
+DELETE FROM META WHERE 1=1;
+INSERT INTO META (SCHEMA_VERSION) VALUES (3);
+
+CREATE INDEX IDX_EXERCISE_DATE_TIME ON EXERCISE (DATE_TIME);
+CREATE INDEX IDX_EXERCISE_SPORT_TYPE ON EXERCISE (SPORT_TYPE_ID, DATE_TIME);
+CREATE INDEX IDX_EXERCISE_SPORT_SUBTYPE ON EXERCISE (SPORT_SUBTYPE_ID);
+CREATE INDEX IDX_EXERCISE_EQUIPMENT ON EXERCISE (EQUIPMENT_ID);
+
+CREATE INDEX IDX_NOTE_DATE_TIME ON NOTE (DATE_TIME);
+
+CREATE INDEX IDX_WEIGHT_DATE_TIME ON WEIGHT (DATE_TIME);
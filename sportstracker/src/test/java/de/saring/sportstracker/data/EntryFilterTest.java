@@ -4,6 +4,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
 /**
@@ -79,4 +81,28 @@ public class EntryFilterTest {
         assertNull(filter.getSportType());
         assertNull(filter.getSportSubType());
     }
+
+    /**
+     * Test of methods copy() and equals(): the copy must contain the same criteria and must not be affected by
+     * later changes of the original filter.
+     */
+    @Test
+    public void testCopyAndEquals() {
+        EntryFilter filter = EntryFilter.createDefaultExerciseFilter();
+        filter.setSportType(sportTypeList.getByID(1));
+        filter.setCommentSubString("foo");
+
+        EntryFilter copy = filter.copy();
+        assertNotSame(filter, copy);
+        assertEquals(filter, copy);
+        assertEquals(filter.hashCode(), copy.hashCode());
+
+        filter.setCommentSubString("bar");
+        assertNotEquals(filter, copy);
+        assertEquals("foo", copy.getCommentSubString());
+
+        filter.setCommentSubString("foo");
+        filter.setDateEnd(filter.getDateEnd().plusDays(1));
+        assertNotEquals(filter, copy);
+    }
 }
@@ -0,0 +1,128 @@
+package de.saring.sportstracker.data.statistic;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.saring.sportstracker.data.Equipment;
+import de.saring.sportstracker.data.Exercise;
+import de.saring.sportstracker.data.SportSubType;
+import de.saring.sportstracker.data.SportType;
+
+/**
+ * This class contains all unit tests for the ExerciseOverviewCube class.
+ *
+ * @author Stefan Saring
+ */
+public class ExerciseOverviewCubeTest {
+
+    private static final ExerciseOverviewCube.DimensionFilter ALL = (sportTypeId, sportSubTypeId, equipmentId) -> true;
+
+    private SportType sportType1;
+    private SportType sportType2;
+    private SportSubType sportSubType1;
+    private Equipment equipment1;
+
+    private ExerciseOverviewCube cube;
+
+    /**
+     * This method initializes the environment for testing.
+     */
+    @BeforeEach
+    public void setUp() {
+        sportType1 = new SportType(1L);
+        sportSubType1 = new SportSubType(11L);
+        sportType1.getSportSubTypeList().set(sportSubType1);
+        equipment1 = new Equipment(111L);
+        sportType1.getEquipmentList().set(equipment1);
+
+        sportType2 = new SportType(2L);
+        sportType2.getSportSubTypeList().set(new SportSubType(21L));
+
+        cube = new ExerciseOverviewCube(List.of(
+                createExercise(1, sportType1, equipment1, LocalDateTime.of(2024, 1, 1, 10, 0), 10, 3600, 100),
+                createExercise(2, sportType1, null, LocalDateTime.of(2024, 1, 31, 18, 0), 20, 7200, null),
+                createExercise(3, sportType2, null, LocalDateTime.of(2024, 2, 29, 8, 0), 30, 1800, 300),
+                createExercise(4, sportType2, null, LocalDateTime.of(2025, 1, 1, 8, 0), 40, 3600, 400)));
+    }
+
+    /**
+     * Tests the sums for various date ranges consisting of days, months and years.
+     */
+    @Test
+    public void testGetSums() {
+        assertSums(4, 100, 16200, 800, cube.getSums(LocalDate.of(2023, 1, 1), LocalDate.of(2025, 12, 31), ALL));
+        assertSums(3, 60, 12600, 400, cube.getSums(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31), ALL));
+        assertSums(2, 30, 10800, 100, cube.getSums(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), ALL));
+        assertSums(1, 20, 7200, 0, cube.getSums(LocalDate.of(2024, 1, 29), LocalDate.of(2024, 2, 4), ALL));
+        assertSums(2, 70, 5400, 700, cube.getSums(LocalDate.of(2024, 2, 29), LocalDate.of(2025, 1, 1), ALL));
+        assertSums(0, 0, 0, 0, cube.getSums(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 12, 31), ALL));
+    }
+
+    /**
+     * Tests the sums for specific sport types and equipments.
+     */
+    @Test
+    public void testGetSumsWithDimensionFilter() {
+        LocalDate dateStart = LocalDate.of(2024, 1, 1);
+        LocalDate dateEnd = LocalDate.of(2025, 12, 31);
+
+        assertSums(2, 70, 5400, 700, cube.getSums(dateStart, dateEnd,
+                (sportTypeId, sportSubTypeId, equipmentId) -> sportTypeId == 2L));
+        assertSums(2, 30, 10800, 100, cube.getSums(dateStart, dateEnd,
+                (sportTypeId, sportSubTypeId, equipmentId) -> Objects.equals(sportSubTypeId, 11L)));
+        assertSums(1, 10, 3600, 100, cube.getSums(dateStart, dateEnd,
+                (sportTypeId, sportSubTypeId, equipmentId) -> Objects.equals(equipmentId, 111L)));
+        assertSums(3, 90, 12600, 700, cube.getSums(dateStart, dateEnd,
+                (sportTypeId, sportSubTypeId, equipmentId) -> equipmentId == null));
+    }
+
+    /**
+     * Tests the incremental update of the cube by replacing and removing exercises.
+     */
+    @Test
+    public void testSetAndRemove() {
+        LocalDate dateStart = LocalDate.of(2024, 1, 1);
+        LocalDate dateEnd = LocalDate.of(2024, 12, 31);
+
+        // move exercise 2 to another year, the previous values must be removed
+        cube.set(createExercise(2, sportType2, null, LocalDateTime.of(2023, 6, 1, 18, 0), 25, 7200, 50));
+        assertSums(2, 40, 5400, 400, cube.getSums(dateStart, dateEnd, ALL));
+        assertSums(1, 25, 7200, 50, cube.getSums(LocalDate.of(2023, 6, 1), LocalDate.of(2023, 6, 1), ALL));
+
+        cube.removeByID(1);
+        cube.removeByID(2);
+        cube.removeByID(99);
+        assertSums(1, 30, 1800, 300, cube.getSums(dateStart, dateEnd, ALL));
+        assertSums(0, 0, 0, 0, cube.getSums(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31), ALL));
+    }
+
+    private Exercise createExercise(long id, SportType sportType, Equipment equipment, LocalDateTime dateTime,
+            double distance, int duration, Integer ascent) {
+
+        Exercise exercise = new Exercise(id);
+        exercise.setSportType(sportType);
+        exercise.setSportSubType(sportType.getSportSubTypeList().getAt(0));
+        exercise.setEquipment(equipment);
+        exercise.setDateTime(dateTime);
+        exercise.setDistance(distance);
+        exercise.setDuration(duration);
+        exercise.setAscent(ascent);
+        exercise.setDescent(ascent);
+        exercise.setCalories(duration / 10);
+        return exercise;
+    }
+
+    private void assertSums(int count, double distance, double duration, double ascent, double[] sums) {
+        assertArrayEquals(new double[]{count, distance, duration, ascent, ascent, duration / 10},
+                sums, 0.0001d, "Unexpected sums");
+        assertEquals(count, (int) sums[ExerciseOverviewCube.Value.COUNT.ordinal()]);
+    }
+}
@@ -0,0 +1,123 @@
+package de.saring.sportstracker.data.statistic;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import de.saring.sportstracker.data.Exercise;
+import de.saring.util.data.IdObjectList;
+
+/**
+ * JMH micro benchmark which compares the single pass statistic calculation (sequential and as parallel reduction)
+ * with the previous implementation, which was streaming the exercise list for each calculated value separately.
+ * Some of the optional exercise values are missing, like in real exercise data, so the null checks are included.
+ *
+ * @author Stefan Saring
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatisticCalculatorBenchmark {
+
+    @Param({"100000"})
+    private int size;
+
+    private IdObjectList<Exercise> exercises;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        final LocalDateTime dateTime = LocalDateTime.of(2020, 1, 1, 10, 0);
+        exercises = new IdObjectList<>();
+
+        for (int i = 0; i < size; i++) {
+            final Exercise exercise = new Exercise((long) i);
+            exercise.setDateTime(dateTime.plusHours(i));
+            exercise.setDistance(random.nextDouble() * 100);
+            exercise.setAvgSpeed(random.nextDouble() * 40);
+            exercise.setDuration(random.nextInt(4 * 3600));
+            // the optional values are missing for some exercises
+            exercise.setAscent(i % 3 == 0 ? null : random.nextInt(2000));
+            exercise.setDescent(i % 3 == 0 ? null : random.nextInt(2000));
+            exercise.setAvgHeartRate(i % 5 == 0 ? null : 100 + random.nextInt(80));
+            exercise.setCalories(i % 7 == 0 ? null : random.nextInt(3000));
+            exercises.set(exercise);
+        }
+    }
+
+    @Benchmark
+    public StatisticCalculator singlePass() {
+        return new StatisticCalculator(exercises);
+    }
+
+    @Benchmark
+    public StatisticCalculator singlePassParallel() {
+        return new StatisticCalculator(exercises.stream().parallel().collect(StatisticAccumulator.collector()));
+    }
+
+    /**
+     * Calculation of all values like in the previous StatisticCalculator implementation.
+     */
+    @Benchmark
+    public void separateStreams(final Blackhole blackhole) {
+        blackhole.consume(exercises.stream().mapToDouble(Exercise::getDistance).sum());
+        blackhole.consume(exercises.stream().mapToDouble(Exercise::getDistance).min().orElse(0));
+        blackhole.consume(exercises.stream().mapToDouble(Exercise::getDistance).max().orElse(0));
+        blackhole.consume(exercises.stream().mapToDouble(Exercise::getDistance).average().orElse(0));
+
+        blackhole.consume(exercises.stream().mapToDouble(Exercise::getAvgSpeed).min().orElse(0));
+        blackhole.consume(exercises.stream().mapToDouble(Exercise::getAvgSpeed).max().orElse(0));
+        blackhole.consume(exercises.stream().mapToDouble(Exercise::getAvgSpeed).average().orElse(0));
+
+        blackhole.consume(exercises.stream().mapToInt(Exercise::getDuration).sum());
+        blackhole.consume(exercises.stream().mapToInt(Exercise::getDuration).min().orElse(0));
+        blackhole.consume(exercises.stream().mapToInt(Exercise::getDuration).max().orElse(0));
+        blackhole.consume(exercises.stream().mapToInt(Exercise::getDuration).average().orElse(0));
+
+        consumeOptionalValues(blackhole, Exercise::getAscent, true);
+        consumeOptionalValues(blackhole, Exercise::getDescent, true);
+        consumeOptionalValues(blackhole, Exercise::getAvgHeartRate, false);
+        consumeOptionalValues(blackhole, Exercise::getCalories, true);
+    }
+
+    private void consumeOptionalValues(final Blackhole blackhole, final Function<Exercise, Integer> getter,
+                                       final boolean withSum) {
+        if (withSum) {
+            blackhole.consume(optionalValues(getter).sum());
+        }
+        blackhole.consume(optionalValues(getter).min().orElse(0));
+        blackhole.consume(optionalValues(getter).max().orElse(0));
+        blackhole.consume(optionalValues(getter).average().orElse(0));
+    }
+
+    private IntStream optionalValues(final Function<Exercise, Integer> getter) {
+        return exercises.stream()
+                .filter(it -> getter.apply(it) != null)
+                .mapToInt(getter::apply);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StatisticCalculatorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
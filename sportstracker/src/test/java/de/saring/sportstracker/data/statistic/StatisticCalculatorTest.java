@@ -127,4 +127,70 @@ public class StatisticCalculatorTest {
         assertEquals(140, calculator.getMaxAvgHeartRate());
         assertEquals(890, calculator.getMaxCalories());
     }
+
+    /**
+     * Tests the calculation for an empty exercise list, all values must be 0.
+     */
+    @Test
+    public void testStatisticCalculatorEmpty() {
+        StatisticCalculator calculator = new StatisticCalculator(new IdObjectList<>());
+
+        assertEquals(0, calculator.getExerciseCount());
+        assertEquals(0d, calculator.getTotalDistance());
+        assertEquals(0f, calculator.getMinAvgSpeed());
+        assertEquals(0, calculator.getMaxDuration());
+        assertEquals(0, calculator.getMinCalories());
+        assertEquals(0, calculator.getAvgHeartRate());
+    }
+
+    /**
+     * Tests the calculation with merged accumulators, the results must be the same as for the complete list.
+     */
+    @Test
+    public void testStatisticCalculatorMergedAccumulators() {
+        StatisticAccumulator accumulator1 = new StatisticAccumulator();
+        accumulator1.add(lExercises.getAt(0));
+        accumulator1.add(lExercises.getAt(1));
+        StatisticAccumulator accumulator2 = new StatisticAccumulator();
+        accumulator2.add(lExercises.getAt(2));
+        accumulator2.add(lExercises.getAt(3));
+
+        assertSameResults(new StatisticCalculator(lExercises),
+                new StatisticCalculator(accumulator1.merge(new StatisticAccumulator()).merge(accumulator2)));
+        assertSameResults(new StatisticCalculator(lExercises),
+                new StatisticCalculator(lExercises.stream().parallel().collect(StatisticAccumulator.collector())));
+    }
+
+    private void assertSameResults(StatisticCalculator expected, StatisticCalculator actual) {
+        assertEquals(expected.getExerciseCount(), actual.getExerciseCount());
+        assertEquals(expected.getTotalDistance(), actual.getTotalDistance(), 0.0001d);
+        assertEquals(expected.getTotalDuration(), actual.getTotalDuration());
+        assertEquals(expected.getTotalAscent(), actual.getTotalAscent());
+        assertEquals(expected.getTotalDescent(), actual.getTotalDescent());
+        assertEquals(expected.getTotalCalories(), actual.getTotalCalories());
+
+        assertEquals(expected.getAvgDistance(), actual.getAvgDistance(), 0.0001f);
+        assertEquals(expected.getAvgSpeed(), actual.getAvgSpeed(), 0.0001f);
+        assertEquals(expected.getAvgDuration(), actual.getAvgDuration());
+        assertEquals(expected.getAvgAscent(), actual.getAvgAscent());
+        assertEquals(expected.getAvgDescent(), actual.getAvgDescent());
+        assertEquals(expected.getAvgHeartRate(), actual.getAvgHeartRate());
+        assertEquals(expected.getAvgCalories(), actual.getAvgCalories());
+
+        assertEquals(expected.getMinDistance(), actual.getMinDistance());
+        assertEquals(expected.getMinAvgSpeed(), actual.getMinAvgSpeed());
+        assertEquals(expected.getMinDuration(), actual.getMinDuration());
+        assertEquals(expected.getMinAscent(), actual.getMinAscent());
+        assertEquals(expected.getMinDescent(), actual.getMinDescent());
+        assertEquals(expected.getMinAvgHeartRate(), actual.getMinAvgHeartRate());
+        assertEquals(expected.getMinCalories(), actual.getMinCalories());
+
+        assertEquals(expected.getMaxDistance(), actual.getMaxDistance());
+        assertEquals(expected.getMaxAvgSpeed(), actual.getMaxAvgSpeed());
+        assertEquals(expected.getMaxDuration(), actual.getMaxDuration());
+        assertEquals(expected.getMaxAscent(), actual.getMaxAscent());
+        assertEquals(expected.getMaxDescent(), actual.getMaxDescent());
+        assertEquals(expected.getMaxAvgHeartRate(), actual.getMaxAvgHeartRate());
+        assertEquals(expected.getMaxCalories(), actual.getMaxCalories());
+    }
 }
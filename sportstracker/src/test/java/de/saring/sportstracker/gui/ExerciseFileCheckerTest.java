@@ -0,0 +1,109 @@
+package de.saring.sportstracker.gui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests of class ExerciseFileChecker.
+ *
+ * @author Stefan Saring
+ */
+public class ExerciseFileCheckerTest {
+
+    @TempDir
+    Path tempDirectory;
+
+    private Path exerciseDirectory;
+    private Path cacheFile;
+    private String file1;
+    private String file2;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        exerciseDirectory = Files.createDirectory(tempDirectory.resolve("exercises"));
+        cacheFile = tempDirectory.resolve("exercise-files.cache");
+        file1 = Files.writeString(exerciseDirectory.resolve("exercise1.hrm"), "1").toString();
+        file2 = Files.writeString(exerciseDirectory.resolve("exercise2.hrm"), "2").toString();
+
+        // the directory modification time must be old enough for caching
+        setDirectoryModificationTime(60_000);
+    }
+
+    /**
+     * The missing files must be reported to the listener and returned, existing files must not be reported.
+     */
+    @Test
+    public void testFindMissingFiles() {
+        final String missingFile = exerciseDirectory.resolve("missing.hrm").toString();
+        final String missingDirectoryFile = tempDirectory.resolve("missing-dir").resolve("missing.hrm").toString();
+
+        final Set<String> reportedFiles = ConcurrentHashMap.newKeySet();
+        final Set<String> missingFiles = new ExerciseFileChecker(cacheFile).findMissingFiles(
+                List.of(file1, missingFile, file2, missingDirectoryFile, missingFile), reportedFiles::add);
+
+        assertEquals(Set.of(missingFile, missingDirectoryFile), missingFiles);
+        assertEquals(missingFiles, reportedFiles);
+        assertTrue(Files.exists(cacheFile));
+    }
+
+    /**
+     * The cached files in an unmodified directory must not be checked again, so a file removed without modifying the
+     * directory is still reported as existing. After the directory was modified all files must be checked again.
+     */
+    @Test
+    public void testFindMissingFilesWithCache() throws IOException {
+        final var fileChecker = new ExerciseFileChecker(cacheFile);
+        assertTrue(fileChecker.findMissingFiles(List.of(file1, file2), file -> {}).isEmpty());
+
+        final FileTime directoryModificationTime = Files.getLastModifiedTime(exerciseDirectory);
+        Files.delete(Path.of(file2));
+        Files.setLastModifiedTime(exerciseDirectory, directoryModificationTime);
+        assertTrue(fileChecker.findMissingFiles(List.of(file1, file2), file -> {}).isEmpty());
+
+        setDirectoryModificationTime(30_000);
+        assertEquals(Set.of(file2), fileChecker.findMissingFiles(List.of(file1, file2), file -> {}));
+    }
+
+    /**
+     * The files in a recently modified directory must not be cached, the modification time can be too coarse for
+     * detecting further changes.
+     */
+    @Test
+    public void testFindMissingFilesRecentlyModifiedDirectory() throws IOException {
+        setDirectoryModificationTime(0);
+        final var fileChecker = new ExerciseFileChecker(cacheFile);
+        assertTrue(fileChecker.findMissingFiles(List.of(file1, file2), file -> {}).isEmpty());
+
+        final FileTime directoryModificationTime = Files.getLastModifiedTime(exerciseDirectory);
+        Files.delete(Path.of(file2));
+        Files.setLastModifiedTime(exerciseDirectory, directoryModificationTime);
+        assertEquals(Set.of(file2), fileChecker.findMissingFiles(List.of(file1, file2), file -> {}));
+    }
+
+    /**
+     * An invalid cache file must be ignored and replaced.
+     */
+    @Test
+    public void testFindMissingFilesInvalidCache() throws IOException {
+        Files.writeString(cacheFile, "# SportsTracker exercise file cache v1\nF\tfoo\tbar\t" + file1 + "\n");
+
+        assertTrue(new ExerciseFileChecker(cacheFile).findMissingFiles(List.of(file1, file2), file -> {}).isEmpty());
+        assertTrue(Files.readString(cacheFile).contains("\t1\t" + file1));
+    }
+
+    private void setDirectoryModificationTime(final long msecAgo) throws IOException {
+        Files.setLastModifiedTime(exerciseDirectory, FileTime.fromMillis(System.currentTimeMillis() - msecAgo));
+    }
+}
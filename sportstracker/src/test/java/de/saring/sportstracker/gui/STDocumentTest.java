@@ -1,16 +1,35 @@
 package de.saring.sportstracker.gui;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import de.saring.sportstracker.core.ApplicationDataChangeEvent;
+import de.saring.sportstracker.core.EntityChanges;
+import de.saring.sportstracker.core.STException;
+import de.saring.sportstracker.core.STExceptionID;
+import de.saring.sportstracker.data.EntryFilter;
+import de.saring.sportstracker.data.EntryList;
 import de.saring.sportstracker.data.Exercise;
 import de.saring.sportstracker.data.SportType;
+import de.saring.sportstracker.data.Weight;
+import de.saring.sportstracker.data.statistic.ExerciseOverviewCube;
 import de.saring.sportstracker.storage.db.DbStorage;
+import de.saring.sportstracker.storage.db.WeightRepository;
 import de.saring.util.unitcalc.SpeedMode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -24,13 +43,15 @@ import org.junit.jupiter.api.Test;
 public class STDocumentTest {
 
     private STDocument document;
+    private DbStorage dbStorageMock;
     private long nextEntityId = 1;
 
     @BeforeEach
     public void setUp() {
         // STContext needs to be mocked
         STContext contextMock = mock(STContext.class);
-        document = new STDocumentImpl(contextMock, mock(DbStorage.class));
+        dbStorageMock = mock(DbStorage.class);
+        document = new STDocumentImpl(contextMock, dbStorageMock);
         document.loadOptions();
         nextEntityId = 1;
     }
@@ -94,6 +115,141 @@ public class STDocumentTest {
         assertEquals(document.getOptions().getPreferredSpeedMode(), speedMode);
     }
 
+    /**
+     * Test of method updateApplicationData(): the recorded changes must be applied to the lists without reloading
+     * all data from storage, the listeners must be notified with the change event.
+     */
+    @Test
+    public void testUpdateApplicationDataIncremental() throws STException {
+        final Weight weight1 = appendWeight(70d);
+        final Weight weight2 = appendWeight(71d);
+
+        final Weight weight1Updated = weight1.clone(weight1.getId());
+        weight1Updated.setValue(69d);
+        final Weight weight3 = new Weight(nextEntityId++);
+
+        final ApplicationDataChangeEvent changeEvent = new ApplicationDataChangeEvent(
+                new EntityChanges<>(), new EntityChanges<>(), new EntityChanges<>(),
+                new EntityChanges<>(List.of(weight3), List.of(weight1Updated), List.of(weight2.getId()), false),
+                weight1Updated);
+        when(dbStorageMock.takeRecordedChanges(weight1Updated)).thenReturn(changeEvent);
+
+        final List<ApplicationDataChangeEvent> notifiedEvents = new ArrayList<>();
+        document.registerChangeListener(notifiedEvents::add);
+
+        document.updateApplicationData(weight1Updated);
+
+        assertEquals(2, document.getWeightList().size());
+        assertSame(weight1Updated, document.getWeightList().getAt(0));
+        assertSame(weight3, document.getWeightList().getAt(1));
+        assertNull(document.getWeightList().getByID(weight2.getId()));
+        assertTrue(document.isDirtyData());
+        assertEquals(List.of(changeEvent), notifiedEvents);
+        verify(dbStorageMock, never()).getSportTypeRepository();
+    }
+
+    /**
+     * Test of method getFilterableWeightList(): the filtered list must be reused until the weights or the filter
+     * criteria are changed.
+     */
+    @Test
+    public void testGetFilterableWeightListCached() throws STException {
+        // the weight repository provides the weights of the document list matching the filter
+        final WeightRepository weightRepositoryMock = mock(WeightRepository.class);
+        when(dbStorageMock.getWeightRepository()).thenReturn(weightRepositoryMock);
+        when(weightRepositoryMock.readForFilter(any())).thenAnswer(invocation -> document.getWeightList()
+                .getEntriesForFilter(invocation.getArgument(0)).stream()
+                .map(weight -> weight.clone(weight.getId()))
+                .toList());
+
+        appendWeight(70d);
+        appendWeight(71d);
+        final EntryFilter filter = EntryFilter.createDefaultExerciseFilter();
+        filter.setEntryType(EntryFilter.EntryType.WEIGHT);
+        document.setCurrentFilter(filter);
+        document.setFilterEnabled(true);
+
+        final EntryList<Weight> filteredList = document.getFilterableWeightList();
+        assertEquals(2, filteredList.size());
+        assertSame(document.getWeightList().getAt(0), filteredList.getAt(0));
+        assertSame(filteredList, document.getFilterableWeightList());
+        verify(weightRepositoryMock, times(1)).readForFilter(any());
+
+        // list modification => filter result must be created again
+        appendWeight(72d);
+        final EntryList<Weight> filteredListModified = document.getFilterableWeightList();
+        assertNotSame(filteredList, filteredListModified);
+        assertEquals(3, filteredListModified.size());
+
+        // in place modification of the current filter => filter result must be created again
+        document.getCurrentFilter().setDateEnd(document.getCurrentFilter().getDateStart().minusDays(1));
+        assertEquals(0, document.getFilterableWeightList().size());
+
+        // disabled filter => unfiltered list
+        document.setFilterEnabled(false);
+        assertSame(document.getWeightList(), document.getFilterableWeightList());
+        verify(weightRepositoryMock, times(3)).readForFilter(any());
+    }
+
+    /**
+     * Test of method getFilterableWeightList(): the weights must be filtered in memory when the filter query of the
+     * repository fails.
+     */
+    @Test
+    public void testGetFilterableWeightListQueryFailed() throws STException {
+        final WeightRepository weightRepositoryMock = mock(WeightRepository.class);
+        when(dbStorageMock.getWeightRepository()).thenReturn(weightRepositoryMock);
+        when(weightRepositoryMock.readForFilter(any()))
+                .thenThrow(new STException(STExceptionID.DBSTORAGE_READ_ALL, "Query failed"));
+
+        final Weight weight = appendWeight(70d);
+        final EntryFilter filter = EntryFilter.createDefaultExerciseFilter();
+        filter.setEntryType(EntryFilter.EntryType.WEIGHT);
+        document.setCurrentFilter(filter);
+        document.setFilterEnabled(true);
+
+        final EntryList<Weight> filteredList = document.getFilterableWeightList();
+        assertEquals(1, filteredList.size());
+        assertSame(weight, filteredList.getAt(0));
+    }
+
+    /**
+     * Test of method getExerciseOverviewCube(): the cube must be updated incrementally by updateApplicationData()
+     * and must be created again after other modifications of the exercise list.
+     */
+    @Test
+    public void testGetExerciseOverviewCube() throws STException {
+        final long exerciseId = appendExerciseWithSpeedMode(SpeedMode.SPEED);
+        final ExerciseOverviewCube cube = document.getExerciseOverviewCube();
+        final LocalDate today = LocalDate.now();
+        final ExerciseOverviewCube.DimensionFilter allDimensions = (sportTypeId, subTypeId, equipmentId) -> true;
+        assertEquals(1d, cube.getSums(today, today, allDimensions)[ExerciseOverviewCube.Value.COUNT.ordinal()]);
+
+        final Exercise exerciseUpdated = document.getExerciseList().getByID(exerciseId).clone(exerciseId);
+        exerciseUpdated.setDistance(42d);
+        final ApplicationDataChangeEvent changeEvent = new ApplicationDataChangeEvent(
+                new EntityChanges<>(), new EntityChanges<>(List.of(), List.of(exerciseUpdated), List.of(), false),
+                new EntityChanges<>(), new EntityChanges<>(), exerciseUpdated);
+        when(dbStorageMock.takeRecordedChanges(exerciseUpdated)).thenReturn(changeEvent);
+
+        document.updateApplicationData(exerciseUpdated);
+        assertSame(cube, document.getExerciseOverviewCube());
+        assertEquals(42d, cube.getSums(today, today, allDimensions)[ExerciseOverviewCube.Value.DISTANCE.ordinal()]);
+
+        appendExerciseWithSpeedMode(SpeedMode.SPEED);
+        final ExerciseOverviewCube cubeRecreated = document.getExerciseOverviewCube();
+        assertNotSame(cube, cubeRecreated);
+        assertEquals(2d, cubeRecreated.getSums(today, today, allDimensions)[ExerciseOverviewCube.Value.COUNT.ordinal()]);
+    }
+
+    private Weight appendWeight(double value) {
+        final Weight weight = new Weight(nextEntityId++);
+        weight.setDateTime(LocalDateTime.now());
+        weight.setValue(value);
+        document.getWeightList().set(weight);
+        return weight;
+    }
+
     private long appendExerciseWithSpeedMode(SpeedMode speedMode) {
         final Exercise exercise = new Exercise(nextEntityId++);
         exercise.setDateTime(LocalDateTime.now());
@@ -0,0 +1,183 @@
+package de.saring.sportstracker.storage.db;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import de.saring.sportstracker.core.STException;
+import de.saring.sportstracker.data.Exercise;
+import de.saring.sportstracker.data.SportSubType;
+import de.saring.sportstracker.data.SportType;
+import de.saring.util.unitcalc.SpeedMode;
+import javafx.scene.paint.Color;
+
+/**
+ * JMH benchmark which compares the database performance profiles for loading all data, committing a single change
+ * and a bulk insert of exercises. The benchmark uses a temporary database file containing the specified number of
+ * exercises, the results depend heavily on the file system and disk of the temporary directory.
+ *
+ * @author Stefan Saring
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DbStorageBenchmark {
+
+    private static final int BULK_INSERT_SIZE = 1000;
+
+    /** The logger of the storage package, the logging of each database operation would distort the results. */
+    private static final Logger STORAGE_LOGGER = Logger.getLogger(DbStorage.class.getPackageName());
+
+    @Param({"STANDARD", "PERFORMANCE"})
+    private DbPerformanceProfile profile;
+
+    @Param({"100000"})
+    private int size;
+
+    private Path tempDirectory;
+    private String dbFilename;
+    private DbStorage dbStorage;
+    private SportType sportType;
+    private List<Exercise> exercises;
+    private final List<Long> insertedExerciseIds = new ArrayList<>();
+    private final Random random = new Random(42);
+
+    @Setup
+    public void setUp() throws IOException, STException {
+        STORAGE_LOGGER.setLevel(java.util.logging.Level.WARNING);
+        tempDirectory = Files.createTempDirectory("st-db-benchmark");
+        dbFilename = tempDirectory.resolve("sportstracker.sqlite").toString();
+
+        dbStorage = new DbStorage();
+        dbStorage.openDatabase(dbFilename, profile);
+        dbStorage.getSportTypeRepository().create(createSportType());
+        sportType = dbStorage.getSportTypeRepository().readAll().get(0);
+        dbStorage.getExerciseRepository().createAll(createExercises(size));
+        dbStorage.commitChanges();
+        exercises = dbStorage.getExerciseRepository().readAll(List.of(sportType));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        dbStorage.closeDatabase();
+        try (Stream<Path> files = Files.walk(tempDirectory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Removes the exercises of the bulk insert benchmark, so the database size is constant for all iterations.
+     */
+    @TearDown(Level.Iteration)
+    public void removeInsertedExercises() throws STException {
+        if (!insertedExerciseIds.isEmpty()) {
+            dbStorage.getExerciseRepository().deleteAll(insertedExerciseIds.stream().mapToLong(Long::longValue)
+                    .toArray());
+            dbStorage.commitChanges();
+            insertedExerciseIds.clear();
+        }
+    }
+
+    /**
+     * Opens the database with a new connection, reads all sport types and exercises and closes it again (like on
+     * application start and exit).
+     */
+    @Benchmark
+    public List<Exercise> load() throws STException {
+        final DbStorage loadStorage = new DbStorage();
+        loadStorage.openDatabase(dbFilename, profile);
+        final List<SportType> sportTypes = loadStorage.getSportTypeRepository().readAll();
+        final List<Exercise> loadedExercises = loadStorage.getExerciseRepository().readAll(sportTypes);
+        loadStorage.closeDatabase();
+        return loadedExercises;
+    }
+
+    /**
+     * Updates a single exercise and commits the change (like after editing an exercise).
+     */
+    @Benchmark
+    public void commit() throws STException {
+        final Exercise exercise = exercises.get(random.nextInt(exercises.size()));
+        exercise.setComment("Comment " + random.nextInt());
+        dbStorage.getExerciseRepository().update(exercise);
+        dbStorage.commitChanges();
+    }
+
+    /**
+     * Inserts a batch of new exercises and commits the changes (like on importing exercises).
+     */
+    @Benchmark
+    public void bulkInsert() throws STException {
+        dbStorage.getExerciseRepository().createAll(createExercises(BULK_INSERT_SIZE))
+                .forEach(exercise -> insertedExerciseIds.add(exercise.getId()));
+        dbStorage.commitChanges();
+    }
+
+    private SportType createSportType() {
+        final SportType newSportType = new SportType(null);
+        newSportType.setName("Cycling");
+        newSportType.setRecordDistance(true);
+        newSportType.setColor(Color.BLUE);
+        newSportType.setSpeedMode(SpeedMode.SPEED);
+
+        final SportSubType sportSubType = new SportSubType(null);
+        sportSubType.setName("Road");
+        newSportType.getSportSubTypeList().set(sportSubType);
+        return newSportType;
+    }
+
+    private List<Exercise> createExercises(final int count) {
+        final LocalDateTime dateTime = LocalDateTime.of(2000, 1, 1, 10, 0);
+        final List<Exercise> newExercises = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            final Exercise exercise = new Exercise(null);
+            exercise.setDateTime(dateTime.plusHours(i));
+            exercise.setSportType(sportType);
+            exercise.setSportSubType(sportType.getSportSubTypeList().getAt(0));
+            exercise.setIntensity(Exercise.IntensityType.NORMAL);
+            exercise.setDistance(random.nextDouble() * 100);
+            exercise.setAvgSpeed(random.nextDouble() * 40);
+            exercise.setDuration(random.nextInt(4 * 3600));
+            exercise.setAscent(random.nextInt(2000));
+            exercise.setDescent(random.nextInt(2000));
+            exercise.setComment(i % 3 == 0 ? "Exercise " + i : null);
+            newExercises.add(exercise);
+        }
+        return newExercises;
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DbStorageBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -1,8 +1,12 @@
 package de.saring.sportstracker.storage.db
 
+import de.saring.sportstracker.core.STOptions
 import de.saring.sportstracker.data.Weight
 import org.junit.jupiter.api.Assertions
 import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.nio.file.Path
+import java.sql.DriverManager
 import java.time.LocalDateTime
 
 /**
@@ -40,4 +44,94 @@ class DbStorageTest : DbStorageTestBase() {
         Assertions.assertEquals(75.0, weights[0].value)
         Assertions.assertEquals("FooBar", weights[0].comment)
     }
-}
\ No newline at end of file
+
+    /**
+     * Test of takeRecordedChanges(): needs to provide all entries created, updated and deleted by the repositories
+     * since the last call, the changes must be cleared afterwards.
+     */
+    @Test
+    fun testTakeRecordedChanges() {
+        val weight1 = dbStorage.weightRepository.create(createWeight(75.0))
+        val weight2 = dbStorage.weightRepository.create(createWeight(76.0))
+        dbStorage.takeRecordedChanges(null)
+
+        val weight3 = dbStorage.weightRepository.create(createWeight(77.0))
+        weight1.value = 74.0
+        dbStorage.weightRepository.update(weight1)
+        dbStorage.weightRepository.delete(weight2.id!!)
+
+        val changeEvent = dbStorage.takeRecordedChanges(weight1)
+        Assertions.assertFalse(changeEvent.isFullReloadRequired())
+        Assertions.assertSame(weight1, changeEvent.changedObject)
+        Assertions.assertEquals(listOf(weight3.id), changeEvent.weightChanges.created.map { it.id })
+        Assertions.assertEquals(listOf(weight1.id), changeEvent.weightChanges.updated.map { it.id })
+        Assertions.assertEquals(listOf(weight2.id), changeEvent.weightChanges.deletedIds)
+        Assertions.assertTrue(changeEvent.exerciseChanges.isEmpty())
+
+        Assertions.assertTrue(dbStorage.takeRecordedChanges(null).weightChanges.isEmpty())
+    }
+
+    /**
+     * Test of takeRecordedChanges(): changes of SportTypes can't be applied incrementally, so a full reload is required.
+     */
+    @Test
+    fun testTakeRecordedChangesForSportType() {
+        creatSportType("Cycling")
+
+        val changeEvent = dbStorage.takeRecordedChanges(null)
+        Assertions.assertTrue(changeEvent.isFullReloadRequired())
+    }
+
+    /**
+     * Test of the performance profiles: the journal mode of the PERFORMANCE profile needs to be persisted in the
+     * database file, the STANDARD profile needs to switch back to the default journal mode. The committed data must
+     * be available in both profiles.
+     */
+    @Test
+    fun testPerformanceProfiles(@TempDir tempDirectory: Path) {
+        val dbFilename = tempDirectory.resolve("test.sqlite").toString()
+
+        val performanceStorage = DbStorage()
+        performanceStorage.openDatabase(dbFilename, DbPerformanceProfile.PERFORMANCE)
+        Assertions.assertEquals(DbPerformanceProfile.PERFORMANCE, performanceStorage.performanceProfile)
+        performanceStorage.weightRepository.create(createWeight(75.0))
+        performanceStorage.commitChanges()
+        performanceStorage.closeDatabase()
+        Assertions.assertEquals("wal", readJournalMode(dbFilename))
+
+        val standardStorage = DbStorage()
+        standardStorage.openDatabase(dbFilename, DbPerformanceProfile.STANDARD)
+        Assertions.assertEquals(listOf(75.0), standardStorage.weightRepository.readAll().map { it.value })
+        standardStorage.closeDatabase()
+        Assertions.assertEquals("delete", readJournalMode(dbFilename))
+    }
+
+    /**
+     * Test of the performance profile mapping of the application options: the STANDARD profile needs to be used by
+     * default, the PERFORMANCE profile only when selected by the user.
+     */
+    @Test
+    fun testPerformanceProfileOfOptions() {
+        val options = STOptions()
+        Assertions.assertEquals(DbPerformanceProfile.STANDARD, DbPerformanceProfile.of(options.databaseProfile))
+
+        options.databaseProfile = STOptions.DatabaseProfile.Performance
+        Assertions.assertEquals(DbPerformanceProfile.PERFORMANCE, DbPerformanceProfile.of(options.databaseProfile))
+    }
+
+    private fun readJournalMode(dbFilename: String): String =
+        DriverManager.getConnection("jdbc:sqlite:$dbFilename").use { connection ->
+            connection.createStatement().use { statement ->
+                val rs = statement.executeQuery("PRAGMA journal_mode")
+                rs.next()
+                rs.getString(1)
+            }
+        }
+
+    private fun createWeight(value: Double): Weight {
+        val weight = Weight(null)
+        weight.dateTime = LocalDateTime.now()
+        weight.value = value
+        return weight
+    }
+}
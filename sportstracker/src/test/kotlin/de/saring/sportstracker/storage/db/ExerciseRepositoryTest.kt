@@ -1,5 +1,6 @@
 package de.saring.sportstracker.storage.db
 
+import de.saring.sportstracker.data.EntryFilter
 import de.saring.sportstracker.data.Equipment
 import de.saring.sportstracker.data.Exercise
 import de.saring.sportstracker.data.SportSubType
@@ -52,6 +53,43 @@ class ExerciseRepositoryTest : DbStorageTestBase() {
         Assertions.assertEquals(2, exercises.size)
     }
 
+    /**
+     * Test of readForFilter(): needs to provide only the exercises matching all filter criteria.
+     */
+    @Test
+    fun testReadForFilter() {
+        val filter = EntryFilter.createDefaultExerciseFilter()
+        Assertions.assertEquals(2, dbStorage.exerciseRepository.readForFilter(filter, sportTypes).size)
+
+        filter.sportType = sportType2
+        filter.sportSubType = sportType2.sportSubTypeList.first()
+        filter.equipment = sportType2.equipmentList.first()
+        filter.intensity = Exercise.IntensityType.HIGH
+        val exercises = dbStorage.exerciseRepository.readForFilter(filter, sportTypes)
+        Assertions.assertEquals(1, exercises.size)
+        Assertions.assertEquals(exercise2.id, exercises[0].id)
+        Assertions.assertEquals(sportType2, exercises[0].sportType)
+        Assertions.assertEquals(sportType2.equipmentList.first(), exercises[0].equipment)
+
+        filter.intensity = Exercise.IntensityType.LOW
+        Assertions.assertTrue(dbStorage.exerciseRepository.readForFilter(filter, sportTypes).isEmpty())
+
+        // comment search is not case sensitive, the words can be in any order
+        filter.sportType = null
+        filter.sportSubType = null
+        filter.equipment = null
+        filter.intensity = null
+        filter.commentSubString = "1 COMMENT"
+        Assertions.assertEquals(listOf(exercise1.id),
+            dbStorage.exerciseRepository.readForFilter(filter, sportTypes).map { it.id })
+
+        // date range without exercises
+        filter.commentSubString = null
+        filter.dateStart = filter.dateStart.minusYears(2)
+        filter.dateEnd = filter.dateEnd.minusYears(1)
+        Assertions.assertTrue(dbStorage.exerciseRepository.readForFilter(filter, sportTypes).isEmpty())
+    }
+
     /**
      * Test of readById(): needs to provide a existing exercise with proper data.
      */
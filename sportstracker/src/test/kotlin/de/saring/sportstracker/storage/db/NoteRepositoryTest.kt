@@ -1,5 +1,6 @@
 package de.saring.sportstracker.storage.db
 
+import de.saring.sportstracker.data.EntryFilter
 import de.saring.sportstracker.data.Equipment
 import de.saring.sportstracker.data.Note
 import de.saring.sportstracker.data.SportType
@@ -56,6 +57,29 @@ class NoteRepositoryTest : DbStorageTestBase() {
         Assertions.assertNull(notes[1].equipment)
     }
 
+    /**
+     * Test of readForFilter(): needs to provide only the notes matching all filter criteria.
+     */
+    @Test
+    fun testReadForFilter() {
+        val filter = EntryFilter.createDefaultExerciseFilter()
+        Assertions.assertEquals(2, dbStorage.noteRepository.readForFilter(filter, sportTypes).size)
+
+        filter.sportType = sportType1
+        filter.equipment = sportType1.equipmentList.first()
+        val notes = dbStorage.noteRepository.readForFilter(filter, sportTypes)
+        Assertions.assertEquals(1, notes.size)
+        Assertions.assertEquals(note1.id, notes[0].id)
+        Assertions.assertEquals(sportType1.id, notes[0].sportType.id)
+
+        // regular expressions are filtered after querying the database
+        filter.sportType = null
+        filter.equipment = null
+        filter.commentSubString = "^Note [2-9]$"
+        filter.isRegularExpressionMode = true
+        Assertions.assertEquals(listOf(note2.id), dbStorage.noteRepository.readForFilter(filter, sportTypes).map { it.id })
+    }
+
     /**
      * Test of readById(): needs to provide a existing note with proper data.
      */
@@ -0,0 +1,80 @@
+package de.saring.sportstracker.storage.db
+
+import de.saring.sportstracker.data.Weight
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import java.sql.DriverManager
+import java.time.LocalDateTime
+
+/**
+ * Unit tests of the [StatementCache] class, the tests are using the database connection of the [DbStorage].
+ *
+ * @author Stefan Saring
+ */
+class StatementCacheTest : DbStorageTestBase() {
+
+    /**
+     * Test of prepare(): needs to reuse the statement for the same SQL text and count the hits and misses.
+     */
+    @Test
+    fun testPrepare() {
+        val statementCache = dbStorage.statementCache
+        val missCount = statementCache.missCount
+        val hitCount = statementCache.hitCount
+
+        val statement = statementCache.prepare("SELECT * FROM WEIGHT WHERE ID = ? AND ID > 0")
+        statement.setLong(1, 1)
+        Assertions.assertSame(statement, statementCache.prepare("SELECT * FROM WEIGHT WHERE ID = ? AND ID > 0"))
+        Assertions.assertNotSame(statement, statementCache.prepare("SELECT * FROM NOTE WHERE ID = ? AND ID > 0"))
+
+        Assertions.assertEquals(missCount + 2, statementCache.missCount)
+        Assertions.assertEquals(hitCount + 1, statementCache.hitCount)
+    }
+
+    /**
+     * The least recently used statement needs to be closed and removed when the maximum cache size is exceeded.
+     */
+    @Test
+    fun testMaxSize() {
+        DriverManager.getConnection("jdbc:sqlite:${DbStorage.IN_MEMORY_FILENAME}").use { connection ->
+            val statementCache = StatementCache(connection, 2)
+
+            val statement1 = statementCache.prepare("SELECT 1")
+            val statement2 = statementCache.prepare("SELECT 2")
+            statementCache.prepare("SELECT 1")
+            statementCache.prepare("SELECT 3")
+
+            Assertions.assertFalse(statement1.isClosed)
+            Assertions.assertTrue(statement2.isClosed)
+            Assertions.assertEquals(3, statementCache.missCount)
+            Assertions.assertEquals(1, statementCache.hitCount)
+
+            statementCache.close()
+            Assertions.assertTrue(statement1.isClosed)
+        }
+    }
+
+    /**
+     * The statements with a chunk of ID parameters must not be cached, each chunk size results in a different SQL text.
+     */
+    @Test
+    fun testChunkedIdStatementsNotCached() {
+        val statementCache = dbStorage.statementCache
+        val weightRepository = dbStorage.weightRepository
+        weightRepository.create(createWeight(70.0))
+        val missCount = statementCache.missCount
+
+        val createdWeights = weightRepository.createAll(listOf(createWeight(71.0), createWeight(72.0)))
+        weightRepository.deleteAll(createdWeights.map { it.id!! }.toLongArray())
+        weightRepository.deleteAll(longArrayOf(createdWeights[0].id!!, 1234, 5678))
+
+        Assertions.assertEquals(missCount, statementCache.missCount)
+    }
+
+    private fun createWeight(value: Double): Weight {
+        val weight = Weight(null)
+        weight.dateTime = LocalDateTime.now()
+        weight.value = value
+        return weight
+    }
+}
@@ -1,5 +1,6 @@
 package de.saring.sportstracker.storage.db
 
+import de.saring.sportstracker.data.EntryFilter
 import de.saring.sportstracker.data.Weight
 import org.junit.jupiter.api.Assertions
 import org.junit.jupiter.api.Test
@@ -31,6 +32,26 @@ class WeightRepositoryTest : DbStorageTestBase() {
         Assertions.assertEquals(2, weights.size)
     }
 
+    /**
+     * Test of readForFilter(): needs to provide only the weights matching all filter criteria.
+     */
+    @Test
+    fun testReadForFilter() {
+        val filter = EntryFilter.createDefaultExerciseFilter()
+        Assertions.assertEquals(2, dbStorage.weightRepository.readForFilter(filter).size)
+
+        // LIKE wildcard characters must be searched as normal characters
+        filter.commentSubString = "weight"
+        Assertions.assertEquals(listOf(weight1.id), dbStorage.weightRepository.readForFilter(filter).map { it.id })
+        filter.commentSubString = "%"
+        Assertions.assertTrue(dbStorage.weightRepository.readForFilter(filter).isEmpty())
+
+        filter.commentSubString = null
+        filter.dateStart = filter.dateEnd.plusDays(1)
+        filter.dateEnd = filter.dateStart
+        Assertions.assertTrue(dbStorage.weightRepository.readForFilter(filter).isEmpty())
+    }
+
     /**
      * Test of readById(): needs to provide a existing weight with proper data.
      */
@@ -70,6 +91,52 @@ class WeightRepositoryTest : DbStorageTestBase() {
         Assertions.assertEquals(weight2.id, weights[0].id)
     }
 
+    /**
+     * Test of createAll(): needs to create all weights, the returned weights must be in the passed order.
+     */
+    @Test
+    fun testCreateAll() {
+        val newWeights = (1..1200).map { index ->
+            val weight = Weight(null)
+            weight.dateTime = LocalDateTime.now()
+            weight.value = 60.0 + index / 100.0
+            weight
+        }
+
+        val createdWeights = dbStorage.weightRepository.createAll(newWeights)
+        Assertions.assertEquals(newWeights.map { it.value }, createdWeights.map { it.value })
+        Assertions.assertEquals(1200, createdWeights.map { it.id }.distinct().size)
+        Assertions.assertEquals(1202, dbStorage.weightRepository.readAll().size)
+    }
+
+    /**
+     * Test of updateAll(): needs to update all passed weights, will be verified by reading the weights.
+     */
+    @Test
+    fun testUpdateAll() {
+        weight1.value = 73.123
+        weight2.comment = "FooBar"
+        dbStorage.weightRepository.updateAll(listOf(weight1, weight2))
+
+        Assertions.assertEquals(73.123, dbStorage.weightRepository.readById(weight1.id!!).value)
+        Assertions.assertEquals("FooBar", dbStorage.weightRepository.readById(weight2.id!!).comment)
+    }
+
+    /**
+     * Test of deleteAll(): needs to delete all weights with the passed IDs, also when more IDs than the chunk size
+     * are passed.
+     */
+    @Test
+    fun testDeleteAll() {
+        val newWeightIds = (1..1200).map { createWeight(70.0, null).id!! }
+
+        dbStorage.weightRepository.deleteAll((newWeightIds + weight1.id!!).toLongArray())
+
+        val weights = dbStorage.weightRepository.readAll()
+        Assertions.assertEquals(1, weights.size)
+        Assertions.assertEquals(weight2.id, weights[0].id)
+    }
+
     private fun createWeight(value: Double, comment: String?): Weight {
         val weight = Weight(null)
         weight.dateTime = LocalDateTime.now()
@@ -3,7 +3,6 @@ package de.saring.exerciseviewer.parser.impl;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import de.saring.exerciseviewer.core.EVException;
@@ -20,6 +19,7 @@ import de.saring.exerciseviewer.data.LapSpeed;
 import de.saring.exerciseviewer.data.LapTemperature;
 import de.saring.exerciseviewer.data.RecordingMode;
 import de.saring.exerciseviewer.parser.AbstractExerciseParser;
+import de.saring.exerciseviewer.parser.BinaryFileContent;
 import de.saring.exerciseviewer.parser.ExerciseParserInfo;
 
 /**
@@ -63,24 +63,31 @@ public class HAC4TURParser extends AbstractExerciseParser {
      * Private inner class which is used for reading samples from the file.
      */
     private static class Sample {
-        private int[] contents = new int[20];
-        private int distance = 0;
-        private int altitude;
-        private int heartRate;
-        private int cadence;
-        private int temperature;
-        private long time;
+        private static final int LENGTH = 20;
+
+        private final int distance;
+        private final int altitude;
+        private final int heartRate;
+        private final int cadence;
+        private final int temperature;
+        private final long time;
 
         /**
-         * Construct a new sample with the sample bytes. This will initialize
-         * all sample values.
+         * Construct a new sample by reading the sample bytes from the cursor
+         * position. This will initialize all sample values.
          */
-        public Sample(int[] contents) throws EVException {
-            if (contents.length != 20) {
+        public Sample(BinaryFileContent.Cursor cursor) throws EVException {
+            if (cursor.getRemaining() < LENGTH) {
                 throw new EVException("Length of a sample should be 20 bytes!");
             }
-            this.contents = contents;
-            initializeValues();
+            this.time = cursor.readInt32LE();
+            cursor.skip(4);
+            this.distance = cursor.readInt32LE();
+            this.altitude = cursor.readUInt16LE();
+            this.heartRate = cursor.readUInt8();
+            this.cadence = cursor.readUInt8();
+            this.temperature = cursor.readUInt8();
+            cursor.skip(3);
         }
 
         /**
@@ -125,53 +132,6 @@ public class HAC4TURParser extends AbstractExerciseParser {
             return temperature;
         }
 
-        private void initializeValues() {
-            this.distance = calculateDistance();
-            this.altitude = calculateAltitude();
-            this.heartRate = calculateHeartRate();
-            this.cadence = calculateCadence();
-            this.temperature = calculateTemperature();
-            this.time = calculateTime();
-        }
-
-        private long calculateTime() {
-            int[] timeBytes = Arrays.copyOfRange(contents, 0, 0 + 4);
-            return (timeBytes[0] & 0xff)
-                    + ((timeBytes[1] << 8) & 0xff00)
-                    + ((timeBytes[2] << 16) & 0xff0000)
-                    + ((timeBytes[3] << 24) & 0xff000000);
-        }
-
-        private int calculateDistance() {
-            int[] distanceBytes = Arrays.copyOfRange(contents, 8, 8 + 4);
-            int distance = 0;
-            for (int theByte = 0; theByte < distanceBytes.length; theByte++) {
-                distance += distanceBytes[theByte] * (int) Math.pow(2, theByte * 8);
-            }
-            return distance;
-        }
-
-        private int calculateAltitude() {
-            int[] altitudeBytes = Arrays.copyOfRange(contents, 12, 12 + 2);
-            int altitude = 0;
-            for (int theByte = 0; theByte < altitudeBytes.length; theByte++) {
-                altitude += altitudeBytes[theByte] * (int) Math.pow(2, theByte * 8);
-            }
-            return altitude;
-        }
-
-        private int calculateHeartRate() {
-            return contents[14];
-        }
-
-        private int calculateCadence() {
-            return contents[15];
-        }
-
-        private int calculateTemperature() {
-            return contents[16];
-        }
-
         @Override
         public String toString() {
             StringBuilder builder = new StringBuilder();
@@ -186,7 +146,7 @@ public class HAC4TURParser extends AbstractExerciseParser {
     }
 
     private List<String> fileContent;
-    private int[] fileContentsBytes;
+    private BinaryFileContent fileContentsBytes;
     private int nrOfLinesInNote;
     private int sampleInterval;
 
@@ -202,7 +162,7 @@ public class HAC4TURParser extends AbstractExerciseParser {
         // we'll need both as the tur file contains both text (header)
         // and binary (samples) information.
         fileContent = readFileToStringList(filename);
-        fileContentsBytes = readFileToByteArray(filename);
+        fileContentsBytes = readBinaryFileContent(filename);
 
         // Create a new exercise file and give it the right type
         EVExercise exercise = new EVExercise(EVExercise.ExerciseFileType.HAC4TUR);
@@ -247,7 +207,9 @@ public class HAC4TURParser extends AbstractExerciseParser {
         exercise.setSumExerciseTime(readInteger(FilePosition.TOTAL_EXERCISE_TIME + nrOfLinesInNote) / 60);
 
         // set recording interval
-        sampleInterval = readSampleInterval(FilePosition.BEGIN_SAMPLES + nrOfLinesInNote);
+        sampleInterval = readSampleInterval(
+                FilePosition.NR_SAMPLES + nrOfLinesInNote,
+                FilePosition.BEGIN_SAMPLES + nrOfLinesInNote);
         exercise.setRecordingInterval((short) sampleInterval);
 
         // read all samples
@@ -421,11 +383,27 @@ public class HAC4TURParser extends AbstractExerciseParser {
     }
 
     /**
-     * Returns the sample interval in seconds.
+     * Creates a cursor for reading the binary sample data which starts at the specified byte position.
+     */
+    private BinaryFileContent.Cursor createSampleCursor(int position) throws EVException {
+        if (position > fileContentsBytes.getSize()) {
+            throw new EVException("Failed to read HAC4 TUR File, the sample data is missing!");
+        }
+        return fileContentsBytes.cursor(position);
+    }
+
+    /**
+     * Returns the sample interval in seconds. It's 0 when the file contains less than 2 samples, the interval
+     * can't be determined then.
      *
+     * @param fpNrSamples file position for the number of samples
      * @param fpBeginSamples file position at which the sample data begins
      */
-    private int readSampleInterval(int fpBeginSamples) throws EVException {
+    private int readSampleInterval(int fpNrSamples, int fpBeginSamples) throws EVException {
+
+        if (readInteger(fpNrSamples) < 2) {
+            return 0;
+        }
 
         // find length of all strings to this point
         int lengthUntilSamples = 0;
@@ -433,10 +411,9 @@ public class HAC4TURParser extends AbstractExerciseParser {
             lengthUntilSamples += fileContent.get(i).length() + 1;
 
         // start reading samples
-        int[] firstSampleBytes = Arrays.copyOfRange(fileContentsBytes, lengthUntilSamples, lengthUntilSamples + 20);
-        int[] secondSampleBytes = Arrays.copyOfRange(fileContentsBytes, lengthUntilSamples + 20, lengthUntilSamples + 40);
-        Sample firstSample = new Sample(firstSampleBytes);
-        Sample secondSample = new Sample(secondSampleBytes);
+        BinaryFileContent.Cursor cursor = createSampleCursor(lengthUntilSamples);
+        Sample firstSample = new Sample(cursor);
+        Sample secondSample = new Sample(cursor);
         return (int) (secondSample.getTime() - firstSample.getTime());
     }
 
@@ -459,11 +436,10 @@ public class HAC4TURParser extends AbstractExerciseParser {
         }
 
         // start reading samples
-        List<Sample> samples = new ArrayList<>();
+        BinaryFileContent.Cursor cursor = createSampleCursor(lengthUntilSamples);
+        List<Sample> samples = new ArrayList<>(nrSamples);
         for (int i = 0; i < nrSamples; i++) {
-            int startFrom = lengthUntilSamples + (i * 20);
-            int[] sampleBytes = Arrays.copyOfRange(fileContentsBytes, startFrom, startFrom + 20);
-            samples.add(new Sample(sampleBytes));
+            samples.add(new Sample(cursor));
         }
 
         List<ExerciseSample> eSamples = new ArrayList<>();
@@ -481,7 +457,9 @@ public class HAC4TURParser extends AbstractExerciseParser {
             int distanceDiff = sample.getDistance() - previousDistance;
             previousDistance = sample.getDistance();
             eSample.setDistance(sample.getDistance() * 10);
-            eSample.setSpeed(((float) distanceDiff / (float) sampleInterval) * (float) 3.6 * 10f);
+            eSample.setSpeed(sampleInterval > 0
+                    ? ((float) distanceDiff / (float) sampleInterval) * (float) 3.6 * 10f
+                    : 0f);
             eSample.setTemperature((short) sample.getTemperature());
         }
 
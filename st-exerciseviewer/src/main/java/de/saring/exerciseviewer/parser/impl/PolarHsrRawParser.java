@@ -12,6 +12,7 @@ import de.saring.exerciseviewer.data.Lap;
 import de.saring.exerciseviewer.data.LapSpeed;
 import de.saring.exerciseviewer.data.RecordingMode;
 import de.saring.exerciseviewer.parser.AbstractExerciseParser;
+import de.saring.exerciseviewer.parser.BinaryFileContent;
 import de.saring.exerciseviewer.parser.ExerciseParserInfo;
 import de.saring.util.unitcalc.ConvertUtils;
 
@@ -40,16 +41,32 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
      */
     private final ExerciseParserInfo info = new ExerciseParserInfo("Polar HSR", List.of("hsr", "HSR"));
 
+    /**
+     * Position of the data in the file content, the first two bytes contain the file length.
+     */
+    private static final int DATA_START = 2;
+
     /**
      * The binary data of the exercise file.
      */
-    private int[] fileContent;
+    private BinaryFileContent fileContent;
+    /**
+     * positions of the section data in the file content (index is the section number)
+     */
+    private int[] sectionPositions;
     /**
-     * section data
+     * lengths of the section data (index is the section number)
      */
-    private int[][] s;
+    private int[] sectionLengths;
 
 
+    /**
+     * Returns the data byte at the specified index (the data starts after the file length).
+     */
+    private int data(int index) {
+        return fileContent.get(DATA_START + index);
+    }
+
     @Override
     public ExerciseParserInfo getInfo() {
         return info;
@@ -59,15 +76,15 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
         section += index / 60;
         index %= 60;
 
-        if (section >= s.length) {
+        if (section >= sectionLengths.length) {
             throw new EVException(String.format("Error! Section %d does not exist", section));
         }
-        if (index >= s[section].length) {
+        if (index >= sectionLengths[section]) {
             throw new EVException(String.format("Error! Byte %d in section %d does not exist (%d)",
-                    index, section, s[section].length));
+                    index, section, sectionLengths[section]));
         }
 
-        return s[section][index];
+        return fileContent.get(sectionPositions[section] + index);
     }
 
     @Override
@@ -76,7 +93,7 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
         short[] interval = {5, 15, 30, 60, 120, 240, 300, 480};
 
         // read binary file content to array
-        fileContent = readFileToByteArray(filename);
+        fileContent = readBinaryFileContent(filename);
 
         // create an PVExercise object from this data and set file type
         // TODO - support S410 and S520
@@ -84,30 +101,30 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
         exercise.setDeviceName("Polar S4xx/S5xx Series");
 
         // get bytes in file
-        int bytesInFile = (fileContent[1] * 0x100) + fileContent[0];
-        if (bytesInFile != fileContent.length) {
+        int bytesInFile = fileContent.getUInt16LE(0);
+        if (bytesInFile != fileContent.getSize()) {
             throw new EVException("The exercise file is not valid, the file length is not correct ...");
         }
 
-        // get data bytes
-        int bytesInData = bytesInFile - 2;
-        int[] data = new int[bytesInData];
-        System.arraycopy(fileContent, 2, data, 0, bytesInData);
+        // get data bytes (they start after the file length)
+        int bytesInData = bytesInFile - DATA_START;
 
         // process data
         int ii = 0;
         int sectionIx = 0;
         int sectionsInData = 0;
-        s = new int[1][1];
+        sectionPositions = new int[1];
+        sectionLengths = new int[1];
 
         while (ii < bytesInData) {
             if (sectionIx == 0) {
                 // get first section
-                if (data[0] == 85) {
-                    sectionsInData = data[3];
+                if (data(0) == 85) {
+                    sectionsInData = data(3);
 
                     // alloc mem
-                    s = new int[sectionsInData + 1][];
+                    sectionPositions = new int[sectionsInData + 1];
+                    sectionLengths = new int[sectionsInData + 1];
 
                     // ok, first section read, continue
                     sectionIx++;
@@ -118,18 +135,16 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
                 }
             } else {
                 // find new section
-                if (data[ii] == 85) {
+                if (data(ii) == 85) {
                     // check section number
-                    if (data[ii + 1] != sectionIx) {
+                    if (data(ii + 1) != sectionIx) {
                         throw new EVException("Wrong section index in file");
                     }
 
-                    // allocate memory for this section
-                    int sectionLength = data[ii + 2];
-                    s[sectionIx] = new int[sectionLength];
-
-                    // set data in sections array (s) 
-                    System.arraycopy(data, ii + 3, s[sectionIx], 0, sectionLength);
+                    // store the position and length of this section
+                    int sectionLength = data(ii + 2);
+                    sectionPositions[sectionIx] = DATA_START + ii + 3;
+                    sectionLengths[sectionIx] = sectionLength;
 
                     //System.out.format(">>> new section #%d(%d) found at %d with %d bytes\n", 
                     //        sectionIx, sectionsInData, ii, sectionLength);
@@ -145,7 +160,7 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
             if ((sectionIx - 1) != sectionsInData) {
                 throw new EVException("Could not find all sections");
             }
-            if (data[ii] != 7) {
+            if (data(ii) != 7) {
                 throw new EVException("Could not find no-more-sections byte in file");
             }
             // ok, all set
@@ -341,9 +356,9 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
         int lapseccnt = (int) (((double) (numberOfMeas * lapSize) / 60) + .9999);
 
         // check section size
-        if (s[lapsec + lapseccnt - 1].length != (numberOfMeas * lapSize) % 60) {
+        if (sectionLengths[lapsec + lapseccnt - 1] != (numberOfMeas * lapSize) % 60) {
             throw new EVException(String.format("Lap-data section (%d) has wrong size (%d instead of %d)",
-                    lapsec + lapseccnt - 1, s[lapsec + lapseccnt - 1].length, (numberOfMeas * lapSize) % 60));
+                    lapsec + lapseccnt - 1, sectionLengths[lapsec + lapseccnt - 1], (numberOfMeas * lapSize) % 60));
         }
 
         // process all laps
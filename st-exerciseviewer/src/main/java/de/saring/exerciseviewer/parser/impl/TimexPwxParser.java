@@ -1,17 +1,19 @@
 package de.saring.exerciseviewer.parser.impl;
 
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import de.saring.exerciseviewer.core.EVException;
 import de.saring.exerciseviewer.data.EVExercise;
@@ -41,6 +43,9 @@ import de.saring.util.unitcalc.CalculationUtils;
  * that was based on PolarHsrRawParser.java by Remco den Breeje
  * which is based on PolarSRawParser.java by Stefan Saring
  * <br/>
+ * The file is parsed in a single pass by a StAX stream reader, so no document
+ * tree of the (possibly large) file is kept in memory.
+ * <br/>
  * TODO: This parser contains a lot of unused code (commented out),
  * remove it when not needed anymore.
  * <p/>
@@ -60,6 +65,8 @@ public class TimexPwxParser extends AbstractExerciseParser {
      */
     private final ExerciseParserInfo info = new ExerciseParserInfo("Timex PWX", List.of("pwx", "PWX"));
 
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
     private static class MinMaxAvg {
         private float min = 0;
         private float max = 0;
@@ -90,18 +97,18 @@ public class TimexPwxParser extends AbstractExerciseParser {
         }
     }
 
-    private MinMaxAvg node2MinMaxAvg(Node inNode) {
+    private MinMaxAvg element2MinMaxAvg(XMLStreamReader reader) throws XMLStreamException {
         MinMaxAvg result = new MinMaxAvg();
-        NamedNodeMap attributes = inNode.getAttributes();
-        for (int i = 0; i < attributes.getLength(); i++) {
-            if (attributes.item(i).getNodeName().equals("max")) {
-                result.setMax(Float.valueOf(attributes.item(i).getTextContent()));
-            } else if (attributes.item(i).getNodeName().equals("min")) {
-                result.setMin(Float.valueOf(attributes.item(i).getTextContent()));
-            } else if (attributes.item(i).getNodeName().equals("avg")) {
-                result.setAvg(Float.valueOf(attributes.item(i).getTextContent()));
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (reader.getAttributeLocalName(i).equals("max")) {
+                result.setMax(Float.valueOf(reader.getAttributeValue(i)));
+            } else if (reader.getAttributeLocalName(i).equals("min")) {
+                result.setMin(Float.valueOf(reader.getAttributeValue(i)));
+            } else if (reader.getAttributeLocalName(i).equals("avg")) {
+                result.setAvg(Float.valueOf(reader.getAttributeValue(i)));
             }
         }
+        skipElement(reader);
         return result;
     }
 
@@ -203,55 +210,36 @@ public class TimexPwxParser extends AbstractExerciseParser {
         return info;
     }
 
-    int countNodeItems(Node node, String string2count) {
-        // Given a Node and a Child Node Name, count the number of children with that node name
-        NodeList children = node.getChildNodes();
-
-        int numChildren = children.getLength();
-        String currentNodeName = null;
-        int numMatches = 0;
-
-
-        for (int i = 0; i < numChildren; i++) {
-            currentNodeName = children.item(i).getNodeName();
-            if (currentNodeName.equals(string2count)) {
-                numMatches++;
-            }
-        }
-        return numMatches;
-    }
-
-    private EVExercise parseWorkoutNode(EVExercise exercise, Node workoutNode) {
-        NodeList children = workoutNode.getChildNodes();
-        String childName;
-        for (int i = 0; i < children.getLength(); i++) {
-            childName = children.item(i).getNodeName();
-            switch (childName) {
+    private EVExercise parseWorkoutElement(EVExercise exercise, XMLStreamReader reader) throws XMLStreamException {
+        WorkoutState state = new WorkoutState(exercise.getSampleList().size());
+        while (nextChildElement(reader)) {
+            switch (reader.getLocalName()) {
                 case "athlete":
                     // Nothing to do with this yet...or is there?
+                    skipElement(reader);
                     break;
                 case "goal":
                     // Not in files downloaded directly from the Timex 843/844
                     // Probably is in the files downloaded from the online software
+                    skipElement(reader);
                     break;
                 case "sportType":
                     // obtain sportType
-                    exercise.setSportType(children.item(i).getTextContent());
+                    exercise.setSportType(readTextContent(reader));
                     break;
                 case "cmt":
                 case "code":
                     // Not implemented
+                    skipElement(reader);
                     break;
                 case "device":
                     // parse device
-                    exercise = parseWorkoutDeviceNode(exercise, children.item(i));
-                    // The passing an object and then assigning the result of the method to the same object is akward to me.
-                    // It seems like that could result in a lot of time moving data.  My understanding is that is not the case
-                    // in Java though.
+                    exercise = parseWorkoutDeviceElement(exercise, reader);
+                    break;
                 case "time":
                     // obtain start time
+                    String strDateTime = readTextContent(reader);
                     try {
-                        String strDateTime = children.item(i).getTextContent();
                         exercise.setDateTime(LocalDateTime.parse(strDateTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME));
                     } catch (Exception e) {
                         exercise.setDateTime(null);
@@ -259,7 +247,7 @@ public class TimexPwxParser extends AbstractExerciseParser {
                     break;
                 case "summarydata":
                     // parse workout summary data
-                    SummaryData workoutSummary = parseSummaryData(children.item(i));
+                    SummaryData workoutSummary = parseSummaryData(reader);
                     exercise.setDuration((int) workoutSummary.getDuration() * 10);
                     exercise.setSumExerciseTime((int) workoutSummary.getDuration() / 60); // Not sure why these are different.
                     exercise.setSumRideTime((int) workoutSummary.getDuration() / 60);  // Assume some watches keep track of bike specific time..This one doesn't
@@ -285,62 +273,64 @@ public class TimexPwxParser extends AbstractExerciseParser {
                     }
                     break;
                 case "segment":
+                    // parse lap segment
+                    parseWorkoutSegment(reader, state);
+                    break;
                 case "sample":
-                    // This is handled after parsing everything else
+                    // parse sample, the heartrate zones are computed at the end of the workout
+                    parseWorkoutSample(exercise, reader, state);
                     break;
                 case "extension":
                     // Used for Timex Global Trainer and possibly others.
-                    exercise = parseWorkoutExtensionNode(exercise, children.item(i));
+                    exercise = parseWorkoutExtensionElement(exercise, reader);
+                    break;
+                default:
+                    skipElement(reader);
                     break;
             }
         }
-        // parse lap segments
-        exercise = parseWorkoutSegments(exercise, workoutNode);
-        // parse samples
-        exercise = parseWorkoutSamples(exercise, workoutNode);
+
+        if (!state.laps.isEmpty()) {
+            exercise.getLapList().addAll(state.laps);
+        }
+        // the samples depend on the device data, which can be located after the samples in the workout
+        exercise = finishWorkoutSamples(exercise, state);
         return exercise;
     }
 
-    private EVExercise parseWorkoutExtensionNode(EVExercise exercise, Node workoutExtensionNode) {
+    private EVExercise parseWorkoutExtensionElement(EVExercise exercise, XMLStreamReader reader) throws XMLStreamException {
         // Used for Global Trainer
-        NodeList children = workoutExtensionNode.getChildNodes();
-        String childName;
-        for (int i = 0; i < children.getLength(); i++) {
-            childName = children.item(i).getNodeName();//
-            if (childName.equals("ascent")) {
-                exercise.getAltitude().setAscent(Integer.valueOf(children.item(i).getTextContent()));
-            } else if (childName.equals("descent")) {
-                // obtain descent - not used in EVExercise
-            } else if (childName.equals("points")) {
-                // points - not used in EVExercise
+        while (nextChildElement(reader)) {
+            if (reader.getLocalName().equals("ascent")) {
+                exercise.getAltitude().setAscent(Integer.valueOf(readTextContent(reader)));
+            } else {
+                // descent and points - not used in EVExercise
+                skipElement(reader);
             }
         }
         return exercise;
     }
 
-    private EVExercise parseWorkoutDeviceNode(EVExercise exercise, Node deviceNode) {
-        NodeList children = deviceNode.getChildNodes();
-        String childName;
+    private EVExercise parseWorkoutDeviceElement(EVExercise exercise, XMLStreamReader reader) throws XMLStreamException {
         String make = "";
         String model = "";
 
-        for (int i = 0; i < children.getLength(); i++) {
-            childName = children.item(i).getNodeName();
+        while (nextChildElement(reader)) {
+            String childName = reader.getLocalName();
             if (childName.equals("extension")) {
                 // parse extension
-                exercise = parseDeviceExtensionNode(exercise, children.item(i));
+                exercise = parseDeviceExtensionElement(exercise, reader);
             } else if (childName.equals("make")) {
-                make = children.item(i).getTextContent();
+                make = readTextContent(reader);
             } else if (childName.equals("model")) {
-                model = children.item(i).getTextContent();
+                model = readTextContent(reader);
                 if (model.equals("Global Trainer") || model.equals("Run Trainer")) {
                     exercise = setGlobalTrainerRecordingMode(exercise);
                     exercise = setGlobalTrainerZones(exercise);
                 }
-            } else if (childName.equals("stopdetectionsetting")) {
-                // obtain stopdetectionsetting        
-            } else if (childName.equals("elevationchangesetting")) {
-                // obtain elevationchangesetting        
+            } else {
+                // stopdetectionsetting and elevationchangesetting - not used in EVExercise
+                skipElement(reader);
             }
         }
 
@@ -373,37 +363,33 @@ public class TimexPwxParser extends AbstractExerciseParser {
         return exercise;
     }
 
-    private EVExercise parseDeviceExtensionNode(EVExercise exercise, Node deviceExtensionNode) {
-        NodeList children = deviceExtensionNode.getChildNodes();
-        String childName;
-        for (int i = 0; i < children.getLength(); i++) {
-            childName = children.item(i).getNodeName();//
-            if (childName.equals("settings")) {
-                exercise = parseDeviceExtensionSettingsNode(exercise, children.item(i));
-            } else if (childName.equals("stoppage")) {
-                // obtain stoppage - not used in EVExercise
+    private EVExercise parseDeviceExtensionElement(EVExercise exercise, XMLStreamReader reader) throws XMLStreamException {
+        while (nextChildElement(reader)) {
+            if (reader.getLocalName().equals("settings")) {
+                exercise = parseDeviceExtensionSettingsElement(exercise, reader);
+            } else {
+                // stoppage - not used in EVExercise
+                skipElement(reader);
             }
         }
         return exercise;
     }
 
-    private EVExercise parseDeviceExtensionSettingsNode(EVExercise exercise, Node deviceExtensionSettingsNode) {
+    private EVExercise parseDeviceExtensionSettingsElement(EVExercise exercise, XMLStreamReader reader) throws XMLStreamException {
         // None of this data is explicitly specified in the pwx.xsd.
         // It is in the pwx files from the Timex watch though.
         //------------------------------------------------------------
-        NodeList children = deviceExtensionSettingsNode.getChildNodes();
-        String childName;
         // Create and Initialize Heart Rate Limits
         HeartRateLimit Zones[] = new HeartRateLimit[6];
         for (int i = 0; i < 6; i++) {
             Zones[i] = new HeartRateLimit((short) 0, (short) 0, null, 0, null, true);
         }
 
-        for (int i = 0; i < children.getLength(); i++) {
-            childName = children.item(i).getNodeName();// 
+        while (nextChildElement(reader)) {
+            String childName = reader.getLocalName();
             if (childName.equals("CHRMaxHR") || childName.equals("HRMMaxHR")) {
                 // Obtain Max HR - This is basis for Timex Zones
-                short HRMMaxHR = Short.valueOf(children.item(i).getTextContent());
+                short HRMMaxHR = Short.valueOf(readTextContent(reader));
                 double HRZonesPercentages[] = {1, .9, .8, .7, .6, .5};
                 for (int k = 0; k < 5; k++) {
                     short upperHeartRate = (short) (HRZonesPercentages[k] * HRMMaxHR);
@@ -412,22 +398,16 @@ public class TimexPwxParser extends AbstractExerciseParser {
                 }
             } else if (childName.equals("CHRManualZoneHigherLimit") || childName.equals("HRMBpmManHi")) {
                 // obtain Manual Zone Higher Limit
-                Zones[5].setUpperHeartRate(Short.valueOf(children.item(i).getTextContent()));
+                Zones[5].setUpperHeartRate(Short.valueOf(readTextContent(reader)));
             } else if (childName.equals("CHRManualZoneLowerLimit") || childName.equals("HRMBpmManLo")) {
-                // obtain Manual Zone Lower Limit          
-                Zones[5].setLowerHeartRate(Short.valueOf(children.item(i).getTextContent()));
-            } else if (childName.equals("HasHRMData")) {
-                // does file have hrm data   
+                // obtain Manual Zone Lower Limit
+                Zones[5].setLowerHeartRate(Short.valueOf(readTextContent(reader)));
             } else if (childName.equals("KCalPerDevice")) {
-                // obtain kCalPerDevice        
-                exercise.setEnergyTotal(Integer.valueOf(children.item(i).getTextContent()));
-            } else if (childName.equals("WorkoutType")) {
-                // obtain workout type - If not Chrono, then stop parsing since intervals aren't yet implemented
-                if (!children.item(i).getTextContent().equals("Chrono")) {
-                    // Not sure how to handle this... I want it to stop parsing and report an unsupported file.
-
-                }
+                // obtain kCalPerDevice
+                exercise.setEnergyTotal(Integer.valueOf(readTextContent(reader)));
             } else {
+                // HasHRMData: does file have hrm data
+                // WorkoutType: intervals aren't yet implemented, only Chrono workouts are supported
                 // obtain Alarm flags 1-3 (Enabled/Disabled)
                 // obtain Alarm Hours 1-3
                 // obtain Alarm Minutes 1-3
@@ -455,6 +435,7 @@ public class TimexPwxParser extends AbstractExerciseParser {
                 // obtain watch model
                 // obtain version number
                 // obtain workout number - Not sure what this number is
+                skipElement(reader);
             }
         }
         // don't care about Button Beep, Hourly Chime, Night Mode, Night Mode Duration, Display Format
@@ -481,117 +462,100 @@ public class TimexPwxParser extends AbstractExerciseParser {
         return exercise;
     }
 
-    private SummaryData parseSummaryData(Node summaryDataNode) {
+    private SummaryData parseSummaryData(XMLStreamReader reader) throws XMLStreamException {
         SummaryData nodeSummaryData = new SummaryData();
-        NodeList children = summaryDataNode.getChildNodes();
 
-        String childName;
-        for (int i = 0; i < children.getLength(); i++) {
-            childName = children.item(i).getNodeName();
+        while (nextChildElement(reader)) {
+            String childName = reader.getLocalName();
             if (childName.equals("beginning")) {
                 // obtain beginning time
-                nodeSummaryData.setBeginning(Double.valueOf(children.item(i).getTextContent()));
+                nodeSummaryData.setBeginning(Double.valueOf(readTextContent(reader)));
             } else if (childName.equals("duration")) {
                 // obtain duration
-                nodeSummaryData.setDuration(Double.valueOf(children.item(i).getTextContent()));
+                nodeSummaryData.setDuration(Double.valueOf(readTextContent(reader)));
             } else if (childName.equals("hr")) {
                 // obtain hr (MinMaxAvg)  (bpm)
-                nodeSummaryData.setHr(node2MinMaxAvg(children.item(i)));
+                nodeSummaryData.setHr(element2MinMaxAvg(reader));
             } else if (childName.equals("work")) {
                 // obtain work (Apparently Not used in Laps) (kJ)
-                nodeSummaryData.setWork(Integer.valueOf(children.item(i).getTextContent()));
+                nodeSummaryData.setWork(Integer.valueOf(readTextContent(reader)));
             } else if (childName.equals("spd")) {
                 // obtain spd (MinMaxAvg) (meters/second)
-                nodeSummaryData.setSpeed(node2MinMaxAvg(children.item(i)));
+                nodeSummaryData.setSpeed(element2MinMaxAvg(reader));
             } else if (childName.equals("alt")) {
                 // obtain altitude (MinMaxAvg) (meters)
-                nodeSummaryData.setAltitude(node2MinMaxAvg(children.item(i)));
+                nodeSummaryData.setAltitude(element2MinMaxAvg(reader));
             } else if (childName.equals("dist")) {
                 // obtain distance (meters)
-                nodeSummaryData.setDistance(Float.valueOf(children.item(i).getTextContent()));
+                nodeSummaryData.setDistance(Float.valueOf(readTextContent(reader)));
+            } else {
+                // 1st time its for the entire workout
+                // remaining times is for the Laps
+                // obtain duration stopped
+                // obtain tss
+                // obtain normalizedPower (watts)
+                // obtain pwr (MinMaxAvg) (watts)
+                // obtain torq (MinMaxAvg) (nM)
+                // obtain cadence (MinMaxAvg) (rpm)
+                // obtain temp (MinMaxAvg) (C)
+                // obtain variabilityIndex - Not sure what this is
+                // obtain climbingelevation
+                skipElement(reader);
             }
-            // 1st time its for the entire workout
-            // remaining times is for the Laps
-            // obtain duration stopped
-            // obtain tss
-            // obtain normalizedPower (watts)
-            // obtain pwr (MinMaxAvg) (watts)
-            // obtain torq (MinMaxAvg) (nM)
-            // obtain cadence (MinMaxAvg) (rpm)
-            // obtain temp (MinMaxAvg) (C)
-            // obtain variabilityIndex - Not sure what this is
-            // obtain climbingelevation
-        }
-        return nodeSummaryData; // Probably don't want to pass and return the Exercise itself.
+        }
+        return nodeSummaryData;
     }
 
-    private EVExercise parseWorkoutSegments(EVExercise exercise, Node workoutNode) {
-        ArrayList<Lap> laps = new ArrayList<>();
-
+    private void parseWorkoutSegment(XMLStreamReader reader, WorkoutState state) throws XMLStreamException {
         // obtain segment name  ( Either laps or Workout Summary )
         // parse segment summary data
-        // Create and initialize a holding Lap
-
-        // Finished Holding Lap
-        NodeList children = workoutNode.getChildNodes();
-        NodeList segmentChildren = null;
-        String childName;
-        float runningDistance = 0;
-        for (int i = 0; i < children.getLength(); i++) {
-            childName = children.item(i).getNodeName();
-            if (childName.equals("segment")) {
-                segmentChildren = children.item(i).getChildNodes();
-                Lap lap = new Lap();
-                LapSpeed lapSpd = new LapSpeed(0f, 0f,
-                        402, // I typically mark each lap at the 1/4 mile.  A popup might be nice to fill in the rest.
-                        null);
-                lap.setSpeed(lapSpd);
-                lap.setTemperature(new LapTemperature((short) 25));
-                for (int j = 0; j < segmentChildren.getLength(); j++) {
-                    childName = segmentChildren.item(j).getNodeName();
-                    if (childName.equals("summarydata")) {
-                        SummaryData segmentSummary = parseSummaryData(segmentChildren.item(j));
-                        lap.setTimeSplit((int) ((segmentSummary.getDuration() + segmentSummary.getBeginning()) * 10));
-                        if (segmentSummary.getDistance() != 0) {
-                            runningDistance += segmentSummary.getDistance();
-                            lapSpd.setDistance((int) runningDistance);
-                            lapSpd.setSpeedAVG((float) (3.600 * segmentSummary.getDistance() / segmentSummary.getDuration())); // Assumes 1/4 Mile Lap
-                            lapSpd.setSpeedEnd((float) 0.0);
-                        } else {
-                            runningDistance += 402.336;
-                            lapSpd.setDistance((int) runningDistance);
-                            lapSpd.setSpeedAVG((float) (3.6 * 402.336 / segmentSummary.getDuration())); // Assumes 1/4 Mile Lap
-                            lapSpd.setSpeedEnd((float) 0.0);
-                        }
-                        lap.setSpeed(lapSpd);
-                        if (segmentSummary.getHr() != null) {
-                            if (segmentSummary.getHr().getAvg() > 0) {
-                                lap.setHeartRateAVG((short) segmentSummary.getHr().getAvg());
-                            }
-                            if (segmentSummary.getHr().getMax() > 0) {
-                                lap.setHeartRateMax((short) segmentSummary.getHr().getMax());
-                            }
-                        }
-                        if (segmentSummary.getAltitude() != null) {
-                            short lapAltitude = (short) segmentSummary.getAltitude().getMax();
-                            int lapAscent = (int) (segmentSummary.getAltitude().getMax() - segmentSummary.getAltitude().getMin());
-                            lap.setAltitude(new LapAltitude(lapAltitude, lapAscent, 0));
-                        }
-                    }
-                }
+        Lap lap = new Lap();
+        LapSpeed lapSpd = new LapSpeed(0f, 0f,
+                402, // I typically mark each lap at the 1/4 mile.  A popup might be nice to fill in the rest.
+                null);
+        lap.setSpeed(lapSpd);
+        lap.setTemperature(new LapTemperature((short) 25));
+
+        while (nextChildElement(reader)) {
+            if (!reader.getLocalName().equals("summarydata")) {
+                skipElement(reader);
+                continue;
+            }
 
-                // sometimes there are laps (mostly the last one) with lap length 0 => ignore them
-                Lap previousLap = laps.isEmpty() ? null : laps.get(laps.size() - 1);
-                if (previousLap == null || lap.getTimeSplit() > previousLap.getTimeSplit()) {
-                    laps.add(lap);
+            SummaryData segmentSummary = parseSummaryData(reader);
+            lap.setTimeSplit((int) ((segmentSummary.getDuration() + segmentSummary.getBeginning()) * 10));
+            if (segmentSummary.getDistance() != 0) {
+                state.runningDistance += segmentSummary.getDistance();
+                lapSpd.setDistance((int) state.runningDistance);
+                lapSpd.setSpeedAVG((float) (3.600 * segmentSummary.getDistance() / segmentSummary.getDuration())); // Assumes 1/4 Mile Lap
+                lapSpd.setSpeedEnd((float) 0.0);
+            } else {
+                state.runningDistance += 402.336;
+                lapSpd.setDistance((int) state.runningDistance);
+                lapSpd.setSpeedAVG((float) (3.6 * 402.336 / segmentSummary.getDuration())); // Assumes 1/4 Mile Lap
+                lapSpd.setSpeedEnd((float) 0.0);
+            }
+            lap.setSpeed(lapSpd);
+            if (segmentSummary.getHr() != null) {
+                if (segmentSummary.getHr().getAvg() > 0) {
+                    lap.setHeartRateAVG((short) segmentSummary.getHr().getAvg());
                 }
+                if (segmentSummary.getHr().getMax() > 0) {
+                    lap.setHeartRateMax((short) segmentSummary.getHr().getMax());
+                }
+            }
+            if (segmentSummary.getAltitude() != null) {
+                short lapAltitude = (short) segmentSummary.getAltitude().getMax();
+                int lapAscent = (int) (segmentSummary.getAltitude().getMax() - segmentSummary.getAltitude().getMin());
+                lap.setAltitude(new LapAltitude(lapAltitude, lapAscent, 0));
             }
         }
 
-        if (!laps.isEmpty()) {
-            exercise.getLapList().addAll(laps);
+        // sometimes there are laps (mostly the last one) with lap length 0 => ignore them
+        Lap previousLap = state.laps.isEmpty() ? null : state.laps.get(state.laps.size() - 1);
+        if (previousLap == null || lap.getTimeSplit() > previousLap.getTimeSplit()) {
+            state.laps.add(lap);
         }
-        return exercise;
     }
 
     private static float getDistanceFromPositions(Position startPosition, Position stopPosition) { //float lat1, float lng1, float lat2, float lng2) {
@@ -612,113 +576,98 @@ public class TimexPwxParser extends AbstractExerciseParser {
         return (float) (dist * meterConversion);
     }
 
-    private EVExercise parseWorkoutSamples(EVExercise exercise, Node workoutNode) {
-        // obtain all the sample data.
-        int totalSamples = countNodeItems(workoutNode, "sample");
-        int currentSampleNumber = 0;
-        float lastDistance = 0;
-        boolean distanceinsample = false;
-        boolean firstsample = true;
-        double lastOffset = 0;
-        double currentOffset = 0;
-        Position lastPosition = new Position(0, 0);
-        NodeList children = workoutNode.getChildNodes();
-        NodeList sampleChildren = null;
-        String childName;
-        ExerciseSample lastSample = new ExerciseSample(); // Stop the jitters... assumes no
-        Double latitude = 0.0, longitude = 0.0;
+    private void parseWorkoutSample(EVExercise exercise, XMLStreamReader reader, WorkoutState state) throws XMLStreamException {
+        ExerciseSample sample = new ExerciseSample();
+        sample.setHeartRate((short) 0);
+
+        while (nextChildElement(reader)) {
+            String childName = reader.getLocalName();
+            if (childName.equals("timeoffset")) {
+                if (state.currentOffset != 0)
+                    state.lastOffset = state.currentOffset;
+                state.currentOffset = Double.valueOf(readTextContent(reader));
+                sample.setTimestamp((long) (1000 * state.currentOffset));
+            } else if (childName.equals("hr")) {
+                sample.setHeartRate(Short.valueOf(readTextContent(reader)));
+            } else if (childName.equals("spd")) {
+                sample.setSpeed((float) 3.6 * Float.valueOf(readTextContent(reader)).floatValue());
+            } else if (childName.equals("cad")) {
+                sample.setCadence(Short.valueOf(readTextContent(reader)));
+                state.cadenceInSamples = true;
+            } else if (childName.equals("dist")) {
+                double dist = Double.valueOf(readTextContent(reader));
+                sample.setDistance((int) Math.round(dist));
+                state.distanceInSample = true;
+            } else if (childName.equals("lat")) {
+                state.latitude = Double.valueOf(readTextContent(reader));
+            } else if (childName.equals("lon")) {
+                state.longitude = Double.valueOf(readTextContent(reader));
+            } else if (childName.equals("alt")) {
+                sample.setAltitude(Float.valueOf(readTextContent(reader)).shortValue());
+            } else if (childName.equals("temp")) {
+                sample.setTemperature(Float.valueOf(readTextContent(reader)).shortValue());
+            } else {
+                // pwr, torq and time - not implemented in ExerciseSample class
+                skipElement(reader);
+            }
+        }
+
+        sample.setPosition(new Position(state.latitude, state.longitude));
+        if (state.firstSample) {
+            state.lastPosition = sample.getPosition();
+            state.firstSample = false;
+        }
+        if (!state.distanceInSample) {
+            state.lastDistance += getDistanceFromPositions(state.lastPosition, sample.getPosition());
+            sample.setDistance((int) state.lastDistance);
+            state.lastPosition = sample.getPosition();
+        }
+        // Eliminates the jitters of 0bpm samples... assumes that heart rate won't change instantiously by much and
+        // that there will only be the occasional missed heart beat.  Also fixes the laps not adding up.
+        if (sample.getHeartRate() == 0)
+            sample.setHeartRate(state.lastSample.getHeartRate());
+        else
+            state.lastSample.setHeartRate(sample.getHeartRate());
+        exercise.getSampleList().add(sample);
+        state.addSampleZoneDuration(state.currentOffset - state.lastOffset);
+    }
+
+    private EVExercise finishWorkoutSamples(EVExercise exercise, WorkoutState state) {
+        if (state.cadenceInSamples) {
+            exercise.getRecordingMode().setCadence(true);
+        }
+
+        // update Zone information of all workout samples
         double belowZone[] = {0, 0, 0, 0, 0, 0};
         double inZone[] = {0, 0, 0, 0, 0, 0};
         double aboveZone[] = {0, 0, 0, 0, 0, 0};
-        int istop = children.getLength(); // getLength() is a slow function so keep it out of the loop.
-        for (int i = 0; i < istop; i++) {
-            childName = children.item(i).getNodeName();
-            if (childName.equals("sample")) {
-                ExerciseSample sample = new ExerciseSample();
-                sample.setHeartRate((short) 0);
-                sampleChildren = children.item(i).getChildNodes();
-                int jstop = sampleChildren.getLength();
-                for (int j = 0; j < jstop; j++) {
-                    childName = sampleChildren.item(j).getNodeName();
-                    if (childName.equals("timeoffset")) {
-                        if (currentOffset != 0)
-                            lastOffset = currentOffset;
-                        currentOffset = Double.valueOf(sampleChildren.item(j).getTextContent());
-                        sample.setTimestamp((long) (1000 * currentOffset));
-                    } else if (childName.equals("hr")) {
-                        sample.setHeartRate(Short.valueOf(sampleChildren.item(j).getTextContent()));
-                    } else if (childName.equals("spd")) {
-                        sample.setSpeed((float) 3.6 * Float.valueOf(sampleChildren.item(j).getTextContent()).floatValue());
-                    } else if (childName.equals("pwr")) {
-                        // Not implemented in ExerciseSample class
-                    } else if (childName.equals("torq")) {
-                        // Not implemented in ExerciseSample class
-                    } else if (childName.equals("cad")) {
-                        sample.setCadence(Short.valueOf(sampleChildren.item(j).getTextContent()));
-                        exercise.getRecordingMode().setCadence(true);
-                    } else if (childName.equals("dist")) {
-                        double dist = Double.valueOf(sampleChildren.item(j).getTextContent());
-                        sample.setDistance((int) Math.round(dist));
-                        distanceinsample = true;
-                    } else if (childName.equals("lat")) {
-                        latitude = Double.valueOf(sampleChildren.item(j).getTextContent());
-                    } else if (childName.equals("lon")) {
-                        longitude = Double.valueOf(sampleChildren.item(j).getTextContent());
-                    } else if (childName.equals("alt")) {
-                        sample.setAltitude(Float.valueOf(sampleChildren.item(j).getTextContent()).shortValue());
-                    } else if (childName.equals("temp")) {
-                        sample.setTemperature(Float.valueOf(sampleChildren.item(j).getTextContent()).shortValue());
-                    } else if (childName.equals("time")) {
-                        // Not implemented in ExerciseSample
-                    }
-                }
-                sample.setPosition(new Position(latitude, longitude));
-                if (firstsample) {
-                    lastPosition = sample.getPosition();
-                    firstsample = false;
-                }
-                if (!distanceinsample) {
-                    lastDistance += getDistanceFromPositions(lastPosition, sample.getPosition());
-                    sample.setDistance((int) lastDistance);
-                    lastPosition = sample.getPosition();
-                }
-                // Eliminates the jitters of 0bpm samples... assumes that heart rate won't change instantiously by much and
-                // that there will only be the occasional missed heart beat.  Also fixes the laps not adding up.
-                if (sample.getHeartRate() == 0)
-                    sample.setHeartRate(lastSample.getHeartRate());
-                else
-                    lastSample.setHeartRate(sample.getHeartRate());
-                exercise.getSampleList().add(sample);
-
-                // update Zone information
-                if (exercise.getHeartRateLimits() != null) {
-                    for (int j = 0; j < 6; j++) {
-                        if (sample.getHeartRate() > exercise.getHeartRateLimits().get(j).getUpperHeartRate()) {
-                            aboveZone[j] += (currentOffset - lastOffset);
-                        } else if (sample.getHeartRate() < exercise.getHeartRateLimits().get(j).getLowerHeartRate()) {
-                            belowZone[j] += (currentOffset - lastOffset);
-                        } else {
-                            inZone[j] += (currentOffset - lastOffset);
-                        }
-                    }
+        List<ExerciseSample> samples = exercise.getSampleList();
+
+        for (int i = 0; i < state.sampleCount; i++) {
+            ExerciseSample sample = samples.get(state.firstSampleIndex + i);
+            double zoneDuration = state.sampleZoneDurations[i];
+            for (int j = 0; j < 6; j++) {
+                if (sample.getHeartRate() > exercise.getHeartRateLimits().get(j).getUpperHeartRate()) {
+                    aboveZone[j] += zoneDuration;
+                } else if (sample.getHeartRate() < exercise.getHeartRateLimits().get(j).getLowerHeartRate()) {
+                    belowZone[j] += zoneDuration;
+                } else {
+                    inZone[j] += zoneDuration;
                 }
             }
-
         }
 
         // Store Zone Information in the exercise file
-        if (exercise.getHeartRateLimits() != null) {
-            for (int i = 0; i < 6; i++) {
-                HeartRateLimit hrLimit = exercise.getHeartRateLimits().get(i);
-                hrLimit.setTimeAbove((int) aboveZone[i]);
-                hrLimit.setTimeBelow((int) belowZone[i]);
-                hrLimit.setTimeWithin((int) inZone[i]);
-            }
+        for (int i = 0; i < 6; i++) {
+            HeartRateLimit hrLimit = exercise.getHeartRateLimits().get(i);
+            hrLimit.setTimeAbove((int) aboveZone[i]);
+            hrLimit.setTimeBelow((int) belowZone[i]);
+            hrLimit.setTimeWithin((int) inZone[i]);
         }
         exercise.setRecordingInterval((short) 2);
 
         // some models (e.g. Timex Ironman Run Trainer) don't contain statistic date (avg, max, ...)
-        // => compute the missing data   
+        // => compute the missing data
         if (!exercise.getSampleList().isEmpty()) {
             computeHeartrateStatisticIfMissing(exercise);
             computeSpeedStatisticIfMissing(exercise);
@@ -727,52 +676,33 @@ public class TimexPwxParser extends AbstractExerciseParser {
         return exercise;
     }
 
-    private Node findFirstPwx(Document doc) {
-        // Find the first node of the document that is a pwx and then return it otherwise, return null
-        // Normally only expect one node at this level but who knows.
-        NodeList rootNodeList = doc.getChildNodes();
-        for (int i = 0; i < rootNodeList.getLength(); i++) {
-            if (rootNodeList.item(i).getNodeName().equals("pwx")) {
-                return rootNodeList.item(i);
-            }
-        }
-        return null;
-    }
-
     @Override
     public EVExercise parseExercise(String filename) throws EVException {
 
         // create an EVExercise object from this data and set file type
-
         EVExercise exercise = new EVExercise(EVExercise.ExerciseFileType.TIMEX_PWX);
-        // Open Document and Get root
-
-        DocumentBuilderFactory dbf = null;
-        DocumentBuilder db = null;
-        Document doc = null;
-
-        Node root = null;
-
-        NodeList children = null;
-        // Open the pwx file
-        try {
-            dbf = DocumentBuilderFactory.newInstance(); // DocumentBuilderFactory
-            db = dbf.newDocumentBuilder(); // DocumentBuilder
-            doc = db.parse(filename); // Document
-            root = findFirstPwx(doc); // Node
-        } catch (Exception e) {
-            throw new EVException("Failed to open pwx exercise file '" + filename + "' ...", e);
-        }
-        if (root != null)
-            exercise.setFileType(EVExercise.ExerciseFileType.TIMEX_PWX);
-        else
-            throw new EVException("Failed to find a pwx node in file '" + filename + "'");
 
-        children = root.getChildNodes();
-        for (int i = 0; i < children.getLength(); i++) {
-            if (children.item(i).getNodeName().equals("workout")) {
-                exercise = parseWorkoutNode(exercise, children.item(i));
+        // Open the pwx file and parse all workouts while reading
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(filename))) {
+            XMLStreamReader reader = createStreamReader(inputStream);
+            try {
+                // the root element must be a pwx element
+                if (!nextChildElement(reader) || !reader.getLocalName().equals("pwx")) {
+                    throw new EVException("Failed to find a pwx node in file '" + filename + "'");
+                }
+
+                while (nextChildElement(reader)) {
+                    if (reader.getLocalName().equals("workout")) {
+                        exercise = parseWorkoutElement(exercise, reader);
+                    } else {
+                        skipElement(reader);
+                    }
+                }
+            } finally {
+                reader.close();
             }
+        } catch (IOException | XMLStreamException e) {
+            throw new EVException("Failed to open pwx exercise file '" + filename + "' ...", e);
         }
 
         cleanupDistanceAndSpeedInSamples(exercise);
@@ -859,5 +789,101 @@ public class TimexPwxParser extends AbstractExerciseParser {
             });
         }
     }
-}
 
+    /**
+     * Moves the reader to the start of the next child element of the current element. The previous child element
+     * must have been read completely.
+     *
+     * @return true when the next child element was found, false at the end of the current element
+     */
+    private static boolean nextChildElement(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the text content of the current element including the text of all its child elements.
+     */
+    private static String readTextContent(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder sbText = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT -> depth++;
+                case XMLStreamConstants.END_ELEMENT -> depth--;
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+                        sbText.append(reader.getText());
+                default -> {
+                }
+            }
+        }
+        return sbText.toString();
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT -> depth++;
+                case XMLStreamConstants.END_ELEMENT -> depth--;
+                default -> {
+                }
+            }
+        }
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory inputFactory = XMLInputFactory.newFactory();
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        return inputFactory;
+    }
+
+    private static XMLStreamReader createStreamReader(InputStream inputStream) throws XMLStreamException {
+        synchronized (INPUT_FACTORY) {
+            return INPUT_FACTORY.createXMLStreamReader(inputStream);
+        }
+    }
+
+    /**
+     * Parse state of a workout, it contains the previous sample data and the data needed after parsing all elements.
+     */
+    private static class WorkoutState {
+        private final ArrayList<Lap> laps = new ArrayList<>();
+        private float runningDistance = 0;
+
+        private final int firstSampleIndex;
+        private int sampleCount = 0;
+        /** Durations of all samples used for the heartrate zone statistics (sec). */
+        private double[] sampleZoneDurations = new double[1024];
+
+        private float lastDistance = 0;
+        private boolean distanceInSample = false;
+        private boolean cadenceInSamples = false;
+        private boolean firstSample = true;
+        private double lastOffset = 0;
+        private double currentOffset = 0;
+        private Position lastPosition = new Position(0, 0);
+        private final ExerciseSample lastSample = new ExerciseSample(); // Stop the jitters... assumes no
+        private Double latitude = 0.0, longitude = 0.0;
+
+        WorkoutState(int firstSampleIndex) {
+            this.firstSampleIndex = firstSampleIndex;
+        }
+
+        void addSampleZoneDuration(double zoneDuration) {
+            if (sampleCount == sampleZoneDurations.length) {
+                sampleZoneDurations = Arrays.copyOf(sampleZoneDurations, sampleCount * 2);
+            }
+            sampleZoneDurations[sampleCount++] = zoneDuration;
+        }
+    }
+}
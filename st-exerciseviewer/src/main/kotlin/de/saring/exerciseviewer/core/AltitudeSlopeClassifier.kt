@@ -0,0 +1,141 @@
+package de.saring.exerciseviewer.core
+
+import kotlin.math.abs
+import kotlin.math.sqrt
+
+/**
+ * Classifier of the altitude slopes for the colored slope areas in the altitude diagram. The altitude series is
+ * divided into segments of the specified length, each segment is labeled with the slope bucket of its slope. The
+ * series of all slope buckets are created in a single pass over the altitude values.
+ *
+ * The series of a bucket contains all altitude values of the segments of this bucket. The values of all other
+ * segments are set to 0, the segment ends are vertical lines (two points with the same distance), so the areas below
+ * the altitude values can be filled.
+ *
+ * @param minSlopes the minimum slopes (in percent, ascending) of all slope buckets, a bucket contains all slopes
+ * from its minimum to the minimum of the next bucket, the first bucket contains all smaller slopes too
+ *
+ * @author Stefan Saring
+ */
+class AltitudeSlopeClassifier(private val minSlopes: IntArray) {
+
+    /**
+     * Creates the series of all slope buckets for the specified altitude series.
+     *
+     * @param distances the distance values of the altitude series (ascending, in the displayed unit)
+     * @param altitudes the altitude values (in the displayed unit)
+     * @param distanceFactor factor for converting the distance values to meters
+     * @param altitudeFactor factor for converting the altitude values to meters
+     * @param segmentLength the minimum length of the segments (in meters)
+     * @return array with the series of each slope bucket, each series contains the array of distance values at index
+     * 0 and the array of altitude values at index 1
+     */
+    fun createSlopeSeries(
+            distances: DoubleArray,
+            altitudes: DoubleArray,
+            distanceFactor: Double,
+            altitudeFactor: Double,
+            segmentLength: Double): Array<Array<DoubleArray>> {
+
+        val bucketSeries = Array(minSlopes.size) { SeriesBuilder(distances.size / minSlopes.size + 16) }
+        if (distances.size < 2) {
+            return bucketSeries.map { it.toArrays() }.toTypedArray()
+        }
+
+        val previousSegmentOutside = BooleanArray(minSlopes.size)
+        val lastIndex = distances.size - 1
+        var segmentStart = 0
+
+        while (segmentStart < lastIndex) {
+            val segmentEnd = getSegmentEnd(distances, segmentStart, segmentLength / distanceFactor)
+            val slope = computeSlope(
+                    (distances[segmentEnd] - distances[segmentStart]) * distanceFactor,
+                    (altitudes[segmentEnd] - altitudes[segmentStart]) * altitudeFactor)
+            val segmentBucket = getBucket(slope)
+
+            for (bucket in minSlopes.indices) {
+                val series = bucketSeries[bucket]
+
+                if (bucket != segmentBucket) {
+                    // first segment outside of this bucket -> vertical line down to 0
+                    if (!previousSegmentOutside[bucket]) {
+                        series.add(distances[segmentStart], altitudes[segmentStart])
+                        series.add(distances[segmentStart], 0.0)
+                        previousSegmentOutside[bucket] = true
+                    }
+                } else {
+                    // first segment inside of this bucket -> vertical line up from 0, then all segment values
+                    if (previousSegmentOutside[bucket]) {
+                        series.add(distances[segmentStart], 0.0)
+                    }
+                    for (index in segmentStart until segmentEnd) {
+                        series.add(distances[index], altitudes[index])
+                    }
+                    if (segmentEnd == lastIndex) {
+                        series.add(distances[segmentEnd], altitudes[segmentEnd])
+                    }
+                    previousSegmentOutside[bucket] = false
+                }
+            }
+            segmentStart = segmentEnd
+        }
+
+        return bucketSeries.map { it.toArrays() }.toTypedArray()
+    }
+
+    /**
+     * Returns the index of the first value which is more than the segment length away from the segment start. The
+     * last segment ends always at the last index, so it can be shorter.
+     */
+    private fun getSegmentEnd(distances: DoubleArray, segmentStart: Int, segmentLength: Double): Int {
+        val lastIndex = distances.size - 1
+        var index = segmentStart + 1
+        while (index < lastIndex && distances[index] - segmentLength <= distances[segmentStart]) {
+            index++
+        }
+        return index
+    }
+
+    /**
+     * Computes the slope in percent for the specified distance (along the slope) and altitude delta.
+     */
+    private fun computeSlope(deltaDistance: Double, deltaAltitude: Double): Double {
+        val horizontalDistance = sqrt(maxOf(deltaDistance * deltaDistance - deltaAltitude * deltaAltitude, 0.0))
+        return when {
+            horizontalDistance > 0 -> abs(deltaAltitude / horizontalDistance) * 100
+            deltaAltitude == 0.0 -> 0.0
+            // the altitude delta is larger than the distance (invalid recording) -> steepest slope
+            else -> Double.POSITIVE_INFINITY
+        }
+    }
+
+    private fun getBucket(slope: Double): Int {
+        var bucket = 0
+        while (bucket < minSlopes.size - 1 && slope >= minSlopes[bucket + 1]) {
+            bucket++
+        }
+        return bucket
+    }
+
+    /**
+     * Builder of a series with growable primitive arrays.
+     */
+    private class SeriesBuilder(initialCapacity: Int) {
+        private var xValues = DoubleArray(initialCapacity)
+        private var yValues = DoubleArray(initialCapacity)
+        private var size = 0
+
+        fun add(x: Double, y: Double) {
+            if (size == xValues.size) {
+                val newCapacity = xValues.size + xValues.size / 2 + 1
+                xValues = xValues.copyOf(newCapacity)
+                yValues = yValues.copyOf(newCapacity)
+            }
+            xValues[size] = x
+            yValues[size] = y
+            size++
+        }
+
+        fun toArrays(): Array<DoubleArray> = arrayOf(xValues.copyOf(size), yValues.copyOf(size))
+    }
+}
@@ -0,0 +1,267 @@
+package de.saring.exerciseviewer.core
+
+import de.saring.exerciseviewer.data.ExerciseSample
+import de.saring.exerciseviewer.data.ExerciseSampleColumns
+import de.saring.exerciseviewer.data.Position
+import kotlin.math.PI
+import kotlin.math.cos
+
+/**
+ * Index of the exercise samples for searching the nearest sample by timestamp, distance or position in O(log n).
+ * The timestamps and distances are stored in sorted primitive arrays for binary searches, the positions are stored
+ * in a k-d tree. The index structures are created on first usage only, the samples must not be modified afterwards.
+ *
+ * When multiple samples are equally near, then the sample with the lowest index is returned.
+ *
+ * @param sampleCount number of exercise samples
+ * @param getTimestamp function for getting the timestamp of the sample at the passed index (optional)
+ * @param getDistance function for getting the distance of the sample at the passed index (optional)
+ * @param getPosition function for getting the position of the sample at the passed index (optional)
+ *
+ * @author Stefan Saring
+ */
+class ExerciseSampleIndex(
+        private val sampleCount: Int,
+        private val getTimestamp: (Int) -> Long?,
+        private val getDistance: (Int) -> Int?,
+        private val getPosition: (Int) -> Position?) {
+
+    /**
+     * Creates the index for the specified list of exercise samples.
+     */
+    constructor(sampleList: List<ExerciseSample>) : this(
+            sampleList.size,
+            { sampleList[it].timestamp },
+            { sampleList[it].distance },
+            { sampleList[it].position })
+
+    /**
+     * Creates the index for the specified exercise sample columns.
+     */
+    constructor(columns: ExerciseSampleColumns) : this(
+            columns.size,
+            { columns.timestamp.getOrNull(it) },
+            { columns.distance.getOrNull(it) },
+            { if (columns.latitude.isPresent(it)) Position(columns.latitude[it], columns.longitude[it]) else null })
+
+    private val timestampIndex by lazy { SortedValueIndex { getTimestamp(it) } }
+    private val distanceIndex by lazy { SortedValueIndex { getDistance(it)?.toLong() } }
+    private val positionIndex by lazy { PositionIndex() }
+
+    /**
+     * Returns the index of the sample with the timestamp nearest to the specified timestamp.
+     *
+     * @param timestamp timestamp since exercise start (in 1/1000 sec)
+     * @return the sample index or -1 when there are no samples with timestamps
+     */
+    fun findNearestByTimestamp(timestamp: Long): Int = timestampIndex.findNearest(timestamp)
+
+    /**
+     * Returns the index of the sample with the distance nearest to the specified distance.
+     *
+     * @param distance distance from exercise start (in meters)
+     * @return the sample index or -1 when there are no samples with distances
+     */
+    fun findNearestByDistance(distance: Int): Int = distanceIndex.findNearest(distance.toLong())
+
+    /**
+     * Returns the index of the sample with the position nearest to the specified position.
+     *
+     * @param latitude latitude in degrees
+     * @param longitude longitude in degrees
+     * @return the sample index or -1 when there are no samples with positions
+     */
+    fun findNearestByPosition(latitude: Double, longitude: Double): Int =
+            positionIndex.findNearest(latitude, longitude)
+
+    /**
+     * Index of the present sample values, sorted by value. For equal values only the lowest sample index is stored.
+     */
+    private inner class SortedValueIndex(getValue: (Int) -> Long?) {
+
+        private val values: LongArray
+        private val sampleIndices: IntArray
+
+        init {
+            var allValues = LongArray(sampleCount)
+            var allSampleIndices = IntArray(sampleCount)
+            var count = 0
+            var sorted = true
+
+            for (index in 0 until sampleCount) {
+                val value = getValue(index) ?: continue
+                if (count > 0 && value < allValues[count - 1]) {
+                    sorted = false
+                }
+                allValues[count] = value
+                allSampleIndices[count++] = index
+            }
+
+            // the values are usually ascending already, otherwise sort them (stable, so equal values keep their order)
+            if (!sorted) {
+                val order = (0 until count).sortedBy { allValues[it] }
+                allValues = LongArray(count) { allValues[order[it]] }
+                allSampleIndices = IntArray(count) { allSampleIndices[order[it]] }
+            }
+
+            // remove the duplicate values, keep the first sample index
+            var uniqueCount = 0
+            for (i in 0 until count) {
+                if (uniqueCount == 0 || allValues[i] != allValues[uniqueCount - 1]) {
+                    allValues[uniqueCount] = allValues[i]
+                    allSampleIndices[uniqueCount++] = allSampleIndices[i]
+                }
+            }
+            values = allValues.copyOf(uniqueCount)
+            sampleIndices = allSampleIndices.copyOf(uniqueCount)
+        }
+
+        fun findNearest(value: Long): Int {
+            if (values.isEmpty()) {
+                return -1
+            }
+
+            val searchIndex = values.binarySearch(value)
+            if (searchIndex >= 0) {
+                return sampleIndices[searchIndex]
+            }
+
+            // compare the values before and after the insertion point
+            val insertionIndex = -searchIndex - 1
+            if (insertionIndex == 0) {
+                return sampleIndices[0]
+            }
+            if (insertionIndex == values.size) {
+                return sampleIndices[values.size - 1]
+            }
+
+            val deltaBefore = value - values[insertionIndex - 1]
+            val deltaAfter = values[insertionIndex] - value
+            return when {
+                deltaBefore < deltaAfter -> sampleIndices[insertionIndex - 1]
+                deltaAfter < deltaBefore -> sampleIndices[insertionIndex]
+                else -> minOf(sampleIndices[insertionIndex - 1], sampleIndices[insertionIndex])
+            }
+        }
+    }
+
+    /**
+     * Implicit k-d tree of the sample positions. The positions are projected to a plane (equirectangular projection
+     * at the average latitude), that's precise enough for finding the nearest position of a track.
+     */
+    private inner class PositionIndex {
+
+        /** The sample indices of the tree nodes, the node of a range is always in the middle of the range. */
+        private val tree: IntArray
+        private val x: DoubleArray
+        private val y: DoubleArray
+        private val longitudeScale: Double
+
+        init {
+            val positions = arrayOfNulls<Position>(sampleCount)
+            var count = 0
+            var latitudeSum = 0.0
+            for (index in 0 until sampleCount) {
+                positions[index] = getPosition(index)?.also {
+                    count++
+                    latitudeSum += it.latitude
+                }
+            }
+
+            longitudeScale = if (count > 0) cos(latitudeSum / count * PI / 180.0) else 1.0
+            x = DoubleArray(sampleCount) { positions[it]?.let { p -> p.longitude * longitudeScale } ?: 0.0 }
+            y = DoubleArray(sampleCount) { positions[it]?.latitude ?: 0.0 }
+
+            tree = IntArray(count)
+            var treeIndex = 0
+            for (index in 0 until sampleCount) {
+                if (positions[index] != null) {
+                    tree[treeIndex++] = index
+                }
+            }
+            buildTree(0, count, true)
+        }
+
+        fun findNearest(latitude: Double, longitude: Double): Int {
+            val search = NearestSearch(longitude * longitudeScale, latitude)
+            search.searchTree(0, tree.size, true)
+            return search.nearestSampleIndex
+        }
+
+        private fun buildTree(from: Int, to: Int, splitByX: Boolean) {
+            if (to - from <= 1) {
+                return
+            }
+            val middle = (from + to) ushr 1
+            select(from, to - 1, middle, if (splitByX) x else y)
+            buildTree(from, middle, !splitByX)
+            buildTree(middle + 1, to, !splitByX)
+        }
+
+        /**
+         * Reorders the tree range (quickselect), so the node at index k is at its sorted position for the passed
+         * coordinates, all nodes before are not greater and all nodes after are not less.
+         */
+        private fun select(fromIndex: Int, toIndex: Int, k: Int, coordinates: DoubleArray) {
+            var left = fromIndex
+            var right = toIndex
+            while (left < right) {
+                val pivot = coordinates[tree[(left + right) ushr 1]]
+                var i = left
+                var j = right
+                while (i <= j) {
+                    while (coordinates[tree[i]] < pivot) i++
+                    while (coordinates[tree[j]] > pivot) j--
+                    if (i <= j) {
+                        val swap = tree[i]
+                        tree[i] = tree[j]
+                        tree[j] = swap
+                        i++
+                        j--
+                    }
+                }
+                when {
+                    k <= j -> right = j
+                    k >= i -> left = i
+                    else -> return
+                }
+            }
+        }
+
+        private inner class NearestSearch(private val searchX: Double, private val searchY: Double) {
+            var nearestSampleIndex = -1
+            private var nearestDistance = Double.MAX_VALUE
+
+            fun searchTree(from: Int, to: Int, splitByX: Boolean) {
+                if (from >= to) {
+                    return
+                }
+
+                val middle = (from + to) ushr 1
+                val sampleIndex = tree[middle]
+                val deltaX = searchX - x[sampleIndex]
+                val deltaY = searchY - y[sampleIndex]
+                val distance = deltaX * deltaX + deltaY * deltaY
+                if (distance < nearestDistance ||
+                        (distance == nearestDistance && sampleIndex < nearestSampleIndex)) {
+                    nearestDistance = distance
+                    nearestSampleIndex = sampleIndex
+                }
+
+                // search the side of the search position first, the other side only when it can be nearer
+                val splitDelta = if (splitByX) deltaX else deltaY
+                if (splitDelta < 0) {
+                    searchTree(from, middle, !splitByX)
+                    if (splitDelta * splitDelta <= nearestDistance) {
+                        searchTree(middle + 1, to, !splitByX)
+                    }
+                } else {
+                    searchTree(middle + 1, to, !splitByX)
+                    if (splitDelta * splitDelta <= nearestDistance) {
+                        searchTree(from, middle, !splitByX)
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package de.saring.exerciseviewer.core
+
+/**
+ * Moving average filter for smoothing series of sample values (e.g. for the diagrams). The average of each value is
+ * computed for the range of the specified steps before and after the value. The filter uses prefix sums of the
+ * values, so the complete series is smoothed in O(n), independent of the range size.
+ *
+ * Rules of the filter (same as before in the diagram panel):
+ * - range indices before the first or after the last value are using the first or last value instead
+ * - missing values (NaN) in the range are replaced by the value at the filtered index (or 0 if also missing)
+ * - values of 0 stay 0, otherwise short stops would not be visible anymore
+ *
+ * @author Stefan Saring
+ */
+object MovingAverageFilter {
+
+    /**
+     * Returns the smoothed series for the specified values. When the range steps are 0 (or less), then a copy of the
+     * values is returned, missing values stay missing. Otherwise all smoothed values are present.
+     *
+     * @param values the sample values, missing values must be NaN
+     * @param rangeSteps number of values before and after each value to be used for the average
+     * @return array with the smoothed values
+     */
+    fun smooth(values: DoubleArray, rangeSteps: Int): DoubleArray {
+        if (rangeSteps <= 0 || values.isEmpty()) {
+            return values.copyOf()
+        }
+
+        // prefix sums of the present values and prefix counts of the missing values
+        val size = values.size
+        val presentSums = DoubleArray(size + 1)
+        val missingCounts = IntArray(size + 1)
+        for (i in 0 until size) {
+            val missing = values[i].isNaN()
+            presentSums[i + 1] = presentSums[i] + if (missing) 0.0 else values[i]
+            missingCounts[i + 1] = missingCounts[i] + if (missing) 1 else 0
+        }
+
+        val rangeLength = 2 * rangeSteps + 1
+        val lastIndex = size - 1
+        val smoothedValues = DoubleArray(size)
+
+        for (index in 0 until size) {
+            val value = values[index]
+            if (value == 0.0) {
+                continue
+            }
+
+            val substitute = if (value.isNaN()) 0.0 else value
+            val rangeStart = index - rangeSteps
+            val rangeEnd = index + rangeSteps
+            val innerStart = maxOf(rangeStart, 0)
+            val innerEnd = minOf(rangeEnd, lastIndex)
+
+            var valueSum = presentSums[innerEnd + 1] - presentSums[innerStart] +
+                    (missingCounts[innerEnd + 1] - missingCounts[innerStart]) * substitute
+
+            // range indices out of the series are using the first or last value
+            if (rangeStart < 0) {
+                valueSum += -rangeStart * valueOrSubstitute(values[0], substitute)
+            }
+            if (rangeEnd > lastIndex) {
+                valueSum += (rangeEnd - lastIndex) * valueOrSubstitute(values[lastIndex], substitute)
+            }
+
+            smoothedValues[index] = valueSum / rangeLength
+        }
+        return smoothedValues
+    }
+
+    private fun valueOrSubstitute(value: Double, substitute: Double): Double =
+        if (value.isNaN()) substitute else value
+}
@@ -0,0 +1,66 @@
+package de.saring.exerciseviewer.data
+
+/**
+ * List of ExerciseSamples which is a lazy view of the specified sample columns. The ExerciseSample objects are
+ * created on first access only and are reused afterwards, so changes of the returned samples are kept.
+ *
+ * The view can't reflect structural changes (adding or removing samples) in the columns. So all samples are created
+ * on the first structural change of this list, the columns are not used anymore afterwards.
+ *
+ * @param columns the sample columns (must not be modified after creation of this list)
+ *
+ * @author Stefan Saring
+ */
+class ExerciseSampleColumnList(private val columns: ExerciseSampleColumns) : AbstractMutableList<ExerciseSample>() {
+
+    /** The samples already created from the columns. */
+    private var samples = arrayOfNulls<ExerciseSample>(columns.size)
+
+    /** The list of all samples after the first structural change, the columns are not used then. */
+    private var detachedSamples: MutableList<ExerciseSample>? = null
+
+    override val size: Int
+        get() = detachedSamples?.size ?: samples.size
+
+    override fun get(index: Int): ExerciseSample {
+        detachedSamples?.let { return it[index] }
+
+        return samples[checkIndex(index)]
+            ?: columns.toExerciseSample(index).also { samples[index] = it }
+    }
+
+    override fun set(index: Int, element: ExerciseSample): ExerciseSample {
+        detachedSamples?.let { return it.set(index, element) }
+
+        val previousSample = get(index)
+        samples[index] = element
+        return previousSample
+    }
+
+    override fun add(index: Int, element: ExerciseSample) {
+        detach().add(index, element)
+        modCount++
+    }
+
+    override fun removeAt(index: Int): ExerciseSample {
+        val removedSample = detach().removeAt(index)
+        modCount++
+        return removedSample
+    }
+
+    private fun detach(): MutableList<ExerciseSample> =
+        detachedSamples ?: ArrayList<ExerciseSample>(samples.size + 1)
+            .also { list ->
+                for (index in samples.indices) {
+                    list.add(get(index))
+                }
+                detachedSamples = list
+            }
+
+    private fun checkIndex(index: Int): Int {
+        if (index < 0 || index >= samples.size) {
+            throw IndexOutOfBoundsException("Index: $index, size: ${samples.size}")
+        }
+        return index
+    }
+}
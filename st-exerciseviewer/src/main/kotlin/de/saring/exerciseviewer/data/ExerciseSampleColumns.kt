@@ -0,0 +1,282 @@
+package de.saring.exerciseviewer.data
+
+import java.nio.DoubleBuffer
+import java.nio.FloatBuffer
+import java.nio.IntBuffer
+import java.nio.LongBuffer
+import java.nio.ShortBuffer
+import java.util.BitSet
+
+/**
+ * Columnar storage of exercise sample data. The values of each sample attribute are stored in a growable primitive
+ * array, the availability of the optional values is stored in a bitset per attribute. So large exercises (e.g. 36.000
+ * samples of a 10 hour exercise recorded in 1 sec interval) can be parsed without creating any objects per sample.
+ *
+ * The [ExerciseSample] objects for existing callers can be created by [ExerciseSampleColumnList], it's a lazy view
+ * of these columns.
+ *
+ * @param initialCapacity initial number of samples which can be stored without growing the arrays
+ *
+ * @author Stefan Saring
+ */
+class ExerciseSampleColumns(initialCapacity: Int = DEFAULT_CAPACITY) {
+
+    /** Number of stored samples. */
+    var size = 0
+        private set
+
+    private var capacity = maxOf(initialCapacity, 1)
+
+    /** Timestamps since exercise start (in 1/1000 sec). */
+    val timestamp = LongColumn()
+
+    /** Heartrate values. */
+    val heartRate = ShortColumn()
+
+    /** Altitude values. */
+    val altitude = ShortColumn()
+
+    /** Speed values (in km/h). */
+    val speed = FloatColumn()
+
+    /** Cadence values (in rpm). */
+    val cadence = ShortColumn()
+
+    /** Power values (in watts). */
+    val power = ShortColumn()
+
+    /** Distance values (in meters). */
+    val distance = IntColumn()
+
+    /** Temperature values (in degrees celcius). */
+    val temperature = ShortColumn()
+
+    /** Latitude values of the positions (in degrees), a position is present when the latitude is present. */
+    val latitude = DoubleColumn()
+
+    /** Longitude values of the positions (in degrees). */
+    val longitude = DoubleColumn()
+
+    /**
+     * Appends a new sample without any values.
+     *
+     * @return the index of the new sample
+     */
+    fun addSample(): Int {
+        if (size == capacity) {
+            growTo(capacity + capacity / 2 + 1)
+        }
+        return size++
+    }
+
+    /**
+     * Appends the specified number of new samples without any values, the values can be loaded in bulk afterwards.
+     *
+     * @param count number of samples to append
+     */
+    internal fun addSamples(count: Int) {
+        if (size + count > capacity) {
+            growTo(size + count)
+        }
+        size += count
+    }
+
+    private fun growTo(newCapacity: Int) {
+        capacity = newCapacity
+        timestamp.grow(capacity)
+        heartRate.grow(capacity)
+        altitude.grow(capacity)
+        speed.grow(capacity)
+        cadence.grow(capacity)
+        power.grow(capacity)
+        distance.grow(capacity)
+        temperature.grow(capacity)
+        latitude.grow(capacity)
+        longitude.grow(capacity)
+    }
+
+    /**
+     * Sets the position of the specified sample.
+     *
+     * @param index sample index
+     * @param latitude latitude in degrees
+     * @param longitude longitude in degrees
+     */
+    fun setPosition(index: Int, latitude: Double, longitude: Double) {
+        this.latitude[index] = latitude
+        this.longitude[index] = longitude
+    }
+
+    /**
+     * Creates a new ExerciseSample object containing all values of the specified sample.
+     *
+     * @param index sample index
+     * @return the created ExerciseSample
+     */
+    fun toExerciseSample(index: Int): ExerciseSample {
+        if (index < 0 || index >= size) {
+            throw IndexOutOfBoundsException("Index: $index, size: $size")
+        }
+
+        return ExerciseSample(
+            timestamp = timestamp.getOrNull(index),
+            heartRate = heartRate.getOrNull(index),
+            altitude = altitude.getOrNull(index),
+            speed = speed.getOrNull(index),
+            cadence = cadence.getOrNull(index),
+            power = power.getOrNull(index),
+            distance = distance.getOrNull(index),
+            temperature = temperature.getOrNull(index),
+            position = if (latitude.isPresent(index)) Position(latitude[index], longitude[index]) else null)
+    }
+
+    /**
+     * Base class of the columns, it stores the availability of the values.
+     */
+    abstract inner class Column {
+        protected val present = BitSet()
+
+        /**
+         * Returns true when a value is stored for the specified sample.
+         */
+        fun isPresent(index: Int): Boolean = present[index]
+
+        /**
+         * Returns true when a value is stored for any of the samples.
+         */
+        fun isAnyPresent(): Boolean = !present.isEmpty
+
+        /**
+         * Marks the values of all samples contained in the passed bitset as stored (for bulk loading).
+         */
+        internal fun setPresent(indices: BitSet) {
+            present.or(indices)
+        }
+
+        internal abstract fun grow(newCapacity: Int)
+    }
+
+    inner class LongColumn : Column() {
+        private var values = LongArray(capacity)
+
+        operator fun get(index: Int): Long = values[index]
+
+        operator fun set(index: Int, value: Long) {
+            values[index] = value
+            present.set(index)
+        }
+
+        fun getOrNull(index: Int): Long? = if (present[index]) values[index] else null
+
+        /**
+         * Loads the values of the samples starting at index 0 from the buffer (for bulk loading).
+         */
+        internal fun loadValues(source: LongBuffer, count: Int) {
+            source.get(values, 0, count)
+        }
+
+        override fun grow(newCapacity: Int) {
+            values = values.copyOf(newCapacity)
+        }
+    }
+
+    inner class IntColumn : Column() {
+        private var values = IntArray(capacity)
+
+        operator fun get(index: Int): Int = values[index]
+
+        operator fun set(index: Int, value: Int) {
+            values[index] = value
+            present.set(index)
+        }
+
+        fun getOrNull(index: Int): Int? = if (present[index]) values[index] else null
+
+        /**
+         * Loads the values of the samples starting at index 0 from the buffer (for bulk loading).
+         */
+        internal fun loadValues(source: IntBuffer, count: Int) {
+            source.get(values, 0, count)
+        }
+
+        override fun grow(newCapacity: Int) {
+            values = values.copyOf(newCapacity)
+        }
+    }
+
+    inner class ShortColumn : Column() {
+        private var values = ShortArray(capacity)
+
+        operator fun get(index: Int): Short = values[index]
+
+        operator fun set(index: Int, value: Short) {
+            values[index] = value
+            present.set(index)
+        }
+
+        fun getOrNull(index: Int): Short? = if (present[index]) values[index] else null
+
+        /**
+         * Loads the values of the samples starting at index 0 from the buffer (for bulk loading).
+         */
+        internal fun loadValues(source: ShortBuffer, count: Int) {
+            source.get(values, 0, count)
+        }
+
+        override fun grow(newCapacity: Int) {
+            values = values.copyOf(newCapacity)
+        }
+    }
+
+    inner class FloatColumn : Column() {
+        private var values = FloatArray(capacity)
+
+        operator fun get(index: Int): Float = values[index]
+
+        operator fun set(index: Int, value: Float) {
+            values[index] = value
+            present.set(index)
+        }
+
+        fun getOrNull(index: Int): Float? = if (present[index]) values[index] else null
+
+        /**
+         * Loads the values of the samples starting at index 0 from the buffer (for bulk loading).
+         */
+        internal fun loadValues(source: FloatBuffer, count: Int) {
+            source.get(values, 0, count)
+        }
+
+        override fun grow(newCapacity: Int) {
+            values = values.copyOf(newCapacity)
+        }
+    }
+
+    inner class DoubleColumn : Column() {
+        private var values = DoubleArray(capacity)
+
+        operator fun get(index: Int): Double = values[index]
+
+        operator fun set(index: Int, value: Double) {
+            values[index] = value
+            present.set(index)
+        }
+
+        fun getOrNull(index: Int): Double? = if (present[index]) values[index] else null
+
+        /**
+         * Loads the values of the samples starting at index 0 from the buffer (for bulk loading).
+         */
+        internal fun loadValues(source: DoubleBuffer, count: Int) {
+            source.get(values, 0, count)
+        }
+
+        override fun grow(newCapacity: Int) {
+            values = values.copyOf(newCapacity)
+        }
+    }
+
+    private companion object {
+        const val DEFAULT_CAPACITY = 1024
+    }
+}
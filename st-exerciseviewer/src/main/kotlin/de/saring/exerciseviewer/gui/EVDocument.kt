@@ -33,8 +33,7 @@ class EVDocument(val options: EVOptions) {
      */
     fun openExerciseFile(filename: String, speedMode: SpeedMode) {
 
-        val parser = ExerciseParserFactory.getParser(filename)
-        exercise = parser.parseExercise(filename)
+        exercise = ExerciseParserFactory.parseExercise(filename)
         exerciseFilename = filename
         this.speedMode = speedMode
     }
@@ -1,5 +1,7 @@
 package de.saring.exerciseviewer.gui.panels
 
+import de.saring.exerciseviewer.core.AltitudeSlopeClassifier
+import de.saring.exerciseviewer.core.MovingAverageFilter
 import de.saring.exerciseviewer.data.HeartRateLimit
 import de.saring.exerciseviewer.data.Lap
 import de.saring.exerciseviewer.gui.EVContext
@@ -8,6 +10,7 @@ import de.saring.util.AppResources
 import de.saring.util.gui.javafx.ColorUtils
 import de.saring.util.gui.jfreechart.ChartUtils
 import de.saring.util.gui.jfreechart.FixedRangeNumberAxis
+import de.saring.util.gui.jfreechart.SeriesDownsampler
 import de.saring.util.unitcalc.ConvertUtils
 import de.saring.util.unitcalc.FormatUtils
 import de.saring.util.unitcalc.SpeedMode
@@ -18,6 +21,7 @@ import javafx.scene.control.ChoiceBox
 import javafx.scene.layout.StackPane
 import javafx.scene.layout.VBox
 import javafx.scene.layout.HBox
+import javafx.stage.Screen
 import javafx.util.StringConverter
 import org.jfree.chart.ChartFactory
 import org.jfree.chart.JFreeChart
@@ -40,20 +44,19 @@ import org.jfree.data.general.Series
 import org.jfree.data.time.Second
 import org.jfree.data.time.TimeSeries
 import org.jfree.data.time.TimeSeriesCollection
+import org.jfree.data.xy.DefaultXYDataset
 import org.jfree.data.xy.XYDataset
 import org.jfree.data.xy.XYSeries
 import org.jfree.data.xy.XYSeriesCollection
 import java.text.DecimalFormat
 import java.text.SimpleDateFormat
 import java.util.*
-import kotlin.math.abs
 import kotlin.Int
 
 import javafx.scene.shape.Rectangle
 import javafx.scene.text.Text
 import javafx.scene.paint.Color
 import org.jfree.data.Range
-import kotlin.math.sqrt
 
 /**
  * Controller (MVC) class of the "Samples" panel, which displays the exercise graphically (heartrate, altitude, speed,
@@ -92,6 +95,9 @@ class DiagramPanelController(
     /** The size of the average range if smoothed charts are enabled (otherwise 0).  */
     private var averagedRangeSteps: Int = 0
 
+    /** The converted (and smoothed) sample values of the already displayed axes, they need to be computed once only. */
+    private val sampleValuesCache = HashMap<SampleValuesKey, DoubleArray>()
+
     /** The list of colored altitude slope ranges. */
     private val altitudeSlopeRanges = listOf(
             AltitudeSlopeRange(0, 5),
@@ -100,6 +106,9 @@ class DiagramPanelController(
             AltitudeSlopeRange(10, 15),
             AltitudeSlopeRange(15, Int.MAX_VALUE))
 
+    /** The classifier for the altitude slope ranges. */
+    private val altitudeSlopeClassifier = AltitudeSlopeClassifier(altitudeSlopeRanges.map { it.minSlope }.toIntArray())
+
     @FXML
     private lateinit var spDiagramPanel: StackPane
 
@@ -259,32 +268,12 @@ class DiagramPanelController(
             sRight = createSeries(fDomainAxisTime, "right")
         }
 
-        // fill data series with all recorded exercise samples
-        if (!exercise.sampleList.isEmpty()) {
-            for (index in 0 until exercise.sampleList.size) {
+        // fill data series with the downsampled exercise samples, the full resolution is used when zooming in
+        val diagramSamples = if (exercise.sampleList.isEmpty()) null else createDiagramSamples(
+                fDomainAxisTime, axisTypeLeft, if (sRight != null) axisTypeRight else AxisType.NOTHING)
 
-                val sample = exercise.sampleList[index]
-                val valueLeft = getConvertedSampleValue(axisTypeLeft, index)
-                val valueRight = getConvertedSampleValue(axisTypeRight, index)
-
-                if (fDomainAxisTime) {
-                    // calculate current second
-                    sample.timestamp?.let { timestamp ->
-                        val timeSeconds = (timestamp / 1000).toInt()
-                        val second = createJFreeChartSecond(timeSeconds)
-                        fillDataInTimeSeries(sLeft as TimeSeries, sRight as TimeSeries?, second, valueLeft, valueRight)
-                    }
-                } else {
-                    // get current distance of this sample
-                    sample.distance?.let { distance ->
-                        var fDistance = (distance / 1000f).toDouble()
-                        if (context.formatUtils.unitSystem != UnitSystem.METRIC) {
-                            fDistance = ConvertUtils.convertKilometer2Miles(fDistance, false)
-                        }
-                        fillDataInXYSeries(sLeft as XYSeries, sRight as XYSeries?, fDistance, valueLeft, valueRight)
-                    }
-                }
-            }
+        if (diagramSamples != null) {
+            fillDataInSeries(sLeft, sRight, diagramSamples, diagramSamples.downsampler.overviewIndices)
         } else if (!exercise.lapList.isEmpty()) {
             // some Polar models only record lap data. no samples (e.g. RS200SD)
 
@@ -365,8 +354,8 @@ class DiagramPanelController(
 
         // for altitude vs. distance, color graph with slope
         // (don't do when the right axis displays another value, the colors are modified and can't be mapped anymore)
-        if (!fDomainAxisTime && axisTypeLeft == AxisType.ALTITUDE && sRight == null) {
-            plotAltitudeSlopes(sLeft as XYSeries, plot, colorAxisLeftPlot)
+        if (!fDomainAxisTime && axisTypeLeft == AxisType.ALTITUDE && sRight == null && diagramSamples != null) {
+            plotAltitudeSlopes(diagramSamples, plot, colorAxisLeftPlot)
             setTooltipGenerator(plot.getRenderer(0), axisTypeBottom, axisTypeLeft)
         }
         else{
@@ -461,6 +450,13 @@ class DiagramPanelController(
             }
         }
 
+        // fill the data series again when the user zooms in, the zoomed range is displayed in full resolution then
+        diagramSamples?.let { samples ->
+            samples.downsampler.addZoomListener(plot.domainAxis) { sampleIndices ->
+                fillDataInSeries(sLeft, sRight, samples, sampleIndices)
+            }
+        }
+
         ChartUtils.customizeChart(chart)
 
         // display chart in viewer (chart viewer will be initialized lazily)
@@ -501,6 +497,100 @@ class DiagramPanelController(
     private fun createDataSet(fDomainAxisTime: Boolean, series: Series): XYDataset =
             if (fDomainAxisTime) TimeSeriesCollection(series as TimeSeries) else XYSeriesCollection(series as XYSeries)
 
+    /**
+     * Creates the primitive arrays of the domain axis and the left and right axis values for all exercise samples,
+     * which can be displayed in the diagram. Samples without a domain value are skipped, for the time domain axis
+     * only the first sample of each second is used.
+     *
+     * @param fDomainAxisTime true when domain axis is time of false when distance
+     * @param axisTypeLeft the axis type of the left axis
+     * @param axisTypeRight the axis type of the right axis (NOTHING when no right axis is displayed)
+     * @return the created diagram samples
+     */
+    private fun createDiagramSamples(fDomainAxisTime: Boolean, axisTypeLeft: AxisType, axisTypeRight: AxisType): DiagramSamples {
+        val sampleList = document.exercise.sampleList
+        val sampleIndices = IntArray(sampleList.size)
+        val domainValues = DoubleArray(sampleList.size)
+        var count = 0
+        var lastTimeSeconds = -1
+
+        for (index in 0 until sampleList.size) {
+            val sample = sampleList[index]
+
+            if (fDomainAxisTime) {
+                val timestamp = sample.timestamp ?: continue
+                val timeSeconds = (timestamp / 1000).toInt()
+                if (timeSeconds == lastTimeSeconds) {
+                    continue
+                }
+                lastTimeSeconds = timeSeconds
+                domainValues[count] = timeSeconds * 1000.0
+            } else {
+                val distance = sample.distance ?: continue
+                var fDistance = (distance / 1000f).toDouble()
+                if (context.formatUtils.unitSystem != UnitSystem.METRIC) {
+                    fDistance = ConvertUtils.convertKilometer2Miles(fDistance, false)
+                }
+                domainValues[count] = fDistance
+            }
+            sampleIndices[count++] = index
+        }
+
+        val sampleValuesLeft = getConvertedSampleValues(axisTypeLeft)!!
+        val sampleValuesRight = getConvertedSampleValues(axisTypeRight)
+        val valuesLeft = DoubleArray(count) { sampleValuesLeft[sampleIndices[it]] }
+        val valuesRight = sampleValuesRight?.let { values -> DoubleArray(count) { values[sampleIndices[it]] } }
+
+        val domainValuesUsed = domainValues.copyOf(count)
+        val downsampler = SeriesDownsampler(
+                domainValuesUsed, listOfNotNull(valuesLeft, valuesRight), getDownsamplingBucketCount())
+        return DiagramSamples(domainValuesUsed, valuesLeft, valuesRight, downsampler)
+    }
+
+    /**
+     * Returns the number of buckets for the downsampling of the diagram series. The screen width is used, the
+     * diagram can't be wider, so the series contain about 2 values per pixel.
+     */
+    private fun getDownsamplingBucketCount(): Int = Screen.getPrimary().visualBounds.width.toInt()
+
+    /**
+     * Fills the left and right series with the diagram sample values of the specified indices. The previous content
+     * of the series will be removed, the listeners of the series are notified once only after filling.
+     *
+     * @param sLeft the left series
+     * @param sRight the right series (optional, can be null)
+     * @param diagramSamples the diagram samples containing all values
+     * @param sampleIndices indices of the diagram samples to be displayed
+     */
+    private fun fillDataInSeries(sLeft: Series, sRight: Series?, diagramSamples: DiagramSamples, sampleIndices: IntArray) {
+        sLeft.notify = false
+        sRight?.notify = false
+
+        if (sLeft is TimeSeries) {
+            sLeft.clear()
+            (sRight as TimeSeries?)?.clear()
+        } else {
+            (sLeft as XYSeries).clear()
+            (sRight as XYSeries?)?.clear()
+        }
+
+        for (index in sampleIndices) {
+            val domainValue = diagramSamples.domainValues[index]
+            val valueLeft = getSampleValue(diagramSamples.valuesLeft, index)
+            val valueRight = getSampleValue(diagramSamples.valuesRight, index)
+
+            if (sLeft is TimeSeries) {
+                val second = createJFreeChartSecond((domainValue / 1000).toInt())
+                fillDataInTimeSeries(sLeft, sRight as TimeSeries?, second, valueLeft, valueRight)
+            } else {
+                fillDataInXYSeries(sLeft as XYSeries, sRight as XYSeries?, domainValue, valueLeft, valueRight)
+            }
+        }
+
+        sLeft.notify = true
+        sRight?.notify = true
+    }
+
     /**
      * Fills the specified data to the left and right time series.
      *
@@ -516,10 +606,10 @@ class DiagramPanelController(
         // don't add the data when the specified second was already added
         if (sLeft.getValue(second) == null) {
             if (valueLeft != null) {
-                sLeft.add(second, valueLeft)
+                sLeft.add(second, valueLeft, false)
             }
             if (valueRight != null) {
-                sRight?.add(second, valueRight)
+                sRight?.add(second, valueRight, false)
             }
         }
     }
@@ -536,8 +626,8 @@ class DiagramPanelController(
     private fun fillDataInXYSeries(sLeft: XYSeries, sRight: XYSeries?, valueBottom: Double,
                                    valueLeft: Number?, valueRight: Number?) {
 
-        sLeft.add(valueBottom, valueLeft)
-        sRight?.add(valueBottom, valueRight)
+        sLeft.add(valueBottom, valueLeft, false)
+        sRight?.add(valueBottom, valueRight, false)
     }
 
     /**
@@ -562,64 +652,36 @@ class DiagramPanelController(
     }
 
     /**
-     * Returns the value specified by the axis type of the exercise sample. It also converts the value to the current
-     * unit system and speed view.
+     * Returns the values specified by the axis type of all exercise samples. If smoothed charts are enabled, then the
+     * values are smoothed by using the average filter of the computed size. It also converts the values to the current
+     * unit system and speed view. The values are cached, so they are computed only once for each axis type.
      *
      * @param axisType the axis type to be displayed
-     * @param sampleIndex index of the sample in the exercise
-     * @return the requested value
+     * @return the requested values (missing values are NaN) or null for no axis
      */
-    private fun getConvertedSampleValue(axisType: AxisType, sampleIndex: Int): Number? {
+    private fun getConvertedSampleValues(axisType: AxisType): DoubleArray? {
         if (axisType == AxisType.NOTHING) {
             return null
         }
 
-        val sampleValue = getSampleValue(axisType, sampleIndex) ?: return null
-        return getConvertedValueForAxisType(axisType, sampleValue)
-    }
-
-    /**
-     * Returns the value specified by the axis type of the exercise sample. If smoothed charts are enabled, then the
-     * smoothed value will be calculated by using the average filter of the computed size.
-     *
-     * @param axisType the axis type to be displayed
-     * @param sampleIndex index of the sample in the exercise
-     * @return the requested value
-     */
-    private fun getSampleValue(axisType: AxisType, sampleIndex: Int): Double? {
-
-        if (averagedRangeSteps <= 0) {
-            // smoothing is disabled, just return the raw value
-            return getRawSampleValue(axisType, sampleIndex)
-        } else {
+        val key = SampleValuesKey(axisType, context.formatUtils.unitSystem, document.speedMode, averagedRangeSteps)
+        return sampleValuesCache.getOrPut(key) {
+            val sampleCount = document.exercise.sampleList.size
+            val rawValues = DoubleArray(sampleCount) { getRawSampleValue(axisType, it) ?: Double.NaN }
 
-            // the value of 0 stays 0, otherwise short stops will not be visible
-            val rawSampleValue = getRawSampleValue(axisType, sampleIndex)
-            if (rawSampleValue == 0.0) {
-                return 0.0
-            }
-
-            val rangeLength = 2 * averagedRangeSteps + 1
-            val lastSampleIndex = document.exercise.sampleList.size - 1
-
-            // create sum for all range values
-            var valueSum = 0.0
-            for (i in sampleIndex - averagedRangeSteps..sampleIndex + averagedRangeSteps) {
-                // exclude indices out of range, use first or last sample instead
-                var valueIndex = Math.max(0, i)
-                valueIndex = Math.min(lastSampleIndex, valueIndex)
-
-                // ignore range values of null for the average, use the specified index instead (or 0 if also missing)
-                val valueAtIndex = getRawSampleValue(axisType, valueIndex) ?:
-                getRawSampleValue(axisType, sampleIndex) ?: 0.0
-
-                valueSum += valueAtIndex
+            val sampleValues = MovingAverageFilter.smooth(rawValues, averagedRangeSteps)
+            for (index in 0 until sampleCount) {
+                if (!sampleValues[index].isNaN()) {
+                    sampleValues[index] = getConvertedValueForAxisType(axisType, sampleValues[index]).toDouble()
+                }
             }
-
-            return valueSum / rangeLength
+            sampleValues
         }
     }
 
+    private fun getSampleValue(sampleValues: DoubleArray?, sampleIndex: Int): Number? =
+        sampleValues?.get(sampleIndex)?.takeUnless { it.isNaN() }
+
     private fun getRawSampleValue(axisType: AxisType, sampleIndex: Int): Double? {
         val sample = document.exercise.sampleList[sampleIndex]
 
@@ -742,101 +804,14 @@ class DiagramPanelController(
         return getConvertedValueForAxisType(axisType, averageValue).toDouble()
     }
 
-    /**
-     * Returns the list of ids that resamples (subsample) the data series at the (minimal) interval sampleDist along X.
-     * Picking output ids from the input series will thus give a series whose data spacing is as small as possible but
-     * greater than sampleDist. Resulting data may not be evenly spaced.
-     * The output ids list will necessarily contain the first ID (0) and the last ID of the series to preseve data length,
-     * consequently the last sampling interval may be < sampleDist.
-     *
-     * @param sampleDist desired output sample interval in meters
-     * @param series input series to resample, X in kilometers
-     * @return list of ids to resample the series
-     */
-    private fun getXYSeriesSubSampleIds(sampleDist: Int, series: XYSeries): List<Int> {
-        val outputIds = mutableListOf(0)
-        for (index in 1 until series.itemCount - 1){
-            if (series.getDataItem(index).x.toDouble() - sampleDist.toDouble() /
-                    1000.0 > series.getDataItem(outputIds.last()).x.toDouble()) {
-                outputIds.add(index)
-            }
-        }
-        outputIds.add(series.itemCount - 1)
-        return outputIds
-    }
-
-    /**
-     * Returns a newly created series based on the input series, from which some data points are [removed/set to 0]
-     * (=filtered) regarding the data slope. All data from the input series that doesn't have a slope between slopeMin
-     * and slopeMax are removed or set to 0. The slope is computed from the series at subSampleIds positions only,
-     * which means that each "no-data-zone" or "data-zone" length will be at least the sampling interval used to create
-     * subSampleIds. In addition, both ends of the "no-data-zones" and "data-zones" are vertical to produce vertical
-     * lines when plotted: there are two points at each "zone" end with the same X.
-     *
-     * @param slopeMin minimal slope to keep data
-     * @param slopeMax maximal slope to keep data
-     * @param series input series
-     * @param subSampleIds ids list from the input series used to evaluate the slope
-     * @return new series, based on the input series,
-     */
-    private fun getSeriesFilteredBySlope(slopeMin: Int, slopeMax: Int, series: XYSeries, subSampleIds: List<Int>): Series {
-
-        val name = if (slopeMax == Int.MAX_VALUE) "> $slopeMin%" else "< $slopeMax%"
-        val outputSeries = XYSeries(name, false, true)
-        var previousPointFiltered = false
-        for (i in 0 until subSampleIds.size - 1){
-            val dataItem = series.getDataItem(subSampleIds[i])
-            val nextDataItem = series.getDataItem(subSampleIds[i + 1])
-
-            var deltaD = nextDataItem.x.toDouble() - dataItem.x.toDouble() // distance delta in km or miles
-            var deltaY = nextDataItem.y.toDouble() - dataItem.y.toDouble() // altitude delta in meters or feet
-
-            if (document.options.unitSystem == UnitSystem.ENGLISH) {
-                // convert to metric units for calculation
-                deltaD = ConvertUtils.convertMiles2Kilometer(deltaD)
-                deltaY = ConvertUtils.convertFeet2Meter(deltaY)
-            }
-            deltaD *= 1000.0 // convert distance to meters (altitude is already in meters)
-
-            val dX = sqrt(deltaD * deltaD - deltaY * deltaY)
-            val slope = abs(deltaY / dX) * 100
-
-            // filter data
-            if (slope < slopeMin || slope > slopeMax) {
-                // first point of a filtered sequence -> make a vertical "decreasing" line
-                if (!previousPointFiltered){
-                    outputSeries.add(dataItem)
-                    outputSeries.add(dataItem.x,0.0)
-                }
-                previousPointFiltered = true
-            }
-            else{
-                // don't filter, keep the data
-                if (previousPointFiltered) {
-                    // first point of an unfiltered sequence -> make a vertical "increasing" line...
-                    outputSeries.add(dataItem.x,0.0)
-                }
-                for (j in subSampleIds[i] until subSampleIds[i + 1]) {
-                    // ...then add all altitude points to the output until the next subsample id
-                    outputSeries.add(series.getDataItem(j))
-                }
-                if (i == subSampleIds.size - 2){ // for the last element
-                    outputSeries.add(nextDataItem)
-                }
-                previousPointFiltered = false
-            }
-        }
-        return outputSeries
-    }
-
     /**
      * Add the renderer for altitude (single line), and add to the plot the slope information
      * (area below the altitude plot is coloured)
-     * @param dataSeries Series complete input XY data series
+     * @param diagramSamples the diagram samples containing all altitude values
      * @param plot XYPlot to draw graphs
      * @param baseColor the main color to be used (! green ignored)
      */
-    private fun plotAltitudeSlopes(dataSeries: XYSeries, plot: XYPlot, baseColor: java.awt.Color) {
+    private fun plotAltitudeSlopes(diagramSamples: DiagramSamples, plot: XYPlot, baseColor: java.awt.Color) {
 
         val renderer = XYLineAndShapeRenderer()
         renderer.setSeriesPaint(0, java.awt.Color(baseColor.red, baseColor.green, baseColor.blue, 255) )
@@ -844,13 +819,12 @@ class DiagramPanelController(
         renderer.setSeriesShapesVisible(0, false)
         plot.setRenderer(plot.rendererCount, renderer)
         var greenComponent = 240
-        val subSampleIds = getXYSeriesSubSampleIds(100, dataSeries)
+        val slopeSeries = createAltitudeSlopeSeries(diagramSamples)
 
         for (i in 0 until altitudeSlopeRanges.size) {
-            val it = altitudeSlopeRanges[i]
-            val series = getSeriesFilteredBySlope(it.minSlope, it.maxSlope, dataSeries, subSampleIds)
-            val name = series.key.toString()
-            val dataset = createDataSet(false, series)
+            val name = altitudeSlopeRanges[i].name
+            val dataset = DefaultXYDataset()
+            dataset.addSeries(name, slopeSeries[i])
             val color = java.awt.Color(baseColor.red, greenComponent, baseColor.blue, baseColor.alpha)
             addSlopeLegendItem(name, ColorUtils.toFxColor(color))
 
@@ -865,6 +839,25 @@ class DiagramPanelController(
         }
     }
 
+    /**
+     * Creates the series of all altitude slope ranges from all diagram samples (no downsampling), the slopes are
+     * computed for segments of 100 meters. Samples without altitude values are skipped.
+     *
+     * @param diagramSamples the diagram samples containing all altitude values
+     * @return array with the series (distance and altitude value arrays) of each altitude slope range
+     */
+    private fun createAltitudeSlopeSeries(diagramSamples: DiagramSamples): Array<Array<DoubleArray>> {
+        val altitudeIndices = diagramSamples.valuesLeft.indices.filter { !diagramSamples.valuesLeft[it].isNaN() }
+        val distances = DoubleArray(altitudeIndices.size) { diagramSamples.domainValues[altitudeIndices[it]] }
+        val altitudes = DoubleArray(altitudeIndices.size) { diagramSamples.valuesLeft[altitudeIndices[it]] }
+
+        val isEnglishUnitSystem = document.options.unitSystem == UnitSystem.ENGLISH
+        val distanceFactor = 1000.0 * if (isEnglishUnitSystem) ConvertUtils.convertMiles2Kilometer(1.0) else 1.0
+        val altitudeFactor = if (isEnglishUnitSystem) ConvertUtils.convertFeet2Meter(1.0) else 1.0
+
+        return altitudeSlopeClassifier.createSlopeSeries(distances, altitudes, distanceFactor, altitudeFactor, 100.0)
+    }
+
     private fun hideSlopesLegend() {
         vbDiagramPanel.children.remove(hbSlopesLegendPanel)
         hbSlopesLegendPanel.children.clear()
@@ -888,6 +881,25 @@ class DiagramPanelController(
         hbSlopesLegendPanel.children.add(spLegendItem)
     }
 
+    /**
+     * The values of all exercise samples which can be displayed in the diagram, stored in primitive arrays of the
+     * same size. The downsampler selects the samples to be displayed for the current domain axis range.
+     */
+    private class DiagramSamples(
+            val domainValues: DoubleArray,
+            val valuesLeft: DoubleArray,
+            val valuesRight: DoubleArray?,
+            val downsampler: SeriesDownsampler)
+
+    /**
+     * Key of the cached sample values, they depend on the axis type, the unit system, speed mode and the average range.
+     */
+    private data class SampleValuesKey(
+            val axisType: AxisType,
+            val unitSystem: UnitSystem,
+            val speedMode: SpeedMode,
+            val averagedRangeSteps: Int)
+
     /**
      * The list of possible value types to be shown on the diagram axes. This enum also provides the the localized
      * displayed enum names.
@@ -935,5 +947,8 @@ class DiagramPanelController(
      */
     private class AltitudeSlopeRange(
             val minSlope: Int,
-            val maxSlope: Int)
+            val maxSlope: Int) {
+
+        val name = if (maxSlope == Int.MAX_VALUE) "> $minSlope%" else "< $maxSlope%"
+    }
 }
@@ -1,5 +1,6 @@
 package de.saring.exerciseviewer.gui.panels
 
+import de.saring.exerciseviewer.core.ExerciseSampleIndex
 import de.saring.exerciseviewer.data.EVExercise
 import de.saring.exerciseviewer.data.ExerciseSample
 import de.saring.exerciseviewer.gui.EVContext
@@ -11,9 +12,11 @@ import de.saring.leafletmap.LeafletMapView
 import de.saring.leafletmap.MapConfig
 import de.saring.leafletmap.MapLayer
 import de.saring.leafletmap.ScaleControlConfig
+import de.saring.leafletmap.TrackPyramid
 import de.saring.leafletmap.ZoomControlConfig
 import de.saring.util.gui.jfreechart.ChartUtils
 import de.saring.util.gui.jfreechart.FixedRangeNumberAxis
+import de.saring.util.gui.jfreechart.SeriesDownsampler
 import de.saring.util.unitcalc.ConvertUtils
 import de.saring.util.unitcalc.TimeUtils
 import de.saring.util.unitcalc.UnitSystem
@@ -24,8 +27,11 @@ import javafx.scene.control.Slider
 import javafx.scene.control.Tooltip
 import javafx.scene.layout.StackPane
 import javafx.scene.layout.VBox
+import javafx.stage.Screen
 import org.jfree.chart.ChartFactory
 import org.jfree.chart.fx.ChartViewer
+import org.jfree.chart.fx.interaction.ChartMouseEventFX
+import org.jfree.chart.fx.interaction.ChartMouseListenerFX
 import org.jfree.chart.plot.PlotOrientation
 import org.jfree.chart.plot.ValueMarker
 import org.jfree.chart.plot.XYPlot
@@ -35,6 +41,7 @@ import org.jfree.data.xy.XYSeries
 import org.jfree.data.xy.XYSeriesCollection
 import java.util.logging.Level
 import java.util.logging.Logger
+import kotlin.math.roundToInt
 
 
 /**
@@ -82,6 +89,9 @@ class TrackPanelController(
     private val colorAltitudeGraphMarker = java.awt.Color(110, 110, 120)
     private val strokeAltitudeGraphMarker = java.awt.BasicStroke(1.5f)
 
+    /** The index for searching the nearest samples (e.g. for clicks into the map or the altitude graph). */
+    private val sampleIndex by lazy { ExerciseSampleIndex(document.exercise.sampleList) }
+
     /** Flag whether the exercise track has already been shown.  */
     private var showTrackExecuted = false
 
@@ -122,7 +132,10 @@ class TrackPanelController(
     private fun setupAltitudeChart() {
         if (document.exercise.recordingMode.isAltitude) {
 
-            val sAltitude = createAltitudeXYSeries()
+            // the altitude series contains the downsampled samples, the full resolution is used when zooming in
+            val altitudeSamples = createAltitudeSamples()
+            val sAltitude = XYSeries("altitude")
+            fillAltitudeXYSeries(sAltitude, altitudeSamples, altitudeSamples.downsampler.overviewIndices)
             val dsAltitude = XYSeriesCollection(sAltitude)
 
             val chartAltitude = ChartFactory.createXYLineChart(null, // Title
@@ -153,9 +166,28 @@ class TrackPanelController(
 
             addAltitudeGraphMarker(plotAltitude)
 
+            altitudeSamples.downsampler.addZoomListener(plotAltitude.domainAxis) { sampleIndices ->
+                fillAltitudeXYSeries(sAltitude, altitudeSamples, sampleIndices)
+            }
+
             ChartUtils.customizeChart(chartAltitude)
             val chartViewer = ChartViewer(chartAltitude)
             spDiagram.children.addAll(chartViewer)
+
+            // move the track position to the sample nearest to the clicked distance
+            chartViewer.addChartMouseListener(object : ChartMouseListenerFX {
+                override fun chartMouseClicked(event: ChartMouseEventFX) {
+                    // ignore mouse drags for zooming
+                    if (event.trigger.isStillSincePress) {
+                        val dataArea = chartViewer.canvas.renderingInfo.plotInfo.dataArea
+                        val distance = plotAltitude.domainAxis.java2DToValue(
+                                event.trigger.x, dataArea, plotAltitude.domainAxisEdge)
+                        moveToSample(sampleIndex.findNearestByDistance(getDistanceInMetersForAltitudeGraph(distance)))
+                    }
+                }
+
+                override fun chartMouseMoved(event: ChartMouseEventFX) {}
+            })
         }
         else {
             // hide diagram pane when no altitude data present
@@ -185,19 +217,39 @@ class TrackPanelController(
         }
     }
 
-    private fun createAltitudeXYSeries(): XYSeries {
+    private fun getDistanceInMetersForAltitudeGraph(distanceInCurrentUnit: Double): Int {
+        val isEnglishUnitSystem = document.options.unitSystem == UnitSystem.ENGLISH
+        val distanceInKilometers = if (isEnglishUnitSystem)
+            ConvertUtils.convertMiles2Kilometer(distanceInCurrentUnit) else distanceInCurrentUnit
+        return (distanceInKilometers * 1000).roundToInt()
+    }
+
+    private fun createAltitudeSamples(): AltitudeSamples {
         val isEnglishUnitSystem = document.options.unitSystem == UnitSystem.ENGLISH
-        val sAltitude = XYSeries("altitude")
+        val sampleList = document.exercise.sampleList
+        val distances = DoubleArray(sampleList.size)
+        val altitudes = DoubleArray(sampleList.size)
 
-        document.exercise.sampleList.forEach { sample ->
+        sampleList.forEachIndexed { index, sample ->
             val altitudeInMeters = sample.altitude?.toInt() ?: 0
             val altitudeInCurrentUnit = if (isEnglishUnitSystem)
                 ConvertUtils.convertMeter2Feet(altitudeInMeters) else altitudeInMeters
-            val distanceInCurrentUnit = getConvertedDistanceForAltitudeGraph(sample) ?: 0.0
 
-            sAltitude.add(distanceInCurrentUnit, altitudeInCurrentUnit)
+            distances[index] = getConvertedDistanceForAltitudeGraph(sample) ?: 0.0
+            altitudes[index] = altitudeInCurrentUnit.toDouble()
+        }
+
+        val bucketCount = Screen.getPrimary().visualBounds.width.toInt()
+        return AltitudeSamples(distances, altitudes, SeriesDownsampler(distances, listOf(altitudes), bucketCount))
+    }
+
+    private fun fillAltitudeXYSeries(sAltitude: XYSeries, altitudeSamples: AltitudeSamples, sampleIndices: IntArray) {
+        sAltitude.notify = false
+        sAltitude.clear()
+        for (index in sampleIndices) {
+            sAltitude.add(altitudeSamples.distances[index], altitudeSamples.altitudes[index], false)
         }
-        return sAltitude
+        sAltitude.notify = true
     }
 
     private fun addAltitudeGraphMarker(plotAltitude: XYPlot) {
@@ -208,6 +260,17 @@ class TrackPanelController(
         plotAltitude.addDomainMarker(altitudeGraphMarker)
     }
 
+    /**
+     * Moves the track position slider to the specified sample, the slider listener moves the position marker then.
+     *
+     * @param sampleIndex index of the sample (nothing happens for -1)
+     */
+    private fun moveToSample(sampleIndex: Int) {
+        if (sampleIndex >= 0) {
+            slPosition.value = sampleIndex.toDouble()
+        }
+    }
+
     private fun movePositionMarker(positionIndex: Int) {
         val samplePosition = document.exercise.sampleList[positionIndex].position
 
@@ -256,6 +319,11 @@ class TrackPanelController(
                         showTrackAndLaps()
                         // enable position slider by setting max. sample count
                         slPosition.max = (exercise.sampleList.size - 1).toDouble()
+
+                        // move the track position to the sample nearest to the clicked map position
+                        mapView!!.setMapClickListener { position ->
+                            moveToSample(sampleIndex.findNearestByPosition(position.latitude, position.longitude))
+                        }
                     } else if (throwable != null) {
                         logger.log(Level.SEVERE, "Failed to display map!", throwable)
                     }
@@ -269,7 +337,8 @@ class TrackPanelController(
         val samplePositions = createSamplePositionList(exercise)
 
         if (!samplePositions.isEmpty()) {
-            mapView!!.addTrack(samplePositions)
+            // the map displays simplified tracks for the lower zoom levels, large tracks can be displayed smoothly
+            mapView!!.addTrack(TrackPyramid(samplePositions))
 
             // display lap markers first, start and end needs to be displayed on top
             val lapPositions = createLapPositionList(exercise)
@@ -355,4 +424,11 @@ class TrackPanelController(
     private fun appendToolTipLine(sb: StringBuilder, resourceKey: String, value: String) =
             sb.append("${context.resources.getString(resourceKey)}: $value\n")
 
+    /**
+     * The distances and altitudes (in current unit system) of all exercise samples for the altitude graph.
+     */
+    private class AltitudeSamples(
+            val distances: DoubleArray,
+            val altitudes: DoubleArray,
+            val downsampler: SeriesDownsampler)
 }
@@ -4,6 +4,7 @@ import de.saring.exerciseviewer.core.EVException
 import de.saring.exerciseviewer.data.EVExercise
 import de.saring.util.unitcalc.CalculationUtils
 import java.io.File
+import java.nio.file.Path
 
 /**
  * This abstract ExerciseParser implementation class contains the basic functionality which can be used by all
@@ -14,20 +15,18 @@ import java.io.File
 abstract class AbstractExerciseParser : ExerciseParser {
 
     /**
-     * Helper method for reading the specified binary exercise file into an Int array. The reason for integers is:
-     * byte values are -128 to 127, int values are converted to 0 to 255, this makes parsing much easier.
+     * Helper method for reading the content of the specified binary exercise file. The content provides the unsigned
+     * values of the bytes (0..255), this makes parsing much easier.
      *
      * @param filename filename of exercise file to read
-     * @return int buffer with the file content (one int for each byte)
+     * @return the binary file content
      * @throws EVException thrown on read problems
      */
     @Throws(EVException::class)
-    protected fun readFileToByteArray(filename: String): IntArray {
+    protected fun readBinaryFileContent(filename: String): BinaryFileContent {
 
         try {
-            return File(filename).readBytes()
-                    .map { unsignedByteToInt(it) }
-                    .toIntArray()
+            return BinaryFileContent.read(Path.of(filename))
         } catch (e: Exception) {
             throw EVException("Failed to read binary content from exercise file '$filename' ...", e)
         }
@@ -50,14 +49,6 @@ abstract class AbstractExerciseParser : ExerciseParser {
         }
     }
 
-    /**
-     * Converts the unsigned Byte value (0..255) to the appropriate Int value.
-     *
-     * @param value unsigned Byte value
-     * @return appropriate Int value
-     */
-    private fun unsignedByteToInt(value: Byte): Int = value.toInt().and(0xff)
-
     /**
      * Calculates the average speed for all laps of the specified exercise. This needs to be done for many models
      * because the average lap speed is not part of the recorded data.
@@ -0,0 +1,124 @@
+package de.saring.exerciseviewer.parser
+
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.channels.FileChannel
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+
+/**
+ * Content of a binary exercise file. The bytes are stored in a read-only ByteBuffer without any conversion, the
+ * accessors return the unsigned values of the bytes (0..255) or the little endian values of multiple bytes.
+ * All accesses are bounds-checked, an IndexOutOfBoundsException is thrown when reading outside of the content.
+ *
+ * @param buffer buffer with the file content, it must not be modified afterwards
+ *
+ * @author Stefan Saring
+ */
+class BinaryFileContent(buffer: ByteBuffer) {
+
+    private val buffer: ByteBuffer = buffer.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN)
+
+    /** Number of bytes of the content. */
+    val size: Int
+        get() = buffer.limit()
+
+    /**
+     * Returns the unsigned byte value (0..255) at the specified position.
+     */
+    operator fun get(position: Int): Int = buffer.get(position).toInt() and 0xff
+
+    /**
+     * Returns the unsigned 16 bit little endian value at the specified position.
+     */
+    fun getUInt16LE(position: Int): Int = buffer.getShort(position).toInt() and 0xffff
+
+    /**
+     * Returns the signed 32 bit little endian value at the specified position.
+     */
+    fun getInt32LE(position: Int): Int = buffer.getInt(position)
+
+    /**
+     * Creates a cursor for reading the content sequentially, starting at the specified position.
+     */
+    fun cursor(position: Int): Cursor {
+        checkRange(position, 0)
+        return Cursor(position)
+    }
+
+    private fun checkRange(position: Int, length: Int) {
+        if (position < 0 || length < 0 || position > size - length) {
+            throw IndexOutOfBoundsException("Range $position + $length is outside of content size $size!")
+        }
+    }
+
+    /**
+     * Cursor for reading the content sequentially, each read moves the position behind the read bytes.
+     */
+    inner class Cursor internal constructor(position: Int) {
+
+        /** The position of the next byte to read. */
+        var position: Int = position
+            private set
+
+        /** Number of bytes from the current position to the end of the content. */
+        val remaining: Int
+            get() = size - position
+
+        fun readUInt8(): Int = get(advance(1))
+
+        fun readUInt16LE(): Int = getUInt16LE(advance(2))
+
+        fun readInt32LE(): Int = getInt32LE(advance(4))
+
+        /**
+         * Skips the specified number of bytes.
+         */
+        fun skip(count: Int) {
+            advance(count)
+        }
+
+        private fun advance(count: Int): Int {
+            checkRange(position, count)
+            val readPosition = position
+            position += count
+            return readPosition
+        }
+    }
+
+    companion object {
+
+        /** Minimum file size for memory mapping, smaller files are read into the heap. */
+        const val MAPPING_THRESHOLD = 1024 * 1024
+
+        /**
+         * Reads the content of the specified binary file. Files with the size of MAPPING_THRESHOLD or more are memory
+         * mapped, so their content is not copied into the heap.
+         *
+         * @param path path of the file to read
+         * @return the file content
+         * @throws IOException on read problems
+         */
+        @Throws(IOException::class)
+        fun read(path: Path): BinaryFileContent {
+            FileChannel.open(path, StandardOpenOption.READ).use { channel ->
+                val fileSize = channel.size()
+                if (fileSize > Int.MAX_VALUE) {
+                    throw IOException("The file '$path' is too large ($fileSize bytes)!")
+                }
+
+                if (fileSize >= MAPPING_THRESHOLD) {
+                    return BinaryFileContent(channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize))
+                }
+
+                val buffer = ByteBuffer.allocate(fileSize.toInt())
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // read until the buffer is full or the end of file is reached
+                }
+                buffer.flip()
+                return BinaryFileContent(buffer)
+            }
+        }
+    }
+}
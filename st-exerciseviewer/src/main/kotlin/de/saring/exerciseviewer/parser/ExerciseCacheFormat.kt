@@ -0,0 +1,445 @@
+package de.saring.exerciseviewer.parser
+
+import de.saring.exerciseviewer.data.EVExercise
+import de.saring.exerciseviewer.data.ExerciseAltitude
+import de.saring.exerciseviewer.data.ExerciseCadence
+import de.saring.exerciseviewer.data.ExercisePower
+import de.saring.exerciseviewer.data.ExerciseSample
+import de.saring.exerciseviewer.data.ExerciseSampleColumnList
+import de.saring.exerciseviewer.data.ExerciseSampleColumns
+import de.saring.exerciseviewer.data.ExerciseSpeed
+import de.saring.exerciseviewer.data.ExerciseTemperature
+import de.saring.exerciseviewer.data.HeartRateLimit
+import de.saring.exerciseviewer.data.Lap
+import de.saring.exerciseviewer.data.LapAltitude
+import de.saring.exerciseviewer.data.LapPower
+import de.saring.exerciseviewer.data.LapSpeed
+import de.saring.exerciseviewer.data.LapTemperature
+import de.saring.exerciseviewer.data.Position
+import de.saring.exerciseviewer.data.RecordingMode
+import de.saring.exerciseviewer.data.SportTypeFit
+import java.io.DataOutputStream
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.time.LocalDateTime
+import java.time.ZoneOffset
+import java.util.BitSet
+
+/**
+ * Versioned binary format of the persistent exercise cache files. All values are stored in big endian byte order,
+ * the files are read from a ByteBuffer (e.g. a memory mapped file). The layout is:
+ *
+ * - magic number and format version
+ * - source exercise file (path, modification time, size and hash), for validating the cached exercise
+ * - exercise header (all exercise attributes except the lists)
+ * - heartrate limits and laps
+ * - number of samples and the sample columns: for each sample attribute a marker whether the values are present
+ *   for no, for all or for some of the samples (followed by the bitset of these samples), then the primitive array
+ *   of the values of all samples (not for attributes without any values)
+ *
+ * The sample values are read in bulk into [ExerciseSampleColumns], the sample objects are created lazily on access.
+ * The format version must be increased on each format change, cache files of other versions will be ignored.
+ *
+ * @author Stefan Saring
+ */
+internal object ExerciseCacheFormat {
+
+    /** Magic number at the start of each cache file ("EVCX"). */
+    private const val MAGIC = 0x45564358
+
+    /** Version of the cache file format. */
+    private const val FORMAT_VERSION: Short = 1
+
+    private const val VALUES_NONE: Byte = 0
+    private const val VALUES_ALL: Byte = 1
+    private const val VALUES_PARTIAL: Byte = 2
+
+    /**
+     * Description of the source exercise file of a cache file.
+     *
+     * @property path absolute path of the exercise file
+     * @property lastModified modification time in msec
+     * @property size file size in bytes
+     * @property hash hash of the file content
+     */
+    data class SourceFile(val path: String, val lastModified: Long, val size: Long, val hash: Long)
+
+    /**
+     * Writes the specified exercise and the description of its source file.
+     *
+     * @param output the output stream
+     * @param sourceFile description of the source exercise file
+     * @param exercise the exercise to write
+     * @throws IOException on write problems
+     */
+    fun write(output: DataOutputStream, sourceFile: SourceFile, exercise: EVExercise) {
+        output.writeInt(MAGIC)
+        output.writeShort(FORMAT_VERSION.toInt())
+
+        output.writeString(sourceFile.path)
+        output.writeLong(sourceFile.lastModified)
+        output.writeLong(sourceFile.size)
+        output.writeLong(sourceFile.hash)
+
+        writeHeader(output, exercise)
+
+        output.writeInt(exercise.heartRateLimits.size)
+        exercise.heartRateLimits.forEach { writeHeartRateLimit(output, it) }
+
+        output.writeInt(exercise.lapList.size)
+        exercise.lapList.forEach { writeLap(output, it) }
+
+        writeSamples(output, exercise.sampleList)
+    }
+
+    /**
+     * Reads the description of the source exercise file, the buffer is positioned behind it afterwards.
+     *
+     * @param buffer the buffer to read from, positioned at the file start
+     * @return the source file description or null when the buffer does not contain a cache file of this version
+     */
+    fun readSourceFile(buffer: ByteBuffer): SourceFile? {
+        if (buffer.remaining() < 6 || buffer.getInt() != MAGIC || buffer.getShort() != FORMAT_VERSION) {
+            return null
+        }
+        return SourceFile(buffer.readString(), buffer.getLong(), buffer.getLong(), buffer.getLong())
+    }
+
+    /**
+     * Reads the exercise, the buffer must be positioned behind the source file description.
+     *
+     * @param buffer the buffer to read from
+     * @return the read exercise
+     * @throws IOException when the content is not valid
+     */
+    fun readExercise(buffer: ByteBuffer): EVExercise {
+        try {
+            val exercise = readHeader(buffer)
+            repeat(buffer.getInt()) { exercise.heartRateLimits.add(readHeartRateLimit(buffer)) }
+            repeat(buffer.getInt()) { exercise.lapList.add(readLap(buffer)) }
+            exercise.sampleList = readSamples(buffer)
+            return exercise
+        } catch (e: RuntimeException) {
+            // e.g. BufferUnderflowException or IllegalArgumentException for unknown enum values
+            throw IOException("Invalid exercise cache content!", e)
+        }
+    }
+
+    private fun writeHeader(output: DataOutputStream, exercise: EVExercise) {
+        output.writeString(exercise.fileType.name)
+        output.writeNullable(exercise.deviceName) { output.writeString(it) }
+        output.writeNullable(exercise.dateTime) {
+            output.writeLong(it.toEpochSecond(ZoneOffset.UTC))
+            output.writeInt(it.nano)
+        }
+
+        val recordingMode = exercise.recordingMode
+        val recordingFlags = listOf(recordingMode.isHeartRate, recordingMode.isSpeed, recordingMode.isAltitude,
+                recordingMode.isCadence, recordingMode.isPower, recordingMode.isTemperature,
+                recordingMode.isLocation, recordingMode.isIntervalExercise)
+        output.writeByte(recordingFlags.foldIndexed(0) { index, flags, flag ->
+            if (flag) flags or (1 shl index) else flags
+        })
+        output.writeNullable(recordingMode.bikeNumber) { output.writeByte(it.toInt()) }
+
+        output.writeNullable(exercise.duration) { output.writeInt(it) }
+        output.writeNullable(exercise.totalDuration) { output.writeInt(it) }
+        output.writeNullable(exercise.recordingInterval) { output.writeShort(it.toInt()) }
+        output.writeNullable(exercise.heartRateAVG) { output.writeShort(it.toInt()) }
+        output.writeNullable(exercise.heartRateMax) { output.writeShort(it.toInt()) }
+
+        output.writeNullable(exercise.speed) {
+            output.writeFloat(it.speedAvg)
+            output.writeFloat(it.speedMax)
+            output.writeInt(it.distance)
+        }
+        output.writeNullable(exercise.cadence) {
+            output.writeShort(it.cadenceAvg.toInt())
+            output.writeShort(it.cadenceMax.toInt())
+            output.writeNullable(it.cyclesTotal) { cycles -> output.writeLong(cycles) }
+        }
+        output.writeNullable(exercise.altitude) {
+            output.writeShort(it.altitudeMin.toInt())
+            output.writeShort(it.altitudeAvg.toInt())
+            output.writeShort(it.altitudeMax.toInt())
+            output.writeInt(it.ascent)
+            output.writeInt(it.descent)
+        }
+        output.writeNullable(exercise.temperature) {
+            output.writeShort(it.temperatureMin.toInt())
+            output.writeShort(it.temperatureAvg.toInt())
+            output.writeShort(it.temperatureMax.toInt())
+        }
+        output.writeNullable(exercise.power) {
+            output.writeShort(it.powerAvg.toInt())
+            output.writeNullable(it.powerMax) { power -> output.writeShort(power.toInt()) }
+            output.writeNullable(it.powerNormalized) { power -> output.writeShort(power.toInt()) }
+        }
+
+        output.writeNullable(exercise.energy) { output.writeInt(it) }
+        output.writeNullable(exercise.energyTotal) { output.writeInt(it) }
+        output.writeNullable(exercise.sumExerciseTime) { output.writeInt(it) }
+        output.writeNullable(exercise.sumRideTime) { output.writeInt(it) }
+        output.writeNullable(exercise.odometer) { output.writeInt(it) }
+        output.writeNullable(exercise.sportType) { output.writeString(it) }
+        output.writeNullable(exercise.sportTypeFit) {
+            output.writeInt(it.sportTypeId)
+            output.writeNullable(it.sportSubTypeId) { subTypeId -> output.writeInt(subTypeId) }
+        }
+    }
+
+    private fun readHeader(buffer: ByteBuffer): EVExercise {
+        val fileType = EVExercise.ExerciseFileType.valueOf(buffer.readString())
+        val deviceName = buffer.readNullable { buffer.readString() }
+        val dateTime = buffer.readNullable {
+            LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC)
+        }
+
+        val recordingFlags = buffer.get().toInt()
+        val isRecorded = { index: Int -> recordingFlags and (1 shl index) != 0 }
+        val recordingMode = RecordingMode(isRecorded(0), isRecorded(1), isRecorded(2), isRecorded(3), isRecorded(4),
+                isRecorded(5), isRecorded(6), isRecorded(7), buffer.readNullable { buffer.get() })
+
+        return EVExercise(
+                fileType = fileType,
+                deviceName = deviceName,
+                dateTime = dateTime,
+                recordingMode = recordingMode,
+                duration = buffer.readNullable { buffer.getInt() },
+                totalDuration = buffer.readNullable { buffer.getInt() },
+                recordingInterval = buffer.readNullable { buffer.getShort() },
+                heartRateAVG = buffer.readNullable { buffer.getShort() },
+                heartRateMax = buffer.readNullable { buffer.getShort() },
+                speed = buffer.readNullable { ExerciseSpeed(buffer.getFloat(), buffer.getFloat(), buffer.getInt()) },
+                cadence = buffer.readNullable {
+                    ExerciseCadence(buffer.getShort(), buffer.getShort(), buffer.readNullable { buffer.getLong() })
+                },
+                altitude = buffer.readNullable {
+                    ExerciseAltitude(buffer.getShort(), buffer.getShort(), buffer.getShort(), buffer.getInt(),
+                            buffer.getInt())
+                },
+                temperature = buffer.readNullable {
+                    ExerciseTemperature(buffer.getShort(), buffer.getShort(), buffer.getShort())
+                },
+                power = buffer.readNullable {
+                    ExercisePower(buffer.getShort(), buffer.readNullable { buffer.getShort() },
+                            buffer.readNullable { buffer.getShort() })
+                },
+                energy = buffer.readNullable { buffer.getInt() },
+                energyTotal = buffer.readNullable { buffer.getInt() },
+                sumExerciseTime = buffer.readNullable { buffer.getInt() },
+                sumRideTime = buffer.readNullable { buffer.getInt() },
+                odometer = buffer.readNullable { buffer.getInt() },
+                sportType = buffer.readNullable { buffer.readString() },
+                sportTypeFit = buffer.readNullable {
+                    SportTypeFit(buffer.getInt(), buffer.readNullable { buffer.getInt() })
+                })
+    }
+
+    private fun writeHeartRateLimit(output: DataOutputStream, heartRateLimit: HeartRateLimit) {
+        output.writeShort(heartRateLimit.lowerHeartRate.toInt())
+        output.writeShort(heartRateLimit.upperHeartRate.toInt())
+        output.writeNullable(heartRateLimit.timeBelow) { output.writeInt(it) }
+        output.writeInt(heartRateLimit.timeWithin)
+        output.writeNullable(heartRateLimit.timeAbove) { output.writeInt(it) }
+        output.writeBoolean(heartRateLimit.isAbsoluteRange)
+    }
+
+    private fun readHeartRateLimit(buffer: ByteBuffer) = HeartRateLimit(
+            lowerHeartRate = buffer.getShort(),
+            upperHeartRate = buffer.getShort(),
+            timeBelow = buffer.readNullable { buffer.getInt() },
+            timeWithin = buffer.getInt(),
+            timeAbove = buffer.readNullable { buffer.getInt() },
+            isAbsoluteRange = buffer.get() != 0.toByte())
+
+    private fun writeLap(output: DataOutputStream, lap: Lap) {
+        output.writeInt(lap.timeSplit)
+        output.writeNullable(lap.heartRateSplit) { output.writeShort(it.toInt()) }
+        output.writeNullable(lap.heartRateAVG) { output.writeShort(it.toInt()) }
+        output.writeNullable(lap.heartRateMax) { output.writeShort(it.toInt()) }
+        output.writeNullable(lap.speed) {
+            output.writeFloat(it.speedEnd)
+            output.writeFloat(it.speedAVG)
+            output.writeInt(it.distance)
+            output.writeNullable(it.cadence) { cadence -> output.writeShort(cadence.toInt()) }
+        }
+        output.writeNullable(lap.altitude) {
+            output.writeShort(it.altitude.toInt())
+            output.writeInt(it.ascent)
+            output.writeInt(it.descent)
+        }
+        output.writeNullable(lap.temperature) { output.writeShort(it.temperature.toInt()) }
+        output.writeNullable(lap.power) {
+            output.writeShort(it.powerAvg.toInt())
+            output.writeNullable(it.powerMax) { power -> output.writeShort(power.toInt()) }
+            output.writeNullable(it.powerNormalized) { power -> output.writeShort(power.toInt()) }
+        }
+        output.writeNullable(lap.positionSplit) {
+            output.writeDouble(it.latitude)
+            output.writeDouble(it.longitude)
+        }
+    }
+
+    private fun readLap(buffer: ByteBuffer) = Lap(
+            timeSplit = buffer.getInt(),
+            heartRateSplit = buffer.readNullable { buffer.getShort() },
+            heartRateAVG = buffer.readNullable { buffer.getShort() },
+            heartRateMax = buffer.readNullable { buffer.getShort() },
+            speed = buffer.readNullable {
+                LapSpeed(buffer.getFloat(), buffer.getFloat(), buffer.getInt(),
+                        buffer.readNullable { buffer.getShort() })
+            },
+            altitude = buffer.readNullable { LapAltitude(buffer.getShort(), buffer.getInt(), buffer.getInt()) },
+            temperature = buffer.readNullable { LapTemperature(buffer.getShort()) },
+            power = buffer.readNullable {
+                LapPower(buffer.getShort(), buffer.readNullable { buffer.getShort() },
+                        buffer.readNullable { buffer.getShort() })
+            },
+            positionSplit = buffer.readNullable { Position(buffer.getDouble(), buffer.getDouble()) })
+
+    private fun writeSamples(output: DataOutputStream, samples: List<ExerciseSample>) {
+        output.writeInt(samples.size)
+
+        writeColumn(output, samples, { it.timestamp }) { output.writeLong(it ?: 0L) }
+        writeColumn(output, samples, { it.heartRate }) { output.writeShort(it?.toInt() ?: 0) }
+        writeColumn(output, samples, { it.altitude }) { output.writeShort(it?.toInt() ?: 0) }
+        writeColumn(output, samples, { it.speed }) { output.writeFloat(it ?: 0f) }
+        writeColumn(output, samples, { it.cadence }) { output.writeShort(it?.toInt() ?: 0) }
+        writeColumn(output, samples, { it.power }) { output.writeShort(it?.toInt() ?: 0) }
+        writeColumn(output, samples, { it.distance }) { output.writeInt(it ?: 0) }
+        writeColumn(output, samples, { it.temperature }) { output.writeShort(it?.toInt() ?: 0) }
+
+        // the longitude values are present for the same samples as the latitude values (the positions)
+        if (writeColumn(output, samples, { it.position?.latitude }) { output.writeDouble(it ?: 0.0) }) {
+            samples.forEach { output.writeDouble(it.position?.longitude ?: 0.0) }
+        }
+    }
+
+    /**
+     * Writes the presence marker and the values of a sample attribute.
+     *
+     * @return true when the values were written (at least one value is present)
+     */
+    private inline fun <T> writeColumn(output: DataOutputStream, samples: List<ExerciseSample>,
+                                       getValue: (ExerciseSample) -> T?, writeValue: (T?) -> Unit): Boolean {
+        val presentIndices = BitSet(samples.size)
+        samples.forEachIndexed { index, sample ->
+            if (getValue(sample) != null) {
+                presentIndices.set(index)
+            }
+        }
+
+        when (presentIndices.cardinality()) {
+            0 -> {
+                output.writeByte(VALUES_NONE.toInt())
+                return false
+            }
+            samples.size -> output.writeByte(VALUES_ALL.toInt())
+            else -> {
+                output.writeByte(VALUES_PARTIAL.toInt())
+                val words = presentIndices.toLongArray()
+                output.writeInt(words.size)
+                words.forEach { output.writeLong(it) }
+            }
+        }
+
+        samples.forEach { writeValue(getValue(it)) }
+        return true
+    }
+
+    private fun readSamples(buffer: ByteBuffer): MutableList<ExerciseSample> {
+        val count = buffer.getInt()
+        if (count < 0) {
+            throw IllegalArgumentException("Invalid sample count $count!")
+        }
+
+        val columns = ExerciseSampleColumns(count)
+        columns.addSamples(count)
+
+        readColumn(buffer, count, columns.timestamp, Long.SIZE_BYTES) {
+            columns.timestamp.loadValues(buffer.asLongBuffer(), count)
+        }
+        readColumn(buffer, count, columns.heartRate, Short.SIZE_BYTES) {
+            columns.heartRate.loadValues(buffer.asShortBuffer(), count)
+        }
+        readColumn(buffer, count, columns.altitude, Short.SIZE_BYTES) {
+            columns.altitude.loadValues(buffer.asShortBuffer(), count)
+        }
+        readColumn(buffer, count, columns.speed, Float.SIZE_BYTES) {
+            columns.speed.loadValues(buffer.asFloatBuffer(), count)
+        }
+        readColumn(buffer, count, columns.cadence, Short.SIZE_BYTES) {
+            columns.cadence.loadValues(buffer.asShortBuffer(), count)
+        }
+        readColumn(buffer, count, columns.power, Short.SIZE_BYTES) {
+            columns.power.loadValues(buffer.asShortBuffer(), count)
+        }
+        readColumn(buffer, count, columns.distance, Int.SIZE_BYTES) {
+            columns.distance.loadValues(buffer.asIntBuffer(), count)
+        }
+        readColumn(buffer, count, columns.temperature, Short.SIZE_BYTES) {
+            columns.temperature.loadValues(buffer.asShortBuffer(), count)
+        }
+
+        val positionIndices = readColumn(buffer, count, columns.latitude, Double.SIZE_BYTES) {
+            columns.latitude.loadValues(buffer.asDoubleBuffer(), count)
+        }
+        if (positionIndices != null) {
+            columns.longitude.setPresent(positionIndices)
+            columns.longitude.loadValues(buffer.asDoubleBuffer(), count)
+            buffer.position(buffer.position() + count * Double.SIZE_BYTES)
+        }
+
+        return ExerciseSampleColumnList(columns)
+    }
+
+    /**
+     * Reads the presence marker and the values of a sample attribute into the specified column.
+     *
+     * @param valueSize size of a value in bytes
+     * @param loadValues function for loading the values into the column from the current buffer position
+     * @return the indices of the samples with present values or null when no values are present
+     */
+    private inline fun readColumn(buffer: ByteBuffer, count: Int, column: ExerciseSampleColumns.Column,
+                                  valueSize: Int, loadValues: () -> Unit): BitSet? {
+        val presentIndices = when (buffer.get()) {
+            VALUES_NONE -> return null
+            VALUES_ALL -> BitSet(count).apply { set(0, count) }
+            VALUES_PARTIAL -> {
+                val words = LongArray(buffer.getInt())
+                buffer.asLongBuffer().get(words)
+                buffer.position(buffer.position() + words.size * Long.SIZE_BYTES)
+                BitSet.valueOf(words)
+            }
+            else -> throw IllegalArgumentException("Invalid sample column marker!")
+        }
+
+        column.setPresent(presentIndices)
+        loadValues()
+        buffer.position(buffer.position() + count * valueSize)
+        return presentIndices
+    }
+
+    private fun DataOutputStream.writeString(value: String) {
+        val bytes = value.toByteArray(Charsets.UTF_8)
+        writeInt(bytes.size)
+        write(bytes)
+    }
+
+    private inline fun <T> DataOutputStream.writeNullable(value: T?, writeValue: (T) -> Unit) {
+        writeBoolean(value != null)
+        if (value != null) {
+            writeValue(value)
+        }
+    }
+
+    private fun ByteBuffer.readString(): String {
+        val bytes = ByteArray(getInt())
+        get(bytes)
+        return String(bytes, Charsets.UTF_8)
+    }
+
+    private inline fun <T> ByteBuffer.readNullable(readValue: () -> T): T? =
+            if (get() != 0.toByte()) readValue() else null
+}
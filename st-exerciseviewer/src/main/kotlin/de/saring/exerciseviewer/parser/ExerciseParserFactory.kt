@@ -1,6 +1,8 @@
 package de.saring.exerciseviewer.parser
 
 import de.saring.exerciseviewer.core.EVException
+import de.saring.exerciseviewer.data.EVExercise
+import java.nio.file.Path
 import java.util.ServiceLoader
 
 /**
@@ -14,32 +16,81 @@ import java.util.ServiceLoader
  */
 object ExerciseParserFactory {
 
-    /** The ServiceLoader instance for all ExerciseParser implementations. */
-    private val exerciseParserLoader: ServiceLoader<ExerciseParser> = ServiceLoader.load(ExerciseParser::class.java)
+    /**
+     * The providers of all ExerciseParser implementations with the info of their parsers, loaded once. The parsers
+     * store the state of the current parse in fields and exercises are parsed in several threads (e.g. prefetching),
+     * so the providers are used to create a new parser instance for each parse.
+     */
+    private val parserProviders: List<Pair<ServiceLoader.Provider<ExerciseParser>, ExerciseParserInfo>> =
+            ServiceLoader.load(ExerciseParser::class.java).stream()
+                    .map { provider -> provider to provider.get().info }
+                    .toList()
+
+    /** The cache of the recently parsed exercises. */
+    private val exerciseCache = ParsedExerciseCache { filename -> parseExerciseFile(filename) }
+
+    /** The persistent cache of the parsed exercises, it's disabled when null. */
+    @Volatile
+    private var persistentCache: PersistentExerciseCache? = null
 
     /**
-     * Returns the instance of the appropriate exercise parser for the specified exercise filename.
-     * The proper parser will be assigned by using the filename suffix.
+     * Directory of the persistent exercise cache, the parsed exercises are stored there, so they can be reopened
+     * quickly also after application restarts. The persistent cache is disabled when null (default).
+     */
+    var persistentCacheDirectory: Path?
+        get() = persistentCache?.cacheDirectory
+        set(value) {
+            persistentCache = value?.let { PersistentExerciseCache(it) }
+        }
+
+    /**
+     * Returns a new instance of the appropriate exercise parser for the specified exercise filename.
+     * The proper parser will be assigned by using the filename suffix. The parser instances are not thread safe,
+     * so each thread needs to use its own instance.
      *
      * @param filename name of the exercise file to parse
-     * @return instance of the appropriate exercise parser
+     * @return new instance of the appropriate exercise parser
      * @throws EVException when no proper parser has been found
      */
     @Throws(EVException::class)
     fun getParser(filename: String): ExerciseParser =
-            exerciseParserLoader.find { isFileSupportedByParser(it, filename) } ?:
+            parserProviders.find { (_, info) -> isFileSupportedByParser(info, filename) }?.first?.get() ?:
                     throw EVException("No parser has been found for filename '$filename'!")
 
+    /**
+     * Parses the specified exercise file with the appropriate exercise parser. The recently parsed exercises are
+     * cached (in memory and in the persistent cache, when enabled), so the cached exercise is returned when the file
+     * has not been modified since. The returned exercise
+     * is shared, it must not be modified!
+     *
+     * @param filename name of the exercise file to parse
+     * @return the parsed exercise
+     * @throws EVException when no proper parser has been found or on parsing problems
+     */
+    @Throws(EVException::class)
+    fun parseExercise(filename: String): EVExercise = exerciseCache.getExercise(filename)
+
+    /**
+     * Parses the specified exercise files in background and stores them in the cache, so they can be opened without
+     * delay afterwards. The files of previous prefetch calls will be skipped, when they were not parsed yet.
+     *
+     * @param filenames names of the exercise files to parse, the most probable one first
+     */
+    fun prefetchExercises(filenames: List<String>) = exerciseCache.prefetch(filenames)
+
     /**
      * Returns the list of all ExerciseParserInfo objects for all available parser implementations
      * (useful e.g. for File Open dialogs for list of suffixes).
      *
      * @return list of ExerciseParserInfo objects for all parser implementations
      */
-    val exerciseParserInfos: List<ExerciseParserInfo> = exerciseParserLoader
-            .map { parser -> parser.info }
-            .toList()
+    val exerciseParserInfos: List<ExerciseParserInfo> = parserProviders.map { (_, info) -> info }
+
+    private fun parseExerciseFile(filename: String): EVExercise {
+        val parser = getParser(filename)
+        return persistentCache?.getExercise(filename) { parser.parseExercise(it) } ?: parser.parseExercise(filename)
+    }
 
-    private fun isFileSupportedByParser(parser: ExerciseParser, filename: String): Boolean =
-            parser.info.suffixes.any { filename.endsWith(".$it") }
+    private fun isFileSupportedByParser(info: ExerciseParserInfo, filename: String): Boolean =
+            info.suffixes.any { filename.endsWith(".$it") }
 }
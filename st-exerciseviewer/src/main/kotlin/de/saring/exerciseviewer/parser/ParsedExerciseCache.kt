@@ -0,0 +1,223 @@
+package de.saring.exerciseviewer.parser
+
+import de.saring.exerciseviewer.data.EVExercise
+import java.io.IOException
+import java.lang.ref.ReferenceQueue
+import java.lang.ref.SoftReference
+import java.nio.file.Files
+import java.nio.file.InvalidPathException
+import java.nio.file.Path
+import java.nio.file.attribute.BasicFileAttributes
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicLong
+import java.util.logging.Level
+import java.util.logging.Logger
+
+/**
+ * LRU cache of parsed exercises, so an exercise file doesn't need to be parsed again when it is opened repeatedly
+ * (e.g. in ExerciseViewer or for the import in the exercise dialog). The cache size is limited by the weight of the
+ * exercises, which is the number of their samples and laps. The exercises are referenced softly, so the garbage
+ * collector can release them on low memory.
+ *
+ * A cached exercise is only returned when the modification time and the size of its file are unchanged, otherwise
+ * the file gets parsed again. The cached exercises are shared by all callers, so they must not be modified!
+ *
+ * The files of exercises which will probably be opened soon can be parsed in background by prefetching.
+ *
+ * @param maxWeight maximum total weight of all cached exercises
+ * @param parse function for parsing the specified exercise file
+ *
+ * @author Stefan Saring
+ */
+internal class ParsedExerciseCache(
+        private val maxWeight: Long = DEFAULT_MAX_WEIGHT,
+        private val parse: (String) -> EVExercise) {
+
+    private val logger = Logger.getLogger(ParsedExerciseCache::class.java.name)
+
+    /** The cache entries in access order (least recently used first), the key is the absolute file path. */
+    private val entries = LinkedHashMap<String, CacheEntry>(16, 0.75f, true)
+
+    /** Queue of the entries whose exercises were released by the garbage collector. */
+    private val releasedEntries = ReferenceQueue<EVExercise>()
+
+    /** Total weight of all cached exercises. */
+    private var totalWeight = 0L
+
+    /** The exercise files which are parsed right now, other requests for these files wait for the result. */
+    private val pendingParses = HashMap<FileKey, CompletableFuture<EVExercise>>()
+
+    /** Executor for prefetching, a single low-priority thread does not slow down the UI. */
+    private val prefetchExecutor: ExecutorService = Executors.newSingleThreadExecutor { runnable ->
+        Thread(runnable, "exercise-prefetch").apply {
+            isDaemon = true
+            priority = Thread.MIN_PRIORITY
+        }
+    }
+
+    /** Generation of the prefetch requests, queued prefetches of previous generations are outdated. */
+    private val prefetchGeneration = AtomicLong()
+
+    /**
+     * Returns the exercise of the specified file, it's parsed when there is no cached exercise for the current file
+     * version. When the same file is parsed by another thread right now, then its result will be returned.
+     *
+     * @param filename name of the exercise file
+     * @return the parsed exercise (must not be modified)
+     * @throws de.saring.exerciseviewer.core.EVException on parsing problems
+     */
+    fun getExercise(filename: String): EVExercise {
+
+        // files without readable attributes are not cached, the parser reports the error
+        val fileKey = FileKey.of(filename) ?: return parse(filename)
+
+        val pendingParse: CompletableFuture<EVExercise>?
+        val newParse = CompletableFuture<EVExercise>()
+        synchronized(this) {
+            getCachedExercise(fileKey)?.let { return it }
+            pendingParse = pendingParses.putIfAbsent(fileKey, newParse)
+        }
+
+        if (pendingParse != null) {
+            try {
+                return pendingParse.join()
+            } catch (e: CompletionException) {
+                throw e.cause ?: e
+            }
+        }
+
+        try {
+            val exercise = parse(filename)
+            synchronized(this) {
+                putExercise(fileKey, exercise)
+            }
+            newParse.complete(exercise)
+            return exercise
+        } catch (e: Exception) {
+            newParse.completeExceptionally(e)
+            throw e
+        } finally {
+            synchronized(this) {
+                pendingParses.remove(fileKey)
+            }
+        }
+    }
+
+    /**
+     * Parses the specified exercise files in background (in the passed order), when they are not cached yet. The
+     * queued files of previous prefetch requests will be skipped, they are outdated now.
+     *
+     * @param filenames names of the exercise files
+     */
+    fun prefetch(filenames: List<String>) {
+        val generation = prefetchGeneration.incrementAndGet()
+
+        for (filename in filenames) {
+            prefetchExecutor.execute {
+                if (generation == prefetchGeneration.get()) {
+                    try {
+                        getExercise(filename)
+                    } catch (e: Exception) {
+                        logger.log(Level.FINE, "Failed to prefetch the exercise file '$filename'!", e)
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of cached exercises (the released exercises are not counted).
+     */
+    @Synchronized
+    fun size(): Int {
+        removeReleasedEntries()
+        return entries.size
+    }
+
+    private fun getCachedExercise(fileKey: FileKey): EVExercise? {
+        removeReleasedEntries()
+
+        val entry = entries[fileKey.path] ?: return null
+        val exercise = entry.get()
+        if (exercise == null || entry.fileKey != fileKey) {
+            removeEntry(fileKey.path)
+            return null
+        }
+        return exercise
+    }
+
+    private fun putExercise(fileKey: FileKey, exercise: EVExercise) {
+        removeReleasedEntries()
+        removeEntry(fileKey.path)
+
+        val weight = 1L + exercise.sampleList.size + exercise.lapList.size
+        if (weight > maxWeight) {
+            return
+        }
+
+        entries[fileKey.path] = CacheEntry(fileKey, weight, exercise, releasedEntries)
+        totalWeight += weight
+
+        // remove the least recently used entries when the cache is too large
+        val iterator = entries.values.iterator()
+        while (totalWeight > maxWeight && iterator.hasNext()) {
+            totalWeight -= iterator.next().weight
+            iterator.remove()
+        }
+    }
+
+    private fun removeEntry(path: String) {
+        entries.remove(path)?.let { totalWeight -= it.weight }
+    }
+
+    private fun removeReleasedEntries() {
+        while (true) {
+            val entry = releasedEntries.poll() as CacheEntry? ?: return
+            // the entry might have been replaced already
+            if (entries[entry.fileKey.path] === entry) {
+                removeEntry(entry.fileKey.path)
+            }
+        }
+    }
+
+    /**
+     * Identifies a specific version of an exercise file.
+     */
+    private data class FileKey(val path: String, val lastModified: Long, val size: Long) {
+
+        companion object {
+
+            /**
+             * Creates the key for the current version of the specified file, returns null when the file attributes
+             * can't be read.
+             */
+            fun of(filename: String): FileKey? =
+                try {
+                    val path = Path.of(filename).toAbsolutePath().normalize()
+                    val attributes = Files.readAttributes(path, BasicFileAttributes::class.java)
+                    FileKey(path.toString(), attributes.lastModifiedTime().toMillis(), attributes.size())
+                } catch (e: IOException) {
+                    null
+                } catch (e: InvalidPathException) {
+                    null
+                }
+        }
+    }
+
+    /**
+     * Cache entry, which references the exercise softly.
+     */
+    private class CacheEntry(
+            val fileKey: FileKey,
+            val weight: Long,
+            exercise: EVExercise,
+            queue: ReferenceQueue<EVExercise>) : SoftReference<EVExercise>(exercise, queue)
+
+    companion object {
+        /** Default maximum weight, enough for the exercises of several weeks with a high recording rate. */
+        const val DEFAULT_MAX_WEIGHT = 250_000L
+    }
+}
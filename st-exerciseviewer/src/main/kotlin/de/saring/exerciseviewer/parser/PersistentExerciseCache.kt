@@ -0,0 +1,194 @@
+package de.saring.exerciseviewer.parser
+
+import de.saring.exerciseviewer.data.EVExercise
+import java.io.BufferedOutputStream
+import java.io.DataOutputStream
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.InvalidPathException
+import java.nio.file.NoSuchFileException
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.nio.file.StandardOpenOption
+import java.nio.file.attribute.BasicFileAttributes
+import java.nio.file.attribute.FileTime
+import java.util.UUID
+import java.util.logging.Level
+import java.util.logging.Logger
+import java.util.zip.CRC32C
+
+/**
+ * Persistent cache of parsed exercises, the exercises are stored in binary cache files (see [ExerciseCacheFormat])
+ * in the cache directory. In contrast to the in-memory cache it survives application restarts, so large exercise
+ * files don't need to be parsed again when they are reopened later. The cache files are memory mapped for reading,
+ * the sample values are loaded in bulk.
+ *
+ * A cached exercise is only used when the modification time, size and content hash of the exercise file are
+ * unchanged. The total size of the cache files is limited, the least recently used cache files are deleted when the
+ * limit is exceeded. Cache problems are not critical, the exercise file will be parsed in this case.
+ *
+ * @param cacheDirectory directory of the cache files (will be created when missing)
+ * @param maxCacheSize maximum total size of all cache files in bytes
+ *
+ * @author Stefan Saring
+ */
+internal class PersistentExerciseCache(
+        val cacheDirectory: Path,
+        private val maxCacheSize: Long = DEFAULT_MAX_CACHE_SIZE) {
+
+    private val logger = Logger.getLogger(PersistentExerciseCache::class.java.name)
+
+    /**
+     * Returns the cached exercise of the specified file. When there's no valid cache file for the current file
+     * version, then the exercise file gets parsed and stored in a new cache file.
+     *
+     * @param filename name of the exercise file
+     * @param parse function for parsing the exercise file
+     * @return the exercise
+     * @throws de.saring.exerciseviewer.core.EVException on parsing problems
+     */
+    fun getExercise(filename: String, parse: (String) -> EVExercise): EVExercise {
+
+        // the source file description must be created before parsing, so later file changes will be detected
+        val sourceFile = try {
+            createSourceFile(filename)
+        } catch (e: IOException) {
+            // the parser reports the problem
+            return parse(filename)
+        } catch (e: InvalidPathException) {
+            return parse(filename)
+        }
+
+        val cacheFile = getCacheFile(sourceFile.path)
+        readCacheFile(cacheFile, sourceFile)?.let { return it }
+
+        val exercise = parse(filename)
+        writeCacheFile(cacheFile, sourceFile, exercise)
+        return exercise
+    }
+
+    /**
+     * Returns the path of the cache file for the specified exercise file path.
+     */
+    fun getCacheFile(path: String): Path {
+        val cacheFileName = UUID.nameUUIDFromBytes(path.toByteArray(Charsets.UTF_8)).toString() + CACHE_FILE_SUFFIX
+        return cacheDirectory.resolve(cacheFileName)
+    }
+
+    private fun createSourceFile(filename: String): ExerciseCacheFormat.SourceFile {
+        val path = Path.of(filename).toAbsolutePath().normalize()
+        val attributes = Files.readAttributes(path, BasicFileAttributes::class.java)
+        return ExerciseCacheFormat.SourceFile(
+                path.toString(), attributes.lastModifiedTime().toMillis(), attributes.size(), computeHash(path))
+    }
+
+    /**
+     * Computes the CRC32C checksum of the file content. It's no cryptographic hash, but it detects all file changes
+     * which keep the modification time and size and it's much faster (hardware accelerated).
+     */
+    private fun computeHash(path: Path): Long {
+        val checksum = CRC32C()
+        FileChannel.open(path, StandardOpenOption.READ).use { channel ->
+            val buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE)
+            while (channel.read(buffer) >= 0) {
+                buffer.flip()
+                checksum.update(buffer)
+                buffer.clear()
+            }
+        }
+        return checksum.value
+    }
+
+    /**
+     * Reads the exercise from the specified cache file, returns null when the cache file is missing or not valid
+     * for the source file.
+     */
+    private fun readCacheFile(cacheFile: Path, sourceFile: ExerciseCacheFormat.SourceFile): EVExercise? {
+        try {
+            val exercise = FileChannel.open(cacheFile, StandardOpenOption.READ).use { channel ->
+                val buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                if (ExerciseCacheFormat.readSourceFile(buffer) != sourceFile) {
+                    return null
+                }
+                ExerciseCacheFormat.readExercise(buffer)
+            }
+
+            // the modification time of the cache files is the time of their last use
+            Files.setLastModifiedTime(cacheFile, FileTime.fromMillis(System.currentTimeMillis()))
+            return exercise
+        } catch (e: NoSuchFileException) {
+            return null
+        } catch (e: IOException) {
+            logger.log(Level.FINE, "Failed to read the exercise cache file '$cacheFile'!", e)
+            return null
+        } catch (e: RuntimeException) {
+            // e.g. BufferUnderflowException for a truncated source file description
+            logger.log(Level.FINE, "Failed to read the exercise cache file '$cacheFile'!", e)
+            return null
+        }
+    }
+
+    /**
+     * Writes the exercise to a temporary file, which replaces the cache file afterwards. So the cache file is always
+     * complete, also when the application gets terminated while writing or when another instance writes the same file.
+     */
+    private fun writeCacheFile(cacheFile: Path, sourceFile: ExerciseCacheFormat.SourceFile, exercise: EVExercise) {
+        var tempFile: Path? = null
+        try {
+            Files.createDirectories(cacheDirectory)
+            tempFile = Files.createTempFile(cacheDirectory, "exercise", ".tmp")
+            DataOutputStream(BufferedOutputStream(Files.newOutputStream(tempFile))).use { output ->
+                ExerciseCacheFormat.write(output, sourceFile, exercise)
+            }
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+            tempFile = null
+
+            removeLeastRecentlyUsedFiles(cacheFile)
+        } catch (e: IOException) {
+            logger.log(Level.WARNING, "Failed to write the exercise cache file '$cacheFile'!", e)
+        } finally {
+            tempFile?.let { Files.deleteIfExists(it) }
+        }
+    }
+
+    /**
+     * Deletes the least recently used cache files until the total size does not exceed the maximum cache size. The
+     * specified current cache file will not be deleted.
+     */
+    private fun removeLeastRecentlyUsedFiles(currentCacheFile: Path) {
+        val cacheFiles = Files.newDirectoryStream(cacheDirectory, "*$CACHE_FILE_SUFFIX").use { stream ->
+            stream.mapNotNull { file ->
+                try {
+                    file to Files.readAttributes(file, BasicFileAttributes::class.java)
+                } catch (e: IOException) {
+                    // the file might have been deleted by another instance
+                    null
+                }
+            }
+        }
+
+        var totalSize = cacheFiles.sumOf { it.second.size() }
+        cacheFiles
+                .filter { it.first != currentCacheFile }
+                .sortedBy { it.second.lastModifiedTime() }
+                .forEach { (file, attributes) ->
+                    if (totalSize <= maxCacheSize) {
+                        return
+                    }
+                    Files.deleteIfExists(file)
+                    totalSize -= attributes.size()
+                }
+    }
+
+    companion object {
+        /** Default maximum total size of the cache files (256 MB). */
+        const val DEFAULT_MAX_CACHE_SIZE = 256L * 1024 * 1024
+
+        /** Suffix of the cache files. */
+        const val CACHE_FILE_SUFFIX = ".evx"
+
+        private const val HASH_BUFFER_SIZE = 64 * 1024
+    }
+}
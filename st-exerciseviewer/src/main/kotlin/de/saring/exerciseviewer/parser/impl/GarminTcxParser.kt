@@ -15,9 +15,6 @@ import de.saring.exerciseviewer.parser.AbstractExerciseParser
 import de.saring.exerciseviewer.parser.ExerciseParserInfo
 import de.saring.util.Date310Utils
 import de.saring.util.unitcalc.CalculationUtils
-import org.jdom2.Element
-import org.jdom2.Namespace
-import org.jdom2.input.SAXBuilder
 import java.time.LocalDateTime
 import java.time.format.DateTimeFormatter
 
@@ -29,8 +26,8 @@ import java.time.format.DateTimeFormatter
  */
 class GarminTcxParser : AbstractExerciseParser() {
 
-    private val namespace = Namespace.getNamespace("http://www.garmin.com/xmlschemas/TrainingCenterDatabase/v2")
-    private val namespaceExt = Namespace.getNamespace("ext", "http://www.garmin.com/xmlschemas/ActivityExtension/v2")
+    private val namespace = "http://www.garmin.com/xmlschemas/TrainingCenterDatabase/v2"
+    private val namespaceExt = "http://www.garmin.com/xmlschemas/ActivityExtension/v2"
 
     override
     val info = ExerciseParserInfo("Garmin TCX", listOf("tcx", "TCX"))
@@ -39,9 +36,7 @@ class GarminTcxParser : AbstractExerciseParser() {
     fun parseExercise(filename: String): EVExercise {
 
         try {
-            // create a File of the filename string to avoid URL problems when filename contains spaces or umlauts
-            val document = SAXBuilder().build(java.io.File(filename))
-            return parseExerciseElement(document.rootElement)
+            return XmlElementReader.parseFile(filename) { reader -> parseExerciseElement(reader) }
         }
         catch (e: Exception) {
             throw EVException("Failed to read the Garmin TCX exercise file '$filename'!", e)
@@ -49,11 +44,11 @@ class GarminTcxParser : AbstractExerciseParser() {
     }
 
     /**
-     * Parses the exercise data from the specified element (root element).
+     * Parses the exercise data from the root element of the specified reader. Only the first activity is parsed.
      *
-     * @param eExercise exercise DOM element
+     * @param reader reader positioned at the root element
      */
-    private fun parseExerciseElement(eExercise: Element): EVExercise {
+    private fun parseExerciseElement(reader: XmlElementReader): EVExercise {
 
         // parse basic exercise data
         val exercise = EVExercise(EVExercise.ExerciseFileType.GARMIN_TCX)
@@ -64,257 +59,258 @@ class GarminTcxParser : AbstractExerciseParser() {
         exercise.speed = ExerciseSpeed(0f, 0f, 0)
         exercise.energy = 0
 
-        val eActivity = eExercise.getChild("Activities", namespace).getChild("Activity", namespace)
-        val exerciseDateTime = parseDateTime(eActivity.getChildText("Id", namespace))
-        exercise.dateTime = exerciseDateTime
+        var activityState: ActivityParseState? = null
 
-        var trackpointCount: Int = 0
-        var altitudeMetersTotal: Double = 0.0
+        reader.forEachChildElement {
+            if (reader.isElement(namespace, "Activities")) {
+                reader.forEachChildElement {
+                    if (reader.isElement(namespace, "Activity") && activityState == null) {
+                        activityState = parseActivityElement(reader, exercise)
+                    }
+                }
+            }
+        }
 
-        var cadenceCount: Int = 0
-        var cadenceSum: Long = 0
+        val state = checkNotNull(activityState) { "The exercise file contains no activity!" }
+        calculateAvgSpeed(exercise)
+        calculateAvgHeartrate(exercise)
+        calculateAvgAltitude(exercise, state.altitudeMetersTotal, state.trackpointCount)
 
-        var totalTimeGapBetweenLaps: Long = 0
-        var lastTrackpointTimestamp: Long = 0
+        return exercise
+    }
+
+    /**
+     * Parses the current Activity element into the exercise and returns the parse state with the totals.
+     */
+    private fun parseActivityElement(reader: XmlElementReader, exercise: EVExercise): ActivityParseState {
+        val state = ActivityParseState()
+        var creatorName: String? = null
 
         // no summary data, everything is stored in laps
         // parse each lap and create a ExerciseViewer Lap object
-        for (eLap in eActivity.getChildren("Lap", namespace)) {
-            val evLap = parseLapData(exercise, eLap)
-            exercise.lapList.add(evLap)
-
-            // compute the total time gap between all laps
-            if (lastTrackpointTimestamp > 0) {
-                val lapStart = parseDateTime(eLap.getAttributeValue("StartTime"))
-                val lapStartMillis = Date310Utils.getMilliseconds(lapStart)
-                totalTimeGapBetweenLaps += lapStartMillis - lastTrackpointTimestamp
-            }
-
-            var lapAltitude: Short? = null
-            var lapAscentMeters: Double = 0.0
-            var previousTrackpointTimestamp = Long.MIN_VALUE
-            var previousTrackpointDistanceMeters = Double.MIN_VALUE
-            var previousTrackpointAltitudeMeters = Double.MIN_VALUE
-            val exerciseDateTimeMillis = Date310Utils.getMilliseconds(exerciseDateTime)
-
-            // parse all Track elements
-            for (eTrack in eLap.getChildren("Track", namespace)) {
-
-                // parse all Trackpoint elements (= ExerciseSamples)
-                for (eTrackpoint in eTrack.getChildren("Trackpoint", namespace)) {
-                    trackpointCount++
-
-                    val evSample = ExerciseSample()
-                    exercise.sampleList.add(evSample)
-
-                    // calculate sample timestamp (time gap between laps must be substracted here)
-                    val tpDateTime = parseDateTime(eTrackpoint.getChildText("Time", namespace))
-                    val tpMillis = Date310Utils.getMilliseconds(tpDateTime)
-                    lastTrackpointTimestamp = tpMillis
-
-                    evSample.timestamp = tpMillis - exerciseDateTimeMillis - totalTimeGapBetweenLaps
-
-                    parseTrackpointPositionData(exercise, evSample, eTrackpoint)
-                    parseTrackpointHeartRateData(exercise, evLap, evSample, eTrackpoint)
-
-                    // get distance data (some trackpoints might not have distance data!)
-                    val strDistanceMeters = eTrackpoint.getChildText("DistanceMeters", namespace)
-                    if (strDistanceMeters != null) {
-                        val tpDistanceMeters = strDistanceMeters.toDouble()
-                        evSample.distance = Math.round(tpDistanceMeters).toInt()
-
-                        // calculate speed between current and previous trackpoint
-                        evSample.speed = 0f
-                        if (previousTrackpointTimestamp > Long.MIN_VALUE) {
-                            val tpTimestampDiff = tpMillis - previousTrackpointTimestamp
-                            // sometimes computed difference is < 0 => impossible, use 0 instead
-                            val tpDistanceDiff = Math.max(tpDistanceMeters - previousTrackpointDistanceMeters, 0.0)
-
-                            evSample.speed = CalculationUtils.calculateAvgSpeed(
-                                    tpDistanceDiff / 1000.0, Math.round(tpTimestampDiff / 1000.0).toInt()).toFloat()
-                        }
-                        previousTrackpointTimestamp = tpMillis
-                        previousTrackpointDistanceMeters = tpDistanceMeters
-
-                        evLap.speed!!.speedEnd = evSample.speed ?: 0f
-                        exercise.speed!!.speedMax = Math.max(evSample.speed ?: 0f, exercise.speed!!.speedMax)
-                    }
-
-                    // get optional altitude data
-                    val strAltitudeMeters = eTrackpoint.getChildText("AltitudeMeters", namespace)
-                    if (strAltitudeMeters != null) {
-                        val tpAltitude = strAltitudeMeters.toDouble()
-                        evSample.altitude = Math.round(tpAltitude).toShort()
-                        altitudeMetersTotal += Math.round(tpAltitude)
-
-                        // create altitude objects for exercise and current lap if not done yet
-                        if (exercise.altitude == null) {
-                            exercise.recordingMode.isAltitude = true
-                            exercise.altitude = ExerciseAltitude(
-                                    altitudeMin = Short.MAX_VALUE,
-                                    altitudeAvg = Math.round(altitudeMetersTotal / trackpointCount).toShort(),
-                                    altitudeMax = Short.MIN_VALUE,
-                                    ascent = 0,
-                                    descent = 0)
-                        }
-
-                        lapAltitude = Math.round(tpAltitude).toShort()
-
-                        exercise.altitude!!.altitudeMin = Math.min(tpAltitude.toInt(), exercise.altitude!!.altitudeMin.toInt()).toShort()
-                        exercise.altitude!!.altitudeMax = Math.max(tpAltitude.toInt(), exercise.altitude!!.altitudeMax.toInt()).toShort()
-
-                        // calculate lap ascent (need to use double precision here)
-                        if (previousTrackpointAltitudeMeters > Double.MIN_VALUE &&
-                                tpAltitude > previousTrackpointAltitudeMeters) {
-                            val tpAscent = tpAltitude - previousTrackpointAltitudeMeters
-                            lapAscentMeters += tpAscent
-                        }
-                        previousTrackpointAltitudeMeters = tpAltitude
-                    }
-
-                    // get optional cadence data
-                    val cadence = getCadenceOfTrackpoint(eTrackpoint)
-                    if (cadence != null) {
-                        evSample.cadence = cadence
-                        evLap.speed!!.cadence = evSample.cadence ?: 0
-
-                        // create cadence object for exercise if not done yet
-                        if (exercise.cadence == null) {
-                            exercise.cadence = ExerciseCadence(0, 0)
-                            exercise.recordingMode.isCadence = true
-                        }
-
-                        // compute max and average cadence if present
-                        exercise.cadence!!.cadenceMax = Math.max(cadence.toInt(), exercise.cadence!!.cadenceMax.toInt()).toShort()
-                        if (cadence > 0) {
-                            cadenceSum += cadence
-                            exercise.cadence!!.cadenceAvg = Math.round(cadenceSum / (++cadenceCount).toDouble()).toShort()
-                        }
-                    }
+        reader.forEachChildElement {
+            when {
+                reader.isElement(namespace, "Id") -> {
+                    val exerciseDateTime = parseDateTime(reader.readText())
+                    exercise.dateTime = exerciseDateTime
+                    state.exerciseDateTimeMillis = Date310Utils.getMilliseconds(exerciseDateTime)
                 }
-            }
-
-            if (lapAltitude != null) {
-                evLap.altitude = LapAltitude(lapAltitude, Math.round(lapAscentMeters).toInt(), 0)
-            }
-
-            // store position of last sample as lap split position
-            if (!exercise.sampleList.isEmpty()) {
-                evLap.positionSplit = exercise.sampleList.last().position
+                reader.isElement(namespace, "Lap") -> parseLapElement(reader, exercise, state)
+                reader.isElement(namespace, "Creator") -> creatorName = reader.readChildTexts(namespace)["Name"]
             }
         }
 
         // parse device model name, it's always an Garmin
-        exercise.deviceName = "Garmin ${eActivity.getChild("Creator", namespace).getChildText("Name", namespace)}"
-
-        calculateAvgSpeed(exercise)
-        calculateAvgHeartrate(exercise)
-        calculateAvgAltitude(exercise, altitudeMetersTotal, trackpointCount)
-
-        return exercise
+        exercise.deviceName = if (creatorName != null) "Garmin $creatorName" else "Garmin"
+        return state
     }
 
-    private fun parseLapData(exercise: EVExercise, lapElement: Element): Lap {
+    /**
+     * Parses the current Lap element with all its trackpoints. The lap summary data depends on the last trackpoint,
+     * so it's calculated at the end of the lap.
+     */
+    private fun parseLapElement(reader: XmlElementReader, exercise: EVExercise, state: ActivityParseState) {
         val evLap = Lap()
+        // average speed and distance of the lap will be set after parsing the trackpoints
+        evLap.speed = LapSpeed(0f, 0f, 0)
+        exercise.lapList.add(evLap)
+
+        val lapStartMillis = Date310Utils.getMilliseconds(parseDateTime(reader.getAttribute("StartTime")!!))
+
+        // compute the total time gap between all laps
+        if (state.lastTrackpointTimestamp > 0) {
+            state.totalTimeGapBetweenLaps += lapStartMillis - state.lastTrackpointTimestamp
+        }
 
-        // stored lap duration in XML is often wrong, needs to be calculated
-        val lapDurationSeconds = calculateLapDuration(lapElement)
-        val distanceMeters = lapElement.getChildText("DistanceMeters", namespace).toDouble()
+        val lapState = LapParseState()
+        var strDistanceMeters: String? = null
+        var strCalories: String? = null
+
+        reader.forEachChildElement {
+            when {
+                reader.isElement(namespace, "DistanceMeters") -> strDistanceMeters = reader.readText()
+                reader.isElement(namespace, "Calories") -> strCalories = reader.readText()
+                // parse optional heartrate data of lap
+                reader.isElement(namespace, "AverageHeartRateBpm") -> {
+                    evLap.heartRateAVG = reader.readChildTexts(namespace)["Value"]!!.toShort()
+                }
+                reader.isElement(namespace, "MaximumHeartRateBpm") -> {
+                    evLap.heartRateMax = reader.readChildTexts(namespace)["Value"]!!.toShort()
+                    exercise.heartRateMax = Math.max(evLap.heartRateMax!!.toInt(), exercise.heartRateMax?.toInt() ?: 0).toShort()
+                }
+                // parse all Track elements
+                reader.isElement(namespace, "Track") -> reader.forEachChildElement {
+                    // parse all Trackpoint elements (= ExerciseSamples)
+                    if (reader.isElement(namespace, "Trackpoint")) {
+                        parseTrackpointElement(reader, exercise, evLap, state, lapState)
+                    }
+                }
+            }
+        }
+
+        // stored lap duration in XML is often wrong, needs to be calculated:
+        // "Last TrackPoint of Lap".Time - Lap.StartTime
+        val lastTrackpointMillis = checkNotNull(lapState.lastTrackpointTimestamp) { "The lap contains no trackpoints!" }
+        val lapDurationSeconds = (lastTrackpointMillis - lapStartMillis) / 1000.0
+        val distanceMeters = strDistanceMeters!!.toDouble()
         exercise.duration = exercise.duration!! + Math.round(lapDurationSeconds * 10).toInt()
         evLap.timeSplit = exercise.duration!!
         exercise.speed!!.distance += Math.round(distanceMeters).toInt()
-        val lapSpeedDistance = exercise.speed!!.distance
-        exercise.energy = exercise.energy!! + lapElement.getChildText("Calories", namespace).toInt()
+        exercise.energy = exercise.energy!! + strCalories!!.toInt()
 
         // stored maximum lap speed in XML is wrong, will be calculated
 
         // calculate average speed of lap
-        val lapSpeedAVG = CalculationUtils.calculateAvgSpeed(
+        evLap.speed!!.speedAVG = CalculationUtils.calculateAvgSpeed(
                 distanceMeters / 1000.0,
                 Math.round(lapDurationSeconds).toInt()).toFloat()
+        evLap.speed!!.distance = exercise.speed!!.distance
 
-        evLap.speed = LapSpeed(0f, lapSpeedAVG, lapSpeedDistance)
+        if (lapState.lapAltitude != null) {
+            evLap.altitude = LapAltitude(lapState.lapAltitude!!, Math.round(lapState.lapAscentMeters).toInt(), 0)
+        }
 
-        // parse optional heartrate data of lap
-        parseLapHeartRateData(exercise, evLap, lapElement)
-        return evLap
+        // store position of last sample as lap split position
+        if (!exercise.sampleList.isEmpty()) {
+            evLap.positionSplit = exercise.sampleList.last().position
+        }
     }
 
-    private fun parseLapHeartRateData(exercise: EVExercise, evLap: Lap, lapElement: Element) {
-        val eAverageHeartRateBpm = lapElement.getChild("AverageHeartRateBpm", namespace)
-        if (eAverageHeartRateBpm != null) {
-            evLap.heartRateAVG = eAverageHeartRateBpm.getChildText("Value", namespace).toShort()
+    /**
+     * Parses the current Trackpoint element and adds the created exercise sample to the exercise.
+     */
+    private fun parseTrackpointElement(
+            reader: XmlElementReader, exercise: EVExercise, evLap: Lap,
+            state: ActivityParseState, lapState: LapParseState) {
+
+        var strTime: String? = null
+        var positionTexts: Map<String, String>? = null
+        var strHeartRate: String? = null
+        var strDistanceMeters: String? = null
+        var strAltitudeMeters: String? = null
+        var strCadence: String? = null
+        var strRunCadence: String? = null
+
+        reader.forEachChildElement {
+            when {
+                reader.isElement(namespace, "Time") -> strTime = reader.readText()
+                reader.isElement(namespace, "Position") -> positionTexts = reader.readChildTexts(namespace)
+                reader.isElement(namespace, "HeartRateBpm") -> strHeartRate = reader.readChildTexts(namespace)["Value"]
+                reader.isElement(namespace, "DistanceMeters") -> strDistanceMeters = reader.readText()
+                reader.isElement(namespace, "AltitudeMeters") -> strAltitudeMeters = reader.readText()
+                reader.isElement(namespace, "Cadence") -> strCadence = reader.readText()
+                reader.isElement(namespace, "Extensions") -> reader.forEachChildElement {
+                    if (reader.isElement(namespaceExt, "TPX")) {
+                        strRunCadence = reader.readChildTexts(namespaceExt)["RunCadence"]
+                    }
+                }
+            }
         }
 
-        val eMaximumHeartRateBpm = lapElement.getChild("MaximumHeartRateBpm", namespace)
-        if (eMaximumHeartRateBpm != null) {
-            evLap.heartRateMax = eMaximumHeartRateBpm.getChildText("Value", namespace).toShort()
-            exercise.heartRateMax = Math.max(evLap.heartRateMax!!.toInt(), exercise.heartRateMax?.toInt() ?: 0).toShort()
-        }
-    }
+        state.trackpointCount++
+
+        val evSample = ExerciseSample()
+        exercise.sampleList.add(evSample)
+
+        // calculate sample timestamp (time gap between laps must be substracted here)
+        val tpDateTime = parseDateTime(strTime!!)
+        val tpMillis = Date310Utils.getMilliseconds(tpDateTime)
+        state.lastTrackpointTimestamp = tpMillis
+        lapState.lastTrackpointTimestamp = tpMillis
+
+        evSample.timestamp = tpMillis - state.exerciseDateTimeMillis!! - state.totalTimeGapBetweenLaps
 
-    private fun parseTrackpointPositionData(exercise: EVExercise, evSample: ExerciseSample, tpElement: Element) {
-        val ePosition = tpElement.getChild("Position", namespace)
-        if (ePosition != null) {
+        positionTexts?.let {
             exercise.recordingMode.isLocation = true
-            val latitude = ePosition.getChildText("LatitudeDegrees", namespace).toDouble()
-            val longitude = ePosition.getChildText("LongitudeDegrees", namespace).toDouble()
+            val latitude = it["LatitudeDegrees"]!!.toDouble()
+            val longitude = it["LongitudeDegrees"]!!.toDouble()
             evSample.position = Position(latitude, longitude)
         }
-    }
 
-    private fun parseTrackpointHeartRateData(evExercise: EVExercise, evLap: Lap, evSample: ExerciseSample, tpElement: Element) {
-        val eHeartRateBpm = tpElement.getChild("HeartRateBpm", namespace)
-        if (eHeartRateBpm != null) {
-            val heartRate = eHeartRateBpm.getChildText("Value", namespace).toShort()
+        strHeartRate?.let {
+            val heartRate = it.toShort()
             evSample.heartRate = heartRate
             evLap.heartRateSplit = heartRate
-            evExercise.recordingMode.isHeartRate = true
+            exercise.recordingMode.isHeartRate = true
         }
-    }
 
-    /**
-     * Calculates the duration of the specified lap in seconds:
-     * "Last TrackPoint of Lap".Time - Lap.StartTime
-     */
-    private fun calculateLapDuration(lapElement: Element): Double {
-        val lastTrack = lapElement.getChildren("Track", namespace).last()
-        var lastTrackpoint = lastTrack.getChildren("Trackpoint", namespace).last()
-
-        val lapStart = parseDateTime(lapElement.getAttributeValue("StartTime"))
-        val lastTp = parseDateTime(lastTrackpoint.getChildText("Time", namespace))
-        val lapStartMillis = Date310Utils.getMilliseconds(lapStart)
-        val lastTpMillis = Date310Utils.getMilliseconds(lastTp)
-        return (lastTpMillis - lapStartMillis) / 1000.0
-    }
+        // get distance data (some trackpoints might not have distance data!)
+        strDistanceMeters?.let {
+            val tpDistanceMeters = it.toDouble()
+            evSample.distance = Math.round(tpDistanceMeters).toInt()
 
-    private fun calculateAvgSpeed(exercise: EVExercise) {
-        exercise.speed!!.speedAvg = CalculationUtils.calculateAvgSpeed(
-                exercise.speed!!.distance / 1000.0, Math.round(exercise.duration!! / 10f)).toFloat()
-    }
+            // calculate speed between current and previous trackpoint
+            evSample.speed = 0f
+            if (lapState.previousTrackpointTimestamp > Long.MIN_VALUE) {
+                val tpTimestampDiff = tpMillis - lapState.previousTrackpointTimestamp
+                // sometimes computed difference is < 0 => impossible, use 0 instead
+                val tpDistanceDiff = Math.max(tpDistanceMeters - lapState.previousTrackpointDistanceMeters, 0.0)
 
-    /**
-     * Returns the optional cadence value if present. It looks first for the cycling cadence. If not found it looks for
-     * the run cadence extension.
-     *
-     * @param eTrackpoint element to check
-     * @return cadence or null
-     */
-    private fun getCadenceOfTrackpoint(eTrackpoint: Element): Short? {
+                evSample.speed = CalculationUtils.calculateAvgSpeed(
+                        tpDistanceDiff / 1000.0, Math.round(tpTimestampDiff / 1000.0).toInt()).toFloat()
+            }
+            lapState.previousTrackpointTimestamp = tpMillis
+            lapState.previousTrackpointDistanceMeters = tpDistanceMeters
 
-        val strCadence = eTrackpoint.getChildText("Cadence", namespace)
-        if (strCadence != null) {
-            return strCadence.toShort()
+            evLap.speed!!.speedEnd = evSample.speed ?: 0f
+            exercise.speed!!.speedMax = Math.max(evSample.speed ?: 0f, exercise.speed!!.speedMax)
         }
 
-        val strRunCadence = eTrackpoint.getChild("Extensions", namespace)
-                ?.getChild("TPX", namespaceExt)
-                ?.getChildText("RunCadence", namespaceExt)
-        if (strRunCadence != null) {
-            return strRunCadence.toShort()
+        // get optional altitude data
+        strAltitudeMeters?.let {
+            val tpAltitude = it.toDouble()
+            evSample.altitude = Math.round(tpAltitude).toShort()
+            state.altitudeMetersTotal += Math.round(tpAltitude)
+
+            // create altitude objects for exercise and current lap if not done yet
+            if (exercise.altitude == null) {
+                exercise.recordingMode.isAltitude = true
+                exercise.altitude = ExerciseAltitude(
+                        altitudeMin = Short.MAX_VALUE,
+                        altitudeAvg = Math.round(state.altitudeMetersTotal / state.trackpointCount).toShort(),
+                        altitudeMax = Short.MIN_VALUE,
+                        ascent = 0,
+                        descent = 0)
+            }
+
+            lapState.lapAltitude = Math.round(tpAltitude).toShort()
+
+            exercise.altitude!!.altitudeMin = Math.min(tpAltitude.toInt(), exercise.altitude!!.altitudeMin.toInt()).toShort()
+            exercise.altitude!!.altitudeMax = Math.max(tpAltitude.toInt(), exercise.altitude!!.altitudeMax.toInt()).toShort()
+
+            // calculate lap ascent (need to use double precision here)
+            if (lapState.previousTrackpointAltitudeMeters > Double.MIN_VALUE &&
+                    tpAltitude > lapState.previousTrackpointAltitudeMeters) {
+                val tpAscent = tpAltitude - lapState.previousTrackpointAltitudeMeters
+                lapState.lapAscentMeters += tpAscent
+            }
+            lapState.previousTrackpointAltitudeMeters = tpAltitude
         }
 
-        return null
+        // get optional cadence data, look first for the cycling cadence, then for the run cadence extension
+        val cadence = (strCadence ?: strRunCadence)?.toShort()
+        if (cadence != null) {
+            evSample.cadence = cadence
+            evLap.speed!!.cadence = evSample.cadence ?: 0
+
+            // create cadence object for exercise if not done yet
+            if (exercise.cadence == null) {
+                exercise.cadence = ExerciseCadence(0, 0)
+                exercise.recordingMode.isCadence = true
+            }
+
+            // compute max and average cadence if present
+            exercise.cadence!!.cadenceMax = Math.max(cadence.toInt(), exercise.cadence!!.cadenceMax.toInt()).toShort()
+            if (cadence > 0) {
+                state.cadenceSum += cadence
+                exercise.cadence!!.cadenceAvg = Math.round(state.cadenceSum / (++state.cadenceCount).toDouble()).toShort()
+            }
+        }
+    }
+
+    private fun calculateAvgSpeed(exercise: EVExercise) {
+        exercise.speed!!.speedAvg = CalculationUtils.calculateAvgSpeed(
+                exercise.speed!!.distance / 1000.0, Math.round(exercise.duration!! / 10f)).toFloat()
     }
 
     /**
@@ -365,4 +361,29 @@ class GarminTcxParser : AbstractExerciseParser() {
             dateTimeText
         return LocalDateTime.parse(dateTimeTextFixed, DateTimeFormatter.ISO_LOCAL_DATE_TIME)
     }
+
+    /**
+     * Parse state of an activity, it contains the data needed for computing the exercise totals.
+     */
+    private class ActivityParseState {
+        var exerciseDateTimeMillis: Long? = null
+        var trackpointCount: Int = 0
+        var altitudeMetersTotal: Double = 0.0
+        var cadenceCount: Int = 0
+        var cadenceSum: Long = 0
+        var totalTimeGapBetweenLaps: Long = 0
+        var lastTrackpointTimestamp: Long = 0
+    }
+
+    /**
+     * Parse state of a lap, it contains the data of the previous trackpoint and the lap totals.
+     */
+    private class LapParseState {
+        var lapAltitude: Short? = null
+        var lapAscentMeters: Double = 0.0
+        var lastTrackpointTimestamp: Long? = null
+        var previousTrackpointTimestamp = Long.MIN_VALUE
+        var previousTrackpointDistanceMeters = Double.MIN_VALUE
+        var previousTrackpointAltitudeMeters = Double.MIN_VALUE
+    }
 }
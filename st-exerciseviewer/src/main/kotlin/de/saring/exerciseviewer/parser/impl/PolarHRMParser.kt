@@ -34,14 +34,14 @@ class PolarHRMParser : AbstractExerciseParser() {
     fun parseExercise(filename: String): EVExercise {
 
         try {
-            val fileContent = File(filename).readLines()
+            val fileContent = HrmFileContent(File(filename).readLines())
             return parseExerciseFromContent(fileContent)
         } catch (e: Exception) {
             throw EVException("Failed to read the HRM exercise file '$filename' ...", e)
         }
     }
 
-    private fun parseExerciseFromContent(fileContent: List<String>): EVExercise
+    private fun parseExerciseFromContent(fileContent: HrmFileContent): EVExercise
     {
         // parse basic exercise data
         val exercise = EVExercise(EVExercise.ExerciseFileType.HRM)
@@ -64,24 +64,24 @@ class PolarHRMParser : AbstractExerciseParser() {
     /**
      * Parses the 'Params' block of the exercise file.
      *
-     * @param fileContent all exercise file lines
+     * @param fileContent indexed content of the exercise file
      * @param exercise the created exercise
      * @return flag whether the exercise file uses metric (true) or english (false) units
      */
-    private fun parseBlockParams(fileContent: List<String>, exercise: EVExercise): Boolean {
+    private fun parseBlockParams(fileContent: HrmFileContent, exercise: EVExercise): Boolean {
 
-        // get lines of 'Params' block
-        val lParamsBlock = getBlockLines(fileContent, "Params", true)
+        // get values of 'Params' block
+        val params = fileContent.getParams()
 
         // check HRM file version
-        val strVersion = getValueFromBlock(lParamsBlock, "Version")
+        val strVersion = getParamValue(params, "Version")
         if (strVersion != "106" && strVersion != "107") {
             throw EVException("Failed to read HRM file, the version needs to be '106' or '107'!")
         }
 
         // parse recording mode informations
         // (since Polar S720 the length can be 9 instead of 8, althought the HRM version is still 1.06)
-        val strSMode = getValueFromBlock(lParamsBlock, "SMode")
+        val strSMode = getParamValue(params, "SMode")
         exercise.recordingMode.isHeartRate = true
         exercise.recordingMode.isSpeed = strSMode[0] == '1'
         exercise.recordingMode.isCadence = strSMode[1] == '1'
@@ -96,13 +96,13 @@ class PolarHRMParser : AbstractExerciseParser() {
         val fMetricUnits = strSMode[7] == '0'
 
         // parse exercise dateTime (yyyymmdd)
-        val strDate = getValueFromBlock(lParamsBlock, "Date")
+        val strDate = getParamValue(params, "Date")
         val exeYear = strDate.substring(0, 4).toInt()
         val exeMonth = strDate.substring(4, 6).toInt()
         val exeDay = strDate.substring(6, 8).toInt()
 
         // parse exercise start time (can be either h:mm:ss.d or hh:mm:ss.d !)
-        val strStartTime = getValueFromBlock(lParamsBlock, "StartTime")
+        val strStartTime = getParamValue(params, "StartTime")
         val startTimeSplitted = strStartTime.split(":", ".")
         if (startTimeSplitted.size != 4) {
             throw EVException("Failed to read HRM file, can't parse exercise start time (wrong format)!");
@@ -115,7 +115,7 @@ class PolarHRMParser : AbstractExerciseParser() {
         exercise.dateTime = LocalDateTime.of(exeYear, exeMonth, exeDay, exeHour, exeMinute, exeSecond)
 
         // parse exercise duration (can be either h:mm:ss.d or hh:mm:ss.d !)
-        val strDuration = getValueFromBlock(lParamsBlock, "Length")
+        val strDuration = getParamValue(params, "Length")
         val durationSplitted = strDuration.split(":", ".")
         if (durationSplitted.size != 4) {
             throw EVException("Failed to read HRM file, can't parse exercise duration (wrong format)!")
@@ -129,7 +129,7 @@ class PolarHRMParser : AbstractExerciseParser() {
         exercise.duration = (durHour * 60 * 60 * 10) + (durMinute * 60 * 10) + durSecond * 10 + durTenthOfSecond
 
         // parse interval
-        val strInterval = getValueFromBlock(lParamsBlock, "Interval")
+        val strInterval = getParamValue(params, "Interval")
         exercise.recordingInterval = strInterval.toShort()
 
         // ignore Upper1, Lower1, ... Lower3, they're again in block Summary-123
@@ -140,16 +140,16 @@ class PolarHRMParser : AbstractExerciseParser() {
     /**
      * Parses the 'IntTimes' block of the exercise file, which contains the lap information.
      *
-     * @param fileContent all exercise file lines
+     * @param fileContent indexed content of the exercise file
      * @param exercise the created exercise
      * @param fMetricUnits flag whether the exercise file uses metric (true) or english (false) units
      */
-    private fun  parseBlockIntTimes(fileContent: List<String>, exercise: EVExercise, fMetricUnits: Boolean) {
+    private fun  parseBlockIntTimes(fileContent: HrmFileContent, exercise: EVExercise, fMetricUnits: Boolean) {
         //////////////////////////////////////////////////////////////////////
         // parse 'IntTimes' block (Lap times)
 
         // get lines of 'IntTimes' block (can be empty when 0 laps, e.g. for Polar S510)
-        val lIntTimesBlock = getBlockLines(fileContent, "IntTimes", false)
+        val lIntTimesBlock = fileContent.getBlockLines("IntTimes", false)
         if (lIntTimesBlock.size % 5 != 0) {
             throw EVException("Failed to read HRM file, invalid number of lines in block 'IntTimes'!")
         }
@@ -260,15 +260,15 @@ class PolarHRMParser : AbstractExerciseParser() {
     /**
      * Parses the 'Summary-123' block of the exercise file, which contains the heart rate range information.
      *
-     * @param fileContent all exercise file lines
+     * @param fileContent indexed content of the exercise file
      * @param exercise the created exercise
      */
-    private fun parseBlockSummaryTimes(fileContent: List<String>, exercise: EVExercise) {
+    private fun parseBlockSummaryTimes(fileContent: HrmFileContent, exercise: EVExercise) {
 
         // get lines of 'Summary-123' block
         // (mostly 7 lines, 8 lines for Polar CS600, data of last line is unknown)
         // (HRM export of Polar RCX3 does contain 6 lines only)
-        val lSummary123Block = getBlockLines(fileContent, "Summary-123", true)
+        val lSummary123Block = fileContent.getBlockLines("Summary-123", true)
         if (lSummary123Block.size < 6) {
             throw EVException("Failed to read HRM file, can't find block 'Summary-123' or block is not valid!")
         }
@@ -317,14 +317,14 @@ class PolarHRMParser : AbstractExerciseParser() {
      * Parses the 'Trip' block of the exercise file, which contains the speed and altitude information. This block is
      * not contained in all files (e.g. missing on S410 or S610).
      *
-     * @param fileContent all exercise file lines
+     * @param fileContent indexed content of the exercise file
      * @param exercise the created exercise
      * @param fMetricUnits flag whether the exercise file uses metric (true) or english (false) units
      */
-    private fun parseBlockTrip(fileContent: List<String>, exercise: EVExercise, fMetricUnits: Boolean) {
+    private fun parseBlockTrip(fileContent: HrmFileContent, exercise: EVExercise, fMetricUnits: Boolean) {
 
         // get lines of 'Trip' block
-        val lTripBlock = getBlockLines(fileContent, "Trip", false)
+        val lTripBlock = fileContent.getBlockLines("Trip", false)
         if (lTripBlock.size == 8) {
             // parse speed informations
             if (exercise.recordingMode.isSpeed) {
@@ -372,16 +372,19 @@ class PolarHRMParser : AbstractExerciseParser() {
     /**
      * Parses the 'HRData' block of the exercise file, which contains the exercise sample information.
      *
-     * @param fileContent all exercise file lines
+     * @param fileContent indexed content of the exercise file
      * @param exercise the created exercise
      * @param fMetricUnits flag whether the exercise file uses metric (true) or english (false) units
      */
-    private fun parseBlockHrData(fileContent: List<String>, exercise: EVExercise, fMetricUnits: Boolean) {
+    private fun parseBlockHrData(fileContent: HrmFileContent, exercise: EVExercise, fMetricUnits: Boolean) {
 
         // get lines of 'HRData' block
-        val lHRDataBlock = getBlockLines(fileContent, "HRData", true)
+        val lHRDataBlock = fileContent.getBlockLines("HRData", true)
         val sampleCount = lHRDataBlock.size
 
+        // the sample lines contain up to 4 relevant values (heartrate, speed, cadence and altitude)
+        val sampleValues = IntArray(4)
+
         // parse each exercise sample line
         for (i in 0..(sampleCount - 1)) {
             var tokenIndex = 0
@@ -389,17 +392,20 @@ class PolarHRMParser : AbstractExerciseParser() {
             exercise.sampleList.add(sample)
             sample.timestamp = i * exercise.recordingInterval!! * 1000L
 
-            // split sample line into parts
-            val currSampleSplitted = lHRDataBlock[i].split("\t")
+            // parse values of the sample line
+            val sampleValueCount = parseSampleValues(lHRDataBlock[i], sampleValues)
+            if (sampleValueCount == 0) {
+                throw EVException("Failed to read HRM file, sample ${i + 1} in block 'HRData' contains no values!")
+            }
 
             // 1. part is heartrate
-            sample.heartRate = currSampleSplitted[tokenIndex].toShort()
+            sample.heartRate = sampleValues[tokenIndex].toShort()
             tokenIndex++
 
             // next part can be speed, when recorded
-            if (currSampleSplitted.size > tokenIndex && exercise.recordingMode.isSpeed) {
+            if (sampleValueCount > tokenIndex && exercise.recordingMode.isSpeed) {
                 // speed is km/h or m/h * 10
-                var speedX10 = currSampleSplitted[tokenIndex].toInt()
+                var speedX10 = sampleValues[tokenIndex]
                 if (!fMetricUnits) {
                     speedX10 = ConvertUtils.convertMiles2Kilometer(speedX10)
                 }
@@ -409,14 +415,14 @@ class PolarHRMParser : AbstractExerciseParser() {
             }
 
             // next part can be cadence, when recorded
-            if (currSampleSplitted.size > tokenIndex && exercise.recordingMode.isCadence) {
-                sample.cadence = currSampleSplitted[tokenIndex].toShort()
+            if (sampleValueCount > tokenIndex && exercise.recordingMode.isCadence) {
+                sample.cadence = sampleValues[tokenIndex].toShort()
                 tokenIndex++
             }
 
             // next part can be altitude, when recorded
-            if (currSampleSplitted.size > tokenIndex && exercise.recordingMode.isAltitude) {
-                var altitude = currSampleSplitted[tokenIndex].toInt()
+            if (sampleValueCount > tokenIndex && exercise.recordingMode.isAltitude) {
+                var altitude = sampleValues[tokenIndex]
                 if (!fMetricUnits) {
                     altitude = ConvertUtils.convertFeet2Meter(altitude)
                 }
@@ -492,57 +498,65 @@ class PolarHRMParser : AbstractExerciseParser() {
     }
 
     /**
-     * This method returns the list of all content lines of the specified block in the exercise file (e.g. when
-     * blockName="Params" it returns all lines after the line "[Params]" and before next block start.
-     * An empty list will be returned when the block can't be found or is empty. When the fRequired flag is true and
-     * nothing was found then a EVException will be thrown.
+     * Parses the integer values of a sample line in the 'HRData' block, the values are separated by tabs or spaces.
+     * The values are parsed directly from the line characters, no substrings need to be created for each value.
      *
-     * @param fileContent list of lines from the exercise files
-     * @param blockName name of the block
-     * @param required flag whether the specified block is required
-     * return lines of the found block
-     * @throws EVException when the block was required and was not found
+     * @param line sample line
+     * @param values array for the parsed values, additional values of the line will be ignored
+     * @return number of parsed values
+     * @throws EVException when the line contains an invalid value
      */
-    private fun getBlockLines(fileContent: List<String>, blockName: String, required: Boolean): List<String> {
-
-        val strBlockLine = "[$blockName]"
-        var foundLines = mutableListOf<String>()
-        var found = false
-
-        // collect all lines from the block start to end
-        for (line in fileContent) {
+    private fun parseSampleValues(line: String, values: IntArray): Int {
+        val length = line.length
+        var index = 0
+        var count = 0
+
+        while (count < values.size) {
+            // skip separators before the value
+            while (index < length && isSampleValueSeparator(line[index])) {
+                index++
+            }
+            if (index == length) {
+                break
+            }
 
-            if (line.startsWith(strBlockLine)) {
-                found = true
-                continue
+            val negative = line[index] == '-'
+            if (negative || line[index] == '+') {
+                index++
             }
 
-            if (found) {
-                if (line.isBlank() || line.startsWith('[')) {
-                    break
+            val digitsStart = index
+            var value = 0
+            while (index < length && !isSampleValueSeparator(line[index])) {
+                val digit = line[index] - '0'
+                if (digit < 0 || digit > 9 || index - digitsStart >= MAX_SAMPLE_VALUE_DIGITS) {
+                    throw EVException("Failed to read HRM file, invalid value in sample line '$line'!")
                 }
-                foundLines.add(line)
+                value = value * 10 + digit
+                index++
+            }
+            if (index == digitsStart) {
+                throw EVException("Failed to read HRM file, invalid value in sample line '$line'!")
             }
-        }
 
-        return if (required && foundLines.isEmpty())
-            throw EVException("Failed to read HRM file, can't find block '$blockName'!")
-            else foundLines
+            values[count++] = if (negative) -value else value
+        }
+        return count
     }
 
+    private fun isSampleValueSeparator(character: Char): Boolean = character == '\t' || character == ' '
+
     /**
-     * Searches for the specified value in the passed list of block lines (Strings).
-     * Example: if name is "Version" this method return "106" if the line "Version=106" is in blockLines.
+     * Returns the specified value of the 'Params' block.
+     * Example: if name is "Version" this method return "106" if the line "Version=106" is in the block.
      *
-     * @param blockLines list of lines of a block
+     * @param params map of all values of the 'Params' block
      * @param name name of the value
      * @return value
      * @throws EVException when the value can't be found
      */
-    private fun getValueFromBlock(blockLines: List<String>, name: String): String {
-        return blockLines.find { it.startsWith("$name=") }
-                ?.substring(name.length + 1)
-                ?: throw EVException("Failed to read HRM file, can't find value for '$name'!")
+    private fun getParamValue(params: Map<String, String>, name: String): String {
+        return params[name] ?: throw EVException("Failed to read HRM file, can't find value for '$name'!")
     }
 
     private fun minShort(value1: Short, value2: Short): Short =
@@ -550,4 +564,78 @@ class PolarHRMParser : AbstractExerciseParser() {
 
     private fun maxShort(value1: Short, value2: Short): Short =
             Math.max(value1.toInt(), value2.toInt()).toShort()
+
+    /**
+     * Content of an HRM exercise file. All lines are indexed in a single pass on creation, the line ranges of all
+     * blocks get stored. So each block can be accessed directly, no need to scan all the lines for each block.
+     *
+     * @param lines all lines of the exercise file
+     */
+    private class HrmFileContent(private val lines: List<String>) {
+
+        /** Map of the line ranges of all blocks, the key is the block name (the first one wins for duplicates). */
+        private val blockRanges = mutableMapOf<String, IntRange>()
+
+        init {
+            var blockName: String? = null
+            var blockStart = 0
+
+            // a block starts after the line "[blockName]" and ends before the next blank or block start line
+            for ((lineIndex, line) in lines.withIndex()) {
+                if (line.startsWith('[') || line.isBlank()) {
+                    blockName?.let { blockRanges.putIfAbsent(it, blockStart until lineIndex) }
+                    blockName = null
+
+                    val blockNameEnd = line.indexOf(']')
+                    if (line.startsWith('[') && blockNameEnd > 0) {
+                        blockName = line.substring(1, blockNameEnd)
+                        blockStart = lineIndex + 1
+                    }
+                }
+            }
+            blockName?.let { blockRanges.putIfAbsent(it, blockStart until lines.size) }
+        }
+
+        /**
+         * This method returns the list of all content lines of the specified block in the exercise file (e.g. when
+         * blockName="Params" it returns all lines after the line "[Params]" and before next block start.
+         * An empty list will be returned when the block can't be found or is empty. When the fRequired flag is true
+         * and nothing was found then a EVException will be thrown.
+         *
+         * @param blockName name of the block
+         * @param required flag whether the specified block is required
+         * return lines of the found block
+         * @throws EVException when the block was required and was not found
+         */
+        fun getBlockLines(blockName: String, required: Boolean): List<String> {
+            val blockRange = blockRanges[blockName]
+            val foundLines = if (blockRange == null) emptyList() else lines.subList(blockRange.first, blockRange.last + 1)
+
+            return if (required && foundLines.isEmpty())
+                throw EVException("Failed to read HRM file, can't find block '$blockName'!")
+                else foundLines
+        }
+
+        /**
+         * Returns the map of all values of the 'Params' block, the key is the value name. Example: the line
+         * "Version=106" results in the entry "Version" -> "106".
+         *
+         * @throws EVException when the 'Params' block can't be found
+         */
+        fun getParams(): Map<String, String> {
+            val params = mutableMapOf<String, String>()
+            for (line in getBlockLines("Params", true)) {
+                val separatorIndex = line.indexOf('=')
+                if (separatorIndex >= 0) {
+                    params.putIfAbsent(line.substring(0, separatorIndex), line.substring(separatorIndex + 1))
+                }
+            }
+            return params
+        }
+    }
+
+    companion object {
+        /** Maximum number of digits of a sample value, so an integer overflow is not possible. */
+        private const val MAX_SAMPLE_VALUE_DIGITS = 9
+    }
 }
@@ -9,9 +9,6 @@ import de.saring.util.unitcalc.CalculationUtils
 import de.saring.util.unitcalc.FormatUtils
 import de.saring.util.unitcalc.TimeUtils
 import de.saring.util.unitcalc.UnitSystem
-import org.jdom2.Element
-import org.jdom2.Namespace
-import org.jdom2.input.SAXBuilder
 import java.time.LocalDateTime
 import java.time.format.DateTimeFormatter
 
@@ -28,7 +25,7 @@ class PolarPedParser : AbstractExerciseParser() {
 
     private val formatUtils = FormatUtils(UnitSystem.METRIC)
 
-    private val namespace = Namespace.getNamespace("http://www.polarpersonaltrainer.com")
+    private val namespace = "http://www.polarpersonaltrainer.com"
 
     override
     val info = ExerciseParserInfo("Polar Personal Trainer Export Data", listOf("ped", "PED"))
@@ -36,38 +33,68 @@ class PolarPedParser : AbstractExerciseParser() {
     override
     fun parseExercise(filename: String): EVExercise {
 
-        val eRoot = readPedFile(filename)
-        val eCalendarItems = eRoot.getChild("calendar-items", namespace)
-
-        val exercise = parseFirstExercisesElement(eCalendarItems)
-        return exercise ?: throw EVException("No exercise found in file '$filename'!")
+        val exerciseTexts = readFirstExerciseTexts(filename)
+        return exerciseTexts?.let { parseExerciseTexts(it) }
+                ?: throw EVException("No exercise found in file '$filename'!")
     }
 
-    private fun readPedFile(filename: String): Element {
+    /**
+     * Reads the texts of the first exercise element in the calendar items, all other exercises are skipped.
+     *
+     * @return the exercise texts or null when the file contains no exercise
+     */
+    private fun readFirstExerciseTexts(filename: String): ExerciseTexts? {
         try {
-            // create a File of the filename string to avoid URL problems when filename contains spaces or umlauts
-            val document = SAXBuilder().build(java.io.File(filename))
-            return document.rootElement
+            return XmlElementReader.parseFile(filename) { reader ->
+                var exerciseTexts: ExerciseTexts? = null
+                reader.forEachChildElement {
+                    if (reader.isElement(namespace, "calendar-items") && exerciseTexts == null) {
+                        reader.forEachChildElement {
+                            if (reader.isElement(namespace, "exercise") && exerciseTexts == null) {
+                                exerciseTexts = readExerciseTexts(reader)
+                            }
+                        }
+                    }
+                }
+                exerciseTexts
+            }
         } catch (e: Exception) {
             throw EVException("Failed to parse the Polar Personal Trainer exercise file '$filename' ...", e)
         }
     }
 
-    private fun parseFirstExercisesElement(eCalendarItems: Element): EVExercise? {
-
-        val eExercise = eCalendarItems.getChild("exercise", namespace)
-        if (eExercise == null) {
-            return null
+    private fun readExerciseTexts(reader: XmlElementReader): ExerciseTexts {
+        var time: String? = null
+        var resultTexts: Map<String, String> = emptyMap()
+        var heartRateTexts: Map<String, String>? = null
+
+        reader.forEachChildElement {
+            if (reader.isElement(namespace, "time") && time == null) {
+                time = reader.readText()
+            } else if (reader.isElement(namespace, "result")) {
+                val texts = mutableMapOf<String, String>()
+                reader.forEachChildElement {
+                    if (reader.isElement(namespace, "heart-rate")) {
+                        if (heartRateTexts == null) heartRateTexts = reader.readChildTexts(namespace)
+                    } else if ((reader.isElement(namespace, "duration") || reader.isElement(namespace, "distance") ||
+                                    reader.isElement(namespace, "calories")) && !texts.containsKey(reader.localName)) {
+                        texts[reader.localName] = reader.readText()
+                    }
+                }
+                resultTexts = texts
+            }
         }
+        return ExerciseTexts(time, resultTexts, heartRateTexts ?: emptyMap())
+    }
+
+    private fun parseExerciseTexts(exerciseTexts: ExerciseTexts): EVExercise {
 
         // parse basic exercise data
         val exercise = EVExercise(EVExercise.ExerciseFileType.PED)
         exercise.deviceName = "Polar PED"
 
         // Exercise Date
-        val eResult = eExercise.getChild("result", namespace)
-        val dateTime = eExercise.getChildText("time", namespace)
-        exercise.dateTime = LocalDateTime.parse(dateTime, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.S"))
+        exercise.dateTime = LocalDateTime.parse(exerciseTexts.time, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.S"))
 
         exercise.recordingMode.isHeartRate = true
         exercise.recordingMode.isSpeed = true
@@ -76,12 +103,12 @@ class PolarPedParser : AbstractExerciseParser() {
         exercise.recordingMode.isPower = false
 
         // Exercise Duration
-        val duration = formatDuration(eResult.getChildText("duration", namespace))
+        val duration = formatDuration(exerciseTexts.resultTexts["duration"]!!)
         val exerciseDuration = TimeUtils.timeString2TotalSeconds(duration)
         exercise.duration = exerciseDuration * 10
 
         // Distance
-        val distance = eResult.getChildText("distance", namespace).toDouble().toInt()
+        val distance = exerciseTexts.resultTexts["distance"]!!.toDouble().toInt()
 
         // calculate average speed
         val speedAvg = if (exerciseDuration > 0) {
@@ -91,15 +118,13 @@ class PolarPedParser : AbstractExerciseParser() {
         exercise.speed = ExerciseSpeed(speedAvg, 0f, distance)
 
         // Wasted Energy
-        exercise.energy = eResult.getChildText("calories", namespace)?.toInt() ?: 0
+        exercise.energy = exerciseTexts.resultTexts["calories"]?.toInt() ?: 0
 
         // Heart rate average
-        exercise.heartRateAVG =
-                eResult.getChild("heart-rate", namespace)?.getChildText("average", namespace)?.toShort() ?: 0
+        exercise.heartRateAVG = exerciseTexts.heartRateTexts["average"]?.toShort() ?: 0
 
         // Heart rate maximum
-        exercise.heartRateMax =
-                eResult.getChild("heart-rate", namespace)?.getChildText("maximum", namespace)?.toShort() ?: 0
+        exercise.heartRateMax = exerciseTexts.heartRateTexts["maximum"]?.toShort() ?: 0
 
         return exercise
     }
@@ -113,4 +138,12 @@ class PolarPedParser : AbstractExerciseParser() {
             duration
         }
     }
+
+    /**
+     * The texts of the parsed exercise element, the result element and its heart-rate element.
+     */
+    private class ExerciseTexts(
+            val time: String?,
+            val resultTexts: Map<String, String>,
+            val heartRateTexts: Map<String, String>)
 }
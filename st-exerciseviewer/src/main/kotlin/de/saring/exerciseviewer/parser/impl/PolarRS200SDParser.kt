@@ -8,8 +8,6 @@ import de.saring.exerciseviewer.data.Lap
 import de.saring.exerciseviewer.data.LapSpeed
 import de.saring.exerciseviewer.parser.AbstractExerciseParser
 import de.saring.exerciseviewer.parser.ExerciseParserInfo
-import org.jdom2.Element
-import org.jdom2.input.SAXBuilder
 import java.time.LocalDateTime
 
 /**
@@ -26,9 +24,7 @@ class PolarRS200SDParser : AbstractExerciseParser() {
     fun parseExercise(filename: String): EVExercise {
 
         try {
-            // create a File of the filename string to avoid URL problems when filename contains spaces or umlauts
-            val document = SAXBuilder().build(java.io.File(filename))
-            return parseExerciseElement(document.rootElement)
+            return XmlElementReader.parseFile(filename) { reader -> parseExerciseElement(reader) }
         }
         catch (e: Exception) {
             throw EVException("Failed to read the RS200SD exercise file '$filename'!", e)
@@ -36,53 +32,88 @@ class PolarRS200SDParser : AbstractExerciseParser() {
     }
 
     /**
-     * Parses the exercise data from the specified rs200_session element.
+     * Parses the exercise data from the rs200_session element of the specified reader.
      */
-    private fun parseExerciseElement(eSession: Element): EVExercise {
+    private fun parseExerciseElement(reader: XmlElementReader): EVExercise {
+
+        var sessionData: SessionData? = null
+        reader.forEachChildElement {
+            if (reader.isElement("", "session_data") && sessionData == null) {
+                sessionData = readSessionData(reader)
+            }
+        }
+        return parseSessionData(sessionData!!)
+    }
+
+    /**
+     * Reads the texts of the current session_data element, the order of its child elements is not relevant.
+     */
+    private fun readSessionData(reader: XmlElementReader): SessionData {
+        val sessionData = SessionData()
+        reader.forEachChildElement {
+            when (reader.localName) {
+                "summary" -> sessionData.summary = reader.readChildTexts("")
+                "sportzones" -> reader.forEachChildElement {
+                    if (reader.localName == "sportzone") sessionData.sportzones.add(reader.readChildTexts(""))
+                }
+                "laps" -> reader.forEachChildElement {
+                    if (reader.localName == "lap") sessionData.laps.add(reader.readChildTexts(""))
+                }
+                else -> {
+                    val name = reader.localName
+                    reader.readLeafText()?.let { sessionData.texts.putIfAbsent(name, it) }
+                }
+            }
+        }
+        return sessionData
+    }
+
+    /**
+     * Parses the exercise data from the texts of the session_data element.
+     */
+    private fun parseSessionData(sessionData: SessionData): EVExercise {
 
         // parse basic exercise data
         val exercise = EVExercise(EVExercise.ExerciseFileType.RS200SDRAW)
         exercise.deviceName = "Polar RS200"
         exercise.recordingMode.isHeartRate = true
 
-        val eSessionData = eSession.getChild("session_data")
+        val texts = sessionData.texts
         exercise.dateTime = LocalDateTime.of(
-                eSessionData.getChildText("year").toInt(),
-                eSessionData.getChildText("month").toInt(),
-                eSessionData.getChildText("day").toInt(),
-                eSessionData.getChildText("start_hour").toInt(),
-                eSessionData.getChildText("start_minute").toInt(),
-                eSessionData.getChildText("start_second").toInt())
-
-        val eSummary = eSessionData.getChild("summary")
-        exercise.duration = (eSummary.getChildText("length").toDouble() * 10.0).toInt()
-        exercise.heartRateAVG = eSummary.getChildText("avg_hr").toShort()
-        exercise.heartRateMax = eSummary.getChildText("max_hr").toShort()
-        exercise.energy = eSummary.getChildText("calories").toInt()
-        val maxSetHr = eSummary.getChildText("max_set_hr").toInt()
+                texts["year"]!!.toInt(),
+                texts["month"]!!.toInt(),
+                texts["day"]!!.toInt(),
+                texts["start_hour"]!!.toInt(),
+                texts["start_minute"]!!.toInt(),
+                texts["start_second"]!!.toInt())
+
+        val summary = sessionData.summary
+        exercise.duration = (summary["length"]!!.toDouble() * 10.0).toInt()
+        exercise.heartRateAVG = summary["avg_hr"]!!.toShort()
+        exercise.heartRateMax = summary["max_hr"]!!.toShort()
+        exercise.energy = summary["calories"]!!.toInt()
+        val maxSetHr = summary["max_set_hr"]!!.toInt()
 
         // parse heartrate limits
-        val eSortzoneList = eSessionData.getChild("sportzones").getChildren("sportzone")
-
-        for (eSortzone in eSortzoneList) {
-            val lowerHeartRate = (eSortzone.getChildText("low_percent").toInt() * maxSetHr / 100).toShort()
-            val upperHeartRate = (eSortzone.getChildText("high_percent").toInt() * maxSetHr / 100).toShort()
-            val timeWithin = eSortzone.getChildText("time_on").toDouble().toInt()
+        for (sportzone in sessionData.sportzones) {
+            val lowerHeartRate = (sportzone["low_percent"]!!.toInt() * maxSetHr / 100).toShort()
+            val upperHeartRate = (sportzone["high_percent"]!!.toInt() * maxSetHr / 100).toShort()
+            val timeWithin = sportzone["time_on"]!!.toDouble().toInt()
 
             exercise.heartRateLimits.add(HeartRateLimit(lowerHeartRate, upperHeartRate, null, timeWithin, null))
         }
 
         // parse speed data when available
-        val hasSpeedData = eSessionData.getChildText("has_pace_data").toBoolean()
-        val distance = eSummary.getChildText("total_distance").toInt()
+        val hasSpeedData = texts["has_pace_data"].toBoolean()
+        val distance = summary["total_distance"]!!.toInt()
 
         // "has_pace_data" can also be true, when no speed data was recorded and "total_distance" is 0
         // => then the speed needs to be disabled in exercise, ExerciseViewer will have problems to display
         //    the inconsistent data (see SourceForge bug #1524834)
         if (hasSpeedData && distance > 0) {
             exercise.speed = ExerciseSpeed(
-                    speedAvg = convertSpeed(eSummary.getChildText("avg_pace").toFloat()),
-                    speedMax = convertSpeed(eSummary.getChildText("max_pace").toFloat()),
+                    speedAvg = convertSpeed(summary["avg_pace"]!!.toFloat()),
+                    speedMax = convertSpeed(summary["max_pace"]!!.toFloat()),
                     distance = distance)
             exercise.recordingMode.isSpeed = true
         } else {
@@ -90,21 +121,19 @@ class PolarRS200SDParser : AbstractExerciseParser() {
         }
 
         // parse laps (they are in reverse order in XML)
-        val eLapList = eSessionData.getChild("laps").getChildren("lap")
-
-        for (eLap in eLapList) {
+        for (lapTexts in sessionData.laps) {
             val lap = Lap()
             exercise.lapList.add(lap)
 
-            lap.timeSplit = (eLap.getChildText("lap_end_time").toDouble() * 10.0).toInt()
-            lap.heartRateSplit = eLap.getChildText("end_hr").toShort()
-            lap.heartRateAVG = eLap.getChildText("avg_hr").toShort()
-            lap.heartRateMax = eLap.getChildText("max_hr").toShort()
+            lap.timeSplit = (lapTexts["lap_end_time"]!!.toDouble() * 10.0).toInt()
+            lap.heartRateSplit = lapTexts["end_hr"]!!.toShort()
+            lap.heartRateAVG = lapTexts["avg_hr"]!!.toShort()
+            lap.heartRateMax = lapTexts["max_hr"]!!.toShort()
 
             if (hasSpeedData) {
-                val lapSpeedDistance = eLap.getChildText("lap_length").toInt()
-                val lapSpeedEnd = convertSpeed(eLap.getChildText("end_pace").toFloat())
-                val lapSpeedAVG = convertSpeed(eLap.getChildText("avg_pace").toFloat())
+                val lapSpeedDistance = lapTexts["lap_length"]!!.toInt()
+                val lapSpeedEnd = convertSpeed(lapTexts["end_pace"]!!.toFloat())
+                val lapSpeedAVG = convertSpeed(lapTexts["avg_pace"]!!.toFloat())
                 lap.speed = LapSpeed(lapSpeedEnd, lapSpeedAVG, lapSpeedDistance)
             }
         }
@@ -130,4 +159,14 @@ class PolarRS200SDParser : AbstractExerciseParser() {
     private fun convertSpeed(speed: Float): Float {
         return if (speed > 0) 3600 / speed else 0f
     }
+
+    /**
+     * The texts of the session_data element and its summary, sportzone and lap child elements.
+     */
+    private class SessionData {
+        val texts = mutableMapOf<String, String>()
+        var summary: Map<String, String> = emptyMap()
+        val sportzones = mutableListOf<Map<String, String>>()
+        val laps = mutableListOf<Map<String, String>>()
+    }
 }
@@ -11,9 +11,6 @@ import de.saring.exerciseviewer.parser.AbstractExerciseParser
 import de.saring.exerciseviewer.parser.ExerciseParserInfo
 import de.saring.util.Date310Utils
 import de.saring.util.unitcalc.CalculationUtils
-import org.jdom2.Element
-import org.jdom2.Namespace
-import org.jdom2.input.SAXBuilder
 import java.time.LocalDateTime
 import java.time.format.DateTimeFormatter
 import kotlin.math.roundToInt
@@ -30,9 +27,9 @@ class TopoGrafixGpxParser : AbstractExerciseParser() {
     private val degreeToRadianDivider: Double = 57.29577951
     private val earthRadiosInMeter: Double = 6371000.0
 
-    private val namespace = Namespace.getNamespace("http://www.topografix.com/GPX/1/1")
-    private val namespaceExtV1 = Namespace.getNamespace("http://www.garmin.com/xmlschemas/TrackPointExtension/v1")
-    private val namespaceExtV2 = Namespace.getNamespace("http://www.garmin.com/xmlschemas/TrackPointExtension/v2")
+    private val namespace = "http://www.topografix.com/GPX/1/1"
+    private val namespaceExtV1 = "http://www.garmin.com/xmlschemas/TrackPointExtension/v1"
+    private val namespaceExtV2 = "http://www.garmin.com/xmlschemas/TrackPointExtension/v2"
 
     override
     val info = ExerciseParserInfo("TopoGrafix GPX", listOf("gpx", "GPX"))
@@ -41,9 +38,7 @@ class TopoGrafixGpxParser : AbstractExerciseParser() {
     fun parseExercise(filename: String): EVExercise {
 
         try {
-            // create a File of the filename string to avoid URL problems when filename contains spaces or umlauts
-            val document = SAXBuilder().build(java.io.File(filename))
-            return parseExerciseElement(document.rootElement)
+            return XmlElementReader.parseFile(filename) { reader -> parseExerciseElement(reader) }
         }
         catch (e: Exception) {
             throw EVException("Failed to read the TopoGrafix GPX exercise file '$filename'!", e)
@@ -51,12 +46,12 @@ class TopoGrafixGpxParser : AbstractExerciseParser() {
     }
 
     /**
-     * Parses the exercise data from the specified gpx (root) element.
+     * Parses the exercise data from the gpx (root) element of the specified reader.
      */
-    private fun parseExerciseElement(eGpx: Element): EVExercise {
+    private fun parseExerciseElement(reader: XmlElementReader): EVExercise {
 
-        val exercise = createExercise(eGpx)
-        exercise.sampleList = parseSampleTrackpoints(eGpx, exercise)
+        val exercise = createExercise()
+        exercise.sampleList = parseGpxElement(reader, exercise)
         calculateDistanceAndSpeedPerPoint(exercise)
         exercise.speed = null;
         if (exercise.recordingMode.isAltitude) {
@@ -78,88 +73,119 @@ class TopoGrafixGpxParser : AbstractExerciseParser() {
     /**
      * Creates the EVExercise with basic exercise data.
      */
-    private fun createExercise(eGpx: Element): EVExercise {
+    private fun createExercise(): EVExercise {
 
         val exercise = EVExercise(EVExercise.ExerciseFileType.GPX)
         exercise.deviceName = "Garmin GPX"
         exercise.recordingInterval = EVExercise.DYNAMIC_RECORDING_INTERVAL
         exercise.recordingMode = RecordingMode()
         exercise.recordingMode.isLocation = true
-
-        // get dateTime and time (optional)
-        val strTime = eGpx.getChild("metadata")?.getChildText("time")
-        if (strTime != null) {
-            exercise.dateTime = parseDateTime(strTime)
-        }
-
         return exercise
     }
 
     /**
-     * Parses all trackpoints in all tracks and track segments under the "gpx" element and returns the exercise samples.
+     * Parses the optional metadata and all trackpoints in all tracks and track segments under the "gpx" element and
+     * returns the exercise samples. The samples are created while reading the trackpoints.
      */
-    private fun parseSampleTrackpoints(eGpx: Element, exercise: EVExercise): MutableList<ExerciseSample> {
+    private fun parseGpxElement(reader: XmlElementReader, exercise: EVExercise): MutableList<ExerciseSample> {
         val samples = mutableListOf<ExerciseSample>()
 
-        for (eTrk in eGpx.getChildren("trk", namespace)) {
-            for (eTrkSeg in eTrk.getChildren("trkseg", namespace)) {
-                for (eTrkPt in eTrkSeg.getChildren("trkpt", namespace)) {
-
-                    val sample = ExerciseSample()
-                    samples.add(sample)
-
-                    // get position
-                    sample.position = Position(eTrkPt.getAttributeValue("lat").toDouble(), eTrkPt.getAttributeValue("lon").toDouble())
-
-                    // get altitude (optional)
-                    val strElevation = eTrkPt.getChildText("ele", namespace)
-                    if (strElevation != null) {
-                        exercise.recordingMode.isAltitude = true
-                        sample.altitude = Math.round(strElevation.toDouble()).toShort()
-                    }
-
-                    // get timestamp and calculate sample time offset (optional)
-                    val strTime = eTrkPt.getChildText("time", namespace)
-                    if (strTime != null) {
-                        val timestampSample = parseDateTime(strTime)
-
-                        // store first timestamp as exercise start time when missing
-                        // or when exercise timestamp larger then (first) track time stamp
-                        // (In some GPX files track metadata is missing, while in some other
-                        //  GPX file, the time stamp in the meta data is the time the track
-                        //  was saved -thus after the exercise- and not the time the track
-                        //  was started)
-                        if (exercise.dateTime == null || exercise.dateTime!!.isAfter(timestampSample)) {
-                            exercise.dateTime = timestampSample
+        reader.forEachChildElement {
+            // get dateTime and time (optional, the metadata element is expected without namespace)
+            if (reader.isElement("", "metadata")) {
+                val strTime = reader.readChildTexts("")["time"]
+                if (strTime != null && exercise.dateTime == null) {
+                    exercise.dateTime = parseDateTime(strTime)
+                }
+            }
+            else if (reader.isElement(namespace, "trk")) {
+                reader.forEachChildElement {
+                    if (reader.isElement(namespace, "trkseg")) {
+                        reader.forEachChildElement {
+                            if (reader.isElement(namespace, "trkpt")) {
+                                samples.add(parseTrackpoint(reader, exercise))
+                            }
                         }
-                        sample.timestamp = Date310Utils.getMilliseconds(timestampSample) -
-                                Date310Utils.getMilliseconds(exercise.dateTime!!)
                     }
+                }
+            }
+        }
 
-                    // try to get heartrate in Garmin Oregon format if present
-                    var strHeartrate = eTrkPt.getChild("extensions", namespace)?.getChild("TrackPointExtension", namespaceExtV1)?.getChildText("hr", namespaceExtV1)
-                    // if not present, try to get heartrate by using the TrackPointExtension/v2 schema namespace
-                    if (strHeartrate == null) {
-                        strHeartrate = eTrkPt.getChild("extensions", namespace)?.getChild("TrackPointExtension", namespaceExtV2)?.getChildText("hr", namespaceExtV2)
-                    }
-                    // if not present, try to get heartrate in Holux FunTrek 130 pro format if present
-                    if (strHeartrate == null) {
-                        strHeartrate = eTrkPt.getChild("extensions", namespace)?.getChildText("bpm", namespace)
-                    }
-                    // if not present, try to get heartrate in GatdetBridge format if present (Android Bridge App)
-                    if (strHeartrate == null) {
-                        strHeartrate = eTrkPt.getChild("extensions", namespace)?.getChildText("hr", namespace)
-                    }
+        return samples
+    }
 
-                    if (strHeartrate != null) {
-                        exercise.recordingMode.isHeartRate = true
-                        sample.heartRate = strHeartrate.toShort()
+    /**
+     * Parses the current trackpoint element and returns the exercise sample.
+     */
+    private fun parseTrackpoint(reader: XmlElementReader, exercise: EVExercise): ExerciseSample {
+
+        val sample = ExerciseSample()
+
+        // get position
+        sample.position = Position(reader.getAttribute("lat")!!.toDouble(), reader.getAttribute("lon")!!.toDouble())
+
+        var strElevation: String? = null
+        var strTime: String? = null
+        var strHeartrateExtV1: String? = null
+        var strHeartrateExtV2: String? = null
+        var strHeartrateBpm: String? = null
+        var strHeartrateHr: String? = null
+        var extensionsParsed = false
+
+        reader.forEachChildElement {
+            when {
+                reader.isElement(namespace, "ele") -> if (strElevation == null) strElevation = reader.readText()
+                reader.isElement(namespace, "time") -> if (strTime == null) strTime = reader.readText()
+                reader.isElement(namespace, "extensions") && !extensionsParsed -> {
+                    extensionsParsed = true
+                    reader.forEachChildElement {
+                        when {
+                            reader.isElement(namespaceExtV1, "TrackPointExtension") -> if (strHeartrateExtV1 == null)
+                                strHeartrateExtV1 = reader.readChildTexts(namespaceExtV1)["hr"]
+                            reader.isElement(namespaceExtV2, "TrackPointExtension") -> if (strHeartrateExtV2 == null)
+                                strHeartrateExtV2 = reader.readChildTexts(namespaceExtV2)["hr"]
+                            reader.isElement(namespace, "bpm") -> if (strHeartrateBpm == null)
+                                strHeartrateBpm = reader.readText()
+                            reader.isElement(namespace, "hr") -> if (strHeartrateHr == null)
+                                strHeartrateHr = reader.readText()
+                        }
                     }
                 }
             }
         }
 
-        return samples
+        // get altitude (optional)
+        strElevation?.let {
+            exercise.recordingMode.isAltitude = true
+            sample.altitude = Math.round(it.toDouble()).toShort()
+        }
+
+        // get timestamp and calculate sample time offset (optional)
+        strTime?.let {
+            val timestampSample = parseDateTime(it)
+
+            // store first timestamp as exercise start time when missing
+            // or when exercise timestamp larger then (first) track time stamp
+            // (In some GPX files track metadata is missing, while in some other
+            //  GPX file, the time stamp in the meta data is the time the track
+            //  was saved -thus after the exercise- and not the time the track
+            //  was started)
+            if (exercise.dateTime == null || exercise.dateTime!!.isAfter(timestampSample)) {
+                exercise.dateTime = timestampSample
+            }
+            sample.timestamp = Date310Utils.getMilliseconds(timestampSample) -
+                    Date310Utils.getMilliseconds(exercise.dateTime!!)
+        }
+
+        // get heartrate in Garmin Oregon format if present, otherwise by using the TrackPointExtension/v2 schema
+        // namespace, otherwise in Holux FunTrek 130 pro format, otherwise in GatdetBridge format (Android Bridge App)
+        val strHeartrate = strHeartrateExtV1 ?: strHeartrateExtV2 ?: strHeartrateBpm ?: strHeartrateHr
+        if (strHeartrate != null) {
+            exercise.recordingMode.isHeartRate = true
+            sample.heartRate = strHeartrate.toShort()
+        }
+
+        return sample
     }
 
     /**
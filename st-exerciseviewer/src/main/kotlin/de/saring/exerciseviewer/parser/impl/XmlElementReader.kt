@@ -0,0 +1,146 @@
+package de.saring.exerciseviewer.parser.impl
+
+import java.io.BufferedInputStream
+import java.io.FileInputStream
+import javax.xml.stream.XMLInputFactory
+import javax.xml.stream.XMLStreamConstants
+import javax.xml.stream.XMLStreamReader
+
+/**
+ * Helper class for parsing XML-based exercise files in a single streaming pass by using a StAX XMLStreamReader.
+ * In contrast to a DOM parser no document tree is created, the elements are processed while reading, so the memory
+ * usage is independent of the file size. The element callbacks must process the current element completely or
+ * leave it unread, remaining content of an element will be skipped.
+ *
+ * @author Stefan Saring
+ */
+internal class XmlElementReader private constructor(private val reader: XMLStreamReader) {
+
+    /** Local name of the current element. */
+    val localName: String
+        get() = reader.localName
+
+    /**
+     * Checks whether the current element has the specified name.
+     *
+     * @param namespace namespace URI of the element, empty string for elements without namespace
+     * @param localName local name of the element
+     * @return true when the element matches
+     */
+    fun isElement(namespace: String, localName: String): Boolean =
+            reader.localName == localName && (reader.namespaceURI ?: "") == namespace
+
+    /**
+     * Returns the value of the specified (not namespaced) attribute of the current element or null when missing.
+     */
+    fun getAttribute(localName: String): String? = reader.getAttributeValue(null, localName)
+
+    /**
+     * Reads the text content of the current element, which must not contain child elements.
+     */
+    fun readText(): String = reader.elementText
+
+    /**
+     * Calls the action for each child element of the current element, the reader is positioned at the child element
+     * start. Afterwards the reader is positioned at the end of the current element.
+     */
+    fun forEachChildElement(action: () -> Unit) {
+        while (true) {
+            when (reader.next()) {
+                XMLStreamConstants.START_ELEMENT -> {
+                    action()
+                    // skip the child element when it was not read by the action
+                    if (reader.eventType == XMLStreamConstants.START_ELEMENT) {
+                        skipElement()
+                    }
+                }
+                XMLStreamConstants.END_ELEMENT -> return
+            }
+        }
+    }
+
+    /**
+     * Reads the texts of all child elements of the current element, which don't contain child elements themselves
+     * (the other child elements are skipped). When there are multiple child elements with the same name, then the
+     * text of the first is returned.
+     *
+     * @param namespace namespace URI of the child elements, empty string for elements without namespace
+     * @return map of the child element texts, the key is the local element name
+     */
+    fun readChildTexts(namespace: String): Map<String, String> {
+        val childTexts = mutableMapOf<String, String>()
+        forEachChildElement {
+            if ((reader.namespaceURI ?: "") == namespace) {
+                val childName = reader.localName
+                val text = readLeafText()
+                if (text != null) {
+                    childTexts.putIfAbsent(childName, text)
+                }
+            }
+        }
+        return childTexts
+    }
+
+    /**
+     * Reads the text content of the current element or returns null when it contains child elements (they are
+     * skipped then).
+     */
+    fun readLeafText(): String? {
+        val sbText = StringBuilder()
+        var leafElement = true
+        var depth = 1
+        while (depth > 0) {
+            when (reader.next()) {
+                XMLStreamConstants.START_ELEMENT -> {
+                    leafElement = false
+                    depth++
+                }
+                XMLStreamConstants.END_ELEMENT -> depth--
+                XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+                    if (depth == 1) sbText.append(reader.text)
+            }
+        }
+        return if (leafElement) sbText.toString() else null
+    }
+
+    private fun skipElement() {
+        var depth = 1
+        while (depth > 0) {
+            when (reader.next()) {
+                XMLStreamConstants.START_ELEMENT -> depth++
+                XMLStreamConstants.END_ELEMENT -> depth--
+            }
+        }
+    }
+
+    companion object {
+
+        private val inputFactory: XMLInputFactory = XMLInputFactory.newFactory().apply {
+            setProperty(XMLInputFactory.IS_COALESCING, true)
+            setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false)
+            setProperty(XMLInputFactory.SUPPORT_DTD, false)
+        }
+
+        /**
+         * Parses the specified XML file. The parse function is called with the reader positioned at the start of
+         * the root element. The file is closed afterwards.
+         *
+         * @param filename name of the XML file
+         * @param parse function for parsing the root element
+         * @return the result of the parse function
+         */
+        fun <T> parseFile(filename: String, parse: (XmlElementReader) -> T): T {
+            BufferedInputStream(FileInputStream(filename)).use { inputStream ->
+                val reader = synchronized(inputFactory) { inputFactory.createXMLStreamReader(inputStream) }
+                try {
+                    while (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                        // skip the prolog
+                    }
+                    return parse(XmlElementReader(reader))
+                } finally {
+                    reader.close()
+                }
+            }
+        }
+    }
+}
@@ -4,11 +4,11 @@ import com.garmin.fit.*
 import java.util.LinkedList
 
 import de.saring.exerciseviewer.core.EVException
+import de.saring.exerciseviewer.core.ExerciseSampleIndex
 import de.saring.exerciseviewer.data.*
 import de.saring.util.Date310Utils
 import de.saring.util.unitcalc.CalculationUtils
 import de.saring.util.unitcalc.ConvertUtils
-import kotlin.math.abs
 import kotlin.math.roundToInt
 
 /**
@@ -27,8 +27,8 @@ internal class FitMessageListener : MesgListener {
     /** Accumulated elapsed time (incl. breaks) at lap end (sum for all laps) in msecs. */
     private var lapElapsedTimeAccumulated = 0.0
 
-    /** List of created exercise samples (collected in a LinkedList and not in EVExercise array, much faster). */
-    private val lSamples = LinkedList<ExerciseSample>()
+    /** Columns of all read exercise sample values, no sample objects are created while parsing. */
+    private val samples = ExerciseSampleColumns()
 
     /** Flag for availability of temperature data. */
     private var temperatureAvailable = false
@@ -39,7 +39,7 @@ internal class FitMessageListener : MesgListener {
         when (mesg.num) {
             MesgNum.SESSION -> readSessionMessage(SessionMesg(mesg))
             MesgNum.LAP -> readLapMessage(LapMesg(mesg))
-            MesgNum.RECORD -> readRecordMessage(RecordMesg(mesg))
+            MesgNum.RECORD -> readRecordMessage(mesg)
             MesgNum.LENGTH -> readLengthMessage(LengthMesg(mesg))
             MesgNum.DEVICE_INFO -> readDeviceInfoMessage(DeviceInfoMesg(mesg))
             MESG_NUM_HEARTRATE_ZONES_NEW -> readHeartrateZonesNewMessage(mesg)
@@ -182,49 +182,57 @@ internal class FitMessageListener : MesgListener {
     }
 
     /**
-     * Reads sample-level data from the specified Record message.
+     * Reads sample-level data from the specified Record message. The field values are read directly from the message
+     * (the same way as RecordMesg does it), so the message fields don't need to be copied to a RecordMesg.
      *
      * @param mesg Record message
      */
-    private fun readRecordMessage(mesg: RecordMesg) {
+    private fun readRecordMessage(mesg: Mesg) {
 
-        val sample = ExerciseSample()
-        lSamples.add(sample)
+        val index = samples.addSample()
 
         // sample timestamp must be the offset from start time, will be corrected later
         // (in some cases the timestamp is missing and will be read from the next Length message)
-        mesg.timestamp?.let { sample.timestamp = it.date.time }
+        mesg.timestampToDateTime(mesg.getFieldLongValue(RecordMesg.TimestampFieldNum, 0, Fit.SUBFIELD_INDEX_MAIN_FIELD))
+            ?.let { samples.timestamp[index] = it.date.time }
 
-        mesg.heartRate?.let {
-            sample.heartRate = it
+        mesg.getFieldShortValue(RecordMesg.HeartRateFieldNum, 0, Fit.SUBFIELD_INDEX_MAIN_FIELD)?.let {
+            samples.heartRate[index] = it
             exercise.recordingMode.isHeartRate = true
         }
 
-        mesg.distance?.let { sample.distance = Math.round(it) }
-        mesg.cadence?.let { sample.cadence = it }
-        mesg.power?.let { sample.power = it.toShort() }
+        mesg.getFieldFloatValue(RecordMesg.DistanceFieldNum, 0, Fit.SUBFIELD_INDEX_MAIN_FIELD)
+            ?.let { samples.distance[index] = Math.round(it) }
+        mesg.getFieldShortValue(RecordMesg.CadenceFieldNum, 0, Fit.SUBFIELD_INDEX_MAIN_FIELD)
+            ?.let { samples.cadence[index] = it }
+        mesg.getFieldIntegerValue(RecordMesg.PowerFieldNum, 0, Fit.SUBFIELD_INDEX_MAIN_FIELD)
+            ?.let { samples.power[index] = it.toShort() }
 
         // on newer high-end Garmin devices (e.g. Fenix 6 or 5X) the speed and altitude is stored in the
         // enhancedSpeed or enhancedAltitude attributes => get it from there
-        val mesgSpeed: Float? = if (mesg.enhancedSpeed != null) mesg.enhancedSpeed else mesg.speed
+        val mesgSpeed = mesg.getFieldFloatValue(RecordMesg.EnhancedSpeedFieldNum, 0, Fit.SUBFIELD_INDEX_MAIN_FIELD)
+            ?: mesg.getFieldFloatValue(RecordMesg.SpeedFieldNum, 0, Fit.SUBFIELD_INDEX_MAIN_FIELD)
         mesgSpeed?.let {
-            sample.speed = ConvertUtils.convertMeterPerSecond2KilometerPerHour(it)
+            samples.speed[index] = ConvertUtils.convertMeterPerSecond2KilometerPerHour(it)
         }
 
-        val mesgAltitude: Float? = if (mesg.enhancedAltitude != null) mesg.enhancedAltitude else mesg.altitude
+        val mesgAltitude = mesg.getFieldFloatValue(RecordMesg.EnhancedAltitudeFieldNum, 0, Fit.SUBFIELD_INDEX_MAIN_FIELD)
+            ?: mesg.getFieldFloatValue(RecordMesg.AltitudeFieldNum, 0, Fit.SUBFIELD_INDEX_MAIN_FIELD)
         mesgAltitude?.let {
-            sample.altitude = Math.round(it).toShort()
+            samples.altitude[index] = Math.round(it).toShort()
         }
 
-        mesg.temperature?.let {
+        mesg.getFieldByteValue(RecordMesg.TemperatureFieldNum, 0, Fit.SUBFIELD_INDEX_MAIN_FIELD)?.let {
             temperatureAvailable = true
-            sample.temperature = it.toShort()
+            samples.temperature[index] = it.toShort()
         }
 
-        if (mesg.positionLat != null && mesg.positionLong != null) {
-            sample.position = Position(
-                    ConvertUtils.convertSemicircle2Degree(mesg.positionLat!!),
-                    ConvertUtils.convertSemicircle2Degree(mesg.positionLong!!))
+        val positionLat = mesg.getFieldIntegerValue(RecordMesg.PositionLatFieldNum, 0, Fit.SUBFIELD_INDEX_MAIN_FIELD)
+        val positionLong = mesg.getFieldIntegerValue(RecordMesg.PositionLongFieldNum, 0, Fit.SUBFIELD_INDEX_MAIN_FIELD)
+        if (positionLat != null && positionLong != null) {
+            samples.setPosition(index,
+                    ConvertUtils.convertSemicircle2Degree(positionLat),
+                    ConvertUtils.convertSemicircle2Degree(positionLong))
 
             // Suunto watches don't store the startPosition in the Session message
             // => so enable location recording mode when location data is stored in the Record messages (samples)
@@ -242,14 +250,13 @@ internal class FitMessageListener : MesgListener {
      */
     private fun readLengthMessage(mesg: LengthMesg) {
         // swimming exercises of Garmin Forerunner 645 don't contain any samples
-        if (lSamples.isNotEmpty()) {
+        if (samples.size > 0) {
 
             val startTimestamp = mesg.startTime.date.time
             val totalElapsedTime = Math.round(mesg.totalElapsedTime.toDouble() * 1000.0)
             val endTimestamp = startTimestamp + totalElapsedTime
 
-            val lastSample = lSamples[lSamples.size - 1]
-            lastSample.timestamp = endTimestamp
+            samples.timestamp[samples.size - 1] = endTimestamp
         }
     }
 
@@ -357,7 +364,7 @@ internal class FitMessageListener : MesgListener {
         storeLaps()
 
         calculateMissingAverageSpeed()
-        if (exercise.sampleList.isNotEmpty()) {
+        if (samples.size > 0) {
             calculateAltitudeSummary()
             calculateTemperatureSummary()
             calculateMissingMaxSpeed()
@@ -369,15 +376,17 @@ internal class FitMessageListener : MesgListener {
     }
 
     /**
-     * Stores the sample data in the exercise. It also fixes the timestamps in all ExerciseSamples, it must be the
-     * offset from the start time.
+     * Stores the sample data in the exercise, the ExerciseSamples are a lazy view of the sample columns. It also fixes
+     * the timestamps of all samples, it must be the offset from the start time.
      */
     private fun storeSamples() {
         val startTime = Date310Utils.getMilliseconds(exercise.dateTime!!)
-        for (sample in lSamples) {
-            sample.timestamp?.let { sample.timestamp = it - startTime }
+        for (index in 0 until samples.size) {
+            if (samples.timestamp.isPresent(index)) {
+                samples.timestamp[index] = samples.timestamp[index] - startTime
+            }
         }
-        exercise.sampleList.addAll(lSamples)
+        exercise.sampleList = ExerciseSampleColumnList(samples)
     }
 
     /**
@@ -386,29 +395,31 @@ internal class FitMessageListener : MesgListener {
     private fun storeLaps() {
         var lapDistanceSum = 0
 
+        val sampleIndex = ExerciseSampleIndex(samples)
+
         for (lap in this.lLaps) {
             // get all the missing lap data from the sample at lap end time
-            val sampleAtLapEnd = getExerciseSampleForLapEnd(lap)
-            if (sampleAtLapEnd != null) {
-                lap.heartRateSplit = sampleAtLapEnd.heartRate
+            val sampleAtLapEnd = sampleIndex.findNearestByTimestamp(lap.timeSplit * 100L)
+            if (sampleAtLapEnd >= 0) {
+                lap.heartRateSplit = samples.heartRate.getOrNull(sampleAtLapEnd)
 
                 lap.speed?.let { lapSpeed ->
                     // fix lap distance, it must be the distance from exercise start (FIT stores from Lap start)
                     lapDistanceSum += lapSpeed.distance
                     lapSpeed.distance = lapDistanceSum
 
-                    lapSpeed.speedEnd = sampleAtLapEnd.speed ?: 0f
-                    lapSpeed.cadence = sampleAtLapEnd.cadence
+                    lapSpeed.speedEnd = samples.speed.getOrNull(sampleAtLapEnd) ?: 0f
+                    lapSpeed.cadence = samples.cadence.getOrNull(sampleAtLapEnd)
                 }
 
                 lap.altitude?.let {
-                    if (sampleAtLapEnd.altitude != null) {
-                        lap.altitude = it.copy(altitude = sampleAtLapEnd.altitude as Short, ascent = lap.altitude!!.ascent)
+                    if (samples.altitude.isPresent(sampleAtLapEnd)) {
+                        lap.altitude = it.copy(altitude = samples.altitude[sampleAtLapEnd], ascent = it.ascent)
                     }
                 }
 
                 if (temperatureAvailable) {
-                    sampleAtLapEnd.temperature?.let { lap.temperature = LapTemperature(it) }
+                    samples.temperature.getOrNull(sampleAtLapEnd)?.let { lap.temperature = LapTemperature(it) }
                 }
             }
         }
@@ -416,29 +427,6 @@ internal class FitMessageListener : MesgListener {
         exercise.lapList.addAll(lLaps)
     }
 
-    /**
-     * Returns the closest ExerciseSample for the lap end time.
-     *
-     * @param lap the lap for search
-     * @return the closest ExerciseSample
-     */
-    private fun getExerciseSampleForLapEnd(lap: Lap): ExerciseSample? {
-        val lapSplitTimestamp = lap.timeSplit * 100L
-        var closestSample: ExerciseSample? = null
-        var closestTimeDistance = java.lang.Long.MAX_VALUE
-
-        for (sample in exercise.sampleList) {
-            sample.timestamp?.let {
-                val timeDistance = abs(it - lapSplitTimestamp)
-                if (timeDistance < closestTimeDistance) {
-                    closestTimeDistance = timeDistance
-                    closestSample = sample
-                }
-            }
-        }
-        return closestSample
-    }
-
     /**
      * Calculates the min, max and average altitude (if available) from the sample data.
      */
@@ -449,8 +437,8 @@ internal class FitMessageListener : MesgListener {
             var altMax = Short.MIN_VALUE
             var altitudeSum = 0
 
-            for (sample in exercise.sampleList) {
-                val sampleAltitude = sample.altitude ?: 0
+            for (index in 0 until samples.size) {
+                val sampleAltitude = if (samples.altitude.isPresent(index)) samples.altitude[index] else 0
                 altMin = Math.min(sampleAltitude.toInt(), altMin.toInt()).toShort()
                 altMax = Math.max(sampleAltitude.toInt(), altMax.toInt()).toShort()
                 altitudeSum += sampleAltitude.toInt()
@@ -458,7 +446,7 @@ internal class FitMessageListener : MesgListener {
 
             exerciseAltitude.altitudeMin = altMin
             exerciseAltitude.altitudeMax = altMax
-            exerciseAltitude.altitudeAvg = Math.round(altitudeSum / exercise.sampleList.size.toDouble()).toShort()
+            exerciseAltitude.altitudeAvg = Math.round(altitudeSum / samples.size.toDouble()).toShort()
         }
     }
 
@@ -474,9 +462,10 @@ internal class FitMessageListener : MesgListener {
             var temperatureSum = 0
             var temperatureCount = 0
 
-            for (sample in exercise.sampleList) {
+            for (index in 0 until samples.size) {
                 // it's possible that just a few samples contain no temperature (e.g. for Edge 800)
-                sample.temperature?.let {sampleTemperature ->
+                if (samples.temperature.isPresent(index)) {
+                    val sampleTemperature = samples.temperature[index]
                     tempMin = Math.min(sampleTemperature.toInt(), tempMin.toInt()).toShort()
                     tempMax = Math.max(sampleTemperature.toInt(), tempMax.toInt()).toShort()
                     temperatureSum += sampleTemperature.toInt()
@@ -521,9 +510,8 @@ internal class FitMessageListener : MesgListener {
         exercise.speed?.let { exerciseSpeed ->
             if (exerciseSpeed.speedMax < 0.01) {
 
-                exercise.sampleList
-                    .maxOfOrNull { it.speed ?: 0f }
-                    ?.let { exerciseSpeed.speedMax = it }
+                exerciseSpeed.speedMax = (0 until samples.size)
+                    .maxOf { if (samples.speed.isPresent(it)) samples.speed[it] else 0f }
             }
         }
     }
@@ -534,9 +522,9 @@ internal class FitMessageListener : MesgListener {
     private fun calculateMissingHeartRateAVG() {
         if (exercise.heartRateAVG == null) {
 
-            exercise.sampleList
-                    .filter { it.heartRate != null }
-                    .map { it.heartRate ?: 0 }
+            (0 until samples.size)
+                    .filter { samples.heartRate.isPresent(it) }
+                    .map { samples.heartRate[it] }
                     .average()
                     .let { exercise.heartRateAVG = Math.round(it).toShort() }
         }
@@ -548,9 +536,8 @@ internal class FitMessageListener : MesgListener {
     private fun calculateMissingHeartRateMax() {
         if (exercise.heartRateMax == null) {
 
-            exercise.sampleList
-                .maxOfOrNull { it.heartRate ?: 0 }
-                ?.let { exercise.heartRateMax = it }
+            exercise.heartRateMax = (0 until samples.size)
+                .maxOf { if (samples.heartRate.isPresent(it)) samples.heartRate[it] else 0 }
         }
     }
 
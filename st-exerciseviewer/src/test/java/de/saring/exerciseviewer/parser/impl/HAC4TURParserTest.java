@@ -2,6 +2,7 @@ package de.saring.exerciseviewer.parser.impl;
 
 import de.saring.exerciseviewer.core.EVException;
 import de.saring.exerciseviewer.data.EVExercise;
+import de.saring.exerciseviewer.data.ExerciseSample;
 import de.saring.exerciseviewer.parser.AbstractExerciseParser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -103,6 +104,37 @@ public class HAC4TURParserTest {
         assertEquals(100 * 20 * 1000L, exercise.getSampleList().get(100).getTimestamp().longValue());
     }
 
+    /**
+     * This method tests the parser with an exercise file which contains only a single sample (the
+     * pailheres.tur file reduced to the first sample), the sample interval can't be determined then.
+     */
+    @Test
+    public void testParseSingleSampleExercise() throws EVException {
+
+        // parse exercise
+        EVExercise exercise = parser.parseExercise("misc/testdata/hac4/pailheres-single-sample.tur");
+
+        assertEquals(EVExercise.ExerciseFileType.HAC4TUR, exercise.getFileType());
+        assertEquals(0, exercise.getRecordingInterval().intValue());
+        assertEquals(LocalDateTime.of(2005, 10, 10, 14, 5, 0), exercise.getDateTime());
+
+        // samples
+        assertEquals(1, exercise.getSampleList().size());
+        ExerciseSample sample = exercise.getSampleList().get(0);
+        assertEquals(0L, sample.getTimestamp().longValue());
+        assertEquals(142, sample.getHeartRate().intValue());
+        assertEquals(664, sample.getAltitude().intValue());
+        assertEquals(0, sample.getDistance().intValue());
+        assertEquals(0f, sample.getSpeed().floatValue(), 0.01f);
+
+        // summary values of the single sample
+        assertEquals(142, exercise.getHeartRateMax().intValue());
+        assertEquals(0f, exercise.getSpeed().getSpeedMax(), 0.01f);
+        assertEquals((short) 664, exercise.getAltitude().getAltitudeMax());
+        assertEquals(0, exercise.getHeartRateLimits().get(0).getTimeWithin());
+        assertEquals(1, exercise.getLapList().size());
+    }
+
     /**
      * This method test the parser by using a HAC5 cycling exercise file.
      */
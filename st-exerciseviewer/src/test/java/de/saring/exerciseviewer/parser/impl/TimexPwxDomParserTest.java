@@ -0,0 +1,62 @@
+package de.saring.exerciseviewer.parser.impl;
+
+import de.saring.exerciseviewer.core.EVException;
+import de.saring.exerciseviewer.data.EVExercise;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * This class executes all unit tests of TimexPwxParserTest for the previous DOM based implementation
+ * TimexPwxDomParser. Additionally it verifies that the streaming TimexPwxParser creates identical
+ * exercise data for all PWX test files. The parsers only differ for workouts with the time element
+ * before the device element, which is not valid in PWX files.
+ *
+ * @author Stefan Saring
+ */
+public class TimexPwxDomParserTest extends TimexPwxParserTest {
+
+    private static final String[] PWX_FILES = {
+            "misc/testdata/timex-racetrainer-pwx/Timex20100618201200_1.pwx",
+            "misc/testdata/timex-globaltrainer-pwx/Timex_Global_Trainer_5Laps.pwx",
+            "misc/testdata/timex-runtrainer-pwx/Timex_Run_Trainer_2013_01_01_08_22_52.pwx"};
+
+    @Override
+    @BeforeEach
+    public void setUp() {
+        parser = new TimexPwxDomParser();
+    }
+
+    /**
+     * The streaming parser must create exactly the same exercise data as the DOM based parser.
+     */
+    @Test
+    public void testIdenticalExerciseOfStreamingParser() throws EVException {
+        for (String pwxFile : PWX_FILES) {
+            assertEquals(parser.parseExercise(pwxFile), new TimexPwxParser().parseExercise(pwxFile), pwxFile);
+        }
+    }
+
+    /**
+     * The DOM based parser falls through from the device to the time element, so the start time gets
+     * reset when the time element is located before the device element. This is not possible for valid
+     * PWX files, the schema defines the device element before the time element. The streaming parser
+     * keeps the start time, all other exercise data must be identical.
+     */
+    @Test
+    public void testStartTimeBeforeDeviceElement() throws EVException {
+        final String pwxFile = "misc/testdata/timex-racetrainer-pwx/Timex20100618201200_1_time-before-device.pwx";
+        EVExercise domExercise = parser.parseExercise(pwxFile);
+        EVExercise streamingExercise = new TimexPwxParser().parseExercise(pwxFile);
+
+        assertNull(domExercise.getDateTime());
+        assertEquals(LocalDateTime.of(2010, 6, 18, 20, 12, 0), streamingExercise.getDateTime());
+
+        domExercise.setDateTime(streamingExercise.getDateTime());
+        assertEquals(domExercise, streamingExercise);
+    }
+}
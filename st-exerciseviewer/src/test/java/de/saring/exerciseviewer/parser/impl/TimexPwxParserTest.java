@@ -27,7 +27,7 @@ public class TimexPwxParserTest {
     /**
      * Instance to be tested.
      */
-    private AbstractExerciseParser parser;
+    protected AbstractExerciseParser parser;
 
     /**
      * This method initializes the environment for testing.
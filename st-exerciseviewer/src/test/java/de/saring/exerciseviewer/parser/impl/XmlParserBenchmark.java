@@ -0,0 +1,225 @@
+package de.saring.exerciseviewer.parser.impl;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jdom2.Document;
+import org.jdom2.JDOMException;
+import org.jdom2.input.SAXBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import de.saring.exerciseviewer.data.EVExercise;
+
+/**
+ * JMH micro benchmark for the streaming StAX based GPX and TCX parsers, which replaced the JDOM based parsers. The
+ * previous parsers are not available anymore, so the comparison is done at the same stage: reading all elements,
+ * attributes and texts of the file with a plain StAX stream reader (without creating the exercise data) versus
+ * building the JDOM document tree, which was the first step of the previous parsers. The full parse benchmarks show
+ * the costs of the exercise data creation on top of the StAX reading. The files are large synthetic GPX and TCX
+ * exercises, the GC profiler reports the allocated heap per operation ("gc.alloc.rate.norm"), that's the main
+ * difference because the JDOM tree of the whole file must be kept in memory.
+ *
+ * @author Stefan Saring
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx1g"})
+public class XmlParserBenchmark {
+
+    private static final LocalDateTime START_TIME = LocalDateTime.of(2024, 5, 1, 10, 0, 0);
+
+    @Param({"10000", "100000"})
+    private int trackpointCount;
+
+    private final XMLInputFactory inputFactory = createInputFactory();
+
+    private Path tempDirectory;
+    private String gpxFilename;
+    private String tcxFilename;
+
+    @Setup
+    public void setUp() throws IOException {
+        tempDirectory = Files.createTempDirectory("xml-parser-benchmark");
+        gpxFilename = writeGpxFile(tempDirectory.resolve("benchmark.gpx"));
+        tcxFilename = writeTcxFile(tempDirectory.resolve("benchmark.tcx"));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(Path.of(gpxFilename));
+        Files.deleteIfExists(Path.of(tcxFilename));
+        Files.deleteIfExists(tempDirectory);
+    }
+
+    @Benchmark
+    public void readGpxStax(final Blackhole blackhole) throws IOException, XMLStreamException {
+        readAllContent(gpxFilename, blackhole);
+    }
+
+    @Benchmark
+    public EVExercise parseGpxStax() {
+        return new TopoGrafixGpxParser().parseExercise(gpxFilename);
+    }
+
+    @Benchmark
+    public Document buildGpxJdomTree() throws IOException, JDOMException {
+        return new SAXBuilder().build(new java.io.File(gpxFilename));
+    }
+
+    @Benchmark
+    public void readTcxStax(final Blackhole blackhole) throws IOException, XMLStreamException {
+        readAllContent(tcxFilename, blackhole);
+    }
+
+    @Benchmark
+    public EVExercise parseTcxStax() {
+        return new GarminTcxParser().parseExercise(tcxFilename);
+    }
+
+    @Benchmark
+    public Document buildTcxJdomTree() throws IOException, JDOMException {
+        return new SAXBuilder().build(new java.io.File(tcxFilename));
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(XmlParserBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    /**
+     * Reads all attribute values and texts of the XML file with a StAX stream reader configured like in
+     * XmlElementReader, so it's the same amount of parsing work as building the JDOM tree.
+     */
+    private void readAllContent(final String filename, final Blackhole blackhole)
+            throws IOException, XMLStreamException {
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(filename))) {
+            final XMLStreamReader reader = inputFactory.createXMLStreamReader(inputStream);
+            try {
+                while (reader.hasNext()) {
+                    switch (reader.next()) {
+                        case XMLStreamConstants.START_ELEMENT -> {
+                            blackhole.consume(reader.getLocalName());
+                            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                                blackhole.consume(reader.getAttributeValue(i));
+                            }
+                        }
+                        case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+                                blackhole.consume(reader.getText());
+                        default -> {
+                            // other events contain no content
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    private String writeGpxFile(final Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<gpx xmlns=\"http://www.topografix.com/GPX/1/1\" " +
+                    "xmlns:gpxtpx=\"http://www.garmin.com/xmlschemas/TrackPointExtension/v1\" version=\"1.1\">\n");
+            writer.write("<trk><trkseg>\n");
+            for (int i = 0; i < trackpointCount; i++) {
+                writer.write(String.format(Locale.US,
+                        "<trkpt lat=\"%.7f\" lon=\"%.7f\"><ele>%.1f</ele><time>%sZ</time>" +
+                                "<extensions><gpxtpx:TrackPointExtension><gpxtpx:hr>%d</gpxtpx:hr>" +
+                                "</gpxtpx:TrackPointExtension></extensions></trkpt>\n",
+                        getLatitude(i), getLongitude(i), getAltitude(i), START_TIME.plusSeconds(i), getHeartRate(i)));
+            }
+            writer.write("</trkseg></trk>\n</gpx>\n");
+        }
+        return path.toString();
+    }
+
+    private String writeTcxFile(final Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<TrainingCenterDatabase " +
+                    "xmlns=\"http://www.garmin.com/xmlschemas/TrainingCenterDatabase/v2\">\n");
+            writer.write("<Activities><Activity Sport=\"Biking\">\n");
+            writer.write("<Id>" + START_TIME + "Z</Id>\n");
+            writer.write("<Lap StartTime=\"" + START_TIME + "Z\"><TotalTimeSeconds>" + trackpointCount +
+                    "</TotalTimeSeconds><DistanceMeters>" + getDistance(trackpointCount - 1) +
+                    "</DistanceMeters><Calories>1000</Calories><Track>\n");
+            for (int i = 0; i < trackpointCount; i++) {
+                writer.write(String.format(Locale.US,
+                        "<Trackpoint><Time>%sZ</Time><Position><LatitudeDegrees>%.7f</LatitudeDegrees>" +
+                                "<LongitudeDegrees>%.7f</LongitudeDegrees></Position>" +
+                                "<AltitudeMeters>%.1f</AltitudeMeters><DistanceMeters>%.1f</DistanceMeters>" +
+                                "<HeartRateBpm><Value>%d</Value></HeartRateBpm></Trackpoint>\n",
+                        START_TIME.plusSeconds(i), getLatitude(i), getLongitude(i), getAltitude(i), getDistance(i),
+                        getHeartRate(i)));
+            }
+            writer.write("</Track></Lap>\n");
+            writer.write("<Creator><Name>Benchmark</Name></Creator>\n");
+            writer.write("</Activity></Activities>\n</TrainingCenterDatabase>\n");
+        }
+        return path.toString();
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        return factory;
+    }
+
+    private static double getLatitude(final int index) {
+        return 51.0 + index * 0.00005;
+    }
+
+    private static double getLongitude(final int index) {
+        return 13.0 + Math.sin(index / 100.0) * 0.01;
+    }
+
+    private static double getAltitude(final int index) {
+        return 200.0 + Math.sin(index / 500.0) * 50.0;
+    }
+
+    private static double getDistance(final int index) {
+        return index * 5.5;
+    }
+
+    private static int getHeartRate(final int index) {
+        return 120 + index % 40;
+    }
+}
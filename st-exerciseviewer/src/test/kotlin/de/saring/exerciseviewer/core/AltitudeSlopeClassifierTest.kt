@@ -0,0 +1,64 @@
+package de.saring.exerciseviewer.core
+
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+
+/**
+ * This class contains all unit tests for the AltitudeSlopeClassifier class.
+ *
+ * @author Stefan Saring
+ */
+class AltitudeSlopeClassifierTest {
+
+    private val classifier = AltitudeSlopeClassifier(intArrayOf(0, 5, 7, 10, 15))
+
+    /**
+     * Tests the creation of the slope series for a flat segment, a 10% climb and a flat segment again.
+     */
+    @Test
+    fun testCreateSlopeSeries() {
+        val distances = doubleArrayOf(0.0, 50.0, 100.0, 150.0, 200.0, 250.0, 300.0, 350.0, 400.0)
+        val altitudes = doubleArrayOf(100.0, 100.0, 100.0, 100.0, 105.0, 110.0, 115.0, 115.0, 115.0)
+
+        val slopeSeries = classifier.createSlopeSeries(distances, altitudes, 1.0, 1.0, 100.0)
+        assertEquals(5, slopeSeries.size)
+
+        // flat segments: values of the climb are 0
+        assertArrayEquals(doubleArrayOf(0.0, 50.0, 100.0, 150.0, 150.0, 300.0, 300.0, 350.0, 400.0), slopeSeries[0][0])
+        assertArrayEquals(doubleArrayOf(100.0, 100.0, 100.0, 100.0, 0.0, 0.0, 115.0, 115.0, 115.0), slopeSeries[0][1])
+
+        // slope range 5% - 7% is not contained
+        assertArrayEquals(doubleArrayOf(0.0, 0.0), slopeSeries[1][0])
+        assertArrayEquals(doubleArrayOf(100.0, 0.0), slopeSeries[1][1])
+
+        // slope range 10% - 15% contains the climb
+        assertArrayEquals(doubleArrayOf(0.0, 0.0, 150.0, 150.0, 200.0, 250.0, 300.0, 300.0), slopeSeries[3][0])
+        assertArrayEquals(doubleArrayOf(100.0, 0.0, 0.0, 100.0, 105.0, 110.0, 115.0, 0.0), slopeSeries[3][1])
+    }
+
+    /**
+     * The unit factors must be used for the segment length and the slope computation. An altitude delta larger than
+     * the distance (invalid recording) must be classified as the steepest slope.
+     */
+    @Test
+    fun testCreateSlopeSeriesWithFactorsAndInvalidSlope() {
+        // distance in km, altitude in feet: 2 segments, the first with 6% slope, the second is invalid
+        val distances = doubleArrayOf(0.0, 0.11, 0.22)
+        val altitudes = doubleArrayOf(0.0, 6.6 / 0.3048, 1000.0)
+
+        val slopeSeries = classifier.createSlopeSeries(distances, altitudes, 1000.0, 0.3048, 100.0)
+        assertArrayEquals(doubleArrayOf(0.0, 0.11, 0.11), slopeSeries[1][0])
+        assertArrayEquals(doubleArrayOf(0.0, 0.0, 0.11, 0.11, 0.22), slopeSeries[4][0])
+    }
+
+    /**
+     * Empty series must be created for less than 2 values.
+     */
+    @Test
+    fun testCreateSlopeSeriesWithoutSegments() {
+        val slopeSeries = classifier.createSlopeSeries(doubleArrayOf(1.0), doubleArrayOf(100.0), 1.0, 1.0, 100.0)
+        assertEquals(5, slopeSeries.size)
+        slopeSeries.forEach { assertEquals(0, it[0].size) }
+    }
+}
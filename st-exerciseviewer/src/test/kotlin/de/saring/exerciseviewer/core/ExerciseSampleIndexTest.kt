@@ -0,0 +1,89 @@
+package de.saring.exerciseviewer.core
+
+import de.saring.exerciseviewer.data.ExerciseSample
+import de.saring.exerciseviewer.data.Position
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import java.util.Random
+import kotlin.math.PI
+import kotlin.math.abs
+import kotlin.math.cos
+
+/**
+ * This class contains all unit tests for the ExerciseSampleIndex class.
+ *
+ * @author Stefan Saring
+ */
+class ExerciseSampleIndexTest {
+
+    private val random = Random(42)
+
+    /**
+     * Tests the search by timestamp and distance, also for missing and duplicate values.
+     */
+    @Test
+    fun testFindNearestByTimestampAndDistance() {
+        val sampleList = listOf(
+                ExerciseSample(timestamp = 0, distance = 0),
+                ExerciseSample(timestamp = 1000, distance = 10),
+                ExerciseSample(timestamp = null, distance = 10),
+                ExerciseSample(timestamp = 3000, distance = null),
+                ExerciseSample(timestamp = 4000, distance = 30))
+        val sampleIndex = ExerciseSampleIndex(sampleList)
+
+        assertEquals(0, sampleIndex.findNearestByTimestamp(-500))
+        assertEquals(1, sampleIndex.findNearestByTimestamp(1000))
+        assertEquals(3, sampleIndex.findNearestByTimestamp(2600))
+        // equal time distance to 2 samples: the lower index is used
+        assertEquals(1, sampleIndex.findNearestByTimestamp(2000))
+        assertEquals(4, sampleIndex.findNearestByTimestamp(99999))
+
+        // the first sample of duplicate distances is used
+        assertEquals(1, sampleIndex.findNearestByDistance(12))
+        assertEquals(4, sampleIndex.findNearestByDistance(21))
+        assertEquals(-1, ExerciseSampleIndex(listOf(ExerciseSample())).findNearestByDistance(10))
+    }
+
+    /**
+     * Compares the search results of unsorted values with a linear search.
+     */
+    @Test
+    fun testFindNearestByTimestampUnsorted() {
+        val sampleList = List(2000) { ExerciseSample(timestamp = random.nextInt(100000).toLong()) }
+        val sampleIndex = ExerciseSampleIndex(sampleList)
+
+        for (i in 0 until 500) {
+            val timestamp = random.nextInt(110000).toLong() - 5000
+            val expected = sampleList.indices.minByOrNull { abs(sampleList[it].timestamp!! - timestamp) }
+            assertEquals(expected, sampleIndex.findNearestByTimestamp(timestamp))
+        }
+    }
+
+    /**
+     * Compares the search results of the positions with a linear search.
+     */
+    @Test
+    fun testFindNearestByPosition() {
+        val sampleList = List(5000) {
+            if (it % 10 == 0) ExerciseSample()
+            else ExerciseSample(position = Position(50 + random.nextDouble() * 0.2, 10 + random.nextDouble() * 0.3))
+        }
+        val sampleIndex = ExerciseSampleIndex(sampleList)
+        val longitudeScale = cos(sampleList.mapNotNull { it.position?.latitude }.average() * PI / 180.0)
+
+        for (i in 0 until 500) {
+            val latitude = 49.9 + random.nextDouble() * 0.4
+            val longitude = 9.9 + random.nextDouble() * 0.5
+            val expected = sampleList.indices
+                    .filter { sampleList[it].position != null }
+                    .minByOrNull {
+                        val deltaX = (sampleList[it].position!!.longitude - longitude) * longitudeScale
+                        val deltaY = sampleList[it].position!!.latitude - latitude
+                        deltaX * deltaX + deltaY * deltaY
+                    }
+            assertEquals(expected, sampleIndex.findNearestByPosition(latitude, longitude))
+        }
+
+        assertEquals(-1, ExerciseSampleIndex(listOf(ExerciseSample())).findNearestByPosition(50.0, 10.0))
+    }
+}
@@ -0,0 +1,79 @@
+package de.saring.exerciseviewer.core
+
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import java.util.Random
+
+/**
+ * This class contains all unit tests for the MovingAverageFilter class.
+ *
+ * @author Stefan Saring
+ */
+class MovingAverageFilterTest {
+
+    /**
+     * Without range steps the values must not be smoothed, missing values stay missing.
+     */
+    @Test
+    fun testSmoothWithoutRange() {
+        val values = doubleArrayOf(1.0, Double.NaN, 3.0)
+        assertArrayEquals(values, MovingAverageFilter.smooth(values, 0))
+        assertEquals(0, MovingAverageFilter.smooth(DoubleArray(0), 2).size)
+    }
+
+    /**
+     * Tests the filter rules for range ends, missing values and values of 0.
+     */
+    @Test
+    fun testSmoothRules() {
+        val smoothedValues = MovingAverageFilter.smooth(doubleArrayOf(3.0, Double.NaN, 6.0, 0.0, 9.0), 1)
+
+        // first index: (3 + 3 + 3) / 3, the missing value is replaced by the value at the filtered index
+        assertEquals(3.0, smoothedValues[0], DELTA)
+        // missing value at the filtered index: (3 + 0 + 6) / 3
+        assertEquals(3.0, smoothedValues[1], DELTA)
+        // (6 + 6 + 0) / 3
+        assertEquals(4.0, smoothedValues[2], DELTA)
+        assertEquals(0.0, smoothedValues[3], DELTA)
+        // last index: (0 + 9 + 9) / 3
+        assertEquals(6.0, smoothedValues[4], DELTA)
+    }
+
+    /**
+     * The filter must return the same results as the computation of the full range for each value.
+     */
+    @Test
+    fun testSmoothCompareWithFullRangeComputation() {
+        val random = Random(42)
+        val values = DoubleArray(2000) {
+            when (random.nextInt(20)) {
+                0 -> Double.NaN
+                1 -> 0.0
+                else -> random.nextDouble() * 200
+            }
+        }
+
+        for (rangeSteps in listOf(1, 3, 25, 3000)) {
+            val expected = DoubleArray(values.size) { smoothFullRange(values, it, rangeSteps) }
+            assertArrayEquals(expected, MovingAverageFilter.smooth(values, rangeSteps), DELTA)
+        }
+    }
+
+    private fun smoothFullRange(values: DoubleArray, index: Int, rangeSteps: Int): Double {
+        if (values[index] == 0.0) {
+            return 0.0
+        }
+
+        var valueSum = 0.0
+        for (i in index - rangeSteps..index + rangeSteps) {
+            val value = values[i.coerceIn(0, values.size - 1)]
+            valueSum += if (!value.isNaN()) value else if (!values[index].isNaN()) values[index] else 0.0
+        }
+        return valueSum / (2 * rangeSteps + 1)
+    }
+
+    private companion object {
+        const val DELTA = 0.000001
+    }
+}
@@ -0,0 +1,70 @@
+package de.saring.exerciseviewer.data
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+/**
+ * This class contains all unit tests for the ExerciseSampleColumns and ExerciseSampleColumnList classes.
+ *
+ * @author Stefan Saring
+ */
+class ExerciseSampleColumnListTest {
+
+    private lateinit var columns: ExerciseSampleColumns
+
+    @BeforeEach
+    fun setUp() {
+        // use a small capacity, so the columns need to grow
+        columns = ExerciseSampleColumns(2)
+        for (i in 0 until 5) {
+            val index = columns.addSample()
+            columns.timestamp[index] = i * 1000L
+            columns.heartRate[index] = (120 + i).toShort()
+            if (i % 2 == 0) {
+                columns.speed[index] = 20f + i
+                columns.setPosition(index, 51.0 + i, 13.0)
+            }
+        }
+    }
+
+    /**
+     * The samples of the list need to contain the values of the columns, missing values must be null.
+     */
+    @Test
+    fun testGet() {
+        val sampleList = ExerciseSampleColumnList(columns)
+        assertEquals(5, sampleList.size)
+
+        assertEquals(ExerciseSample(timestamp = 4000L, heartRate = 124, speed = 24f, position = Position(55.0, 13.0)),
+            sampleList[4])
+        assertEquals(ExerciseSample(timestamp = 3000L, heartRate = 123), sampleList[3])
+        assertEquals(listOf(20f, null, 22f, null, 24f), sampleList.map { it.speed })
+
+        // the samples are created only once, changes are kept
+        sampleList[1].distance = 500
+        assertSame(sampleList[1], sampleList[1])
+        assertEquals(500, sampleList[1].distance)
+
+        assertThrows(IndexOutOfBoundsException::class.java) { sampleList[5] }
+    }
+
+    /**
+     * The list needs to support structural changes, all samples are kept then.
+     */
+    @Test
+    fun testAddAndRemove() {
+        val sampleList = ExerciseSampleColumnList(columns)
+        sampleList[0].distance = 100
+
+        sampleList.add(ExerciseSample(timestamp = 5000L))
+        sampleList.removeAt(1)
+
+        assertEquals(listOf(0L, 2000L, 3000L, 4000L, 5000L), sampleList.map { it.timestamp })
+        assertEquals(100, sampleList[0].distance)
+        assertTrue(columns.speed.isAnyPresent())
+    }
+}
@@ -0,0 +1,75 @@
+package de.saring.exerciseviewer.parser
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+
+/**
+ * This class contains all unit tests for the BinaryFileContent class.
+ *
+ * @author Stefan Saring
+ */
+class BinaryFileContentTest {
+
+    private val content = BinaryFileContent(ByteBuffer.wrap(
+            byteArrayOf(0x01, 0xff.toByte(), 0x34, 0x12, 0xfe.toByte(), 0xff.toByte(), 0xff.toByte(), 0xff.toByte())))
+
+    /**
+     * Test of the absolute accessors, the bytes must be unsigned and multiple bytes little endian.
+     */
+    @Test
+    fun testAbsoluteAccess() {
+        assertEquals(8, content.size)
+        assertEquals(0x01, content[0])
+        assertEquals(0xff, content[1])
+        assertEquals(0x1234, content.getUInt16LE(2))
+        assertEquals(0xffff, content.getUInt16LE(5))
+        assertEquals(-2, content.getInt32LE(4))
+    }
+
+    /**
+     * Test of the sequential reading by a cursor.
+     */
+    @Test
+    fun testCursor() {
+        val cursor = content.cursor(1)
+        assertEquals(7, cursor.remaining)
+        assertEquals(0xff, cursor.readUInt8())
+        assertEquals(0x1234, cursor.readUInt16LE())
+        assertEquals(-2, cursor.readInt32LE())
+        assertEquals(8, cursor.position)
+        assertEquals(0, cursor.remaining)
+    }
+
+    /**
+     * The accesses outside of the content must fail, a failed cursor read must not move the position.
+     */
+    @Test
+    fun testOutOfBounds() {
+        assertThrows(IndexOutOfBoundsException::class.java) { content[8] }
+        assertThrows(IndexOutOfBoundsException::class.java) { content.getInt32LE(5) }
+        assertThrows(IndexOutOfBoundsException::class.java) { content.cursor(9) }
+
+        val cursor = content.cursor(6)
+        assertThrows(IndexOutOfBoundsException::class.java) { cursor.readInt32LE() }
+        assertEquals(6, cursor.position)
+        assertThrows(IndexOutOfBoundsException::class.java) { cursor.skip(3) }
+    }
+
+    /**
+     * Test of reading an existing exercise file, the content must be equal to the file bytes.
+     */
+    @Test
+    fun testReadFile() {
+        val path: Path = Paths.get("misc/testdata/s710/cycling-metric.srd").toAbsolutePath()
+        val fileBytes = Files.readAllBytes(path)
+        val fileContent = BinaryFileContent.read(path)
+
+        assertEquals(fileBytes.size, fileContent.size)
+        fileBytes.forEachIndexed { index, byte -> assertEquals(byte.toInt() and 0xff, fileContent[index]) }
+    }
+}
@@ -6,9 +6,13 @@ import de.saring.exerciseviewer.parser.impl.TimexPwxParser
 import de.saring.exerciseviewer.parser.impl.garminfit.GarminFitParser
 
 import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotSame
 import org.junit.jupiter.api.Assertions.assertThrows
 import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.Test
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
 
 /**
  * This class contains all unit tests for the ExerciseParserFactory class.
@@ -50,4 +54,48 @@ class ExerciseParserFactoryTest {
             ExerciseParserFactory.getParser("exercises/exercise1.xyz")
         }
     }
+
+    /**
+     * Tests of getParser() method: a new parser instance must be returned for each call.
+     */
+    @Test
+    fun testGetParserNewInstance() {
+        val parser1 = ExerciseParserFactory.getParser("exercises/exercise1.srd")
+        val parser2 = ExerciseParserFactory.getParser("exercises/exercise2.srd")
+        assertNotSame(parser1, parser2)
+    }
+
+    /**
+     * Parses two files of the same format repeatedly in two threads at the same time, the results must be the same
+     * as for sequential parsing (the parsers store the state of the current parse in fields).
+     */
+    @Test
+    fun testParseConcurrently() {
+        val filenames = listOf(
+                "misc/testdata/s710/cycling-metric.srd",
+                "misc/testdata/s710/running-metric.srd")
+        val expectedExercises = filenames.map { ExerciseParserFactory.getParser(it).parseExercise(it) }
+
+        val executor = Executors.newFixedThreadPool(filenames.size)
+        try {
+            val startSignal = CountDownLatch(1)
+            val futures = filenames.map { filename ->
+                executor.submit(Callable {
+                    startSignal.await()
+                    (1..REPETITIONS).map { ExerciseParserFactory.getParser(filename).parseExercise(filename) }
+                })
+            }
+            startSignal.countDown()
+
+            futures.forEachIndexed { index, future ->
+                future.get().forEach { exercise -> assertEquals(expectedExercises[index], exercise) }
+            }
+        } finally {
+            executor.shutdown()
+        }
+    }
+
+    companion object {
+        private const val REPETITIONS = 50
+    }
 }
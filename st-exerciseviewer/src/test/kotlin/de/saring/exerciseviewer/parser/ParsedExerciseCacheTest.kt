@@ -0,0 +1,111 @@
+package de.saring.exerciseviewer.parser
+
+import de.saring.exerciseviewer.core.EVException
+import de.saring.exerciseviewer.data.EVExercise
+import de.saring.exerciseviewer.data.ExerciseSample
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotSame
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ * This class contains all unit tests for the ParsedExerciseCache class.
+ *
+ * @author Stefan Saring
+ */
+class ParsedExerciseCacheTest {
+
+    @TempDir
+    lateinit var tempDirectory: Path
+
+    /** Names of all parsed files. */
+    private val parsedFiles = mutableListOf<String>()
+
+    /** Test parser, it creates an exercise with a sample for each character of the file. */
+    private val parse: (String) -> EVExercise = { filename ->
+        parsedFiles.add(filename)
+        val content = Files.readString(Path.of(filename))
+        EVExercise(EVExercise.ExerciseFileType.HRM).apply {
+            content.forEach { sampleList.add(ExerciseSample()) }
+        }
+    }
+
+    /**
+     * An exercise must be parsed only once, the cached exercise must be returned for the same file afterwards.
+     */
+    @Test
+    fun testGetExerciseCached() {
+        val cache = ParsedExerciseCache(100, parse)
+        val filename = createFile("exercise.hrm", "1234")
+
+        val exercise = cache.getExercise(filename)
+        assertEquals(4, exercise.sampleList.size)
+        assertSame(exercise, cache.getExercise(filename))
+        assertEquals(listOf(filename), parsedFiles)
+    }
+
+    /**
+     * A modified file must be parsed again.
+     */
+    @Test
+    fun testGetExerciseModifiedFile() {
+        val cache = ParsedExerciseCache(100, parse)
+        val filename = createFile("exercise.hrm", "1234")
+        val exercise = cache.getExercise(filename)
+
+        createFile("exercise.hrm", "123456")
+        val modifiedExercise = cache.getExercise(filename)
+        assertNotSame(exercise, modifiedExercise)
+        assertEquals(6, modifiedExercise.sampleList.size)
+        assertEquals(1, cache.size())
+    }
+
+    /**
+     * The least recently used exercises must be removed when the maximum weight is exceeded, exercises larger than
+     * the maximum weight must not be cached at all.
+     */
+    @Test
+    fun testGetExerciseMaxWeight() {
+        val cache = ParsedExerciseCache(10, parse)
+        val filename1 = createFile("exercise1.hrm", "1234")
+        val filename2 = createFile("exercise2.hrm", "1234")
+        val filename3 = createFile("exercise3.hrm", "1234")
+        val filenameLarge = createFile("large.hrm", "1234567890")
+
+        cache.getExercise(filename1)
+        cache.getExercise(filename2)
+        cache.getExercise(filename1)
+        assertEquals(2, cache.size())
+
+        // exercise 2 is the least recently used one
+        cache.getExercise(filename3)
+        assertEquals(2, cache.size())
+        cache.getExercise(filename1)
+        cache.getExercise(filename2)
+        assertEquals(listOf(filename1, filename2, filename3, filename2), parsedFiles)
+
+        cache.getExercise(filenameLarge)
+        cache.getExercise(filenameLarge)
+        assertEquals(2, parsedFiles.count { it == filenameLarge })
+    }
+
+    /**
+     * Missing files must not be cached, the parser reports the error.
+     */
+    @Test
+    fun testGetExerciseMissingFile() {
+        val cache = ParsedExerciseCache(100) { filename -> throw EVException("Failed to read '$filename'!") }
+
+        assertThrows(EVException::class.java) {
+            cache.getExercise(tempDirectory.resolve("missing.hrm").toString())
+        }
+        assertEquals(0, cache.size())
+    }
+
+    private fun createFile(name: String, content: String): String =
+            Files.writeString(tempDirectory.resolve(name), content).toString()
+}
@@ -0,0 +1,171 @@
+package de.saring.exerciseviewer.parser
+
+import de.saring.exerciseviewer.data.EVExercise
+import de.saring.exerciseviewer.data.ExerciseSample
+import de.saring.exerciseviewer.data.Position
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertNotSame
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+
+/**
+ * This class contains all unit tests for the PersistentExerciseCache class.
+ *
+ * @author Stefan Saring
+ */
+class PersistentExerciseCacheTest {
+
+    @TempDir
+    lateinit var tempDirectory: Path
+
+    private val cacheDirectory: Path by lazy { tempDirectory.resolve("cache") }
+
+    /** Names of all parsed files. */
+    private val parsedFiles = mutableListOf<String>()
+
+    /** Test parser, it creates an exercise with a sample for each character of the file. */
+    private val parse: (String) -> EVExercise = { filename ->
+        parsedFiles.add(filename)
+        val content = Files.readString(Path.of(filename))
+        EVExercise(EVExercise.ExerciseFileType.HRM).apply {
+            content.forEachIndexed { index, _ ->
+                val heartRate: Short? = if (index % 2 == 0) 120 else null
+                sampleList.add(ExerciseSample(timestamp = index * 1000L, heartRate = heartRate))
+            }
+        }
+    }
+
+    /**
+     * The exercises of all supported file types must be equal to the parsed exercises after reading them from the
+     * cache files (with a new cache instance, like after an application restart).
+     */
+    @Test
+    fun testGetExerciseAllFileTypes() {
+        val filenames = listOf(
+                "misc/testdata/s710/cycling-metric.hrm",
+                "misc/testdata/s710/cycling-metric.srd",
+                "misc/testdata/f6-test.frd",
+                "misc/testdata/hac4/pailheres.tur",
+                "misc/testdata/garmin-fit/Garmin_Fenix2_running_with_hrm.fit",
+                "misc/testdata/garmin-fit/Garmin_Edge_820-Cycling.fit",
+                "misc/testdata/garmin-tcx/Edge705-Running-Heartrate-2Laps.tcx",
+                "misc/testdata/gpx/bike-tour-garmin-oregon-with-heartrate.gpx",
+                "misc/testdata/timex-globaltrainer-pwx/Timex_Global_Trainer_5Laps.pwx",
+                "misc/testdata/polarpersonaltrainer/polar-ped-sample.ped")
+        val parseFile: (String) -> EVExercise = { ExerciseParserFactory.getParser(it).parseExercise(it) }
+
+        val cache = PersistentExerciseCache(cacheDirectory)
+        val parsedExercises = filenames.map { cache.getExercise(it, parseFile) }
+
+        val restartedCache = PersistentExerciseCache(cacheDirectory)
+        filenames.forEachIndexed { index, filename ->
+            val cachedExercise = restartedCache.getExercise(filename) { throw AssertionError("Parsed $it!") }
+            assertNotSame(parsedExercises[index], cachedExercise)
+            assertEquals(parsedExercises[index], cachedExercise, filename)
+        }
+    }
+
+    /**
+     * A cached exercise must be read from the cache file, the file must be parsed only once.
+     */
+    @Test
+    fun testGetExerciseCached() {
+        val filename = createFile("exercise.hrm", "12345")
+
+        val exercise = PersistentExerciseCache(cacheDirectory).getExercise(filename, parse)
+        val cachedExercise = PersistentExerciseCache(cacheDirectory).getExercise(filename, parse)
+        assertEquals(exercise, cachedExercise)
+        assertEquals(5, cachedExercise.sampleList.size)
+        assertEquals(null, cachedExercise.sampleList[1].heartRate)
+        assertEquals(listOf(filename), parsedFiles)
+    }
+
+    /**
+     * A modified file must be parsed again, also when the modification time and size are unchanged.
+     */
+    @Test
+    fun testGetExerciseModifiedFile() {
+        val filename = createFile("exercise.hrm", "12345")
+        val cache = PersistentExerciseCache(cacheDirectory)
+        cache.getExercise(filename, parse)
+
+        val modificationTime = Files.getLastModifiedTime(Path.of(filename))
+        createFile("exercise.hrm", "abcde")
+        Files.setLastModifiedTime(Path.of(filename), modificationTime)
+        cache.getExercise(filename, parse)
+
+        createFile("exercise.hrm", "123456")
+        assertEquals(6, cache.getExercise(filename, parse).sampleList.size)
+        assertEquals(listOf(filename, filename, filename), parsedFiles)
+    }
+
+    /**
+     * An invalid cache file must be ignored and replaced.
+     */
+    @Test
+    fun testGetExerciseInvalidCacheFile() {
+        val filename = createFile("exercise.hrm", "12345")
+        val cache = PersistentExerciseCache(cacheDirectory)
+        cache.getExercise(filename, parse)
+
+        val cacheFile = cacheFile(cache, filename)
+        val content = Files.readAllBytes(cacheFile)
+        Files.write(cacheFile, content.copyOf(content.size - 10))
+        assertEquals(5, cache.getExercise(filename, parse).sampleList.size)
+        assertEquals(content.size.toLong(), Files.size(cacheFile))
+        assertEquals(2, parsedFiles.size)
+    }
+
+    /**
+     * The least recently used cache files must be deleted when the maximum cache size is exceeded.
+     */
+    @Test
+    fun testGetExerciseMaxCacheSize() {
+        val filename1 = createFile("exercise1.hrm", "1234")
+        val filename2 = createFile("exercise2.hrm", "1234")
+        val filename3 = createFile("exercise3.hrm", "1234")
+
+        val cache = PersistentExerciseCache(cacheDirectory)
+        cache.getExercise(filename1, parse)
+        val cacheFileSize = Files.size(cacheFile(cache, filename1))
+
+        val cacheWithLimit = PersistentExerciseCache(cacheDirectory, cacheFileSize * 2)
+        cacheWithLimit.getExercise(filename2, parse)
+        Files.setLastModifiedTime(cacheFile(cache, filename1), FileTime.fromMillis(1000))
+        Files.setLastModifiedTime(cacheFile(cache, filename2), FileTime.fromMillis(2000))
+
+        cacheWithLimit.getExercise(filename3, parse)
+        assertFalse(Files.exists(cacheFile(cache, filename1)))
+        assertTrue(Files.exists(cacheFile(cache, filename2)))
+        assertTrue(Files.exists(cacheFile(cache, filename3)))
+    }
+
+    /**
+     * The positions of the samples must be stored, also when only some samples contain a position.
+     */
+    @Test
+    fun testGetExercisePartialPositions() {
+        val filename = createFile("exercise.gpx", "123")
+        val exercise = EVExercise(EVExercise.ExerciseFileType.GPX).apply {
+            sampleList.add(ExerciseSample(timestamp = 0, position = Position(51.1, 13.7)))
+            sampleList.add(ExerciseSample(timestamp = 1000))
+            sampleList.add(ExerciseSample(timestamp = 2000, position = Position(51.2, 13.8)))
+        }
+
+        PersistentExerciseCache(cacheDirectory).getExercise(filename) { exercise }
+        val cachedExercise = PersistentExerciseCache(cacheDirectory).getExercise(filename, parse)
+        assertEquals(exercise, cachedExercise)
+        assertTrue(parsedFiles.isEmpty())
+    }
+
+    private fun cacheFile(cache: PersistentExerciseCache, filename: String): Path =
+            cache.getCacheFile(Path.of(filename).toAbsolutePath().normalize().toString())
+
+    private fun createFile(name: String, content: String): String =
+            Files.writeString(tempDirectory.resolve(name), content).toString()
+}
@@ -1,21 +1,40 @@
 package de.saring.util.data
 
 import java.time.LocalDate
-import java.util.stream.Collectors
+import java.util.Collections
 
 /**
  * This list extends IdObjectList and contains unique entries of IdDateObject subclasses. It provides query methods for
  * getting entries in specific date ranges.
  *
+ * The date range queries are using an index of all entries sorted by date, so the matching entries can be found by a
+ * binary search. The index is created on the first query after each modification of the list.
+ *
  * @param <T> the object type to store in this list, must be a subclass of IdDateObject
  *
  * @author Stefan Saring
  */
 open class IdDateObjectList<T : IdDateObject> : IdObjectList<T>() {
 
+    /**
+     * Sorted keys of the date index, each key contains the epoch day of the entry in the upper 32 bits and the position
+     * of the entry in this list in the lower 32 bits. So entries of the same day are sorted by their list position.
+     */
+    private var dateIndexKeys = LongArray(0)
+
+    /**
+     * Entries of this list in the order of the date index keys.
+     */
+    private var dateIndexEntries = emptyList<T>()
+
+    /**
+     * Modification count of this list when the date index was created, -1 when there is no index yet.
+     */
+    private var dateIndexModificationCount = -1L
+
     /**
      * Returns all IdDateObject entries of this list for which their datetime is in the specified date range.
-     *
+     * The entries are in the order of this list. The returned list must not be modified.
      *
      * @param dStart start date of the time range (inclusive)
      * @param dEnd end date of the time range (inclusive)
@@ -27,8 +46,66 @@ open class IdDateObjectList<T : IdDateObject> : IdObjectList<T>() {
             throw IllegalArgumentException("Start date is after end date!")
         }
 
-        return stream()
-                .filter { !it.dateTime.toLocalDate().isBefore(dStart) && !it.dateTime.toLocalDate().isAfter(dEnd) }
-                .collect(Collectors.toList())
+        updateDateIndex()
+        val indexStart = findFirstIndexOfDay(dStart.toEpochDay())
+        val indexEnd = findFirstIndexOfDay(dEnd.toEpochDay() + 1)
+        if (indexStart >= indexEnd) {
+            return emptyList()
+        }
+
+        // entries of a single day are already sorted by list position, so a view of the index can be returned
+        val entriesInRange = dateIndexEntries.subList(indexStart, indexEnd)
+        if (dStart == dEnd) {
+            return Collections.unmodifiableList(entriesInRange)
+        }
+
+        // entries of multiple days need to be sorted by the list position
+        val positions = IntArray(indexEnd - indexStart) { positionOfKey(dateIndexKeys[indexStart + it]) }
+        positions.sort()
+        return positions.map { getAt(it) }
     }
+
+    /**
+     * Creates the date index when the list has been modified since the last creation.
+     */
+    private fun updateDateIndex() {
+        if (dateIndexModificationCount == modificationCount) {
+            return
+        }
+
+        val entries = stream().toList()
+        val keys = LongArray(entries.size) { (entries[it].dateTime.toLocalDate().toEpochDay() shl 32) or it.toLong() }
+        keys.sort()
+
+        dateIndexKeys = keys
+        dateIndexEntries = keys.map { entries[positionOfKey(it)] }
+        dateIndexModificationCount = modificationCount
+    }
+
+    /**
+     * Returns the index of the first date index key for the specified epoch day or later days.
+     */
+    private fun findFirstIndexOfDay(epochDay: Long): Int {
+        // the index supports only epoch days in the int range, this is sufficient for all realistic dates
+        if (epochDay > Int.MAX_VALUE) {
+            return dateIndexKeys.size
+        } else if (epochDay < Int.MIN_VALUE) {
+            return 0
+        }
+
+        val searchKey = epochDay shl 32
+        var low = 0
+        var high = dateIndexKeys.size
+        while (low < high) {
+            val middle = (low + high) ushr 1
+            if (dateIndexKeys[middle] < searchKey) {
+                low = middle + 1
+            } else {
+                high = middle
+            }
+        }
+        return low
+    }
+
+    private fun positionOfKey(key: Long): Int = (key and 0xFFFFFFFFL).toInt()
 }
@@ -1,11 +1,18 @@
 package de.saring.util.data
 
+import java.util.Spliterator
+import java.util.Spliterators
 import java.util.stream.Stream
+import java.util.stream.StreamSupport
 
 /**
  * This list contains unique instances of IdObject subclasses. It will never contain multiple instances with the same
  * ID. It also provides useful methods for getting and removing instances by ID or by their index.
  *
+ * The list contains an index of the list slots by the object IDs, so getting, storing and removing by ID does not
+ * need to search the list. Removed objects leave an empty slot, the list is compacted when the objects get accessed
+ * by their position the next time. So removing many objects needs to move the remaining objects only once.
+ *
  * @param <T> the object type to store in this list, must be a subclass of IdObject
  *
  * @author Stefan Saring
@@ -13,9 +20,32 @@ import java.util.stream.Stream
 open class IdObjectList<T : IdObject> : Iterable<T> {
 
     /**
-     * Generic list of subclasses of IdObject. Only subclasses can directly access this list.
+     * List of the stored IdObjects in the order of storing, removed objects are null until the next compaction.
+     */
+    private val idObjects = ArrayList<T?>()
+
+    /**
+     * Index of the slots in list idObjects by the object ID. Objects without an ID are not indexed.
+     */
+    private val slotIndex = LongIntHashMap()
+
+    /**
+     * Number of removed objects (empty slots) in list idObjects.
+     */
+    private var removedCount = 0
+
+    /**
+     * Modification counter of this list, it will be incremented on each change of the list content. It can be used
+     * for detecting outdated data derived from this list.
+     */
+    var modificationCount = 0L
+        private set
+
+    /**
+     * Counter of the structural modifications (objects added or removed), it's used by the iterators for detecting
+     * concurrent modifications. Replacing an object is not a structural modification.
      */
-    protected val idObjects = mutableListOf<T>()
+    private var structuralModificationCount = 0
 
     /**
      * Returns the IdObject with the specified ID.
@@ -24,10 +54,8 @@ open class IdObjectList<T : IdObject> : Iterable<T> {
      * @return the IdObject object or null
      */
     fun getByID(id: Long): T? {
-        return stream()
-                .filter { o -> o.id == id }
-                .findFirst()
-                .orElse(null)
+        val slot = slotIndex.get(id)
+        return if (slot == LongIntHashMap.MISSING) null else idObjects[slot]
     }
 
     /**
@@ -36,15 +64,19 @@ open class IdObjectList<T : IdObject> : Iterable<T> {
      * @param index the index of the IdObject
      * @return the IdObject
      */
-    fun getAt(index: Int): T = idObjects[index]
-  
+    fun getAt(index: Int): T = compactedIdObjects()[index]
+
     /**
      * Returns the index of the specified object in the list or -1 if it is not contained.
      *
      * @param t the object to lookup in the list
      * @return the index of the object or -1
      */
-    fun indexOf(t: T): Int = idObjects.indexOf(t)
+    fun indexOf(t: T): Int {
+        val objects = compactedIdObjects()
+        val slot = slotOf(t)
+        return if (slot >= 0 && objects[slot] == t) slot else -1
+    }
 
     /**
      * Checks whether the specified object is contained in list.
@@ -52,7 +84,10 @@ open class IdObjectList<T : IdObject> : Iterable<T> {
      * @param t the object to lookup in the list
      * @return true if the list contains the specified object
      */
-    fun contains(t: T): Boolean = idObjects.contains(t)
+    fun contains(t: T): Boolean {
+        val slot = slotOf(t)
+        return slot >= 0 && idObjects[slot] == t
+    }
 
     /**
      * Stores the specified IdObject in the list. If there is already an IDObject with that ID then the old object will
@@ -61,14 +96,17 @@ open class IdObjectList<T : IdObject> : Iterable<T> {
      * @param t the IdObject to store
      */
     fun set(t: T) {
+        modificationCount++
 
-        val index = idObjects.indexOf(t)
-        if (index >= 0) {
+        val slot = slotOf(t)
+        if (slot >= 0) {
             // replace old IdObject if there is one with the ID of the new one
-            this.idObjects[index] = t
+            this.idObjects[slot] = t
         } else {
             // the object has a new ID => add to end of list
+            structuralModificationCount++
             this.idObjects.add(t)
+            t.id?.let { slotIndex.put(it, idObjects.size - 1) }
         }
     }
 
@@ -79,8 +117,14 @@ open class IdObjectList<T : IdObject> : Iterable<T> {
      * @param entries list of IdObjects to store (must not be null, entries must not be null and all entries and must have a valid ID)
      */
     fun clearAndAddAll(entries: List<T>) {
+        modificationCount++
+        structuralModificationCount++
         idObjects.clear()
-        idObjects.addAll(entries)
+        slotIndex.clear()
+        removedCount = 0
+
+        idObjects.ensureCapacity(entries.size)
+        entries.forEach { set(it) }
     }
 
     /**
@@ -90,13 +134,20 @@ open class IdObjectList<T : IdObject> : Iterable<T> {
      * @return true on success
      */
     fun removeByID(id: Long): Boolean {
-        var removed = false
+        val slot = slotIndex.remove(id)
+        if (slot == LongIntHashMap.MISSING) {
+            return false
+        }
 
-        val idObject = getByID(id)
-        if (idObject != null) {
-            removed = this.idObjects.remove(idObject)
+        modificationCount++
+        structuralModificationCount++
+        if (slot == idObjects.size - 1) {
+            idObjects.removeAt(slot)
+        } else {
+            idObjects[slot] = null
+            removedCount++
         }
-        return removed
+        return true
     }
 
     /**
@@ -104,26 +155,104 @@ open class IdObjectList<T : IdObject> : Iterable<T> {
      *
      * @return the size of the list
      */
-    fun size(): Int = idObjects.size
+    fun size(): Int = idObjects.size - removedCount
 
     /**
-     * Returns an iterator over the list elements in proper sequence.
+     * Returns an iterator over the list elements in proper sequence. The iterator is fail-fast, it throws a
+     * ConcurrentModificationException when objects are added to or removed from the list while iterating.
      *
      * @return iterator over the list elements
      */
-    override fun iterator(): Iterator<T> = idObjects.iterator()
+    override fun iterator(): Iterator<T> = IdObjectIterator()
 
     /**
-     * Returns the Stream of the internal IdObject list for functional processing.
+     * Returns the Stream of the internal IdObject list for functional processing. The stream is fail-fast like the
+     * iterator.
      *
      * @return the Stream of the internal IdObject list
      */
-    fun stream(): Stream<T> = idObjects.stream()
+    fun stream(): Stream<T> =
+        StreamSupport.stream(Spliterators.spliterator(iterator(), size().toLong(), Spliterator.ORDERED), false)
 
     /**
      * Returns a string representation of this object.
      *
      * @return string with object content
      */
-    override fun toString(): String = "${this.javaClass.name}: size=${idObjects.size}"
+    override fun toString(): String = "${this.javaClass.name}: size=${size()}"
+
+    /**
+     * Returns the slot of the specified object in list idObjects or -1 when it's not contained. Objects without an ID
+     * are not indexed, they can only be found by identity.
+     */
+    private fun slotOf(t: T): Int {
+        val id = t.id
+        if (id != null) {
+            return slotIndex.get(id)
+        }
+
+        for (slot in idObjects.indices) {
+            if (idObjects[slot] === t) {
+                return slot
+            }
+        }
+        return -1
+    }
+
+    /**
+     * Removes the empty slots of removed objects from list idObjects and updates the slot index of all moved objects.
+     * The order of the remaining objects is not changed.
+     *
+     * @return the compacted list of IdObjects
+     */
+    private fun compactedIdObjects(): List<T> {
+        if (removedCount > 0) {
+            var targetSlot = 0
+            for (slot in idObjects.indices) {
+                val idObject = idObjects[slot]
+                if (idObject != null) {
+                    if (slot != targetSlot) {
+                        idObjects[targetSlot] = idObject
+                        idObject.id?.let { slotIndex.put(it, targetSlot) }
+                    }
+                    targetSlot++
+                }
+            }
+            idObjects.subList(targetSlot, idObjects.size).clear()
+            removedCount = 0
+        }
+
+        @Suppress("UNCHECKED_CAST")
+        return idObjects as List<T>
+    }
+
+    /**
+     * Iterator over the compacted list of IdObjects. Compacting moves the objects only when there are removed objects,
+     * which can't happen without a structural modification while iterating.
+     */
+    private inner class IdObjectIterator : Iterator<T> {
+
+        private val objects = compactedIdObjects()
+        private val expectedModificationCount = structuralModificationCount
+        private var nextIndex = 0
+
+        override fun hasNext(): Boolean {
+            checkForModification()
+            return nextIndex < objects.size
+        }
+
+        override fun next(): T {
+            checkForModification()
+            if (nextIndex >= objects.size) {
+                throw NoSuchElementException()
+            }
+            return objects[nextIndex++]
+        }
+
+        private fun checkForModification() {
+            if (structuralModificationCount != expectedModificationCount) {
+                throw ConcurrentModificationException()
+            }
+        }
+    }
 }
@@ -0,0 +1,153 @@
+package de.saring.util.data
+
+/**
+ * Simple hash map with primitive long keys and int values, it's used for indexing IdObjects by their ID without boxing.
+ * The map uses open addressing with linear probing, removed entries are deleted by backward shifting, so no tombstones
+ * are needed. The value -1 is returned for missing keys, so only values >= 0 must be stored.
+ *
+ * @author Stefan Saring
+ */
+internal class LongIntHashMap(expectedSize: Int = 16) {
+
+    private var keys = LongArray(0)
+    private var values = IntArray(0)
+    private var used = BooleanArray(0)
+    private var mask = 0
+
+    /** Number of stored entries. */
+    var size = 0
+        private set
+
+    init {
+        allocate(capacityFor(expectedSize))
+    }
+
+    /**
+     * Returns the value for the specified key or -1 when the key is not contained.
+     */
+    fun get(key: Long): Int {
+        var slot = slotOf(key)
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return values[slot]
+            }
+            slot = (slot + 1) and mask
+        }
+        return MISSING
+    }
+
+    /**
+     * Stores the value for the specified key, an existing value will be replaced.
+     */
+    fun put(key: Long, value: Int) {
+        var slot = slotOf(key)
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                values[slot] = value
+                return
+            }
+            slot = (slot + 1) and mask
+        }
+
+        used[slot] = true
+        keys[slot] = key
+        values[slot] = value
+        if (++size > maxFill()) {
+            rehash(keys.size * 2)
+        }
+    }
+
+    /**
+     * Removes the specified key and returns its value or -1 when the key was not contained.
+     */
+    fun remove(key: Long): Int {
+        var slot = slotOf(key)
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                val value = values[slot]
+                shiftEntriesBack(slot)
+                size--
+                return value
+            }
+            slot = (slot + 1) and mask
+        }
+        return MISSING
+    }
+
+    fun clear() {
+        used.fill(false)
+        size = 0
+    }
+
+    /**
+     * Removes the entry in the specified slot and moves the following entries of the probe sequence back, so all
+     * remaining entries can still be found.
+     */
+    private fun shiftEntriesBack(removedSlot: Int) {
+        var gap = removedSlot
+        var slot = (gap + 1) and mask
+        while (used[slot]) {
+            val idealSlot = slotOf(keys[slot])
+            // move the entry into the gap when its ideal slot is not between the gap and its current slot
+            val distanceToCurrent = (slot - idealSlot) and mask
+            val distanceToGap = (gap - idealSlot) and mask
+            if (distanceToGap <= distanceToCurrent) {
+                keys[gap] = keys[slot]
+                values[gap] = values[slot]
+                gap = slot
+            }
+            slot = (slot + 1) and mask
+        }
+        used[gap] = false
+    }
+
+    private fun rehash(newCapacity: Int) {
+        val oldKeys = keys
+        val oldValues = values
+        val oldUsed = used
+        allocate(newCapacity)
+
+        for (i in oldKeys.indices) {
+            if (oldUsed[i]) {
+                var slot = slotOf(oldKeys[i])
+                while (used[slot]) {
+                    slot = (slot + 1) and mask
+                }
+                used[slot] = true
+                keys[slot] = oldKeys[i]
+                values[slot] = oldValues[i]
+            }
+        }
+    }
+
+    private fun allocate(capacity: Int) {
+        keys = LongArray(capacity)
+        values = IntArray(capacity)
+        used = BooleanArray(capacity)
+        mask = capacity - 1
+    }
+
+    private fun maxFill(): Int = (keys.size * LOAD_FACTOR).toInt()
+
+    private fun slotOf(key: Long): Int {
+        // spread the bits of the key (IDs are mostly sequential) by Fibonacci hashing with the golden ratio
+        var h = key * -0x61c8864680b583ebL
+        h = h xor (h ushr 32)
+        return h.toInt() and mask
+    }
+
+    companion object {
+        /** Value returned for missing keys. */
+        const val MISSING = -1
+
+        private const val LOAD_FACTOR = 0.6
+
+        private fun capacityFor(expectedSize: Int): Int {
+            var capacity = 16
+            while (capacity * LOAD_FACTOR < expectedSize) {
+                capacity *= 2
+            }
+            return capacity
+        }
+    }
+}
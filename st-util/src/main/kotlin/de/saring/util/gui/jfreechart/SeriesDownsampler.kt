@@ -0,0 +1,153 @@
+package de.saring.util.gui.jfreechart
+
+import org.jfree.chart.axis.ValueAxis
+import java.util.BitSet
+
+/**
+ * Downsampler for large chart series, it selects the indices of the data points to be displayed. The X range is
+ * divided into the specified number of buckets (usually the plot width in pixels), for each bucket only the points
+ * with the minimum and maximum Y values are selected. So the series contains about 2 points per pixel, but all peaks
+ * are still visible. The first and last points are always selected.
+ *
+ * When the user zooms into the chart, the points of the visible X range are selected again at full resolution, the
+ * points outside of this range are taken from the overview selection.
+ *
+ * @property xValues the X values of all points (can be unsorted, but usually they are ascending)
+ * @property yValues the arrays of Y values of all series sharing these X values (missing values must be NaN)
+ * @property bucketCount number of buckets for the X range (plot width in pixels)
+ *
+ * @author Stefan Saring
+ */
+class SeriesDownsampler(
+        private val xValues: DoubleArray,
+        private val yValues: List<DoubleArray>,
+        private val bucketCount: Int) {
+
+    private val xMin = xValues.minOrNull() ?: 0.0
+    private val xMax = xValues.maxOrNull() ?: 0.0
+
+    /** The indices of the selected points for displaying the complete X range. */
+    val overviewIndices: IntArray by lazy { selectIndices(0, xValues.size) }
+
+    /**
+     * Returns the indices of the points to be displayed for the specified visible X range. The points inside of
+     * this range (and the adjacent points) are selected at full resolution, the other points from the overview.
+     *
+     * @param lower lower bound of the visible X range
+     * @param upper upper bound of the visible X range
+     * @return the sorted indices of the points to display
+     */
+    fun getIndicesForRange(lower: Double, upper: Double): IntArray {
+        if (lower <= xMin && upper >= xMax) {
+            return overviewIndices
+        }
+
+        var firstIndex = -1
+        var lastIndex = -1
+        for (index in xValues.indices) {
+            if (xValues[index] in lower..upper) {
+                if (firstIndex < 0) {
+                    firstIndex = index
+                }
+                lastIndex = index
+            }
+        }
+        if (firstIndex < 0) {
+            return overviewIndices
+        }
+
+        // include the adjacent points, so the lines are continued to the plot borders
+        val fromIndex = maxOf(firstIndex - 1, 0)
+        val toIndex = minOf(lastIndex + 2, xValues.size)
+        val rangeIndices = selectIndices(fromIndex, toIndex)
+
+        val overviewBefore = overviewIndices.filter { it < fromIndex }
+        val overviewAfter = overviewIndices.filter { it >= toIndex }
+        return (overviewBefore + rangeIndices.asList() + overviewAfter).toIntArray()
+    }
+
+    /**
+     * Registers a listener at the specified domain axis, which selects the displayed points again whenever the
+     * visible range of the axis has changed (e.g. on zooming).
+     *
+     * @param domainAxis the domain axis of the chart plot
+     * @param fillSeries function which fills the chart series with the points of the passed indices
+     */
+    fun addZoomListener(domainAxis: ValueAxis, fillSeries: (IntArray) -> Unit) {
+        var displayedIndices = overviewIndices
+
+        domainAxis.addChangeListener {
+            val range = domainAxis.range
+            val indices = getIndicesForRange(range.lowerBound, range.upperBound)
+            if (!indices.contentEquals(displayedIndices)) {
+                displayedIndices = indices
+                fillSeries(indices)
+            }
+        }
+    }
+
+    private fun selectIndices(fromIndex: Int, toIndex: Int): IntArray {
+        val pointCount = toIndex - fromIndex
+        if (pointCount <= 2 * bucketCount) {
+            return IntArray(pointCount) { fromIndex + it }
+        }
+
+        var xStart = xValues[fromIndex]
+        var xEnd = xValues[fromIndex]
+        for (index in fromIndex + 1 until toIndex) {
+            xStart = minOf(xStart, xValues[index])
+            xEnd = maxOf(xEnd, xValues[index])
+        }
+        val xWidth = xEnd - xStart
+
+        val selected = BitSet(xValues.size)
+        selected.set(fromIndex)
+        selected.set(toIndex - 1)
+
+        for (values in yValues) {
+            var currentBucket = -1
+            var minIndex = -1
+            var maxIndex = -1
+            var missingIndex = -1
+
+            for (index in fromIndex until toIndex) {
+                // use buckets of equal index ranges, when all X values are equal
+                val bucket = if (xWidth > 0) ((xValues[index] - xStart) / xWidth * bucketCount).toInt()
+                        else ((index - fromIndex).toLong() * bucketCount / pointCount).toInt()
+
+                if (bucket != currentBucket) {
+                    selectBucketIndices(selected, minIndex, maxIndex, missingIndex)
+                    currentBucket = bucket
+                    minIndex = -1
+                    maxIndex = -1
+                    missingIndex = -1
+                }
+
+                val value = values[index]
+                if (value.isNaN()) {
+                    // keep one missing value per bucket, so gaps in the series are still visible
+                    if (missingIndex < 0) {
+                        missingIndex = index
+                    }
+                } else {
+                    if (minIndex < 0 || value < values[minIndex]) {
+                        minIndex = index
+                    }
+                    if (maxIndex < 0 || value > values[maxIndex]) {
+                        maxIndex = index
+                    }
+                }
+            }
+            selectBucketIndices(selected, minIndex, maxIndex, missingIndex)
+        }
+        return selected.stream().toArray()
+    }
+
+    private fun selectBucketIndices(selected: BitSet, vararg indices: Int) {
+        for (index in indices) {
+            if (index >= 0) {
+                selected.set(index)
+            }
+        }
+    }
+}
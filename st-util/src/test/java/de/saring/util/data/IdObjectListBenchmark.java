@@ -0,0 +1,170 @@
+package de.saring.util.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH micro benchmark which compares the ID index based IdObjectList with the previous implementation, which was
+ * searching the list linearly for all ID based operations. Each benchmark operation executes a batch of lookups,
+ * replacements or removals with random IDs. The linear implementation is much slower for the largest list sizes,
+ * so a run with all sizes takes some minutes.
+ *
+ * @author Stefan Saring
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdObjectListBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"10000", "100000", "1000000"})
+    private int size;
+
+    private IdObjectList<BenchmarkObject> indexedList;
+    private LinearIdObjectList linearList;
+    private long[] batchIds;
+
+    @Setup
+    public void setUp() {
+        final List<BenchmarkObject> objects = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            objects.add(new BenchmarkObject(id));
+        }
+
+        indexedList = new IdObjectList<>();
+        indexedList.clearAndAddAll(objects);
+        linearList = new LinearIdObjectList(objects);
+
+        final Random random = new Random(42);
+        batchIds = random.longs(BATCH_SIZE, 1, size + 1).toArray();
+    }
+
+    @Benchmark
+    public void getByIdIndexed(final Blackhole blackhole) {
+        for (long id : batchIds) {
+            blackhole.consume(indexedList.getByID(id));
+        }
+    }
+
+    @Benchmark
+    public void getByIdLinear(final Blackhole blackhole) {
+        for (long id : batchIds) {
+            blackhole.consume(linearList.getByID(id));
+        }
+    }
+
+    @Benchmark
+    public void setExistingIndexed() {
+        for (long id : batchIds) {
+            indexedList.set(new BenchmarkObject(id));
+        }
+    }
+
+    @Benchmark
+    public void setExistingLinear() {
+        for (long id : batchIds) {
+            linearList.set(new BenchmarkObject(id));
+        }
+    }
+
+    /**
+     * Removes a batch of objects (like a multi-selection delete) and adds them again, so the list size is constant.
+     */
+    @Benchmark
+    public void removeAndAddIndexed(final Blackhole blackhole) {
+        for (long id : batchIds) {
+            indexedList.removeByID(id);
+        }
+        blackhole.consume(indexedList.getAt(0));
+        for (long id : batchIds) {
+            indexedList.set(new BenchmarkObject(id));
+        }
+    }
+
+    /**
+     * Removes a batch of objects (like a multi-selection delete) and adds them again, so the list size is constant.
+     */
+    @Benchmark
+    public void removeAndAddLinear(final Blackhole blackhole) {
+        for (long id : batchIds) {
+            linearList.removeByID(id);
+        }
+        blackhole.consume(linearList.getAt(0));
+        for (long id : batchIds) {
+            linearList.set(new BenchmarkObject(id));
+        }
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(IdObjectListBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    /**
+     * Subclass of abstract class IdObject for benchmarking.
+     */
+    static final class BenchmarkObject extends IdObject {
+
+        BenchmarkObject(final long id) {
+            super(id);
+        }
+    }
+
+    /**
+     * Copy of the previous IdObjectList implementation without ID index for comparison.
+     */
+    private static final class LinearIdObjectList {
+
+        private final List<BenchmarkObject> idObjects;
+
+        LinearIdObjectList(final List<BenchmarkObject> objects) {
+            this.idObjects = new ArrayList<>(objects);
+        }
+
+        BenchmarkObject getByID(final long id) {
+            return idObjects.stream()
+                    .filter(o -> o.getId() == id)
+                    .findFirst()
+                    .orElse(null);
+        }
+
+        BenchmarkObject getAt(final int index) {
+            return idObjects.get(index);
+        }
+
+        void set(final BenchmarkObject t) {
+            final int index = idObjects.indexOf(t);
+            if (index >= 0) {
+                idObjects.set(index, t);
+            } else {
+                idObjects.add(t);
+            }
+        }
+
+        boolean removeByID(final long id) {
+            final BenchmarkObject idObject = getByID(id);
+            return idObject != null && idObjects.remove(idObject);
+        }
+    }
+}
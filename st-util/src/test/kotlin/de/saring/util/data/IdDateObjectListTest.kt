@@ -64,6 +64,40 @@ class IdDateObjectListTest {
         }
     }
 
+    /**
+     * Test of getEntriesInDateRange(): must find all entries of a single day in the list order.
+     */
+    @Test
+    fun testGetEntriesInDateRangeSingleDay() {
+        list.set(DateNameObject(4, LocalDateTime.of(2009, 2, 7, 8, 0, 0), "four"))
+        list.set(DateNameObject(5, LocalDateTime.of(2009, 2, 8, 8, 0, 0), "five"))
+
+        val lFound = list.getEntriesInDateRange(LocalDate.of(2009, 2, 7), LocalDate.of(2009, 2, 7))
+        assertEquals(listOf("three", "four"), lFound.map { it.name })
+
+        assertTrue(list.getEntriesInDateRange(LocalDate.of(2009, 2, 6), LocalDate.of(2009, 2, 6)).isEmpty())
+        assertTrue(list.getEntriesInDateRange(LocalDate.of(2000, 1, 1), LocalDate.of(2000, 1, 1)).isEmpty())
+        assertTrue(list.getEntriesInDateRange(LocalDate.of(2020, 1, 1), LocalDate.MAX).isEmpty())
+    }
+
+    /**
+     * Test of getEntriesInDateRange(): the result must reflect all modifications of the list after the previous query.
+     */
+    @Test
+    fun testGetEntriesInDateRangeAfterModification() {
+        val dStart = LocalDate.of(2009, 1, 1)
+        val dEnd = LocalDate.of(2009, 12, 31)
+        assertEquals(listOf("one", "three"), list.getEntriesInDateRange(dStart, dEnd).map { it.name })
+
+        list.set(DateNameObject(2, LocalDateTime.of(2009, 3, 1, 10, 0, 0), "two"))
+        list.removeByID(1)
+        list.set(DateNameObject(6, LocalDateTime.of(2009, 1, 1, 0, 0, 0), "six"))
+        assertEquals(listOf("two", "three", "six"), list.getEntriesInDateRange(dStart, dEnd).map { it.name })
+
+        list.clearAndAddAll(listOf())
+        assertTrue(list.getEntriesInDateRange(dStart, dEnd).isEmpty())
+    }
+
     /**
      * Subclass of abstract class IdDateObject for testing.
      */
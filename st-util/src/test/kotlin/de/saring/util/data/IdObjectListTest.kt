@@ -114,8 +114,108 @@ class IdObjectListTest {
         assertEquals(2, list.size())
     }
 
+    /**
+     * Test of removeByID method: the remaining objects must keep their order and positions after removing objects
+     * in the middle of the list, the index of the IDs must be valid.
+     */
+    @Test
+    fun removeByIDKeepsOrder() {
+        list.set(NameObject(4, "four"))
+        list.set(NameObject(5, "five"))
+
+        assertTrue(list.removeByID(2))
+        assertTrue(list.removeByID(4))
+        assertEquals(3, list.size())
+        assertEquals("three", list.getByID(3)?.name)
+
+        assertEquals(listOf("one", "three", "five"), list.map { it.name })
+        assertEquals(1, list.indexOf(NameObject(3, "three")))
+        assertEquals(2, list.indexOf(NameObject(5, "five")))
+        assertEquals("five", list.getAt(2).name)
+
+        // a new object with a removed ID needs to be added to the end of the list
+        list.set(NameObject(2, "zwei"))
+        assertEquals(listOf("one", "three", "five", "zwei"), list.stream().map { it.name }.toList())
+        assertEquals(3, list.indexOf(NameObject(2, "zwei")))
+    }
+
+    /**
+     * Test of set method for objects without an ID: they are not indexed, but must be stored and found by identity.
+     */
+    @Test
+    fun setWithoutID() {
+        val noId1 = NameObject(null, "noId1")
+        val noId2 = NameObject(null, "noId2")
+        list.set(noId1)
+        list.set(noId2)
+        list.set(noId1)
+
+        assertEquals(5, list.size())
+        assertEquals(3, list.indexOf(noId1))
+        assertEquals(4, list.indexOf(noId2))
+        assertFalse(list.contains(NameObject(null, "noId1")))
+    }
+
+    /**
+     * Test of getByID, set and removeByID for a large list with many removals, the index must stay consistent.
+     */
+    @Test
+    fun largeListWithRemovals() {
+        list.clearAndAddAll((1L..10000L).map { NameObject(it, "name$it") })
+
+        (2L..10000L step 2).forEach { assertTrue(list.removeByID(it)) }
+        assertEquals(5000, list.size())
+        assertEquals("name5001", list.getAt(2500).name)
+
+        (1L..10000L).forEach {
+            if (it % 2 == 0L) {
+                assertNull(list.getByID(it))
+            } else {
+                assertEquals("name$it", list.getByID(it)?.name)
+            }
+        }
+    }
+
+    /**
+     * Test of iterator method: removing an object while iterating must throw a ConcurrentModificationException,
+     * also when the removed object leaves an empty slot in the middle of the list.
+     */
+    @Test
+    fun iteratorFailFastOnRemove() {
+        val iterator = list.iterator()
+        assertEquals("one", iterator.next().name)
+
+        list.removeByID(2)
+        assertThrows(ConcurrentModificationException::class.java) { iterator.next() }
+        assertThrows(ConcurrentModificationException::class.java) {
+            list.forEach { if (it.id == 1L) list.removeByID(3) }
+        }
+        assertThrows(ConcurrentModificationException::class.java) {
+            list.stream().forEach { list.set(NameObject(4, "four")) }
+        }
+    }
+
+    /**
+     * Test of iterator method: the iteration must skip the slots of removed objects, replacing objects while
+     * iterating is allowed.
+     */
+    @Test
+    fun iteratorAfterRemove() {
+        list.set(NameObject(4, "four"))
+        list.removeByID(2)
+
+        val names = mutableListOf<String>()
+        list.forEach {
+            names.add(it.name)
+            list.set(NameObject(it.id, it.name.uppercase()))
+        }
+        assertEquals(listOf("one", "three", "four"), names)
+        assertEquals(listOf("ONE", "THREE", "FOUR"), list.map { it.name })
+        assertThrows(NoSuchElementException::class.java) { list.iterator().apply { repeat(3) { next() } }.next() }
+    }
+
     /**
      * Subclass of abstract class IdObject for testing.
      */
-    internal class NameObject(id: Long, val name: String) : IdObject(id)
+    internal class NameObject(id: Long?, val name: String) : IdObject(id)
 }
@@ -0,0 +1,59 @@
+package de.saring.util.data
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+
+/**
+ * Unit tests of class LongIntHashMap.
+ *
+ * @author Stefan Saring
+ */
+class LongIntHashMapTest {
+
+    private val map = LongIntHashMap()
+
+    /**
+     * Test of put and get, existing values must be replaced.
+     */
+    @Test
+    fun putAndGet() {
+        map.put(1, 10)
+        map.put(Long.MAX_VALUE, 20)
+        map.put(-5, 30)
+        map.put(1, 11)
+
+        assertEquals(3, map.size)
+        assertEquals(11, map.get(1))
+        assertEquals(20, map.get(Long.MAX_VALUE))
+        assertEquals(30, map.get(-5))
+        assertEquals(LongIntHashMap.MISSING, map.get(2))
+    }
+
+    /**
+     * Test of remove, all other entries must be found after removal, also after growing the map.
+     */
+    @Test
+    fun removeAndGrow() {
+        (0L until 100_000L).forEach { map.put(it * 7, it.toInt()) }
+        (0L until 100_000L step 3).forEach { assertEquals(it.toInt(), map.remove(it * 7)) }
+        assertEquals(LongIntHashMap.MISSING, map.remove(3))
+
+        assertEquals(66_666, map.size)
+        (0L until 100_000L).forEach {
+            val expected = if (it % 3 == 0L) LongIntHashMap.MISSING else it.toInt()
+            assertEquals(expected, map.get(it * 7))
+        }
+    }
+
+    /**
+     * Test of clear, the map must be empty afterwards.
+     */
+    @Test
+    fun clear() {
+        map.put(1, 1)
+        map.clear()
+
+        assertEquals(0, map.size)
+        assertEquals(LongIntHashMap.MISSING, map.get(1))
+    }
+}
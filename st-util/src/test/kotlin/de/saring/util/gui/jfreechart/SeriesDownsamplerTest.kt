@@ -0,0 +1,85 @@
+package de.saring.util.gui.jfreechart
+
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import java.util.Random
+
+/**
+ * This class contains all unit tests for the SeriesDownsampler class.
+ *
+ * @author Stefan Saring
+ */
+class SeriesDownsamplerTest {
+
+    private val random = Random(42)
+    private val xValues = DoubleArray(36000) { it.toDouble() }
+    private val yValues = DoubleArray(xValues.size) { 100 + random.nextGaussian() * 10 }
+
+    /**
+     * Small series must not be downsampled.
+     */
+    @Test
+    fun testOverviewSmallSeries() {
+        val downsampler = SeriesDownsampler(doubleArrayOf(1.0, 2.0, 3.0), listOf(doubleArrayOf(5.0, 6.0, 7.0)), 2)
+        assertArrayEquals(intArrayOf(0, 1, 2), downsampler.overviewIndices)
+    }
+
+    /**
+     * The overview must contain about 2 points per bucket, including the first and last point and all peaks.
+     */
+    @Test
+    fun testOverview() {
+        yValues[12345] = 500.0
+        yValues[23456] = -200.0
+        val downsampler = SeriesDownsampler(xValues, listOf(yValues), 1000)
+        val indices = downsampler.overviewIndices
+
+        assertTrue(indices.size in 1000..2002)
+        assertEquals(0, indices.first())
+        assertEquals(xValues.size - 1, indices.last())
+        assertTrue(indices.contains(12345))
+        assertTrue(indices.contains(23456))
+
+        // each bucket must contain its minimum and maximum value
+        val buckets = xValues.indices.groupBy { (xValues[it] / xValues.last() * 1000).toInt() }
+        for (bucketIndices in buckets.values) {
+            assertTrue(indices.contains(bucketIndices.minByOrNull { yValues[it] }!!))
+            assertTrue(indices.contains(bucketIndices.maxByOrNull { yValues[it] }!!))
+        }
+    }
+
+    /**
+     * The gaps of missing values must be kept, the selected points of multiple series are merged.
+     */
+    @Test
+    fun testOverviewMissingValuesAndMultipleSeries() {
+        val yValuesWithGap = yValues.copyOf()
+        yValuesWithGap.fill(Double.NaN, 1000, 2000)
+        val yValuesOther = DoubleArray(xValues.size) { random.nextDouble() }
+
+        val downsampler = SeriesDownsampler(xValues, listOf(yValuesWithGap, yValuesOther), 100)
+        val indices = downsampler.overviewIndices
+
+        assertTrue(indices.any { it in 1000 until 2000 })
+        assertTrue(indices.contains(yValuesOther.indices.maxByOrNull { yValuesOther[it] }!!))
+        assertTrue(indices.size <= 2 * (3 * 100 + 2))
+    }
+
+    /**
+     * The zoomed range must be displayed at full resolution, outside of the range the overview points are used.
+     */
+    @Test
+    fun testGetIndicesForRange() {
+        val downsampler = SeriesDownsampler(xValues, listOf(yValues), 1000)
+        assertSame(downsampler.overviewIndices, downsampler.getIndicesForRange(-1.0, 40000.0))
+
+        val indices = downsampler.getIndicesForRange(10000.0, 11000.0)
+        assertEquals((9999..11001).toList(), indices.filter { it in 9999..11001 })
+        assertEquals(downsampler.overviewIndices.filter { it < 9999 || it > 11001 },
+                indices.filter { it < 9999 || it > 11001 })
+        assertTrue(indices.asList().zipWithNext().all { (a, b) -> a < b })
+    }
+}